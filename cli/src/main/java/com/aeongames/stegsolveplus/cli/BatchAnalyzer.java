@@ -0,0 +1,505 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.cli;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.AnalysisReport;
+import com.aeongames.stegsolveplus.StegnoTools.HeapBudget;
+import com.aeongames.stegsolveplus.StegnoTools.PNGEncoder;
+import com.aeongames.stegsolveplus.StegnoTools.ResultExporter;
+import com.aeongames.stegsolveplus.StegnoTools.ScoredResult;
+import com.aeongames.stegsolveplus.StegnoTools.SignatureCarver;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import com.aeongames.stegsolveplus.StegnoTools.StringScanner;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * runs the analysis over files or folders with no UI. (works with
+ * {@code java.awt.headless=true}) for each image it writes the
+ * transformations as PNG, the carved signatures and the strings as CSV (and
+ * optionally the bit streams) into a folder of its own. with the events of
+ * the analysis as JSON lines ({@code report.ndjson}) and its summary
+ * ({@code summary.json}, see {@link AnalysisReport}) and a report of all the
+ * files ({@code report.csv}, {@code scores.csv} and a summary per line on
+ * {@code summary.ndjson}) on the output folder.
+ * <br>
+ * a few files are analyzed at once. (see {@code --jobs}) each one is admitted
+ * only when its estimated heap (from the size of the image, read without
+ * decoding it) fits on the budget. so a folder of large images waits instead
+ * of running out of memory. the transformations are written as they are done
+ * and let go. (see {@link StegnoAnalyzer#transform})
+ * <br>
+ * the exit code is {@value #EXIT_OK} if all the files were analyzed,
+ * {@value #EXIT_FAILURES} if any failed, {@value #EXIT_USAGE} if the
+ * arguments are wrong and {@value #EXIT_NO_INPUT} if there was no image to
+ * analyze.
+ *
+ * @author Eduardo Vindas
+ */
+public final class BatchAnalyzer {
+
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_FAILURES = 1;
+    public static final int EXIT_USAGE = 2;
+    public static final int EXIT_NO_INPUT = 3;
+    /**
+     * the part of the max heap the analyses can take.
+     */
+    private static final double HEAP_BUDGET = 0.6;
+    private static final String USAGE = """
+            usage: BatchAnalyzer [options] <file or folder>...
+              -o, --output <folder>  where to write the results (default stegsolve-out)
+              -j, --jobs <n>         the files analyzed at once (default 2)
+              -r, --recursive        looks for images on the sub folders
+              --level <0-9>          the deflate level of the PNG files (default 1)
+              --no-images            does not write the transformations
+              --streams              writes the bit streams as binary files
+              --skip-carving         does not look for embedded files
+              --skip-strings         does not look for strings
+              --flag <regex>         a flag pattern to look for besides the defaults (can repeat)
+              --flags-file <file>    the flag patterns on a file. one per line, # for comments
+              -v, --verbose          logs the progress of the analysis
+              -h, --help             prints this help
+            """;
+    private static final Logger loger = LoggingHelper.getLogger(BatchAnalyzer.class.getName());
+    /**
+     * held so the level set stays. (the loggers are weakly referenced)
+     */
+    private static final Logger RootLogger = Logger.getLogger("com.aeongames");
+
+    /**
+     * the arguments.
+     */
+    record Options(List<Path> Inputs, Path Output, int Jobs, boolean Recursive, int Level,
+            boolean Images, boolean Streams, boolean Carving, boolean Strings, List<Pattern> Flags, boolean Verbose) {
+
+        static Options parse(String[] Args) {
+            var inputs = new ArrayList<Path>();
+            Path output = Path.of("stegsolve-out");
+            int jobs = 2, level = ResultExporter.FAST_LEVEL;
+            boolean recursive = false, images = true, streams = false, carving = true, strings = true, verbose = false;
+            var flags = new ArrayList<Pattern>(StringScanner.DEFAULT_FLAGS);
+            for (int i = 0; i < Args.length; i++) {
+                var arg = Args[i];
+                switch (arg) {
+                    case "-o", "--output" ->
+                        output = Path.of(value(Args, ++i, arg));
+                    case "-j", "--jobs" ->
+                        jobs = number(value(Args, ++i, arg), arg, 1, 256);
+                    case "--level" ->
+                        level = number(value(Args, ++i, arg), arg, 0, 9);
+                    case "-r", "--recursive" ->
+                        recursive = true;
+                    case "--no-images" ->
+                        images = false;
+                    case "--streams" ->
+                        streams = true;
+                    case "--skip-carving" ->
+                        carving = false;
+                    case "--skip-strings" ->
+                        strings = false;
+                    case "--flag" ->
+                        flags.add(pattern(value(Args, ++i, arg), arg));
+                    case "--flags-file" -> {
+                        var file = value(Args, ++i, arg);
+                        try {
+                            flags.addAll(StringScanner.readFlags(Path.of(file)));
+                        } catch (IOException ex) {
+                            throw new IllegalArgumentException(String.format("unable to read %s: %s", file, ex.getMessage()));
+                        } catch (PatternSyntaxException ex) {
+                            throw new IllegalArgumentException(String.format("%s has a invalid pattern: %s", file, ex.getMessage()));
+                        }
+                    }
+                    case "-v", "--verbose" ->
+                        verbose = true;
+                    default -> {
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException(String.format("unknown option %s", arg));
+                        }
+                        inputs.add(Path.of(arg));
+                    }
+                }
+            }
+            if (inputs.isEmpty()) {
+                throw new IllegalArgumentException("no file or folder to analyze");
+            }
+            return new Options(List.copyOf(inputs), output, jobs, recursive, level, images, streams, carving, strings, List.copyOf(flags), verbose);
+        }
+
+        private static String value(String[] Args, int Index, String Option) {
+            if (Index >= Args.length) {
+                throw new IllegalArgumentException(String.format("%s requires a value", Option));
+            }
+            return Args[Index];
+        }
+
+        private static Pattern pattern(String Value, String Option) {
+            try {
+                return Pattern.compile(Value);
+            } catch (PatternSyntaxException ex) {
+                throw new IllegalArgumentException(String.format("%s is not a valid pattern: %s", Option, ex.getMessage()));
+            }
+        }
+
+        private static int number(String Value, String Option, int Min, int Max) {
+            try {
+                var number = Integer.parseInt(Value);
+                if (number >= Min && number <= Max) {
+                    return number;
+                }
+            } catch (NumberFormatException ex) {
+            }
+            throw new IllegalArgumentException(String.format("%s must be a number from %d to %d", Option, Min, Max));
+        }
+    }
+
+    /**
+     * the outcome of a file. a line of the report.
+     */
+    record FileReport(Path File, boolean Analyzed, int Width, int Height, String Strategy, int Frames,
+            int Transforms, String Top, double TopScore, int Carved, int Strings, long Millis, String Error) {
+
+        static FileReport failed(Path File, long Millis, Throwable Error) {
+            var message = Error.getMessage() == null ? Error.getClass().getSimpleName() : Error.getMessage();
+            return new FileReport(File, false, 0, 0, "", 0, 0, "", 0, 0, 0, Millis, message);
+        }
+    }
+
+    /**
+     * the score of a transformation. a line of {@code scores.csv}
+     */
+    record ScoreLine(Path File, String Name, double Score, double Structure, double Entropy, double Similarity) {
+
+    }
+
+    private final Options Settings;
+    private final HeapBudget Budget;
+    private final PrintStream Console;
+    private final List<ScoreLine> Scores = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * the summary of each file. a line of {@code summary.ndjson}
+     */
+    private Writer Summaries;
+
+    BatchAnalyzer(Options Settings, PrintStream Console) {
+        this.Settings = Settings;
+        this.Console = Console;
+        Budget = new HeapBudget(HEAP_BUDGET);
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.err));
+    }
+
+    /**
+     * runs the analysis.
+     *
+     * @param Args the arguments. (see the usage)
+     * @param Console where the progress and the errors are printed
+     * @return the exit code.
+     */
+    public static int run(String[] Args, PrintStream Console) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        for (var arg : Args) {
+            if (arg.equals("-h") || arg.equals("--help")) {
+                Console.print(USAGE);
+                return EXIT_OK;
+            }
+        }
+        Options settings;
+        try {
+            settings = Options.parse(Args);
+        } catch (IllegalArgumentException ex) {
+            Console.println(ex.getMessage());
+            Console.print(USAGE);
+            return EXIT_USAGE;
+        }
+        RootLogger.setLevel(settings.Verbose() ? Level.INFO : Level.WARNING);
+        try {
+            return new BatchAnalyzer(settings, Console).analyze();
+        } catch (IOException ex) {
+            Console.println(String.format("unable to run the analysis: %s", ex.getMessage()));
+            loger.log(Level.SEVERE, "unable to run the analysis", ex);
+            return EXIT_FAILURES;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return EXIT_FAILURES;
+        }
+    }
+
+    private int analyze() throws IOException, InterruptedException {
+        var files = collect();
+        if (files.isEmpty()) {
+            Console.println("no image to analyze");
+            return EXIT_NO_INPUT;
+        }
+        Files.createDirectories(Settings.Output());
+        final int digits = Integer.toString(files.size()).length();
+        final var done = new AtomicInteger();
+        final var pool = Executors.newFixedThreadPool(Math.min(Settings.Jobs(), files.size()), run -> {
+            var thread = new Thread(run, "BatchAnalyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var reports = new ArrayList<FileReport>(files.size());
+        try (var summaries = Files.newBufferedWriter(Settings.Output().resolve("summary.ndjson"), StandardCharsets.UTF_8)) {
+            Summaries = summaries;
+            var futures = new ArrayList<Future<FileReport>>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                final var file = files.get(i);
+                final var folder = Settings.Output().resolve(String.format("%0" + digits + "d_%s", i + 1, file.getFileName()));
+                futures.add(pool.submit(() -> {
+                    var report = admit(file, folder);
+                    Console.println(String.format("[%d/%d] %s: %s", done.incrementAndGet(), files.size(), file,
+                            report.Analyzed() ? String.format("%d results in %,d ms", report.Transforms(), report.Millis()) : report.Error()));
+                    return report;
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    reports.add(futures.get(i).get());
+                } catch (ExecutionException ex) {
+                    reports.add(FileReport.failed(files.get(i), 0, ex.getCause()));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        writeReport(reports);
+        var failed = reports.stream().filter(report -> !report.Analyzed()).count();
+        Console.println(String.format("%d files analyzed, %d failed. report at %s", reports.size() - failed, failed,
+                Settings.Output().resolve("report.csv")));
+        return failed == 0 ? EXIT_OK : EXIT_FAILURES;
+    }
+
+    /**
+     * @return the images to analyze. (sorted, without repeats)
+     * @throws IOException if a folder cannot be read.
+     */
+    private List<Path> collect() throws IOException {
+        Set<Path> files = new TreeSet<>();
+        for (var input : Settings.Inputs()) {
+            if (Files.isDirectory(input)) {
+                try (Stream<Path> walk = Settings.Recursive() ? Files.walk(input) : Files.list(input)) {
+                    walk.filter(Files::isRegularFile).filter(BatchAnalyzer::isImage).forEach(file -> files.add(file.normalize()));
+                }
+            } else if (Files.isRegularFile(input)) {
+                //a file given by name is analyzed even if the extension is not known
+                files.add(input.normalize());
+            } else {
+                Console.println(String.format("skipping %s: not found", input));
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static boolean isImage(Path File) {
+        var name = File.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (var extension : StegnoAnalyzer.ValidImagesFiles) {
+            if (name.endsWith("." + extension.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * waits until the estimated heap of the file fits on the budget and then
+     * analyzes it.
+     */
+    private FileReport admit(Path File, Path Folder) throws InterruptedException {
+        final int permits = Budget.estimateMB(File);
+        Budget.acquire(permits);
+        try {
+            return analyze(File, Folder);
+        } finally {
+            Budget.release(permits);
+        }
+    }
+
+    /**
+     * analyzes the file. the events are written to {@code report.ndjson} as
+     * they happen and the summary once done. (see {@link AnalysisReport})
+     */
+    private FileReport analyze(Path File, Path Folder) {
+        final long start = System.nanoTime();
+        try {
+            Files.createDirectories(Folder);
+            try (var lines = Files.newBufferedWriter(Folder.resolve("report.ndjson"), StandardCharsets.UTF_8)) {
+                var report = new AnalysisReport(lines, false);
+                var outcome = analyze(File, Folder, report, start);
+                writeSummary(report, Folder);
+                return outcome;
+            }
+        } catch (IOException ex) {
+            loger.log(Level.SEVERE, String.format("unable to write the results of %s", File), ex);
+            return FileReport.failed(File, millisSince(start), ex);
+        }
+    }
+
+    private FileReport analyze(Path File, Path Folder, AnalysisReport Report, long Start) {
+        var analyst = new StegnoAnalyzer(File);
+        analyst.setFlagPatterns(Settings.Flags());
+        try {
+            Report.source(File.toString(), Files.size(File));
+            long stage = System.nanoTime();
+            analyst.loadImage(null, Report::structure);
+            Report.timing("load", millisSince(stage));
+            stage = System.nanoTime();
+            Report.image(analyst);
+            Report.timing("histograms", millisSince(stage));
+            stage = System.nanoTime();
+            final var count = new AtomicInteger();
+            //the name and score of the best result. the image is not kept
+            final var topName = new String[]{""};
+            final var topScore = new double[]{0};
+            final var errors = Collections.synchronizedList(new ArrayList<IOException>());
+            analyst.transform(result -> {
+                count.incrementAndGet();
+                if (result instanceof ScoredResult scored) {
+                    Scores.add(new ScoreLine(File, scored.getLeft(), scored.getScore(), scored.getStructure(), scored.getEntropy(), scored.getSimilarity()));
+                    synchronized (topName) {
+                        if (topName[0].isEmpty() || scored.getScore() > topScore[0]) {
+                            topName[0] = scored.getLeft();
+                            topScore[0] = scored.getScore();
+                        }
+                    }
+                }
+                String image = null;
+                if (Settings.Images()) {
+                    image = ResultExporter.toFileName(result.getLeft(), "png");
+                    try {
+                        PNGEncoder.write(result.getRight(), Settings.Level(), Folder.resolve(image));
+                    } catch (IOException ex) {
+                        errors.add(ex);
+                    }
+                }
+                Report.transform(result, image);
+            }, null);
+            if (!errors.isEmpty()) {
+                throw errors.get(0);
+            }
+            Report.timing("transform", millisSince(stage));
+            int carved = 0;
+            if (Settings.Carving()) {
+                stage = System.nanoTime();
+                var hits = analyst.carve(Report::carved, null);
+                try (var out = Files.newBufferedWriter(Folder.resolve("carving.csv"), StandardCharsets.UTF_8)) {
+                    SignatureCarver.writeCSV(hits, out);
+                }
+                carved = (int) hits.stream().filter(hit -> !hit.isHostSignature()).count();
+                Report.timing("carving", millisSince(stage));
+            }
+            int strings = 0;
+            if (Settings.Strings()) {
+                stage = System.nanoTime();
+                var found = analyst.findStrings(Report::string, null);
+                try (var out = Files.newBufferedWriter(Folder.resolve("strings.csv"), StandardCharsets.UTF_8)) {
+                    StringScanner.writeCSV(found, out);
+                }
+                strings = found.size();
+                Report.strings(strings);
+                Report.timing("strings", millisSince(stage));
+            }
+            if (Settings.Streams()) {
+                stage = System.nanoTime();
+                for (var source : analyst.getStreamSources()) {
+                    analyst.writeStream(source, Folder.resolve(ResultExporter.toFileName(source, "bin")));
+                }
+                Report.timing("streams", millisSince(stage));
+            }
+            if (Report.isBroken()) {
+                throw new IOException(String.format("unable to write %s", Folder.resolve("report.ndjson")));
+            }
+            Report.done();
+            var plan = analyst.getLoadPlan();
+            return new FileReport(File, true, plan.Width(), plan.Height(), plan.Strategy().name(), analyst.getFrameCount(),
+                    count.get(), topName[0], topScore[0],
+                    carved, strings, millisSince(Start), "");
+        } catch (IOException | RuntimeException | OutOfMemoryError ex) {
+            loger.log(Level.SEVERE, String.format("unable to analyze %s", File), ex);
+            Report.error(ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+            Report.done();
+            return FileReport.failed(File, millisSince(Start), ex);
+        } finally {
+            analyst.close();
+        }
+    }
+
+    /**
+     * writes the summary of the file into its folder ({@code summary.json})
+     * and as a line of {@code summary.ndjson} on the output folder.
+     */
+    private void writeSummary(AnalysisReport Report, Path Folder) {
+        try (var out = Files.newBufferedWriter(Folder.resolve("summary.json"), StandardCharsets.UTF_8)) {
+            Report.writeSummary(out);
+            synchronized (Summaries) {
+                Report.writeSummary(Summaries);
+                Summaries.flush();
+            }
+        } catch (IOException ex) {
+            loger.log(Level.WARNING, String.format("unable to write the summary on %s", Folder), ex);
+        }
+    }
+
+    private static long millisSince(long Start) {
+        return (System.nanoTime() - Start) / 1_000_000;
+    }
+
+    private void writeReport(List<FileReport> Reports) throws IOException {
+        try (var out = Files.newBufferedWriter(Settings.Output().resolve("report.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,status,width,height,strategy,frames,transforms,top_transform,top_score,carved,strings,millis,error\n");
+            for (var report : Reports) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%s,%d,%d,%s,%.4f,%d,%d,%d,%s\n",
+                        quote(report.File().toString()), report.Analyzed() ? "ok" : "failed", report.Width(), report.Height(),
+                        report.Strategy(), report.Frames(), report.Transforms(), quote(report.Top()), report.TopScore(),
+                        report.Carved(), report.Strings(), report.Millis(), quote(report.Error())));
+            }
+        }
+        var scores = new ArrayList<>(Scores);
+        scores.sort((a, b) -> a.File().equals(b.File()) ? Double.compare(b.Score(), a.Score()) : a.File().compareTo(b.File()));
+        try (var out = Files.newBufferedWriter(Settings.Output().resolve("scores.csv"), StandardCharsets.UTF_8)) {
+            out.write("file,transform,score,structure,entropy,similarity\n");
+            for (var score : scores) {
+                out.write(String.format(Locale.ROOT, "%s,%s,%.4f,%.4f,%.4f,%.4f\n", quote(score.File().toString()), quote(score.Name()),
+                        score.Score(), score.Structure(), score.Entropy(), score.Similarity()));
+            }
+        }
+    }
+
+    private static String quote(String Value) {
+        return String.format("\"%s\"", Value.replace("\"", "\"\""));
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ *  Copyright © 2024 Eduardo Vindas Cordoba. All rights reserved.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ *
+ */
+package com.aeongames.edi.utils.data;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * a Aho-Corasick automaton for byte patterns. all the patterns are matched on
+ * a single linear pass over the data. regardless of how many patterns there
+ * are.
+ * <br>
+ * the automaton is built as a full (dense) DFA. where the failure links are
+ * already resolved into the transition table. so each input byte costs a
+ * single array read. the table is {@code states * 256} integers which is fine
+ * for the small pattern sets this is intended for (file signatures and the
+ * like) but this is not intended for thousands of long patterns.
+ * <br>
+ * the scan methods are resumable. they take and return the automaton state so
+ * a large source can be scanned on chunks (for example mapped windows of a
+ * file) and matches that cross the chunk boundaries are still found.
+ * <br>
+ * the instances are immutable once built and thus can be shared between
+ * threads.
+ *
+ * @param <T> the type of the value associated to each pattern.
+ * @author Eduardo Vindas
+ */
+public final class AhoCorasick<T> {
+
+    /**
+     * the state the automaton starts on.
+     */
+    public static final int INITIAL_STATE = 0;
+    private static final int ALPHABET = 256;
+    private static final int[] NO_MATCHES = new int[0];
+    /**
+     * the transitions table. the next state for state {@code s} and byte
+     * {@code b} is at {@code Transitions[s * 256 + b]}
+     */
+    private final int[] Transitions;
+    /**
+     * for each state the index of the patterns that end at it (including the
+     * ones reached by the failure links)
+     */
+    private final int[][] Outputs;
+    private final byte[][] Patterns;
+    private final List<T> Values;
+
+    /**
+     * the callback to notify when a pattern is found.
+     *
+     * @param <T> the type of the value associated to each pattern.
+     */
+    @FunctionalInterface
+    public interface MatchListener<T> {
+
+        /**
+         * called for each match found.
+         *
+         * @param Offset the offset where the match <strong>starts</strong>
+         * (the base offset provided to the scan plus the position in the
+         * data)
+         * @param Value the value associated with the pattern that matched.
+         */
+        void onMatch(long Offset, T Value);
+    }
+
+    /**
+     * builds the automaton for the provided patterns.
+     *
+     * @param patterns a list of pairs of the pattern bytes and the value to
+     * report when the pattern is found. the patterns cannot be empty.
+     * @throws IllegalArgumentException if there is a empty pattern.
+     */
+    public AhoCorasick(List<Pair<byte[], T>> patterns) {
+        Objects.requireNonNull(patterns, "the patterns cannot be null");
+        Patterns = new byte[patterns.size()][];
+        var values = new ArrayList<T>(patterns.size());
+        int maxStates = 1;
+        for (int i = 0; i < patterns.size(); i++) {
+            var pattern = Objects.requireNonNull(patterns.get(i).getLeft(), "null pattern");
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("the patterns cannot be empty");
+            }
+            Patterns[i] = pattern.clone();
+            values.add(patterns.get(i).getRight());
+            maxStates += pattern.length;
+        }
+        Values = List.copyOf(values);
+        //build the trie. -1 means there is no transition (yet)
+        var table = new int[maxStates * ALPHABET];
+        Arrays.fill(table, -1);
+        var outputs = new ArrayList<List<Integer>>(maxStates);
+        outputs.add(new ArrayList<>());
+        int states = 1;
+        for (int index = 0; index < Patterns.length; index++) {
+            int state = INITIAL_STATE;
+            for (byte value : Patterns[index]) {
+                var slot = state * ALPHABET + (value & 0xFF);
+                if (table[slot] < 0) {
+                    table[slot] = states++;
+                    outputs.add(new ArrayList<>());
+                }
+                state = table[slot];
+            }
+            outputs.get(state).add(index);
+        }
+        //breadth first, resolve the failure links into the table.
+        var fail = new int[states];
+        var queue = new ArrayDeque<Integer>();
+        for (int b = 0; b < ALPHABET; b++) {
+            var next = table[b];
+            if (next < 0) {
+                table[b] = INITIAL_STATE;
+            } else {
+                fail[next] = INITIAL_STATE;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            //the outputs of the fail state are also outputs of this one.
+            outputs.get(state).addAll(outputs.get(fail[state]));
+            for (int b = 0; b < ALPHABET; b++) {
+                var slot = state * ALPHABET + b;
+                var next = table[slot];
+                if (next < 0) {
+                    table[slot] = table[fail[state] * ALPHABET + b];
+                } else {
+                    fail[next] = table[fail[state] * ALPHABET + b];
+                    queue.add(next);
+                }
+            }
+        }
+        Transitions = Arrays.copyOf(table, states * ALPHABET);
+        Outputs = new int[states][];
+        for (int state = 0; state < states; state++) {
+            var list = outputs.get(state);
+            if (list.isEmpty()) {
+                Outputs[state] = NO_MATCHES;
+            } else {
+                Outputs[state] = list.stream().mapToInt(Integer::intValue).toArray();
+            }
+        }
+    }
+
+    /**
+     * @return the number of patterns on this automaton.
+     */
+    public int getPatternCount() {
+        return Patterns.length;
+    }
+
+    /**
+     * @return the length of the longest pattern on this automaton.
+     */
+    public int getLongestPattern() {
+        int longest = 0;
+        for (var pattern : Patterns) {
+            longest = Math.max(longest, pattern.length);
+        }
+        return longest;
+    }
+
+    /**
+     * moves the automaton a single byte.
+     *
+     * @param State the current state
+     * @param value the byte read
+     * @return the new state.
+     */
+    public int next(int State, byte value) {
+        return Transitions[State * ALPHABET + (value & 0xFF)];
+    }
+
+    /**
+     * scans the remaining bytes of the buffer (from its position to its limit)
+     * the buffer position is NOT changed.
+     *
+     * @param State the state to start from. ({@link #INITIAL_STATE} for a new
+     * scan or the state returned by the previous chunk)
+     * @param data the data to scan
+     * @param BaseOffset the offset of the buffer position on the whole source.
+     * @param listener the listener to notify the matches
+     * @return the state of the automaton after the last byte.
+     */
+    public int scan(int State, ByteBuffer data, long BaseOffset, MatchListener<T> listener) {
+        final int start = data.position();
+        final int end = data.limit();
+        int state = State;
+        for (int i = start; i < end; i++) {
+            state = Transitions[state * ALPHABET + (data.get(i) & 0xFF)];
+            if (Outputs[state].length != 0) {
+                notify(state, BaseOffset + (i - start), listener);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * scans the bytes between {@code From} (inclusive) and {@code To}
+     * (exclusive)
+     *
+     * @param State the state to start from. ({@link #INITIAL_STATE} for a new
+     * scan or the state returned by the previous chunk)
+     * @param data the data to scan
+     * @param From the first index to scan
+     * @param To the index after the last to scan
+     * @param BaseOffset the offset of {@code data[From]} on the whole source.
+     * @param listener the listener to notify the matches
+     * @return the state of the automaton after the last byte.
+     */
+    public int scan(int State, byte[] data, int From, int To, long BaseOffset, MatchListener<T> listener) {
+        Objects.checkFromToIndex(From, To, data.length);
+        int state = State;
+        for (int i = From; i < To; i++) {
+            state = Transitions[state * ALPHABET + (data[i] & 0xFF)];
+            if (Outputs[state].length != 0) {
+                notify(state, BaseOffset + (i - From), listener);
+            }
+        }
+        return state;
+    }
+
+    private void notify(int state, long EndOffset, MatchListener<T> listener) {
+        for (int pattern : Outputs[state]) {
+            listener.onMatch(EndOffset - Patterns[pattern].length + 1, Values.get(pattern));
+        }
+    }
+}
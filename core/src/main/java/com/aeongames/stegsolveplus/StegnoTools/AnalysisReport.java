@@ -0,0 +1,406 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * the report of a analysis for other tools. each event is written as it
+ * happens as a line of JSON (NDJSON) with a {@code type}: source, structure
+ * (with the chunk map), image, histograms, transform (with the scores),
+ * carved, flag, strings, timing, error and done. and the report keeps what is
+ * needed for a summary of the whole analysis. (see
+ * {@link #writeSummary(Writer)}) the summary holds the scores and the hits.
+ * not the images.
+ * <br>
+ * the events come from the threads of the analysis. so the methods are
+ * synchronized. if the lines cannot be written (the client went away, the
+ * disk is full) the lines stop and the failure listener is called. the
+ * summary is still kept.
+ *
+ * @author Eduardo Vindas
+ */
+public final class AnalysisReport {
+
+    /**
+     * the fields of a custom event. (see {@link #event})
+     */
+    @FunctionalInterface
+    public interface Fields {
+
+        void write(JsonWriter Json) throws IOException;
+    }
+
+    private record Transform(String Name, double Score, double Structure, double Entropy, double Similarity, String Link) {
+
+    }
+
+    private static final String[] CHANNELS = {"red", "green", "blue", "alpha"};
+    private static final Logger loger = LoggingHelper.getLogger(AnalysisReport.class.getName());
+    private final Writer Out;
+    private final JsonWriter Lines;
+    private final boolean FlushEachLine;
+    private final long Start = System.nanoTime();
+    private Runnable FailureListener;
+    private volatile boolean Broken;
+    //the summary
+    private String Source;
+    private long Size = -1;
+    private FileStructure Structure;
+    private ImageLoader.Plan Plan;
+    private int Frames;
+    private boolean Alpha;
+    private int[][] Histograms;
+    private final List<Transform> Transforms = new ArrayList<>();
+    private final List<CarvedHit> Carved = new ArrayList<>();
+    private final List<FoundString> Flags = new ArrayList<>();
+    private long StringCount = -1;
+    private final Map<String, Long> Timings = new LinkedHashMap<>();
+    private final List<String> Errors = new ArrayList<>();
+    private long Millis = -1;
+
+    /**
+     * @param Out where the lines are written. null to keep only the summary.
+     * @param FlushEachLine if each line is flushed once written. (so a reader
+     * on the other side gets it right away)
+     */
+    public AnalysisReport(Writer Out, boolean FlushEachLine) {
+        this.Out = Out;
+        this.Lines = Out == null ? null : new JsonWriter(Out);
+        this.FlushEachLine = FlushEachLine;
+    }
+
+    /**
+     * @param Listener called (once) if a line cannot be written.
+     */
+    public synchronized void setFailureListener(Runnable Listener) {
+        FailureListener = Listener;
+    }
+
+    /**
+     * @return true if the lines could not be written.
+     */
+    public boolean isBroken() {
+        return Broken;
+    }
+
+    /**
+     * writes a line of a type not known by the report. (it is not part of the
+     * summary)
+     *
+     * @param Type the type of the line
+     * @param Fields writes the fields after the type.
+     */
+    public synchronized void event(String Type, Fields Fields) {
+        line(Type, Fields);
+    }
+
+    /**
+     * @param Name the file (or address) analyzed
+     * @param Size its size in bytes. -1 if not known.
+     */
+    public synchronized void source(String Name, long Size) {
+        Source = Name;
+        this.Size = Size;
+        line("source", json -> json.field("name", Name).field("size", Size));
+    }
+
+    /**
+     * the structure of the file. with the chunk (or segment) map.
+     */
+    public synchronized void structure(FileStructure Structure) {
+        this.Structure = Structure;
+        line("structure", json -> {
+            writeStructure(json, Structure);
+            json.name("chunks").beginArray();
+            for (var entry : Structure.getEntries()) {
+                json.beginObject()
+                        .field("name", entry.Name())
+                        .field("offset", entry.Offset())
+                        .field("length", entry.Length())
+                        .field("suspicious", entry.Suspicious())
+                        .field("details", entry.Details())
+                        .endObject();
+            }
+            json.endArray();
+        });
+    }
+
+    /**
+     * the loaded image. its size, how it was decoded and the histograms of
+     * its channels. (a line each)
+     *
+     * @param Analyst the analyzer once the image is loaded.
+     */
+    public synchronized void image(StegnoAnalyzer Analyst) {
+        Plan = Analyst.getLoadPlan();
+        Frames = Analyst.getFrameCount();
+        Alpha = Analyst.hasAlpha();
+        Histograms = Analyst.getHistograms();
+        if (Plan != null) {
+            line("image", this::writeImage);
+        }
+        if (Histograms != null) {
+            line("histograms", this::writeHistograms);
+        }
+    }
+
+    /**
+     * a transformation. with its scores if it was scored.
+     *
+     * @param Result the transformation
+     * @param Link where its image can be found. null if it is not.
+     */
+    public synchronized void transform(Pair<String, BufferedImage> Result, String Link) {
+        var transform = Result instanceof ScoredResult scored
+                ? new Transform(scored.getLeft(), scored.getScore(), scored.getStructure(), scored.getEntropy(), scored.getSimilarity(), Link)
+                : new Transform(Result.getLeft(), Double.NaN, Double.NaN, Double.NaN, Double.NaN, Link);
+        Transforms.add(transform);
+        line("transform", json -> writeTransform(json, transform));
+    }
+
+    public synchronized void carved(CarvedHit Hit) {
+        Carved.add(Hit);
+        line("carved", json -> writeHit(json, Hit));
+    }
+
+    /**
+     * a string found. only the flags are written and kept. (a image has
+     * thousands of strings)
+     */
+    public synchronized void string(FoundString Found) {
+        if (Found.isFlag()) {
+            Flags.add(Found);
+            line("flag", json -> writeFlag(json, Found));
+        }
+    }
+
+    /**
+     * @param Count the amount of strings found.
+     */
+    public synchronized void strings(long Count) {
+        StringCount = Count;
+        line("strings", json -> json.field("count", Count));
+    }
+
+    /**
+     * @param Stage the step of the analysis. (load, transform, carving...)
+     * @param Millis how long it took.
+     */
+    public synchronized void timing(String Stage, long Millis) {
+        Timings.put(Stage, Millis);
+        line("timing", json -> json.field("stage", Stage).field("millis", Millis));
+    }
+
+    public synchronized void error(String Message) {
+        Errors.add(Message);
+        line("error", json -> json.field("message", Message));
+    }
+
+    /**
+     * the end of the analysis. (the time since the report was created)
+     */
+    public synchronized void done() {
+        Millis = (System.nanoTime() - Start) / 1_000_000;
+        line("done", json -> json.field("millis", Millis).field("failed", !Errors.isEmpty()));
+    }
+
+    /**
+     * writes the summary as a line of type {@code summary}. (the last line
+     * of a stream)
+     */
+    public synchronized void summary() {
+        line("summary", this::writeSummaryFields);
+    }
+
+    /**
+     * writes the summary of the analysis as a JSON object. (and a new line)
+     * the transformations are sorted from the highest score.
+     *
+     * @param Destination where to write it.
+     * @throws IOException if it cannot be written.
+     */
+    public synchronized void writeSummary(Writer Destination) throws IOException {
+        var json = new JsonWriter(Destination);
+        json.beginObject();
+        writeSummaryFields(json);
+        json.endObject();
+        json.endLine();
+    }
+
+    /**
+     * @return true if a error was reported.
+     */
+    public synchronized boolean hasErrors() {
+        return !Errors.isEmpty();
+    }
+
+    private void writeSummaryFields(JsonWriter Json) throws IOException {
+        Json.field("source", Source).field("size", Size)
+                .field("status", Errors.isEmpty() ? "ok" : "failed")
+                .field("millis", Millis < 0 ? (System.nanoTime() - Start) / 1_000_000 : Millis);
+        if (Structure != null) {
+            Json.name("structure").beginObject();
+            writeStructure(Json, Structure);
+            Json.endObject();
+        }
+        if (Plan != null) {
+            Json.name("image").beginObject();
+            writeImage(Json);
+            Json.endObject();
+        }
+        if (Histograms != null) {
+            Json.name("histograms").beginObject();
+            writeHistograms(Json);
+            Json.endObject();
+        }
+        var sorted = new ArrayList<>(Transforms);
+        //the unscored ones (NaN) go last
+        sorted.sort((a, b) -> Double.isNaN(a.Score()) ? (Double.isNaN(b.Score()) ? 0 : 1)
+                : Double.isNaN(b.Score()) ? -1 : Double.compare(b.Score(), a.Score()));
+        Json.field("top", sorted.isEmpty() ? null : sorted.get(0).Name());
+        Json.name("transforms").beginArray();
+        for (var transform : sorted) {
+            Json.beginObject();
+            writeTransform(Json, transform);
+            Json.endObject();
+        }
+        Json.endArray();
+        Json.name("carved").beginArray();
+        for (var hit : Carved) {
+            Json.beginObject();
+            writeHit(Json, hit);
+            Json.endObject();
+        }
+        Json.endArray();
+        Json.name("flags").beginArray();
+        for (var flag : Flags) {
+            Json.beginObject();
+            writeFlag(Json, flag);
+            Json.endObject();
+        }
+        Json.endArray();
+        if (StringCount >= 0) {
+            Json.field("strings", StringCount);
+        }
+        Json.name("timings").beginObject();
+        for (var timing : Timings.entrySet()) {
+            Json.field(timing.getKey(), timing.getValue());
+        }
+        Json.endObject();
+        Json.name("errors").beginArray();
+        for (var error : Errors) {
+            Json.value(error);
+        }
+        Json.endArray();
+    }
+
+    private static void writeStructure(JsonWriter Json, FileStructure Structure) throws IOException {
+        Json.field("format", Structure.getFormat())
+                .field("file_size", Structure.getFileSize())
+                .field("entries", Structure.getEntries().size())
+                .field("suspicious", Structure.getSuspiciousCount())
+                .field("trailing_offset", Structure.hasTrailingData() ? Structure.getTrailingOffset() : -1)
+                .field("trailing_bytes", Structure.getTrailingLength())
+                .field("thumbnail", Structure.hasThumbnail());
+        Json.name("warnings").beginArray();
+        for (var warning : Structure.getWarnings()) {
+            Json.value(warning);
+        }
+        Json.endArray();
+    }
+
+    private void writeImage(JsonWriter Json) throws IOException {
+        Json.field("width", Plan.Width()).field("height", Plan.Height())
+                .field("decoded_width", Plan.getDecodedWidth()).field("decoded_height", Plan.getDecodedHeight())
+                .field("strategy", Plan.Strategy().name())
+                .field("frames", Frames)
+                .field("alpha", Alpha);
+    }
+
+    private void writeHistograms(JsonWriter Json) throws IOException {
+        for (int channel = 0; channel < CHANNELS.length; channel++) {
+            if (channel == 3 && !Alpha) {
+                continue;
+            }
+            Json.name(CHANNELS[channel]).beginArray();
+            for (var count : Histograms[channel]) {
+                Json.value(count);
+            }
+            Json.endArray();
+        }
+    }
+
+    private static void writeTransform(JsonWriter Json, Transform Transform) throws IOException {
+        Json.field("name", Transform.Name());
+        if (!Double.isNaN(Transform.Score())) {
+            Json.field("score", Transform.Score())
+                    .field("structure", Transform.Structure())
+                    .field("entropy", Transform.Entropy())
+                    .field("similarity", Transform.Similarity());
+        }
+        if (Transform.Link() != null) {
+            Json.field("image", Transform.Link());
+        }
+    }
+
+    private static void writeHit(JsonWriter Json, CarvedHit Hit) throws IOException {
+        Json.field("source", Hit.Source())
+                .field("signature", Hit.Signature().Name)
+                .field("extension", Hit.Signature().Extension)
+                .field("offset", Hit.Offset())
+                .field("host", Hit.isHostSignature());
+    }
+
+    private static void writeFlag(JsonWriter Json, FoundString Found) throws IOException {
+        Json.field("source", Found.Source())
+                .field("offset", Found.Offset())
+                .field("encoding", Found.Encoding())
+                .field("flag", Found.Flag())
+                .field("text", Found.Text());
+    }
+
+    /**
+     * writes a line. {"type":Type, the fields}
+     */
+    private void line(String Type, Fields Fields) {
+        if (Lines == null || Broken) {
+            return;
+        }
+        try {
+            Lines.beginObject().field("type", Type);
+            Fields.write(Lines);
+            Lines.endObject();
+            Lines.endLine();
+            if (FlushEachLine) {
+                Out.flush();
+            }
+        } catch (IOException | RuntimeException ex) {
+            loger.log(Level.INFO, "unable to write the report. the lines stop", ex);
+            Broken = true;
+            if (FailureListener != null) {
+                FailureListener.run();
+            }
+        }
+    }
+}
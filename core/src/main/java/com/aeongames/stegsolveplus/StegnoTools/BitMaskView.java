@@ -0,0 +1,202 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Objects;
+
+/**
+ * shows the bits selected by a mask. (any combination of bits of any channel
+ * like red bit 0 + green bit 1 + blue bits 0 to 2) meant to be redrawn each
+ * time the user changes the mask. so the image is copied once (at most at the
+ * size of the screen) to a packed ARGB array and each render is a single pass
+ * of mask and lookup over it.
+ * <br>
+ * the selected bits of each channel are packed together (the highest on
+ * top) and stretched to the full range of the channel. so a single bit shows
+ * as 0 or 255 and 3 bits as 8 levels. the selected bits of the alpha are
+ * shown the same way as a grey over the colors. (the lightest wins)
+ *
+ * @author Eduardo Vindas
+ */
+public class BitMaskView {
+
+    private final CanvasContainer Source;
+    private final int Width, Height;
+    /**
+     * the pixels of the view. (0xAARRGGBB) at the preview size.
+     */
+    private final int[] Packed;
+
+    BitMaskView(CanvasContainer Source, int MaxWidth, int MaxHeight) {
+        this.Source = Objects.requireNonNull(Source, "the image is null");
+        if (MaxWidth <= 0 || MaxHeight <= 0) {
+            throw new IllegalArgumentException("invalid preview size");
+        }
+        final double scale = Math.min(1.0, Math.min((double) MaxWidth / Source.getWidth(), (double) MaxHeight / Source.getHeight()));
+        Width = Math.max(1, (int) (Source.getWidth() * scale));
+        Height = Math.max(1, (int) (Source.getHeight() * scale));
+        Packed = new int[Width * Height];
+        //nearest neighbor. the values must be the original ones. not a blend.
+        var row = new int[Source.getWidth()];
+        var columns = new int[Width];
+        for (int x = 0; x < Width; x++) {
+            columns[x] = (int) ((long) x * Source.getWidth() / Width);
+        }
+        for (int y = 0; y < Height; y++) {
+            Source.getPackedARGBRow((int) ((long) y * Source.getHeight() / Height), row);
+            final int base = y * Width;
+            for (int x = 0; x < Width; x++) {
+                Packed[base + x] = row[columns[x]];
+            }
+        }
+    }
+
+    /**
+     * creates the view for the image of a analyzer.
+     *
+     * @param Analyzer the analyzer
+     * @param MaxWidth the max width of the preview. (usually the size of the
+     * screen)
+     * @param MaxHeight the max height of the preview.
+     * @return the view
+     * @throws IllegalStateException if the image is not loaded.
+     */
+    public static BitMaskView of(StegnoAnalyzer Analyzer, int MaxWidth, int MaxHeight) {
+        var image = Analyzer.getImageCache();
+        if (image == null) {
+            throw new IllegalStateException("the image is not yet loaded");
+        }
+        return new BitMaskView(image, MaxWidth, MaxHeight);
+    }
+
+    /**
+     * @return the width of the preview.
+     */
+    public int getWidth() {
+        return Width;
+    }
+
+    /**
+     * @return the height of the preview.
+     */
+    public int getHeight() {
+        return Height;
+    }
+
+    /**
+     * @return true if the preview is smaller than the image.
+     */
+    public boolean isScaled() {
+        return Width != Source.getWidth() || Height != Source.getHeight();
+    }
+
+    /**
+     * @return true if the image has a alpha channel. (so the alpha bits mean
+     * something)
+     */
+    public boolean hasAlpha() {
+        return Source.HasAlphaChannel();
+    }
+
+    /**
+     * creates a image where {@link #render(int, BufferedImage)} can draw.
+     *
+     * @return a new image of the size of the preview.
+     */
+    public BufferedImage createTarget() {
+        return new BufferedImage(Width, Height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * draws the preview for the mask into the target. the target is reused so
+     * nothing is allocated per render.
+     *
+     * @param Mask the bits to show. (0xAARRGGBB)
+     * @param Target a image created by {@link #createTarget()}
+     */
+    public void render(int Mask, BufferedImage Target) {
+        if (Target.getWidth() != Width || Target.getHeight() != Height
+                || Target.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("the target was not created by this view");
+        }
+        var tables = createTables(Mask);
+        var out = ((DataBufferInt) Target.getRaster().getDataBuffer()).getData();
+        map(Packed, 0, out, 0, Packed.length, Mask, tables);
+    }
+
+    /**
+     * renders the mask at the full size of the image.
+     *
+     * @param Mask the bits to show. (0xAARRGGBB)
+     * @return the image
+     */
+    public BufferedImage renderFull(int Mask) {
+        var tables = createTables(Mask);
+        var image = new BufferedImage(Source.getWidth(), Source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        var out = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        var row = new int[Source.getWidth()];
+        for (int y = 0; y < Source.getHeight(); y++) {
+            Source.getPackedARGBRow(y, row);
+            map(row, 0, out, y * row.length, row.length, Mask, tables);
+        }
+        return image;
+    }
+
+    /**
+     * the table of each channel: the masked byte to the packed and stretched
+     * value. (alpha, red, green, blue)
+     */
+    private static int[][] createTables(int Mask) {
+        var tables = new int[4][256];
+        for (int channel = 0; channel < 4; channel++) {
+            final int mask = (Mask >>> (24 - channel * 8)) & 0xFF;
+            final int bits = Integer.bitCount(mask);
+            if (bits == 0) {
+                continue;
+            }
+            final int max = (1 << bits) - 1;
+            for (int value = 0; value < 256; value++) {
+                if ((value & ~mask) != 0) {
+                    continue;//never used. the values are masked
+                }
+                //gather the selected bits. the highest on top.
+                int packed = 0;
+                for (int bit = 7; bit >= 0; bit--) {
+                    if ((mask & (1 << bit)) != 0) {
+                        packed = (packed << 1) | ((value >> bit) & 1);
+                    }
+                }
+                tables[channel][value] = packed * 255 / max;
+            }
+        }
+        return tables;
+    }
+
+    private static void map(int[] in, int from, int[] out, int to, int length, int Mask, int[][] tables) {
+        final int[] alpha = tables[0], red = tables[1], green = tables[2], blue = tables[3];
+        final boolean useAlpha = (Mask & 0xFF000000) != 0;
+        for (int i = 0; i < length; i++) {
+            final int pixel = in[from + i] & Mask;
+            int r = red[(pixel >> 16) & 0xFF], g = green[(pixel >> 8) & 0xFF], b = blue[pixel & 0xFF];
+            if (useAlpha) {
+                final int a = alpha[pixel >>> 24];
+                r = Math.max(r, a);
+                g = Math.max(g, a);
+                b = Math.max(b, a);
+            }
+            out[to + i] = r << 16 | g << 8 | b;
+        }
+    }
+}
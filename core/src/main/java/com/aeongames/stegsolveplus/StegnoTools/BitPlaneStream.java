@@ -0,0 +1,226 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a stream of bits pulled from one bit plane of the image. the pixels are read
+ * on row order (left to right, top to bottom) and for each pixel the bit of
+ * the channels on the listed order are appended. the bits are packed into
+ * bytes either with the first bit as the most significant one (the way most of
+ * the LSB tools does it) or as the least significant one.
+ * <br>
+ * the stream is produced one row at the time so it can be consumed (scanned)
+ * without holding the whole stream on memory. several streams can be produced
+ * on a single pass over the image with
+ * {@link #streamAll(CanvasContainer, List, List)} which is how the candidate
+ * streams are scanned. (reading the image once rather than once per stream)
+ *
+ * @author Eduardo Vindas
+ */
+final class BitPlaneStream {
+
+    /**
+     * receives the data of a stream as it is produced.
+     */
+    @FunctionalInterface
+    interface ChunkSink {
+
+        /**
+         * receives a chunk of the stream. <strong>the buffer is reused</strong>
+         * between calls, so the sink should not keep a reference to it.
+         *
+         * @param data the buffer with the data
+         * @param length the amount of valid bytes on the buffer.
+         * @return true to continue receiving data. false to stop this stream.
+         */
+        boolean accept(byte[] data, int length);
+    }
+
+    private static final String[] CHANNEL_NAMES = {"B", "G", "R", "A"};
+    final String Name;
+    /**
+     * the bit positions (on a packed ARGB integer) on the order they are read.
+     */
+    private final int[] Positions;
+    private final boolean LSBFirst;
+
+    /**
+     * creates a new stream definition.
+     *
+     * @param name the name to identify the stream
+     * @param Bit the bit (0 to 7) to read from each channel
+     * @param lsbFirst if the first bit read is the least significant bit of
+     * the byte (rather than the most significant one)
+     * @param shifts the shift of the channels on a packed ARGB integer (0
+     * blue, 8 green, 16 red, 24 alpha) on the order they are read.
+     */
+    BitPlaneStream(String name, int Bit, boolean lsbFirst, int... shifts) {
+        if (Bit < 0 || Bit > 7) {
+            throw new IndexOutOfBoundsException("the bit cannot be less than 0 or larger than 7");
+        }
+        Name = name;
+        LSBFirst = lsbFirst;
+        Positions = new int[shifts.length];
+        for (int i = 0; i < shifts.length; i++) {
+            Positions[i] = shifts[i] + Bit;
+        }
+    }
+
+    /**
+     * builds the candidate streams for a image. every bit plane (0 to 7) for
+     * each channel alone, every order of the 3 color channels (and the alpha
+     * when the image has it) with both bit packing orders.
+     *
+     * @param HasAlpha if the image has a alpha channel.
+     * @return the list of candidates
+     */
+    static List<BitPlaneStream> candidates(boolean HasAlpha) {
+        var orders = new ArrayList<int[]>();
+        orders.add(new int[]{16});
+        orders.add(new int[]{8});
+        orders.add(new int[]{0});
+        int[] rgb = {16, 8, 0};
+        //all the permutations of R,G,B
+        for (int first = 0; first < 3; first++) {
+            for (int second = 0; second < 3; second++) {
+                if (second != first) {
+                    orders.add(new int[]{rgb[first], rgb[second], rgb[3 - first - second]});
+                }
+            }
+        }
+        if (HasAlpha) {
+            orders.add(new int[]{24});
+            orders.add(new int[]{16, 8, 0, 24});
+            orders.add(new int[]{24, 16, 8, 0});
+        }
+        var list = new ArrayList<BitPlaneStream>(orders.size() * 16);
+        for (int bit = 0; bit < 8; bit++) {
+            for (var order : orders) {
+                for (var lsbFirst : new boolean[]{false, true}) {
+                    list.add(new BitPlaneStream(describe(bit, order, lsbFirst), bit, lsbFirst, order));
+                }
+            }
+        }
+        return list;
+    }
+
+    private static String describe(int bit, int[] shifts, boolean lsbFirst) {
+        var channels = new StringBuilder();
+        for (var shift : shifts) {
+            if (!channels.isEmpty()) {
+                channels.append(',');
+            }
+            channels.append(CHANNEL_NAMES[shift / 8]);
+        }
+        return String.format("Bit %d of %s%s", bit, channels, lsbFirst ? " (LSB first)" : "");
+    }
+
+    /**
+     * @param source the image the stream will be read from
+     * @return the size in bytes of the stream for the provided image. (the
+     * trailing bits that does not fill a byte are dropped)
+     */
+    long getLength(CanvasContainer source) {
+        return (long) source.getWidth() * source.getHeight() * Positions.length / 8;
+    }
+
+    /**
+     * reads the stream from the image and feeds it to the sink. a row at the
+     * time.
+     *
+     * @param source the image to read the stream from
+     * @param sink the consumer of the data.
+     */
+    void stream(CanvasContainer source, ChunkSink sink) {
+        streamAll(source, List.of(this), List.of(sink));
+    }
+
+    /**
+     * reads several streams from the image on a single pass. each row of the
+     * image is read once and then packed for each of the streams that are
+     * still active. a stream stops when its sink returns false. and the pass
+     * ends when all the streams are stopped or the image is fully read.
+     *
+     * @param source the image to read the streams from
+     * @param streams the streams to produce
+     * @param sinks the sinks for each stream (on the same order)
+     */
+    static void streamAll(CanvasContainer source, List<BitPlaneStream> streams, List<ChunkSink> sinks) {
+        if (streams.size() != sinks.size()) {
+            throw new IllegalArgumentException("each stream requires a sink");
+        }
+        final int count = streams.size();
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final int[] row = new int[width];
+        final byte[][] chunks = new byte[count][];
+        //the bits that did not fill a byte on the previous row. for each stream
+        final int[] accumulators = new int[count];
+        final int[] bits = new int[count];
+        final boolean[] active = new boolean[count];
+        for (int i = 0; i < count; i++) {
+            //enough for a row plus the bits left from the previous one.
+            chunks[i] = new byte[(width * streams.get(i).Positions.length) / 8 + 1];
+            active[i] = true;
+        }
+        int remaining = count;
+        for (int y = 0; y < height && remaining > 0; y++) {
+            source.getPackedARGBRow(y, row);
+            for (int i = 0; i < count; i++) {
+                if (!active[i]) {
+                    continue;
+                }
+                var length = streams.get(i).pack(row, width, chunks[i], accumulators, bits, i);
+                if (length > 0 && !sinks.get(i).accept(chunks[i], length)) {
+                    active[i] = false;
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    /**
+     * packs the bits of the row into the chunk.
+     *
+     * @return the amount of bytes written into the chunk.
+     */
+    private int pack(int[] row, int width, byte[] chunk, int[] accumulators, int[] bits, int index) {
+        final int[] positions = Positions;
+        final int channels = positions.length;
+        int accumulator = accumulators[index];
+        int count = bits[index];
+        int length = 0;
+        for (int x = 0; x < width; x++) {
+            var argb = row[x];
+            for (int channel = 0; channel < channels; channel++) {
+                var bit = (argb >>> positions[channel]) & 1;
+                if (LSBFirst) {
+                    accumulator |= bit << count;
+                } else {
+                    accumulator = (accumulator << 1) | bit;
+                }
+                if (++count == 8) {
+                    chunk[length++] = (byte) accumulator;
+                    accumulator = 0;
+                    count = 0;
+                }
+            }
+        }
+        accumulators[index] = accumulator;
+        bits[index] = count;
+        return length;
+    }
+}
@@ -14,18 +14,17 @@ package com.aeongames.stegsolveplus.StegnoTools;
 
 import java.awt.Color;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.awt.image.IndexColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
-import javax.imageio.ImageIO;
 
 /**
  * a Class that holds the Image from a file,url,Stream or a provided original
@@ -89,43 +88,33 @@ public class CanvasContainer {
      * to write into they would take more time. for our pro
      */
     private Object ImageDataReference = null;
-
-    // <editor-fold defaultstate="collapsed" desc="Constructors">
     /**
-     * Package Private constructor. creates a new instance of CanvasContainer
-     * loading the Image from the Source.
-     *
-     * @param Source the Path where the file is stored. cannot be null
-     * @throws IOException if the file fails to load.
+     * how the image was decoded. (whole, a overview or a region)
      */
-    CanvasContainer(Path Source) throws IOException {
-        Objects.requireNonNull(Source, "the path is null");
-        originalImage = ImageIO.read(Source.toFile());
-        check(originalImage);
-    }
+    private final ImageLoader.Plan LoadPlan;
 
+    // <editor-fold defaultstate="collapsed" desc="Constructors">
     /**
      * Package Private constructor. creates a new instance of CanvasContainer
-     * loading the Image from the Source.
+     * decoding the Image from a mapped file. (see {@link MappedFile}) the
+     * decoder reads straight from the mapping.
      *
-     * @param Source the URL where the file is stored. cannot be null
+     * @param Source the mapped file. cannot be null
+     * @param Region the area to load. null to load the whole image. (or a
+     * overview if is too large)
+     * @throws IOException if the image fails to decode.
      */
-    CanvasContainer(URL Source) throws IOException {
-        Objects.requireNonNull(Source, "the path is null");
-        originalImage = ImageIO.read(Source);
-        check(originalImage);
+    CanvasContainer(MappedFile Source, Rectangle Region) throws IOException {
+        this(ImageLoader.load(Objects.requireNonNull(Source, "the file is null").newImageInputStream(), Region));
     }
 
     /**
-     * Package Private constructor. creates a new instance of CanvasContainer
-     * loading the Image from the Source.
-     *
-     * @param ImageStream the Stream from which to read the image.
+     * takes the image the loader decoded. (no copy, it never left the loader)
      */
-    CanvasContainer(InputStream ImageStream) throws IOException {
-        Objects.requireNonNull(ImageStream, "the path is null");
-        originalImage = ImageIO.read(ImageStream);
-        check(originalImage);
+    private CanvasContainer(ImageLoader.Loaded Loaded) throws IOException {
+        check(Loaded.Image());
+        originalImage = Loaded.Image();
+        LoadPlan = Loaded.Plan();
     }
 
     /**
@@ -138,8 +127,26 @@ public class CanvasContainer {
      * image to use for analysis.
      */
     CanvasContainer(final BufferedImage SourceToClone) {
-        Objects.requireNonNull(SourceToClone, "the Source Image is null");
-        originalImage = getCloneofImage(SourceToClone);
+        this(SourceToClone, false);
+    }
+
+    /**
+     * Package Private constructor. creates a new instance of CanvasContainer
+     * that can take the source image as is. (no copy) for a image no one else
+     * holds. (a image pasted from the clipboard) a copy doubles the memory of
+     * a large screenshot. the image is only taken if it is of a type the fast
+     * paths read straight from its array. otherwise it is copied as usual.
+     *
+     * @param Source the image to analyze
+     * @param Adopt true if the caller gives up the image. (it must not be
+     * changed after)
+     */
+    CanvasContainer(final BufferedImage Source, boolean Adopt) {
+        Objects.requireNonNull(Source, "the Source Image is null");
+        originalImage = Adopt && canAdopt(Source) ? Source : getCloneofImage(Source);
+        //already on memory. whatever its size it is the whole image.
+        LoadPlan = new ImageLoader.Plan(ImageLoader.Strategy.Full, originalImage.getWidth(), originalImage.getHeight(),
+                1, new Rectangle(originalImage.getWidth(), originalImage.getHeight()));
     }
 
     /**
@@ -1095,16 +1102,93 @@ public class CanvasContainer {
         return getCloneofImage(originalImage);
     }
 
+    /**
+     * @return true if the image can be read straight from its array. a type
+     * of the fast paths and a raster of its own. (not a sub image that shares
+     * the array of a larger one)
+     */
+    private static boolean canAdopt(BufferedImage Image) {
+        var raster = Image.getRaster();
+        return FastReadSupported(Image.getType()) && raster.getParent() == null
+                && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0
+                && raster.getDataBuffer().getNumBanks() == 1 && raster.getDataBuffer().getOffset() == 0;
+    }
+
     private static BufferedImage getCloneofImage(BufferedImage original) {
         //https://stackoverflow.com/questions/3514158/how-do-you-clone-a-bufferedimage
         //for other few methods that could be used. 
-        var clone = new BufferedImage(original.getWidth(), original.getHeight(), original.getType());
-        var g = clone.getGraphics();
-        g.drawImage(original, 0, 0, null);
-        g.dispose();
-        return clone;
+        //copy the raster and keep the color model. drawing into a new image of
+        //the same type would replace the palette of the indexed images.
+        //a raster of its own at 0,0. (copyData(null) keeps the offset of a sub image)
+        var raster = original.getRaster().createCompatibleWritableRaster(original.getWidth(), original.getHeight());
+        original.copyData(raster);
+        return new BufferedImage(original.getColorModel(), raster, original.isAlphaPremultiplied(), null);
+    }
+
+    // <editor-fold defaultstate="collapsed" desc="palette access">
+    /**
+     * @return the palette of the image. or null if the image is not a indexed
+     * (palette) image of up to 256 colors.
+     */
+    IndexColorModel getPalette() {
+        if (originalImage.getColorModel() instanceof IndexColorModel palette
+                && palette.getMapSize() <= 256
+                && originalImage.getRaster().getNumBands() == 1) {
+            return palette;
+        }
+        return null;
+    }
+
+    /**
+     * @param x the column
+     * @param y the row
+     * @return the palette index of the pixel. or -1 if the image is not a
+     * indexed image. (see {@link #getPalette()})
+     */
+    public int getPaletteIndex(int x, int y) {
+        if (getPalette() == null) {
+            return -1;
+        }
+        return originalImage.getRaster().getSample(x, y, 0);
     }
 
+    /**
+     * copies the palette index of every pixel (row order) into a new array.
+     * when the image stores a byte per pixel (the usual
+     * {@link BufferedImage#TYPE_BYTE_INDEXED}) the underline array is copied
+     * as is. the packed images (1, 2 and 4 bits per pixel) are unpacked a row
+     * at the time.
+     *
+     * @return the index of each pixel. or null if the image has no palette.
+     */
+    byte[] getPaletteIndices() {
+        if (getPalette() == null) {
+            return null;
+        }
+        final var raster = originalImage.getRaster();
+        final int width = raster.getWidth(), height = raster.getHeight();
+        var indices = new byte[width * height];
+        if (raster.getDataBuffer() instanceof DataBufferByte bytesData
+                && raster.getSampleModel() instanceof PixelInterleavedSampleModel model
+                && model.getPixelStride() == 1
+                && model.getScanlineStride() == width
+                && raster.getSampleModelTranslateX() == 0
+                && raster.getSampleModelTranslateY() == 0
+                && bytesData.getOffset() == 0) {
+            System.arraycopy(bytesData.getData(), 0, indices, 0, indices.length);
+            return indices;
+        }
+        var row = new int[width];
+        for (int y = 0; y < height; y++) {
+            raster.getSamples(0, y, width, 1, 0, row);
+            for (int x = 0, base = y * width; x < width; x++) {
+                indices[base + x] = (byte) row[x];
+            }
+        }
+        return indices;
+    }
+    // </editor-fold>
+
     BufferedImage getBlueForIndex(int Index, Color FillColor) {
         return getColorForIndex(Index, BLUE, FillColor);
     }
@@ -1190,6 +1274,137 @@ public class CanvasContainer {
         return image;
     }
 
+    // <editor-fold defaultstate="collapsed" desc="packed pixel access">
+    /**
+     * @return how the image was decoded. a overview or a region of the image
+     * on the source are smaller than the image.
+     */
+    public ImageLoader.Plan getLoadPlan() {
+        return LoadPlan;
+    }
+
+    /**
+     * @return the width of the original image.
+     */
+    public int getWidth() {
+        return originalImage.getWidth();
+    }
+
+    /**
+     * @return the height of the original image.
+     */
+    public int getHeight() {
+        return originalImage.getHeight();
+    }
+
+    /**
+     * reads the pixel at the provided linear position and returns it packed
+     * into a single integer with the order {@code 0xAARRGGBB} no matter the
+     * order the underline image uses. unlike {@link #getRGB(int)} this does not
+     * allocate anything. if the image has no alpha channel the alpha is
+     * reported as fully opaque.
+     *
+     * @param LinearPosition the linear position of the pixel on the image.
+     * @return the ARGB value of the pixel packed into a integer.
+     */
+    public int getPackedARGB(int LinearPosition) {
+        final var dataArrayObject = ImageDataReference == null ? setupDataBuffer() : ImageDataReference;
+        switch (dataArrayObject) {
+            case int[] IntegerData -> {
+                return packIntPixel(originalImage.getType(), IntegerData[LinearPosition]);
+            }
+            case byte[] bytesData -> {
+                var hasAlpha = HasAlphaChannel();
+                final int BytesPerPixel = hasAlpha ? 4 : 3;
+                return packBytePixel(hasAlpha, bytesData, getRawIndexForImageIndex(BytesPerPixel, LinearPosition));
+            }
+            case null, default -> {
+                var width = originalImage.getWidth();
+                return originalImage.getRGB(LinearPosition % width, LinearPosition / width);
+            }
+        }
+    }
+
+    /**
+     * same as {@link #getPackedARGB(int)} but using the x,y coordinates.
+     *
+     * @param x the x axis
+     * @param y the y axis
+     * @return the ARGB value of the pixel packed into a integer.
+     */
+    public int getPackedARGB(int x, int y) {
+        return getPackedARGB(getIndexForPosition(originalImage.getWidth(), x, y));
+    }
+
+    /**
+     * copies a full row of the image into the provided array packed as
+     * {@code 0xAARRGGBB}. this is the fastest way this class provides to walk
+     * the image. as it reads straight from the underline array when the type
+     * of image allows it. and the caller is able to reuse the destination for
+     * every row.
+     *
+     * @param y the row to read
+     * @param Destination the array where to put the data. if null or smaller
+     * than the image width a new array is allocated.
+     * @return the array that holds the row data.
+     */
+    public int[] getPackedARGBRow(int y, int[] Destination) {
+        final int width = originalImage.getWidth();
+        if (Destination == null || Destination.length < width) {
+            Destination = new int[width];
+        }
+        final var dataArrayObject = ImageDataReference == null ? setupDataBuffer() : ImageDataReference;
+        final int type = originalImage.getType();
+        switch (dataArrayObject) {
+            case int[] IntegerData -> {
+                final int base = y * width;
+                for (int x = 0; x < width; x++) {
+                    Destination[x] = packIntPixel(type, IntegerData[base + x]);
+                }
+            }
+            case byte[] bytesData -> {
+                final var hasAlpha = HasAlphaChannel();
+                final int BytesPerPixel = hasAlpha ? 4 : 3;
+                int raw = getRawIndexForImageIndex(BytesPerPixel, y * width);
+                for (int x = 0; x < width; x++, raw += BytesPerPixel) {
+                    Destination[x] = packBytePixel(hasAlpha, bytesData, raw);
+                }
+            }
+            case null, default ->
+                originalImage.getRGB(0, y, width, 1, Destination, 0, width);
+        }
+        return Destination;
+    }
+
+    private static int packIntPixel(int type, int value) {
+        return switch (type) {
+            case BufferedImage.TYPE_INT_RGB ->
+                0xFF000000 | value;
+            case BufferedImage.TYPE_INT_BGR ->
+                0xFF000000 | (value & 0x0000FF00) | ((value >>> 16) & MAXUBYTE) | ((value & MAXUBYTE) << 16);
+            default ->
+                value;
+        };
+    }
+
+    /**
+     * packs the pixel stored at {@code raw} on a 3BYTE_BGR or 4BYTE_ABGR
+     * array. (the only byte types that support the fast read)
+     */
+    private static int packBytePixel(boolean hasAlpha, byte[] bytesData, int raw) {
+        if (hasAlpha) {
+            return (bytesData[raw] & MAXUBYTE) << 24
+                    | (bytesData[raw + 3] & MAXUBYTE) << 16
+                    | (bytesData[raw + 2] & MAXUBYTE) << 8
+                    | (bytesData[raw + 1] & MAXUBYTE);
+        }
+        return 0xFF000000
+                | (bytesData[raw + 2] & MAXUBYTE) << 16
+                | (bytesData[raw + 1] & MAXUBYTE) << 8
+                | (bytesData[raw] & MAXUBYTE);
+    }
+    // </editor-fold>
+
     /**
      * gets a Copy of the image converted into gray scale.
      *
@@ -0,0 +1,40 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+/**
+ * a file signature found by the {@link SignatureCarver}
+ *
+ * @param Source the name of the data where the signature was found. (the file
+ * bytes or the name of a {@link LSBStream})
+ * @param Signature the signature found.
+ * @param Offset the offset (in bytes) where the signature starts on the source
+ * @author Eduardo Vindas
+ */
+public record CarvedHit(String Source, FileSignature Signature, long Offset) {
+
+    /**
+     * @return the offset as a hexadecimal string (0x prefixed)
+     */
+    public String getHexOffset() {
+        return String.format("0x%08X", Offset);
+    }
+
+    /**
+     * @return true if this is the signature of the file itself. (the file
+     * bytes at offset 0)
+     */
+    public boolean isHostSignature() {
+        return Offset == 0 && SignatureCarver.FILE_SOURCE.equals(Source);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * renders the histogram of the AC coefficients of the luminance of a JPEG.
+ * LSB embedding on the coefficients (JSteg and the like) makes the heights of
+ * the pairs of values (2k, 2k+1) even out, and F5 shrinks the bars next to
+ * zero. both are easier to spot on the chart than on the pixels.
+ * <br>
+ * the zero bar is far taller than the rest on any JPEG. so the scale is set
+ * by the tallest non zero bar and the zero bar is drawn clipped.
+ *
+ * @author Eduardo Vindas
+ */
+final class CoefficientHistogram {
+
+    /**
+     * the name of the transformation.
+     */
+    static final String NAME = "DCT Coefficient Histogram";
+    /**
+     * the max absolute value shown.
+     */
+    private static final int RANGE = 16;
+    private static final int BAR_WIDTH = 18;
+    private static final int MARGIN = 40;
+    private static final int CHART_HEIGHT = 320;
+    private static final Color EVEN_COLOR = new Color(40, 90, 200);
+    private static final Color ODD_COLOR = new Color(90, 160, 240);
+    private static final Color CLIPPED_COLOR = new Color(150, 150, 150);
+
+    private CoefficientHistogram() {
+    }
+
+    /**
+     * @param Coefficients the coefficients of the JPEG
+     * @return the chart of the luminance (first component) AC coefficients.
+     */
+    static BufferedImage render(JPEGCoefficients Coefficients) {
+        var histogram = Coefficients.getACHistogram(0, RANGE);
+        long max = 1;
+        for (int i = 0; i < histogram.length; i++) {
+            if (i != RANGE) {
+                max = Math.max(max, histogram[i]);
+            }
+        }
+        final int width = MARGIN * 2 + histogram.length * BAR_WIDTH;
+        final int height = CHART_HEIGHT + MARGIN * 2;
+        var image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 10));
+            final int base = MARGIN + CHART_HEIGHT;
+            for (int i = 0; i < histogram.length; i++) {
+                final int value = i - RANGE;
+                final boolean clipped = histogram[i] > max;
+                final int barHeight = (int) (Math.min(histogram[i], max) * CHART_HEIGHT / max);
+                final int x = MARGIN + i * BAR_WIDTH;
+                graphics.setColor(clipped ? CLIPPED_COLOR : (value & 1) == 0 ? EVEN_COLOR : ODD_COLOR);
+                graphics.fillRect(x + 1, base - barHeight, BAR_WIDTH - 2, barHeight);
+                graphics.setColor(Color.DARK_GRAY);
+                var label = Integer.toString(value);
+                graphics.drawString(label, x + (BAR_WIDTH - graphics.getFontMetrics().stringWidth(label)) / 2, base + 14);
+            }
+            graphics.drawLine(MARGIN, base, width - MARGIN, base);
+            graphics.drawString(String.format("%s. luminance AC coefficients. scale max %,d%s", Coefficients.isProgressive()
+                    ? "Progressive" : "Baseline", max, histogram[RANGE] > max ? String.format(" (zero clipped: %,d)", histogram[RANGE]) : ""),
+                    MARGIN, MARGIN / 2);
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates the local Shannon entropy of the image on a {@code k x k} window
+ * around each pixel and renders it as a heat map. random data (an encrypted or
+ * compressed payload) embedded on a smooth region of the image has a much
+ * higher local entropy than its neighborhood and thus stands out right away.
+ * <br>
+ * the naive approach (build a histogram per window) costs
+ * {@code O(pixels * k * k)} which is unusable on real photos. instead we keep
+ * a histogram per column (that contains the {@code k} rows of the window) and
+ * a histogram for the window itself. moving the window down a row updates
+ * each column histogram by one removal and one addition, and moving the
+ * window to the right adds a column histogram and removes another. the
+ * entropy itself is updated incrementally as well. as we keep
+ * {@code S = sum(c * log2(c))} and only touch the bins that changed. so the
+ * cost is {@code O(pixels * bins)} regardless of the window size. (bins is 8
+ * for the LSB planes) when a window column holds fewer samples than there are
+ * bins (small windows on the byte mode) the column is moved sample by sample
+ * instead.
+ * <br>
+ * the image is split on horizontal strips that are computed in parallel. each
+ * strip has its own column histograms.
+ *
+ * @author Eduardo Vindas
+ */
+public class EntropyMap {
+
+    /**
+     * the default window size. (must be odd)
+     */
+    public static final int DEFAULT_WINDOW = 9;
+    /**
+     * the largest window we support. larger windows are pointless for what we
+     * look for and the tables grow with the square of the window.
+     */
+    public static final int MAX_WINDOW = 127;
+    /**
+     * the lowest amount of rows a strip should have before we stop splitting
+     * the work.
+     */
+    private static final int MIN_STRIP_ROWS = 64;
+    private static final int[] HEAT_PALETTE = buildHeatPalette();
+
+    /**
+     * what is counted for each pixel of the window.
+     */
+    public enum SampleMode {
+        /**
+         * the least significant bit of the Red, Green and Blue channels
+         * composed into a single 3 bit value. (8 bins, 1 sample per pixel)
+         */
+        LSBPlanes("LSB planes", 8, 1),
+        /**
+         * the two least significant bits of the Red, Green and Blue channels
+         * composed into a single 6 bit value. (64 bins, 1 sample per pixel)
+         */
+        TwoLSBPlanes("2 LSB planes", 64, 1),
+        /**
+         * the full bytes of the Red, Green and Blue channels. this is the
+         * entropy of the raw data as if the pixel were a file. (256 bins, 3
+         * samples per pixel)
+         */
+        Bytes("bytes", 256, 3);
+
+        public final String Name;
+        final int Bins;
+        final int Samples;
+
+        private SampleMode(String name, int bins, int samples) {
+            Name = name;
+            Bins = bins;
+            Samples = samples;
+        }
+    }
+
+    private final CanvasContainer Source;
+    private final SampleMode Mode;
+    private final int Window;
+    /**
+     * table for {@code c * log2(c)} for every count a window can hold.
+     */
+    private final double[] CLogC;
+
+    /**
+     * creates a new Entropy Map calculator for the provided image.
+     *
+     * @param Source the image to analyze.
+     * @param Mode what data from the pixels to account
+     * @param Window the size of the window (the window is {@code Window x
+     * Window}) needs to be odd and between 3 and {@link #MAX_WINDOW}
+     */
+    EntropyMap(CanvasContainer Source, SampleMode Mode, int Window) {
+        this.Source = Objects.requireNonNull(Source, "the Source image is null");
+        this.Mode = Objects.requireNonNull(Mode, "the Sample Mode is null");
+        if (Window < 3 || Window > MAX_WINDOW || (Window & 1) == 0) {
+            throw new IllegalArgumentException(String.format("Invalid window size %d it must be odd and between 3 and %d", Window, MAX_WINDOW));
+        }
+        this.Window = Window;
+        var maxCount = Window * Window * Mode.Samples;
+        CLogC = new double[maxCount + 1];
+        for (int c = 1; c <= maxCount; c++) {
+            CLogC[c] = c * (Math.log(c) / Math.log(2));
+        }
+    }
+
+    EntropyMap(CanvasContainer Source, SampleMode Mode) {
+        this(Source, Mode, DEFAULT_WINDOW);
+    }
+
+    /**
+     * calculates the entropy map and renders it as a heat map. black is no
+     * entropy (flat region) and white is the maximum entropy the window can
+     * hold.
+     *
+     * @return a new {@link BufferedImage#TYPE_INT_RGB} image with the heat map
+     */
+    public BufferedImage render() {
+        var image = Source.createBINoAlphaemptyCopy();
+        var destination = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        ForkJoinPool.commonPool().invoke(new StripTask(0, Source.getHeight(), destination));
+        image.flush();
+        return image;
+    }
+
+    /**
+     * computes the heat map for the rows between {@code FirstRow} (inclusive)
+     * and {@code LastRow} (exclusive) and writes them into the destination.
+     */
+    private void computeRows(final int FirstRow, final int LastRow, final int[] Destination) {
+        final int width = Source.getWidth();
+        final int height = Source.getHeight();
+        final int radius = Window / 2;
+        final int bins = Mode.Bins;
+        final int samplesPerRow = width * Mode.Samples;
+        //the bins of the rows that are inside the window. indexed by row % Window
+        final byte[][] ring = new byte[Window][samplesPerRow];
+        //when a window column has a lot fewer samples than bins is cheaper to
+        //move the samples one by one than to merge the whole column histogram.
+        //(a sample move costs about 4 times a bin merge)
+        final boolean moveBySamples = Window * Mode.Samples * 4 < bins;
+        final int[] columns = moveBySamples ? null : new int[width * bins];
+        final int[] kernel = new int[bins];
+        final int[] row = new int[width];
+        final double maxBinsEntropy = log2(bins);
+        //prime the window of the first row.
+        for (int y = Math.max(0, FirstRow - radius); y <= Math.min(height - 1, FirstRow + radius); y++) {
+            loadRow(y, row, ring[y % Window], columns);
+        }
+        for (int y = FirstRow; y < LastRow; y++) {
+            final int top = Math.max(0, y - radius);
+            final int bottom = Math.min(height - 1, y + radius);
+            if (y > FirstRow) {
+                //remove first. the leaving row and the new row share the ring slot
+                if (y - radius - 1 >= 0 && columns != null) {
+                    unloadRow(ring[(y - radius - 1) % Window], columns);
+                }
+                if (y + radius < height) {
+                    loadRow(y + radius, row, ring[(y + radius) % Window], columns);
+                }
+            }
+            final int rows = bottom - top + 1;
+            Arrays.fill(kernel, 0);
+            double sum = 0;
+            for (int x = 0; x <= Math.min(radius, width - 1); x++) {
+                sum = moveBySamples
+                        ? moveSamples(ring, top, bottom, x, kernel, sum, 1)
+                        : moveColumn(columns, x, kernel, sum, 1);
+            }
+            final int base = y * width;
+            for (int x = 0; x < width; x++) {
+                if (x > 0) {
+                    //remove first. so the counts never go over the table size
+                    if (x - radius - 1 >= 0) {
+                        sum = moveBySamples
+                                ? moveSamples(ring, top, bottom, x - radius - 1, kernel, sum, -1)
+                                : moveColumn(columns, x - radius - 1, kernel, sum, -1);
+                    }
+                    if (x + radius < width) {
+                        sum = moveBySamples
+                                ? moveSamples(ring, top, bottom, x + radius, kernel, sum, 1)
+                                : moveColumn(columns, x + radius, kernel, sum, 1);
+                    }
+                }
+                final int count = (Math.min(width - 1, x + radius) - Math.max(0, x - radius) + 1) * rows * Mode.Samples;
+                // H = log2(N) - S/N and c*log2(c)/c = log2(c)
+                var entropy = (CLogC[count] - sum) / count;
+                //the max entropy is limited by the bins and by the samples we have.
+                var maxEntropy = Math.min(maxBinsEntropy, CLogC[count] / count);
+                var level = maxEntropy <= 0 ? 0 : (int) (entropy / maxEntropy * 255 + 0.5);
+                Destination[base + x] = HEAT_PALETTE[Math.max(0, Math.min(255, level))];
+            }
+        }
+    }
+
+    /**
+     * reads the row {@code y} from the source. converts the pixels into the
+     * bins for the current mode (stored on {@code Bins}) and if required adds
+     * them into the column histograms.
+     */
+    private void loadRow(int y, int[] row, byte[] Bins, int[] columns) {
+        Source.getPackedARGBRow(y, row);
+        final int width = Source.getWidth();
+        switch (Mode) {
+            case LSBPlanes -> {
+                for (int x = 0; x < width; x++) {
+                    var argb = row[x];
+                    Bins[x] = (byte) (((argb >>> 14) & 0b100) | ((argb >>> 7) & 0b10) | (argb & 0b1));
+                }
+            }
+            case TwoLSBPlanes -> {
+                for (int x = 0; x < width; x++) {
+                    var argb = row[x];
+                    Bins[x] = (byte) (((argb >>> 12) & 0b110000) | ((argb >>> 6) & 0b1100) | (argb & 0b11));
+                }
+            }
+            case Bytes -> {
+                for (int x = 0, sample = 0; x < width; x++, sample += 3) {
+                    var argb = row[x];
+                    Bins[sample] = (byte) (argb >>> 16);
+                    Bins[sample + 1] = (byte) (argb >>> 8);
+                    Bins[sample + 2] = (byte) argb;
+                }
+            }
+        }
+        if (columns != null) {
+            updateColumns(Bins, columns, 1);
+        }
+    }
+
+    private void unloadRow(byte[] Bins, int[] columns) {
+        updateColumns(Bins, columns, -1);
+    }
+
+    /**
+     * adds or removes (depending on {@code Sign}) the bins of a row to the
+     * column histograms.
+     */
+    private void updateColumns(byte[] Bins, int[] columns, int Sign) {
+        final int bins = Mode.Bins;
+        final int samples = Mode.Samples;
+        for (int sample = 0; sample < Bins.length; sample++) {
+            columns[(sample / samples) * bins + (Bins[sample] & CanvasContainer.MAXUBYTE)] += Sign;
+        }
+    }
+
+    /**
+     * adds or removes the column histogram {@code x} into the window histogram
+     * and returns the updated {@code sum(c*log2(c))}
+     */
+    private double moveColumn(int[] columns, int x, int[] kernel, double sum, int Sign) {
+        final int bins = kernel.length;
+        final int offset = x * bins;
+        for (int bin = 0; bin < bins; bin++) {
+            var count = columns[offset + bin];
+            if (count != 0) {
+                var old = kernel[bin];
+                var updated = old + Sign * count;
+                kernel[bin] = updated;
+                sum += CLogC[updated] - CLogC[old];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * adds or removes the samples of the column {@code x} (for the rows between
+     * {@code top} and {@code bottom}) into the window histogram one by one and
+     * returns the updated {@code sum(c*log2(c))}
+     */
+    private double moveSamples(byte[][] ring, int top, int bottom, int x, int[] kernel, double sum, int Sign) {
+        final int samples = Mode.Samples;
+        final int first = x * samples;
+        for (int y = top; y <= bottom; y++) {
+            final var Bins = ring[y % Window];
+            for (int sample = first; sample < first + samples; sample++) {
+                var bin = Bins[sample] & CanvasContainer.MAXUBYTE;
+                var old = kernel[bin];
+                var updated = old + Sign;
+                kernel[bin] = updated;
+                sum += CLogC[updated] - CLogC[old];
+            }
+        }
+        return sum;
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    /**
+     * builds a 256 color palette that goes from black, to blue, to red, to
+     * yellow and finally white. (similar to the "hot" or "inferno" maps)
+     */
+    private static int[] buildHeatPalette() {
+        int[][] anchors = {
+            {0x00, 0x00, 0x00},
+            {0x20, 0x0C, 0x70},
+            {0xB0, 0x20, 0x60},
+            {0xF0, 0x70, 0x10},
+            {0xF8, 0xE0, 0x40},
+            {0xFF, 0xFF, 0xFF}};
+        var palette = new int[256];
+        var segments = anchors.length - 1;
+        for (int level = 0; level < 256; level++) {
+            var position = level / 255.0 * segments;
+            var segment = Math.min(segments - 1, (int) position);
+            var fraction = position - segment;
+            var from = anchors[segment];
+            var to = anchors[segment + 1];
+            var red = (int) (from[0] + (to[0] - from[0]) * fraction);
+            var green = (int) (from[1] + (to[1] - from[1]) * fraction);
+            var blue = (int) (from[2] + (to[2] - from[2]) * fraction);
+            palette[level] = red << 16 | green << 8 | blue;
+        }
+        return palette;
+    }
+
+    /**
+     * splits the rows of the image into strips and computes them in parallel.
+     */
+    private class StripTask extends RecursiveAction {
+
+        private final int FirstRow, LastRow;
+        private final int[] Destination;
+
+        private StripTask(int FirstRow, int LastRow, int[] Destination) {
+            this.FirstRow = FirstRow;
+            this.LastRow = LastRow;
+            this.Destination = Destination;
+        }
+
+        @Override
+        protected void compute() {
+            var rows = LastRow - FirstRow;
+            //each strip need to prime Window rows. so dont make them too small
+            if (rows <= Math.max(MIN_STRIP_ROWS, Window * 4)) {
+                computeRows(FirstRow, LastRow, Destination);
+                return;
+            }
+            var middle = FirstRow + rows / 2;
+            invokeAll(new StripTask(FirstRow, middle, Destination),
+                    new StripTask(middle, LastRow, Destination));
+        }
+    }
+}
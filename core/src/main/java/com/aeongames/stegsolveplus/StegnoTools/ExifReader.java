@@ -0,0 +1,308 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * reads the EXIF (TIFF) structure of a JPEG APP1 segment. the buffer is kept
+ * and the IFDs are walked only when the fields or the thumbnail are first
+ * requested. the values are read in place and formatted for display. (no
+ * attempt to interpret the maker notes is done)
+ *
+ * @author Eduardo Vindas
+ */
+public final class ExifReader {
+
+    /**
+     * a field (tag) of an IFD.
+     *
+     * @param Ifd the IFD where the field is: IFD0, IFD1 (thumbnail), Exif,
+     * GPS or Interop
+     * @param Tag the tag number
+     * @param Name the tag name. or the tag number in hex if unknown
+     * @param Value the value formatted as text.
+     */
+    public record Field(String Ifd, int Tag, String Name, String Value) {
+
+    }
+
+    private static final int[] TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8};
+    private static final int TYPE_ASCII = 2, TYPE_UNDEFINED = 7;
+    private static final int EXIF_IFD = 0x8769, GPS_IFD = 0x8825, INTEROP_IFD = 0xA005;
+    private static final int THUMBNAIL_OFFSET = 0x0201, THUMBNAIL_LENGTH = 0x0202;
+    private static final int USER_COMMENT = 0x9286;
+    /**
+     * the max amount of values listed for a field (and bytes for the undefined
+     * ones)
+     */
+    private static final int MAX_VALUES = 32;
+    private static final int MAX_ENTRIES = 1024;
+    private static final Map<Integer, String> TAG_NAMES = Map.ofEntries(
+            Map.entry(0x010E, "ImageDescription"), Map.entry(0x010F, "Make"), Map.entry(0x0110, "Model"),
+            Map.entry(0x0112, "Orientation"), Map.entry(0x011A, "XResolution"), Map.entry(0x011B, "YResolution"),
+            Map.entry(0x0128, "ResolutionUnit"), Map.entry(0x0131, "Software"), Map.entry(0x0132, "DateTime"),
+            Map.entry(0x013B, "Artist"), Map.entry(0x013C, "HostComputer"), Map.entry(0x0100, "ImageWidth"),
+            Map.entry(0x0101, "ImageLength"), Map.entry(0x0103, "Compression"), Map.entry(0x0213, "YCbCrPositioning"),
+            Map.entry(THUMBNAIL_OFFSET, "JPEGInterchangeFormat"), Map.entry(THUMBNAIL_LENGTH, "JPEGInterchangeFormatLength"),
+            Map.entry(0x8298, "Copyright"), Map.entry(EXIF_IFD, "ExifIFDPointer"), Map.entry(GPS_IFD, "GPSInfoIFDPointer"),
+            Map.entry(0x829A, "ExposureTime"), Map.entry(0x829D, "FNumber"), Map.entry(0x8822, "ExposureProgram"),
+            Map.entry(0x8827, "ISOSpeedRatings"), Map.entry(0x9000, "ExifVersion"), Map.entry(0x9003, "DateTimeOriginal"),
+            Map.entry(0x9004, "DateTimeDigitized"), Map.entry(0x9010, "OffsetTime"), Map.entry(0x9101, "ComponentsConfiguration"),
+            Map.entry(0x9201, "ShutterSpeedValue"), Map.entry(0x9202, "ApertureValue"), Map.entry(0x9204, "ExposureBiasValue"),
+            Map.entry(0x9207, "MeteringMode"), Map.entry(0x9209, "Flash"), Map.entry(0x920A, "FocalLength"),
+            Map.entry(0x927C, "MakerNote"), Map.entry(USER_COMMENT, "UserComment"), Map.entry(0xA000, "FlashpixVersion"),
+            Map.entry(0xA001, "ColorSpace"), Map.entry(0xA002, "PixelXDimension"), Map.entry(0xA003, "PixelYDimension"),
+            Map.entry(INTEROP_IFD, "InteroperabilityIFDPointer"), Map.entry(0xA402, "ExposureMode"), Map.entry(0xA403, "WhiteBalance"),
+            Map.entry(0xA405, "FocalLengthIn35mmFilm"), Map.entry(0xA406, "SceneCaptureType"), Map.entry(0xA420, "ImageUniqueID"),
+            Map.entry(0xA430, "CameraOwnerName"), Map.entry(0xA431, "BodySerialNumber"), Map.entry(0xA433, "LensMake"),
+            Map.entry(0xA434, "LensModel"), Map.entry(0x9C9B, "XPTitle"), Map.entry(0x9C9C, "XPComment"),
+            Map.entry(0x9C9D, "XPAuthor"), Map.entry(0x9C9E, "XPKeywords"), Map.entry(0x9C9F, "XPSubject"));
+    private static final Map<Integer, String> GPS_TAG_NAMES = Map.of(
+            0x0000, "GPSVersionID", 0x0001, "GPSLatitudeRef", 0x0002, "GPSLatitude", 0x0003, "GPSLongitudeRef",
+            0x0004, "GPSLongitude", 0x0005, "GPSAltitudeRef", 0x0006, "GPSAltitude", 0x0007, "GPSTimeStamp",
+            0x001D, "GPSDateStamp");
+
+    private final ByteBuffer Data;
+    private final long BaseOffset;
+    private List<Field> Fields;
+    private final List<String> Warnings = new ArrayList<>();
+    private int ThumbnailOffset = -1;
+    private int ThumbnailLength = 0;
+
+    /**
+     * @param Tiff the TIFF data. (the APP1 payload after the
+     * {@code Exif\0\0} identifier)
+     * @param BaseOffset the offset of the TIFF data on the file. (used for
+     * reporting)
+     */
+    public ExifReader(ByteBuffer Tiff, long BaseOffset) {
+        this.Data = Tiff.slice();
+        this.BaseOffset = BaseOffset;
+    }
+
+    /**
+     * @return the fields of every IFD. (walked on the first call)
+     */
+    public synchronized List<Field> getFields() {
+        if (Fields == null) {
+            Fields = new ArrayList<>();
+            walk();
+        }
+        return Collections.unmodifiableList(Fields);
+    }
+
+    /**
+     * @return the issues found while walking the IFDs.
+     */
+    public synchronized List<String> getWarnings() {
+        getFields();
+        return Collections.unmodifiableList(Warnings);
+    }
+
+    /**
+     * @return the data of the JPEG thumbnail (IFD1) or null if there is none.
+     */
+    public ByteBuffer getThumbnail() {
+        getFields();
+        return ThumbnailOffset < 0 ? null : Data.slice(ThumbnailOffset, ThumbnailLength);
+    }
+
+    /**
+     * @return the offset of the thumbnail on the file. or -1 if there is none
+     */
+    public long getThumbnailFileOffset() {
+        getFields();
+        return ThumbnailOffset < 0 ? -1 : BaseOffset + ThumbnailOffset;
+    }
+
+    private void walk() {
+        if (Data.limit() < 8) {
+            Warnings.add("the EXIF data is too short");
+            return;
+        }
+        final int order = Data.getShort(0);
+        if (order == 0x4949) {
+            Data.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (order != 0x4D4D) {
+            Warnings.add("invalid TIFF byte order mark");
+            return;
+        }
+        if ((Data.getShort(2) & 0xFFFF) != 42) {
+            Warnings.add("invalid TIFF header");
+            return;
+        }
+        var visited = new HashSet<Integer>();
+        int ifd = Data.getInt(4);
+        int next = readIfd("IFD0", ifd, visited);
+        if (next > 0) {
+            readIfd("IFD1", next, visited);
+        }
+    }
+
+    /**
+     * reads the entries of the IFD (and the sub IFDs it points to)
+     *
+     * @return the offset of the next IFD on the chain or 0
+     */
+    private int readIfd(String Name, int Offset, Set<Integer> Visited) {
+        if (Offset < 8 || Offset + 2 > Data.limit() || !Visited.add(Offset)) {
+            Warnings.add(String.format("invalid or repeated %s offset 0x%X", Name, Offset));
+            return 0;
+        }
+        final int count = Data.getShort(Offset) & 0xFFFF;
+        if (count > MAX_ENTRIES || Offset + 2 + count * 12L + 4 > Data.limit()) {
+            Warnings.add(String.format("%s entries go beyond the end of the EXIF data", Name));
+            return 0;
+        }
+        int thumbnailOffset = -1, thumbnailLength = 0;
+        for (int i = 0; i < count; i++) {
+            final int entry = Offset + 2 + i * 12;
+            final int tag = Data.getShort(entry) & 0xFFFF;
+            final int type = Data.getShort(entry + 2) & 0xFFFF;
+            final long values = Integer.toUnsignedLong(Data.getInt(entry + 4));
+            if (type == 0 || type >= TYPE_SIZES.length) {
+                Warnings.add(String.format("%s tag 0x%04X has an invalid type %d", Name, tag, type));
+                continue;
+            }
+            final long size = values * TYPE_SIZES[type];
+            final int valueOffset = size <= 4 ? entry + 8 : Data.getInt(entry + 8);
+            if (valueOffset < 0 || valueOffset + size > Data.limit()) {
+                Warnings.add(String.format("%s tag 0x%04X value goes beyond the end of the EXIF data", Name, tag));
+                continue;
+            }
+            var names = Name.equals("GPS") ? GPS_TAG_NAMES : TAG_NAMES;
+            var tagName = names.getOrDefault(tag, String.format("0x%04X", tag));
+            Fields.add(new Field(Name, tag, tagName, format(tag, type, (int) values, valueOffset)));
+            switch (tag) {
+                case EXIF_IFD ->
+                    readIfd("Exif", (int) readUnsigned(type, valueOffset), Visited);
+                case GPS_IFD ->
+                    readIfd("GPS", (int) readUnsigned(type, valueOffset), Visited);
+                case INTEROP_IFD ->
+                    readIfd("Interop", (int) readUnsigned(type, valueOffset), Visited);
+                case THUMBNAIL_OFFSET ->
+                    thumbnailOffset = (int) readUnsigned(type, valueOffset);
+                case THUMBNAIL_LENGTH ->
+                    thumbnailLength = (int) readUnsigned(type, valueOffset);
+                default -> {
+                }
+            }
+        }
+        if (Name.equals("IFD1") && thumbnailOffset >= 0 && thumbnailLength > 0) {
+            if (thumbnailOffset + (long) thumbnailLength <= Data.limit()) {
+                ThumbnailOffset = thumbnailOffset;
+                ThumbnailLength = thumbnailLength;
+            } else {
+                Warnings.add("the thumbnail goes beyond the end of the EXIF data");
+            }
+        }
+        return Data.getInt(Offset + 2 + count * 12);
+    }
+
+    private long readUnsigned(int type, int offset) {
+        return switch (type) {
+            case 1, 6, 7 ->
+                Data.get(offset) & 0xFF;
+            case 3, 8 ->
+                Data.getShort(offset) & 0xFFFF;
+            default ->
+                Integer.toUnsignedLong(Data.getInt(offset));
+        };
+    }
+
+    private String format(int tag, int type, int count, int offset) {
+        if (type == TYPE_ASCII) {
+            for (int i = offset, terminator = -1; i < offset + count; i++) {
+                if (Data.get(i) == 0 && terminator < 0) {
+                    terminator = i;
+                } else if (Data.get(i) != 0 && terminator >= 0) {
+                    Warnings.add(String.format("tag 0x%04X has data after the string terminator", tag));
+                    break;
+                }
+            }
+            return readText(offset, count, StandardCharsets.ISO_8859_1);
+        }
+        if (tag == USER_COMMENT && type == TYPE_UNDEFINED && count >= 8) {
+            var code = readText(offset, 8, StandardCharsets.US_ASCII).strip();
+            var charset = code.startsWith("UNICODE") ? (Data.order() == ByteOrder.BIG_ENDIAN
+                    ? StandardCharsets.UTF_16BE : StandardCharsets.UTF_16LE) : StandardCharsets.ISO_8859_1;
+            return readText(offset + 8, count - 8, charset);
+        }
+        if (tag >= 0x9C9B && tag <= 0x9C9F && (type == 1 || type == TYPE_UNDEFINED)) {
+            //the windows XP tags are UTF-16LE regardless the byte order.
+            return readText(offset, count, StandardCharsets.UTF_16LE);
+        }
+        if (type == 1 || type == 6 || type == TYPE_UNDEFINED) {
+            var text = new StringBuilder();
+            boolean printable = true;
+            for (int i = 0; i < Math.min(count, MAX_VALUES); i++) {
+                final int value = Data.get(offset + i) & 0xFF;
+                printable &= value >= 0x20 && value < 0x7F;
+                text.append(String.format("%02X ", value));
+            }
+            if (printable && count <= MAX_VALUES && count > 0) {
+                return readText(offset, count, StandardCharsets.US_ASCII);
+            }
+            return text.toString().strip() + (count > MAX_VALUES ? String.format(" ... (%d bytes)", count) : "");
+        }
+        var text = new StringBuilder();
+        final int size = TYPE_SIZES[type];
+        for (int i = 0; i < Math.min(count, MAX_VALUES); i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            final int position = offset + i * size;
+            switch (type) {
+                case 3 ->
+                    text.append(Data.getShort(position) & 0xFFFF);
+                case 8 ->
+                    text.append(Data.getShort(position));
+                case 4 ->
+                    text.append(Integer.toUnsignedLong(Data.getInt(position)));
+                case 9 ->
+                    text.append(Data.getInt(position));
+                case 5 ->
+                    text.append(Integer.toUnsignedLong(Data.getInt(position))).append('/')
+                            .append(Integer.toUnsignedLong(Data.getInt(position + 4)));
+                case 10 ->
+                    text.append(Data.getInt(position)).append('/').append(Data.getInt(position + 4));
+                case 11 ->
+                    text.append(Data.getFloat(position));
+                default ->
+                    text.append(Data.getDouble(position));
+            }
+        }
+        if (count > MAX_VALUES) {
+            text.append(String.format(" ... (%d values)", count));
+        }
+        return text.toString();
+    }
+
+    private String readText(int offset, int length, Charset charset) {
+        var bytes = new byte[Math.max(0, length)];
+        Data.get(offset, bytes);
+        var text = new String(bytes, charset);
+        var end = text.indexOf('\0');
+        return (end >= 0 ? text.substring(0, end) : text).strip();
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * a forward complex FFT of a fixed size on primitive {@code double[]}
+ * buffers. the sizes that are a power of two use a in place iterative radix-2
+ * transform. the sizes made of small prime factors (as most image sizes are)
+ * use a recursive mixed radix Cooley-Tukey transform (radix 4 and 2 butterflies
+ * plus a generic one for the other factors). the sizes with a large prime
+ * factor use the Bluestein (chirp z) algorithm, that turns the transform into
+ * a convolution done with a power of two FFT. so every size costs
+ * {@code O(n log n)}
+ * <br>
+ * the twiddle tables (and the Bluestein chirp and filter) are computed once
+ * per size and shared. (the last sizes used. see {@link #MAX_PLANS}) a instance is immutable and can be used from several
+ * threads as long as each uses its own buffers and workspace.
+ *
+ * @author Eduardo Vindas
+ */
+final class FFT {
+
+    /**
+     * the plans kept. a image needs up to 4 (its width and height and their
+     * Bluestein inner plans) and a large Bluestein plan takes some MB.
+     */
+    private static final int MAX_PLANS = 8;
+    /**
+     * the plans by size. the least recently used is dropped. (access order)
+     */
+    private static final Map<Integer, FFT> PLANS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, FFT> eldest) {
+            return size() > MAX_PLANS;
+        }
+    };
+
+    private final int Size;
+    /**
+     * the radix-2 tables. {@code cos(2 pi k / n)} and {@code sin(2 pi k / n)}
+     * for {@code k < n/2} and the bit reversal permutation.
+     */
+    private final double[] Cos, Sin;
+    private final int[] Reverse;
+    /**
+     * the Bluestein data (null for powers of two) the chirp
+     * {@code exp(-i pi k^2 / n)} and the FFT of its conjugate (the filter)
+     */
+    private final FFT Inner;
+    private final double[] ChirpRe, ChirpIm, FilterRe, FilterIm;
+    /**
+     * the mixed radix data (null for the other strategies) the factors (radix)
+     * of each stage and the twiddles {@code exp(-2 pi i k / n)} for
+     * {@code k < n}
+     */
+    private final int[] Factors;
+    private final double[] TwiddleRe, TwiddleIm;
+    /**
+     * the largest prime factor handled by the mixed radix transform. its
+     * generic butterfly costs {@code O(p^2)}
+     */
+    private static final int MAX_RADIX = 32;
+
+    /**
+     * @param Size the transform size
+     * @return the (cached) transform for the size.
+     */
+    static FFT of(int Size) {
+        if (Size < 1) {
+            throw new IllegalArgumentException("invalid FFT size " + Size);
+        }
+        FFT plan;
+        synchronized (PLANS) {
+            plan = PLANS.get(Size);
+        }
+        if (plan == null) {
+            //built outside of the lock. the Bluestein plans request their inner plan.
+            plan = new FFT(Size);
+            synchronized (PLANS) {
+                var previous = PLANS.putIfAbsent(Size, plan);
+                plan = previous != null ? previous : plan;
+            }
+        }
+        return plan;
+    }
+
+    private FFT(int Size) {
+        this.Size = Size;
+        if (Integer.bitCount(Size) == 1) {
+            Cos = new double[Math.max(1, Size / 2)];
+            Sin = new double[Cos.length];
+            for (int k = 0; k < Size / 2; k++) {
+                Cos[k] = Math.cos(2 * Math.PI * k / Size);
+                Sin[k] = Math.sin(2 * Math.PI * k / Size);
+            }
+            Reverse = new int[Size];
+            final int bits = Integer.numberOfTrailingZeros(Size);
+            for (int i = 0; i < Size; i++) {
+                Reverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+            }
+            Inner = null;
+            ChirpRe = ChirpIm = FilterRe = FilterIm = null;
+            Factors = null;
+            TwiddleRe = TwiddleIm = null;
+            return;
+        }
+        Cos = Sin = null;
+        Reverse = null;
+        var factors = factorize(Size);
+        if (factors != null) {
+            Factors = factors;
+            TwiddleRe = new double[Size];
+            TwiddleIm = new double[Size];
+            for (int k = 0; k < Size; k++) {
+                TwiddleRe[k] = Math.cos(2 * Math.PI * k / Size);
+                TwiddleIm[k] = -Math.sin(2 * Math.PI * k / Size);
+            }
+            Inner = null;
+            ChirpRe = ChirpIm = FilterRe = FilterIm = null;
+            return;
+        }
+        Factors = null;
+        TwiddleRe = TwiddleIm = null;
+        Inner = of(Integer.highestOneBit(Size * 2 - 1) << 1);
+        final int m = Inner.Size;
+        ChirpRe = new double[Size];
+        ChirpIm = new double[Size];
+        for (int k = 0; k < Size; k++) {
+            //k^2 mod 2n keeps the angle small (and precise) for large k
+            final double angle = Math.PI * ((long) k * k % (2L * Size)) / Size;
+            ChirpRe[k] = Math.cos(angle);
+            ChirpIm[k] = -Math.sin(angle);
+        }
+        FilterRe = new double[m];
+        FilterIm = new double[m];
+        FilterRe[0] = ChirpRe[0];
+        FilterIm[0] = -ChirpIm[0];
+        for (int k = 1; k < Size; k++) {
+            FilterRe[k] = FilterRe[m - k] = ChirpRe[k];
+            FilterIm[k] = FilterIm[m - k] = -ChirpIm[k];
+        }
+        Inner.transform(FilterRe, FilterIm, null);
+    }
+
+    /**
+     * @return the radix of each stage (4s first, then 2s then the odd primes)
+     * or null if there is a factor larger than {@link #MAX_RADIX}
+     */
+    private static int[] factorize(int n) {
+        var factors = new ArrayList<Integer>();
+        for (int p : new int[]{4, 2}) {
+            while (n % p == 0) {
+                factors.add(p);
+                n /= p;
+            }
+        }
+        for (int p = 3; n > 1; p += 2) {
+            if (p > MAX_RADIX) {
+                return null;
+            }
+            while (n % p == 0) {
+                factors.add(p);
+                n /= p;
+            }
+        }
+        return factors.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int getSize() {
+        return Size;
+    }
+
+    /**
+     * @return a new scratch workspace for {@link #transform}. (null for the
+     * powers of two as those do not need one)
+     */
+    double[][] newWorkspace() {
+        if (Factors != null) {
+            //a copy of the input and the scratch of the generic butterfly
+            return new double[][]{new double[Size], new double[Size], new double[MAX_RADIX], new double[MAX_RADIX]};
+        }
+        return Inner == null ? null : new double[2][Inner.Size];
+    }
+
+    /**
+     * transforms the first {@link #getSize()} values of the buffers in place.
+     *
+     * @param Re the real part
+     * @param Im the imaginary part
+     * @param Workspace the scratch buffers from {@link #newWorkspace()} (if
+     * null one is allocated for the call)
+     */
+    void transform(double[] Re, double[] Im, double[][] Workspace) {
+        if (Factors != null) {
+            mixed(Re, Im, Workspace);
+        } else if (Inner == null) {
+            radix2(Re, Im);
+        } else {
+            bluestein(Re, Im, Workspace);
+        }
+    }
+
+    private void mixed(double[] Re, double[] Im, double[][] Workspace) {
+        if (Workspace == null) {
+            Workspace = newWorkspace();
+        }
+        System.arraycopy(Re, 0, Workspace[0], 0, Size);
+        System.arraycopy(Im, 0, Workspace[1], 0, Size);
+        stage(Re, Im, 0, Workspace[0], Workspace[1], 0, 1, 0, Size, Workspace);
+    }
+
+    /**
+     * the recursive decimation in time: transforms the {@code Length} values
+     * of the input (taken every {@code Stride}) into the output from
+     * {@code Out}
+     */
+    private void stage(double[] Re, double[] Im, int Out, double[] InRe, double[] InIm, int In,
+            int Stride, int Factor, int Length, double[][] Workspace) {
+        final int p = Factors[Factor];
+        final int m = Length / p;
+        if (m == 1) {
+            for (int i = 0, src = In; i < p; i++, src += Stride) {
+                Re[Out + i] = InRe[src];
+                Im[Out + i] = InIm[src];
+            }
+        } else {
+            for (int i = 0; i < p; i++) {
+                stage(Re, Im, Out + i * m, InRe, InIm, In + i * Stride, Stride * p, Factor + 1, m, Workspace);
+            }
+        }
+        switch (p) {
+            case 2 ->
+                butterfly2(Re, Im, Out, Stride, m);
+            case 4 ->
+                butterfly4(Re, Im, Out, Stride, m);
+            default ->
+                butterfly(Re, Im, Out, Stride, m, p, Workspace[2], Workspace[3]);
+        }
+    }
+
+    private void butterfly2(double[] Re, double[] Im, int Out, int Stride, int m) {
+        for (int k = 0, t = 0; k < m; k++, t += Stride) {
+            final int a = Out + k, b = a + m;
+            final double tr = Re[b] * TwiddleRe[t] - Im[b] * TwiddleIm[t];
+            final double ti = Re[b] * TwiddleIm[t] + Im[b] * TwiddleRe[t];
+            Re[b] = Re[a] - tr;
+            Im[b] = Im[a] - ti;
+            Re[a] += tr;
+            Im[a] += ti;
+        }
+    }
+
+    private void butterfly4(double[] Re, double[] Im, int Out, int Stride, int m) {
+        for (int k = 0; k < m; k++) {
+            final int a = Out + k, b = a + m, c = b + m, d = c + m;
+            final int t1 = k * Stride, t2 = t1 * 2, t3 = t1 * 3;
+            final double s0r = Re[b] * TwiddleRe[t1] - Im[b] * TwiddleIm[t1];
+            final double s0i = Re[b] * TwiddleIm[t1] + Im[b] * TwiddleRe[t1];
+            final double s1r = Re[c] * TwiddleRe[t2] - Im[c] * TwiddleIm[t2];
+            final double s1i = Re[c] * TwiddleIm[t2] + Im[c] * TwiddleRe[t2];
+            final double s2r = Re[d] * TwiddleRe[t3] - Im[d] * TwiddleIm[t3];
+            final double s2i = Re[d] * TwiddleIm[t3] + Im[d] * TwiddleRe[t3];
+            final double s5r = Re[a] - s1r, s5i = Im[a] - s1i;
+            final double s3r = s0r + s2r, s3i = s0i + s2i;
+            final double s4r = s0r - s2r, s4i = s0i - s2i;
+            final double ar = Re[a] + s1r, ai = Im[a] + s1i;
+            Re[c] = ar - s3r;
+            Im[c] = ai - s3i;
+            Re[a] = ar + s3r;
+            Im[a] = ai + s3i;
+            Re[b] = s5r + s4i;
+            Im[b] = s5i - s4r;
+            Re[d] = s5r - s4i;
+            Im[d] = s5i + s4r;
+        }
+    }
+
+    /**
+     * the generic butterfly for any radix. {@code O(p^2)} per group.
+     */
+    private void butterfly(double[] Re, double[] Im, int Out, int Stride, int m, int p, double[] ScratchRe, double[] ScratchIm) {
+        for (int u = 0; u < m; u++) {
+            for (int q = 0, k = Out + u; q < p; q++, k += m) {
+                ScratchRe[q] = Re[k];
+                ScratchIm[q] = Im[k];
+            }
+            for (int q1 = 0, k = u; q1 < p; q1++, k += m) {
+                double sumRe = ScratchRe[0], sumIm = ScratchIm[0];
+                int twiddle = 0;
+                for (int q = 1; q < p; q++) {
+                    twiddle += Stride * k;
+                    twiddle %= Size;
+                    sumRe += ScratchRe[q] * TwiddleRe[twiddle] - ScratchIm[q] * TwiddleIm[twiddle];
+                    sumIm += ScratchRe[q] * TwiddleIm[twiddle] + ScratchIm[q] * TwiddleRe[twiddle];
+                }
+                Re[Out + k] = sumRe;
+                Im[Out + k] = sumIm;
+            }
+        }
+    }
+
+    private void radix2(double[] Re, double[] Im) {
+        final int n = Size;
+        for (int i = 0; i < n; i++) {
+            final int j = Reverse[i];
+            if (j > i) {
+                double t = Re[i];
+                Re[i] = Re[j];
+                Re[j] = t;
+                t = Im[i];
+                Im[i] = Im[j];
+                Im[j] = t;
+            }
+        }
+        for (int size = 2; size <= n; size <<= 1) {
+            final int half = size >>> 1;
+            final int step = n / size;
+            for (int start = 0; start < n; start += size) {
+                for (int j = 0, k = 0; j < half; j++, k += step) {
+                    final int a = start + j, b = a + half;
+                    final double cos = Cos[k], sin = Sin[k];
+                    //b * exp(-2 pi i k / n)
+                    final double tr = Re[b] * cos + Im[b] * sin;
+                    final double ti = Im[b] * cos - Re[b] * sin;
+                    Re[b] = Re[a] - tr;
+                    Im[b] = Im[a] - ti;
+                    Re[a] += tr;
+                    Im[a] += ti;
+                }
+            }
+        }
+    }
+
+    private void bluestein(double[] Re, double[] Im, double[][] Workspace) {
+        final int m = Inner.Size;
+        if (Workspace == null) {
+            Workspace = newWorkspace();
+        }
+        final double[] aRe = Workspace[0], aIm = Workspace[1];
+        Arrays.fill(aRe, Size, m, 0);
+        Arrays.fill(aIm, Size, m, 0);
+        for (int k = 0; k < Size; k++) {
+            aRe[k] = Re[k] * ChirpRe[k] - Im[k] * ChirpIm[k];
+            aIm[k] = Re[k] * ChirpIm[k] + Im[k] * ChirpRe[k];
+        }
+        Inner.transform(aRe, aIm, null);
+        //multiply by the filter and conjugate so the forward FFT does the inverse
+        for (int k = 0; k < m; k++) {
+            final double r = aRe[k] * FilterRe[k] - aIm[k] * FilterIm[k];
+            final double i = aRe[k] * FilterIm[k] + aIm[k] * FilterRe[k];
+            aRe[k] = r;
+            aIm[k] = -i;
+        }
+        Inner.transform(aRe, aIm, null);
+        for (int k = 0; k < Size; k++) {
+            final double r = aRe[k] / m;
+            final double i = -aIm[k] / m;
+            Re[k] = r * ChirpRe[k] - i * ChirpIm[k];
+            Im[k] = r * ChirpIm[k] + i * ChirpRe[k];
+        }
+    }
+}
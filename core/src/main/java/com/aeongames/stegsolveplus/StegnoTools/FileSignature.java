@@ -0,0 +1,80 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * the known file signatures (magic numbers) the carver looks for. each
+ * signature might have more than one magic sequence (for example GIF87a and
+ * GIF89a)
+ *
+ * @author Eduardo Vindas
+ */
+public enum FileSignature {
+    ZIP("ZIP archive", "zip", bytes(0x50, 0x4B, 0x03, 0x04), bytes(0x50, 0x4B, 0x05, 0x06)),
+    PNG("PNG image", "png", bytes(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)),
+    /**
+     * SOI and the marker that follows. (APP0, APP1, APP2, APP8, DQT, DHT,
+     * APP14 or COM) FF D8 FF alone is 1 on 16M random bytes, too often on the
+     * bit planes.
+     */
+    JPEG("JPEG image", "jpg", jpeg(0xE0), jpeg(0xE1), jpeg(0xE2), jpeg(0xE8), jpeg(0xDB), jpeg(0xC4), jpeg(0xEE), jpeg(0xFE)),
+    GIF("GIF image", "gif", ascii("GIF87a"), ascii("GIF89a")),
+    PDF("PDF document", "pdf", ascii("%PDF-")),
+    SevenZip("7z archive", "7z", bytes(0x37, 0x7A, 0xBC, 0xAF, 0x27, 0x1C)),
+    RAR("RAR archive", "rar", bytes(0x52, 0x61, 0x72, 0x21, 0x1A, 0x07)),
+    ELF("ELF executable", "elf", bytes(0x7F, 0x45, 0x4C, 0x46)),
+    GZIP("gzip stream", "gz", bytes(0x1F, 0x8B, 0x08));
+
+    public final String Name;
+    /**
+     * the file extension to suggest when the data is extracted (without the
+     * dot)
+     */
+    public final String Extension;
+    private final byte[][] Magics;
+
+    private FileSignature(String name, String extension, byte[]... magics) {
+        Name = name;
+        Extension = extension;
+        Magics = magics;
+    }
+
+    /**
+     * @return a copy of the magic sequences that identify this signature.
+     */
+    public byte[][] getMagics() {
+        var copy = new byte[Magics.length][];
+        for (int i = 0; i < Magics.length; i++) {
+            copy[i] = Magics[i].clone();
+        }
+        return copy;
+    }
+
+    private static byte[] bytes(int... values) {
+        var result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] jpeg(int marker) {
+        return bytes(0xFF, 0xD8, 0xFF, marker);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * the structure of a image file as read by one of the format inspectors
+ * ({@link PNGInspector}, {@link JPEGInspector}) this contains the list of
+ * elements (chunks, segments) the textual metadata found, the warnings, the
+ * embedded thumbnail and the data after the end of the image (if any)
+ * <br>
+ * the inspectors fill this while they walk the file. once returned to the
+ * caller it should be considered read only.
+ *
+ * @author Eduardo Vindas
+ */
+public final class FileStructure {
+
+    private final String Format;
+    private final long FileSize;
+    private final List<StructureEntry> Entries = new ArrayList<>();
+    private final List<Pair<String, String>> Metadata = new ArrayList<>();
+    private final List<String> Warnings = new ArrayList<>();
+    private long TrailingOffset = -1;
+    private long TrailingLength = 0;
+    private long ThumbnailOffset = -1;
+    private byte[] Thumbnail;
+
+    FileStructure(String Format, long FileSize) {
+        this.Format = Format;
+        this.FileSize = FileSize;
+    }
+
+    void addEntry(StructureEntry entry) {
+        Entries.add(entry);
+    }
+
+    void addMetadata(String Key, String Value) {
+        Metadata.add(new Pair<>(Key, Value));
+    }
+
+    void addWarning(String Warning) {
+        Warnings.add(Warning);
+    }
+
+    void setTrailingData(long Offset, long Length) {
+        TrailingOffset = Offset;
+        TrailingLength = Length;
+    }
+
+    void setThumbnail(long Offset, byte[] Data) {
+        ThumbnailOffset = Offset;
+        Thumbnail = Data;
+    }
+
+    /**
+     * @return a copy of this structure. so it can be amended once the
+     * original was handed to other threads.
+     */
+    FileStructure copy() {
+        var copy = new FileStructure(Format, FileSize);
+        copy.Entries.addAll(Entries);
+        copy.Metadata.addAll(Metadata);
+        copy.Warnings.addAll(Warnings);
+        copy.TrailingOffset = TrailingOffset;
+        copy.TrailingLength = TrailingLength;
+        copy.ThumbnailOffset = ThumbnailOffset;
+        copy.Thumbnail = Thumbnail;
+        return copy;
+    }
+
+    public String getFormat() {
+        return Format;
+    }
+
+    public long getFileSize() {
+        return FileSize;
+    }
+
+    public List<StructureEntry> getEntries() {
+        return Collections.unmodifiableList(Entries);
+    }
+
+    /**
+     * @return the textual metadata found on the file as pairs of key and
+     * value. (on the order they were found)
+     */
+    public List<Pair<String, String>> getMetadata() {
+        return Collections.unmodifiableList(Metadata);
+    }
+
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(Warnings);
+    }
+
+    /**
+     * @return true if there is data after the end of the image.
+     */
+    public boolean hasTrailingData() {
+        return TrailingLength > 0;
+    }
+
+    /**
+     * @return the offset where the data after the end of the image starts. or
+     * -1 if there is none.
+     */
+    public long getTrailingOffset() {
+        return TrailingOffset;
+    }
+
+    public long getTrailingLength() {
+        return TrailingLength;
+    }
+
+    /**
+     * @return the amount of entries flagged as suspicious.
+     */
+    public long getSuspiciousCount() {
+        return Entries.stream().filter(StructureEntry::Suspicious).count();
+    }
+
+    /**
+     * @return true if the file has an embedded thumbnail. (like the EXIF one
+     * of the JPEG files)
+     */
+    public boolean hasThumbnail() {
+        return Thumbnail != null;
+    }
+
+    /**
+     * @return a copy of the (encoded) thumbnail data or null if there is none.
+     */
+    public byte[] getThumbnail() {
+        return Thumbnail == null ? null : Thumbnail.clone();
+    }
+
+    /**
+     * @return the offset of the thumbnail on the file or -1 if there is none
+     */
+    public long getThumbnailOffset() {
+        return ThumbnailOffset;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+/**
+ * a printable string (or a flag pattern match) found by the
+ * {@link StringScanner}
+ *
+ * @param Source the name of the data where the string was found. (the file
+ * bytes or the name of a bit stream)
+ * @param Offset the offset (in bytes) where the string starts on the source
+ * @param Encoding the encoding of the string (ASCII or UTF-16LE)
+ * @param Text the string. or the text that matched the flag pattern.
+ * @param Flag the flag pattern that matched. or null if this is a plain
+ * string.
+ * @author Eduardo Vindas
+ */
+public record FoundString(String Source, long Offset, String Encoding, String Text, String Flag) {
+
+    /**
+     * @return true if this is a flag pattern match.
+     */
+    public boolean isFlag() {
+        return Flag != null;
+    }
+
+    /**
+     * @return the offset as a hexadecimal string (0x prefixed)
+     */
+    public String getHexOffset() {
+        return String.format("0x%08X", Offset);
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.AlphaComposite;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * reads the frames (GIF) or pages (TIFF) of a multi image file one at the
+ * time. {@link ImageIO#read} only returns the first one and a lot of data can
+ * hide on the rest.
+ * <br>
+ * the frames are decoded on demand with {@link ImageReader#read(int)} and
+ * only the last {@link #CACHED_FRAMES} are kept. so a file with hundreds of
+ * frames can be browsed with bounded memory. the GIF frames are composed the
+ * way a viewer shows them (position and disposal of the previous frame) so
+ * walking the frames in order decodes each frame once. a random jump composes
+ * from the closest cached frame before it. (or from the first frame)
+ * <br>
+ * APNG is not supported. the PNG reader of the JDK only reads the default
+ * image.
+ *
+ * @author Eduardo Vindas
+ */
+public class FrameReader implements Closeable {
+
+    /**
+     * the amount of composed frames kept on memory.
+     */
+    public static final int CACHED_FRAMES = 8;
+    /**
+     * the lowest level a changed pixel is shown with on the difference.
+     */
+    private static final int DIFFERENCE_FLOOR = 96;
+    private static final Set<String> MULTI_FRAME_FORMATS = Set.of("tif", "tiff");
+    private static final String GIF_IMAGE_METADATA = "javax_imageio_gif_image_1.0";
+    private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+
+    /**
+     * a composed frame. {@code Displayed} is what the viewer shows and
+     * {@code NextBase} the canvas the next frame is drawn over. (the displayed
+     * one after the disposal) they are the same instance when the frame is not
+     * disposed. neither is ever modified.
+     */
+    private record Composite(BufferedImage Displayed, BufferedImage NextBase) {
+
+    }
+
+    private final ImageInputStream Stream;
+    private final ImageReader Reader;
+    private final boolean GIF;
+    private int FrameCount = -1;
+    private int ScreenWidth, ScreenHeight;
+    private final LinkedHashMap<Integer, Composite> Cache;
+
+    /**
+     * opens the file. no frame is decoded yet.
+     *
+     * @param File the file to read
+     * @throws IOException if the file cannot be read or there is no reader for
+     * its format.
+     */
+    public FrameReader(Path File) throws IOException {
+        this(ImageIO.createImageInputStream(Objects.requireNonNull(File, "the path is null").toFile()), File);
+    }
+
+    /**
+     * opens a mapped file. (see {@link MappedFile}) no frame is decoded yet.
+     * the file must stay mapped while the reader is used.
+     *
+     * @param File the file to read
+     * @throws IOException if there is no reader for its format.
+     */
+    public FrameReader(MappedFile File) throws IOException {
+        this(File.newImageInputStream(), File.getFile());
+    }
+
+    private FrameReader(ImageInputStream Stream, Path File) throws IOException {
+        if (Stream == null) {
+            throw new IOException("Unable to open the file " + File);
+        }
+        this.Stream = Stream;
+        var readers = ImageIO.getImageReaders(Stream);
+        if (!readers.hasNext()) {
+            Stream.close();
+            throw new IOException("there is no image reader for the file " + File);
+        }
+        Reader = readers.next();
+        Reader.setInput(Stream, false, false);
+        GIF = "gif".equalsIgnoreCase(Reader.getFormatName());
+        Cache = new LinkedHashMap<>(CACHED_FRAMES * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Composite> eldest) {
+                return size() > CACHED_FRAMES;
+            }
+        };
+    }
+
+    /**
+     * counts the frames of the file. (without decoding them)
+     *
+     * @param File the file
+     * @return the amount of frames. 1 for the single image formats.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int countFrames(Path File) throws IOException {
+        try (var frames = new FrameReader(File)) {
+            //the other readers might walk the whole file to tell it has 1
+            return frames.isMultiFrameFormat() ? frames.getFrameCount() : 1;
+        }
+    }
+
+    /**
+     * counts the frames of the mapped file. (without decoding them)
+     *
+     * @param File the file
+     * @return the amount of frames. 1 for the single image formats.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int countFrames(MappedFile File) throws IOException {
+        try (var frames = new FrameReader(File)) {
+            return frames.isMultiFrameFormat() ? frames.getFrameCount() : 1;
+        }
+    }
+
+    /**
+     * @return true if the format of the file can hold more than one frame (GIF
+     * and TIFF)
+     * @throws IOException if the reader fails.
+     */
+    public boolean isMultiFrameFormat() throws IOException {
+        return GIF || MULTI_FRAME_FORMATS.contains(Reader.getFormatName().toLowerCase());
+    }
+
+    /**
+     * @return the amount of frames (or pages) of the file. the first call walks
+     * the file (the GIF reader has no index)
+     * @throws IOException if the file cannot be read.
+     */
+    public synchronized int getFrameCount() throws IOException {
+        if (FrameCount < 0) {
+            FrameCount = Math.max(1, Reader.getNumImages(true));
+        }
+        return FrameCount;
+    }
+
+    /**
+     * @return the name of the format of the file.
+     * @throws IOException if the reader fails.
+     */
+    public String getFormatName() throws IOException {
+        return Reader.getFormatName();
+    }
+
+    /**
+     * decodes the frame as it is stored on the file. for GIF that might be a
+     * small patch to be drawn over the previous frames.
+     *
+     * @param Index the frame
+     * @return the frame data.
+     * @throws IOException if the frame cannot be decoded.
+     */
+    public synchronized BufferedImage readRawFrame(int Index) throws IOException {
+        checkIndex(Index);
+        return Reader.read(Index);
+    }
+
+    /**
+     * @param Index the frame
+     * @return the frame as a viewer shows it. <strong>do not modify</strong>
+     * the image. it might be cached.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    public synchronized BufferedImage readFrame(int Index) throws IOException {
+        checkIndex(Index);
+        if (!GIF) {
+            var cached = Cache.get(Index);
+            if (cached == null) {
+                var frame = Reader.read(Index);
+                cached = new Composite(frame, frame);
+                Cache.put(Index, cached);
+            }
+            return cached.Displayed();
+        }
+        var cached = Cache.get(Index);
+        if (cached != null) {
+            return cached.Displayed();
+        }
+        //find the closest composed frame before this one
+        int start = Index - 1;
+        Composite base = null;
+        while (start >= 0 && (base = Cache.get(start)) == null) {
+            start--;
+        }
+        for (int frame = start + 1; frame <= Index; frame++) {
+            base = compose(frame, base);
+            Cache.put(frame, base);
+        }
+        return base.Displayed();
+    }
+
+    /**
+     * compares the frame with the previous one. the pixels that did not
+     * change are black. any change (even of one level, or of the alpha only)
+     * is shown at least at {@value #DIFFERENCE_FLOOR} so it stands out.
+     *
+     * @param Index the frame. (1 or more)
+     * @return the difference. null for the first frame.
+     * @throws IOException if a frame cannot be decoded.
+     */
+    public synchronized BufferedImage readDifference(int Index) throws IOException {
+        checkIndex(Index);
+        if (Index == 0) {
+            return null;
+        }
+        var previous = readFrame(Index - 1);
+        return difference(previous, readFrame(Index));
+    }
+
+    /**
+     * the per pixel difference of two images. the images might be of
+     * different size. the pixels out of one of them count as transparent.
+     *
+     * @param First the first image
+     * @param Second the second image
+     * @return the difference image.
+     */
+    public static BufferedImage difference(BufferedImage First, BufferedImage Second) {
+        final int width = Math.max(First.getWidth(), Second.getWidth());
+        final int height = Math.max(First.getHeight(), Second.getHeight());
+        var result = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        var first = new int[width];
+        var second = new int[width];
+        var out = new int[width];
+        for (int y = 0; y < height; y++) {
+            readRow(First, y, first);
+            readRow(Second, y, second);
+            for (int x = 0; x < width; x++) {
+                final int a = first[x], b = second[x];
+                if (a == b) {
+                    out[x] = 0;
+                    continue;
+                }
+                final int alpha = Math.abs((a >>> 24) - (b >>> 24));
+                int pixel = 0;
+                for (int shift = 16; shift >= 0; shift -= 8) {
+                    final int delta = Math.max(alpha, Math.abs(((a >> shift) & 0xFF) - ((b >> shift) & 0xFF)));
+                    final int level = delta == 0 ? 0 : Math.min(0xFF, DIFFERENCE_FLOOR + delta);
+                    pixel |= level << shift;
+                }
+                out[x] = pixel;
+            }
+            result.setRGB(0, y, width, 1, out, 0, width);
+        }
+        return result;
+    }
+
+    private static void readRow(BufferedImage image, int y, int[] row) {
+        Arrays.fill(row, 0);
+        if (y < image.getHeight()) {
+            image.getRGB(0, y, image.getWidth(), 1, row, 0, row.length);
+        }
+    }
+
+    private void checkIndex(int Index) throws IOException {
+        Objects.checkIndex(Index, getFrameCount());
+    }
+
+    /**
+     * draws the frame over the base. (the disposed previous frame)
+     */
+    private Composite compose(int Index, Composite Previous) throws IOException {
+        var metadata = Reader.getImageMetadata(Index);
+        var patch = Reader.read(Index);
+        var descriptor = getNode(metadata, "ImageDescriptor");
+        var control = getNode(metadata, "GraphicControlExtension");
+        final int left = getAttribute(descriptor, "imageLeftPosition", 0);
+        final int top = getAttribute(descriptor, "imageTopPosition", 0);
+        final String disposal = control == null ? "none" : control.getAttribute("disposalMethod");
+        if (Previous == null) {
+            readScreenSize(patch, left, top);
+        }
+        var canvas = new BufferedImage(ScreenWidth, ScreenHeight, BufferedImage.TYPE_INT_ARGB);
+        var g = canvas.createGraphics();
+        if (Previous != null) {
+            g.drawImage(Previous.NextBase(), 0, 0, null);
+        }
+        g.setComposite(AlphaComposite.SrcOver);
+        g.drawImage(patch, left, top, null);
+        g.dispose();
+        return switch (disposal) {
+            case "restoreToBackgroundColor" -> {
+                var next = copy(canvas);
+                var clear = next.createGraphics();
+                clear.setComposite(AlphaComposite.Clear);
+                clear.fillRect(left, top, patch.getWidth(), patch.getHeight());
+                clear.dispose();
+                yield new Composite(canvas, next);
+            }
+            case "restoreToPrevious" ->
+                new Composite(canvas, Previous == null ? new BufferedImage(ScreenWidth, ScreenHeight, BufferedImage.TYPE_INT_ARGB) : Previous.NextBase());
+            default ->
+                new Composite(canvas, canvas);
+        };
+    }
+
+    /**
+     * reads the logical screen size. falls back to the size of the first frame
+     */
+    private void readScreenSize(BufferedImage first, int left, int top) throws IOException {
+        ScreenWidth = left + first.getWidth();
+        ScreenHeight = top + first.getHeight();
+        var metadata = Reader.getStreamMetadata();
+        if (metadata != null) {
+            var screen = getNode(metadata, GIF_STREAM_METADATA, "LogicalScreenDescriptor");
+            ScreenWidth = Math.max(ScreenWidth, getAttribute(screen, "logicalScreenWidth", 0));
+            ScreenHeight = Math.max(ScreenHeight, getAttribute(screen, "logicalScreenHeight", 0));
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+    }
+
+    private static Element getNode(IIOMetadata metadata, String Name) {
+        return getNode(metadata, GIF_IMAGE_METADATA, Name);
+    }
+
+    private static Element getNode(IIOMetadata metadata, String Format, String Name) {
+        var root = metadata.getAsTree(Format);
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (Name.equals(child.getNodeName()) && child instanceof Element element) {
+                return element;
+            }
+        }
+        return null;
+    }
+
+    private static int getAttribute(Element node, String Name, int Default) {
+        if (node == null || !node.hasAttribute(Name)) {
+            return Default;
+        }
+        try {
+            return Integer.parseInt(node.getAttribute(Name));
+        } catch (NumberFormatException ex) {
+            return Default;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        Cache.clear();
+        Reader.dispose();
+        Stream.close();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+
+/**
+ * a share of the max heap for the analyses that run at once. each analysis
+ * takes the heap it is estimated to need (from the size of the image, read
+ * without decoding it) and gives it back once done. so many analyses wait (or
+ * are refused) instead of running out of memory. the budget is counted in MB.
+ *
+ * @author Eduardo Vindas
+ */
+public final class HeapBudget {
+
+    /**
+     * the images (of the size of the decoded one) a analysis holds at the
+     * worst time. the loaded one, its working copies and on each thread of
+     * the pool a transformation being made and its scratch. (the FFT works on
+     * doubles)
+     */
+    private static final int IMAGES_PER_ANALYSIS = 4 + 2 * Runtime.getRuntime().availableProcessors();
+    /**
+     * the least budget. so a small heap still runs a analysis.
+     */
+    private static final int MIN_MB = 64;
+    private final Semaphore Permits;
+    private final int TotalMB;
+
+    /**
+     * @param Share the part of the max heap the analyses can take. (0 to 1)
+     */
+    public HeapBudget(double Share) {
+        if (!(Share > 0 && Share <= 1)) {
+            throw new IllegalArgumentException("the share must be more than 0 and up to 1");
+        }
+        TotalMB = (int) Math.max(MIN_MB, Runtime.getRuntime().maxMemory() * Share / (1024 * 1024));
+        Permits = new Semaphore(TotalMB, true);
+    }
+
+    /**
+     * @param File the image
+     * @return the heap (in MB) the analysis of the image is expected to take.
+     * at most the whole budget so a huge image runs alone instead of never.
+     */
+    public int estimateMB(Path File) {
+        long pixels;
+        try {
+            var plan = ImageLoader.inspect(File.toFile());
+            pixels = (long) plan.getDecodedWidth() * plan.getDecodedHeight();
+        } catch (IOException | RuntimeException ex) {
+            //the analysis will report the error. take the largest image a full decode allows
+            pixels = ImageLoader.FULL_DECODE_LIMIT;
+        }
+        return estimateMB(pixels);
+    }
+
+    /**
+     * @param Pixels the pixels of the decoded image
+     * @return the heap (in MB) the analysis is expected to take. (at most the
+     * whole budget)
+     */
+    public int estimateMB(long Pixels) {
+        var bytes = Pixels * Integer.BYTES * IMAGES_PER_ANALYSIS;
+        return (int) Math.min(TotalMB, Math.max(1, bytes / (1024 * 1024)));
+    }
+
+    /**
+     * waits until the heap is available.
+     *
+     * @param MB the heap to take
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public void acquire(int MB) throws InterruptedException {
+        Permits.acquire(MB);
+    }
+
+    /**
+     * @param MB the heap to take
+     * @return true if the heap was taken. false if it is not available now.
+     */
+    public boolean tryAcquire(int MB) {
+        return Permits.tryAcquire(MB);
+    }
+
+    /**
+     * gives back the heap taken.
+     *
+     * @param MB the heap taken
+     */
+    public void release(int MB) {
+        Permits.release(MB);
+    }
+
+    public int getTotalMB() {
+        return TotalMB;
+    }
+
+    public int getAvailableMB() {
+        return Permits.availablePermits();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+
+/**
+ * the bytes shown on a hex view. a (mapped) file or the part of it from a
+ * offset. so the viewer reads only the rows it shows and a 2 GB file costs no
+ * heap. (see {@link MappedFile})
+ *
+ * @author Eduardo Vindas
+ */
+public final class HexDocument {
+
+    /**
+     * the bytes searched between checks for a cancel.
+     */
+    private static final int SEARCH_CHUNK = 1024 * 1024;
+    private final String Name;
+    private final MappedFile Data;
+    /**
+     * where the document starts on the file.
+     */
+    private final long Start;
+
+    HexDocument(String Name, MappedFile Data, long Start) {
+        this.Name = Objects.requireNonNull(Name, "the name is null");
+        this.Data = Objects.requireNonNull(Data, "the data is null");
+        Objects.checkIndex(Start, Math.max(1, Data.size()));
+        this.Start = Start;
+    }
+
+    /**
+     * @param Name the name to show
+     * @param File the mapped file
+     * @return the document of the whole file
+     */
+    public static HexDocument of(String Name, MappedFile File) {
+        return new HexDocument(Name, File, 0);
+    }
+
+    /**
+     * maps a file to show it.
+     *
+     * @param File the file
+     * @return the document of the file
+     * @throws IOException if the file cannot be mapped.
+     */
+    public static HexDocument open(Path File) throws IOException {
+        return of(File.getFileName().toString(), MappedFile.open(File));
+    }
+
+    public String getName() {
+        return Name;
+    }
+
+    public long size() {
+        return Data.size() - Start;
+    }
+
+    /**
+     * copies the bytes from the offset. (up to the end of the document)
+     *
+     * @param Offset the position to read from
+     * @param Destination where to copy
+     * @param Length the max amount of bytes
+     * @return the amount of bytes copied.
+     */
+    public int read(long Offset, byte[] Destination, int Length) {
+        if (Offset < 0 || Offset >= size()) {
+            return 0;
+        }
+        return Data.read(Start + Offset, Destination, 0, Math.min(Length, Destination.length));
+    }
+
+    /**
+     * looks for the pattern. meant to run out of the EDT.
+     *
+     * @param Pattern the bytes to find
+     * @param From the first position to check
+     * @param Cancelled checked on each {@value #SEARCH_CHUNK} bytes. can be
+     * null
+     * @return the offset of the first match at or after {@code From}. or -1
+     * if there is none (or the search was cancelled)
+     */
+    public long find(byte[] Pattern, long From, BooleanSupplier Cancelled) {
+        if (Pattern.length == 0) {
+            throw new IllegalArgumentException("the pattern is empty");
+        }
+        final long last = size() - Pattern.length;
+        final byte first = Pattern[0];
+        //each chunk is read with the bytes a match that starts on its end needs
+        final var chunk = new byte[SEARCH_CHUNK + Pattern.length - 1];
+        for (long base = Math.max(0, From); base <= last; base += SEARCH_CHUNK) {
+            if (Cancelled != null && Cancelled.getAsBoolean()) {
+                return -1;
+            }
+            final int read = Data.read(Start + base, chunk, 0, chunk.length);
+            final int end = read - Pattern.length;
+            for (int i = 0; i <= end; i++) {
+                if (chunk[i] == first && Arrays.equals(chunk, i, i + Pattern.length, Pattern, 0, Pattern.length)) {
+                    return base + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * reads a search pattern. a text between quotes ({@code "PK"}) is taken as
+     * UTF-8. anything else as hex digits. (spaces and a {@code 0x} prefix are
+     * ignored)
+     *
+     * @param Text the pattern
+     * @return the bytes of the pattern
+     * @throws IllegalArgumentException if the pattern is empty or not valid
+     * hex.
+     */
+    public static byte[] parsePattern(String Text) {
+        var text = Text.strip();
+        if (text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")) {
+            var bytes = text.substring(1, text.length() - 1).getBytes(StandardCharsets.UTF_8);
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException("the pattern is empty");
+            }
+            return bytes;
+        }
+        var digits = text.replaceAll("(?i)0x|\\s", "");
+        if (digits.isEmpty() || digits.length() % 2 != 0) {
+            throw new IllegalArgumentException("the pattern must be an even amount of hex digits or a \"text\"");
+        }
+        return HexFormat.of().parseHex(digits);
+    }
+
+    /**
+     * reads a offset. hex with a {@code 0x} prefix or decimal.
+     *
+     * @param Text the offset
+     * @return the offset
+     * @throws NumberFormatException if is not a number.
+     */
+    public static long parseOffset(String Text) {
+        var text = Text.strip();
+        if (text.regionMatches(true, 0, "0x", 0, 2)) {
+            return Long.parseUnsignedLong(text.substring(2), 16);
+        }
+        return Long.parseLong(text);
+    }
+}
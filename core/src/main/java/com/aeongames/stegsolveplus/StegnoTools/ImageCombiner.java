@@ -0,0 +1,331 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * combines two images pixel by pixel. (the stegsolve image combiner) two
+ * images that look alike (two frames, the original and a modified copy, two
+ * halves of a secret) often show the hidden data once XORed or subtracted.
+ * <br>
+ * the requested operations are computed together: each row of both images is
+ * read once and every operation is applied to it. the rows are split on bands
+ * that run in parallel on the common pool. each band reuses its row buffers
+ * and writes straight into the arrays of the results. the results are kept so
+ * a operation is computed once.
+ * <br>
+ * the alpha is ignored. the results are opaque RGB images.
+ *
+ * @author Eduardo Vindas
+ */
+public class ImageCombiner {
+
+    /**
+     * the operations. the plain ones work on the 24 bit RGB value, the
+     * separate ones on each channel.
+     */
+    public enum Operation {
+        Xor("XOR"),
+        Or("OR"),
+        And("AND"),
+        Add("ADD"),
+        AddChannels("ADD (R,G,B separate)"),
+        Sub("SUB"),
+        SubChannels("SUB (R,G,B separate)"),
+        Mul("MUL"),
+        MulChannels("MUL (R,G,B separate)"),
+        Min("Darkest (R,G,B separate)"),
+        Max("Lightest (R,G,B separate)");
+        public final String Name;
+
+        private Operation(String name) {
+            Name = name;
+        }
+    }
+
+    /**
+     * how the images are aligned when the sizes differ.
+     */
+    public enum Alignment {
+        /**
+         * both images from the top left corner. the result is the common area.
+         */
+        TopLeft("Top left (crop)"),
+        /**
+         * both images centered. the result is the common area.
+         */
+        Center("Centered (crop)"),
+        /**
+         * the second image is scaled (nearest neighbor) to the size of the
+         * first.
+         */
+        Scale("Scale the second image");
+        public final String Name;
+
+        private Alignment(String name) {
+            Name = name;
+        }
+
+        @Override
+        public String toString() {
+            return Name;
+        }
+    }
+
+    private static final int RGBMASK = CanvasContainer.RGBMASK;
+    /**
+     * the lowest amount of rows a band should have before we stop splitting
+     * the work.
+     */
+    private static final int MIN_BAND_ROWS = 32;
+    private final CanvasContainer First, Second;
+    private final Alignment Align;
+    private final int Width, Height;
+    private final int FirstX, FirstY, SecondX, SecondY;
+    private final EnumMap<Operation, BufferedImage> Results;
+
+    ImageCombiner(CanvasContainer First, CanvasContainer Second, Alignment Align) {
+        this.First = Objects.requireNonNull(First, "the first image is null");
+        this.Second = Objects.requireNonNull(Second, "the second image is null");
+        this.Align = Objects.requireNonNull(Align, "the alignment is null");
+        if (Align == Alignment.Scale) {
+            Width = First.getWidth();
+            Height = First.getHeight();
+        } else {
+            Width = Math.min(First.getWidth(), Second.getWidth());
+            Height = Math.min(First.getHeight(), Second.getHeight());
+        }
+        if (Align == Alignment.Center) {
+            FirstX = (First.getWidth() - Width) / 2;
+            FirstY = (First.getHeight() - Height) / 2;
+            SecondX = (Second.getWidth() - Width) / 2;
+            SecondY = (Second.getHeight() - Height) / 2;
+        } else {
+            FirstX = FirstY = SecondX = SecondY = 0;
+        }
+        Results = new EnumMap<>(Operation.class);
+    }
+
+    /**
+     * creates a combiner for the images of two analyzers.
+     *
+     * @param First the analyzer of the first image
+     * @param Second the analyzer of the second image
+     * @param Align how to align the images
+     * @return the combiner
+     * @throws IllegalStateException if the image of either is not loaded.
+     */
+    public static ImageCombiner of(StegnoAnalyzer First, StegnoAnalyzer Second, Alignment Align) {
+        var first = First.getImageCache();
+        var second = Second.getImageCache();
+        if (first == null || second == null) {
+            throw new IllegalStateException("the images are not yet loaded");
+        }
+        return new ImageCombiner(first, second, Align);
+    }
+
+    /**
+     * @return the width of the results.
+     */
+    public int getWidth() {
+        return Width;
+    }
+
+    /**
+     * @return the height of the results.
+     */
+    public int getHeight() {
+        return Height;
+    }
+
+    public Alignment getAlignment() {
+        return Align;
+    }
+
+    /**
+     * @param operation the operation
+     * @return the result of the operation. computed on the first call.
+     */
+    public BufferedImage get(Operation operation) {
+        return combine(EnumSet.of(operation)).get(operation);
+    }
+
+    /**
+     * computes the operations that were not yet computed on a single pass
+     * over both images.
+     *
+     * @param Operations the operations
+     * @return the results of the operations.
+     */
+    public synchronized Map<Operation, BufferedImage> combine(Set<Operation> Operations) {
+        var missing = EnumSet.noneOf(Operation.class);
+        for (var operation : Operations) {
+            if (!Results.containsKey(operation)) {
+                missing.add(operation);
+            }
+        }
+        if (!missing.isEmpty()) {
+            var operations = missing.toArray(Operation[]::new);
+            var outputs = new int[operations.length][];
+            for (int i = 0; i < operations.length; i++) {
+                var image = new BufferedImage(Width, Height, BufferedImage.TYPE_INT_RGB);
+                outputs[i] = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+                Results.put(operations[i], image);
+            }
+            ForkJoinPool.commonPool().invoke(new BandTask(operations, outputs, 0, Height));
+        }
+        var requested = new EnumMap<Operation, BufferedImage>(Operation.class);
+        for (var operation : Operations) {
+            requested.put(operation, Results.get(operation));
+        }
+        return requested;
+    }
+
+    /**
+     * combines a band of rows. for all the operations.
+     */
+    private class BandTask extends RecursiveAction {
+
+        private final Operation[] Operations;
+        private final int[][] Outputs;
+        private final int From, To;
+
+        BandTask(Operation[] Operations, int[][] Outputs, int From, int To) {
+            this.Operations = Operations;
+            this.Outputs = Outputs;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected void compute() {
+            if (To - From > MIN_BAND_ROWS * 2) {
+                final int middle = (From + To) >>> 1;
+                invokeAll(new BandTask(Operations, Outputs, From, middle), new BandTask(Operations, Outputs, middle, To));
+                return;
+            }
+            var firstRow = new int[First.getWidth()];
+            var secondRow = new int[Second.getWidth()];
+            var a = new int[Width];
+            var b = new int[Width];
+            //the column of the second image for each column of the result
+            var columns = new int[Width];
+            for (int x = 0; x < Width; x++) {
+                columns[x] = Align == Alignment.Scale
+                        ? (int) ((long) x * Second.getWidth() / Width) : SecondX + x;
+            }
+            for (int y = From; y < To; y++) {
+                First.getPackedARGBRow(FirstY + y, firstRow);
+                final int secondY = Align == Alignment.Scale
+                        ? (int) ((long) y * Second.getHeight() / Height) : SecondY + y;
+                Second.getPackedARGBRow(secondY, secondRow);
+                for (int x = 0; x < Width; x++) {
+                    a[x] = firstRow[FirstX + x] & RGBMASK;
+                    b[x] = secondRow[columns[x]] & RGBMASK;
+                }
+                final int base = y * Width;
+                for (int i = 0; i < Operations.length; i++) {
+                    apply(Operations[i], a, b, Outputs[i], base);
+                }
+            }
+        }
+    }
+
+    /**
+     * applies the operation to a row. (already masked to RGB)
+     */
+    private void apply(Operation operation, int[] a, int[] b, int[] out, int base) {
+        switch (operation) {
+            case Xor -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = a[x] ^ b[x];
+                }
+            }
+            case Or -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = a[x] | b[x];
+                }
+            }
+            case And -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = a[x] & b[x];
+                }
+            }
+            case Add -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = (a[x] + b[x]) & RGBMASK;
+                }
+            }
+            case Sub -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = (a[x] - b[x]) & RGBMASK;
+                }
+            }
+            case Mul -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = (a[x] * b[x]) & RGBMASK;
+                }
+            }
+            case AddChannels -> {
+                for (int x = 0; x < Width; x++) {
+                    //the carry of each channel is dropped
+                    out[base + x] = ((a[x] & 0xFF00FF) + (b[x] & 0xFF00FF)) & 0xFF00FF
+                            | ((a[x] & 0x00FF00) + (b[x] & 0x00FF00)) & 0x00FF00;
+                }
+            }
+            case SubChannels -> {
+                for (int x = 0; x < Width; x++) {
+                    //the borrow of each channel is dropped
+                    out[base + x] = (((a[x] & 0xFF00FF) | 0x1000100) - (b[x] & 0xFF00FF)) & 0xFF00FF
+                            | (((a[x] & 0x00FF00) | 0x10000) - (b[x] & 0x00FF00)) & 0x00FF00;
+                }
+            }
+            case MulChannels -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = perChannel(a[x], b[x], operation);
+                }
+            }
+            case Min, Max -> {
+                for (int x = 0; x < Width; x++) {
+                    out[base + x] = perChannel(a[x], b[x], operation);
+                }
+            }
+        }
+    }
+
+    private static int perChannel(int a, int b, Operation operation) {
+        int result = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            final int ca = (a >> shift) & 0xFF, cb = (b >> shift) & 0xFF;
+            final int value = switch (operation) {
+                case Min ->
+                    Math.min(ca, cb);
+                case Max ->
+                    Math.max(ca, cb);
+                default ->
+                    (ca * cb) & 0xFF;
+            };
+            result |= value << shift;
+        }
+        return result;
+    }
+}
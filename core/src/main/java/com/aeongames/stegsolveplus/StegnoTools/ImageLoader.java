@@ -0,0 +1,231 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Objects;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * decodes the image for the analysis. {@link ImageIO#read} always decodes the
+ * whole image and a 100 MP image takes 400 MB (as ARGB) before the analysis
+ * makes its own copies. so the size is read first (from the header, with
+ * {@link ImageReader#getWidth(int)}) and the decoding is planned by the pixel
+ * count:
+ * <pre>
+ * Full:     up to {@value #FULL_DECODE_LIMIT} pixels the image is decoded as is.
+ * Overview: larger images are decoded skipping rows and columns. (see
+ *           {@link javax.imageio.ImageReadParam#setSourceSubsampling}) the
+ *           kept pixels are not blended so their bits are the original ones.
+ *           only the pixels between them are missing.
+ * Region:   a area selected by the user decoded at full resolution. (see
+ *           {@link javax.imageio.ImageReadParam#setSourceRegion}) so the
+ *           analysis can run on the corner where the payload is.
+ * </pre> most of the readers of the JDK skip the rows out of the region (or
+ * subsampled away) without keeping them on memory.
+ *
+ * @author Eduardo Vindas
+ */
+public final class ImageLoader {
+
+    /**
+     * the max amount of pixels to decode the whole image. (24 MP)
+     */
+    public static final long FULL_DECODE_LIMIT = 24_000_000L;
+    /**
+     * the amount of pixels a overview is aimed at.
+     */
+    public static final long OVERVIEW_PIXELS = 8_000_000L;
+
+    public enum Strategy {
+        Full,
+        Overview,
+        Region
+    }
+
+    /**
+     * how a image is decoded.
+     *
+     * @param Strategy the strategy.
+     * @param Width the width of the image on the file
+     * @param Height the height of the image on the file
+     * @param Subsampling the rows and columns kept. (1 keeps all, 2 one of
+     * each 2 and so on)
+     * @param Region the area decoded. the whole image unless the strategy is
+     * {@link Strategy#Region}
+     */
+    public record Plan(Strategy Strategy, int Width, int Height, int Subsampling, Rectangle Region) {
+
+        /**
+         * @return the width of the decoded image.
+         */
+        public int getDecodedWidth() {
+            return (Region.width + Subsampling - 1) / Subsampling;
+        }
+
+        /**
+         * @return the height of the decoded image.
+         */
+        public int getDecodedHeight() {
+            return (Region.height + Subsampling - 1) / Subsampling;
+        }
+
+        /**
+         * maps a rectangle of the decoded image to the image on the file.
+         *
+         * @param Decoded the rectangle on the decoded image
+         * @return the same area on the file. (clipped to the image)
+         */
+        public Rectangle toSource(Rectangle Decoded) {
+            var source = new Rectangle(Region.x + Decoded.x * Subsampling, Region.y + Decoded.y * Subsampling,
+                    Decoded.width * Subsampling, Decoded.height * Subsampling);
+            return source.intersection(new Rectangle(Width, Height));
+        }
+
+        /**
+         * @return a short description of the plan. for the status.
+         */
+        public String describe() {
+            return switch (Strategy) {
+                case Full ->
+                    String.format("%dx%d", Width, Height);
+                case Overview ->
+                    String.format("%dx%d overview (1 of each %d rows and columns) of %dx%d",
+                            getDecodedWidth(), getDecodedHeight(), Subsampling, Width, Height);
+                case Region ->
+                    String.format("region %dx%d at (%d,%d) of %dx%d",
+                            Region.width, Region.height, Region.x, Region.y, Width, Height);
+            };
+        }
+    }
+
+    /**
+     * the image and how it was decoded.
+     *
+     * @param Image the decoded image
+     * @param Plan the plan used
+     */
+    record Loaded(BufferedImage Image, Plan Plan) {
+
+    }
+
+    private ImageLoader() {
+    }
+
+    /**
+     * plans how to decode a image.
+     *
+     * @param Width the width of the image
+     * @param Height the height of the image
+     * @param Region the area to decode. null to let the size decide between
+     * the whole image or a overview.
+     * @return the plan
+     * @throws IllegalArgumentException if the region is out of the image.
+     */
+    public static Plan plan(int Width, int Height, Rectangle Region) {
+        final var bounds = new Rectangle(Width, Height);
+        if (Region != null) {
+            var clipped = Region.intersection(bounds);
+            if (clipped.isEmpty()) {
+                throw new IllegalArgumentException(String.format("the region %s is out of the image (%dx%d)", Region, Width, Height));
+            }
+            return new Plan(Strategy.Region, Width, Height, 1, clipped);
+        }
+        final long pixels = (long) Width * Height;
+        if (pixels <= FULL_DECODE_LIMIT) {
+            return new Plan(Strategy.Full, Width, Height, 1, bounds);
+        }
+        final int subsampling = (int) Math.ceil(Math.sqrt((double) pixels / OVERVIEW_PIXELS));
+        return new Plan(Strategy.Overview, Width, Height, subsampling, bounds);
+    }
+
+    /**
+     * reads the size of a image. the pixels are not decoded.
+     *
+     * @param Input the source. (a File, a InputStream or anything
+     * {@link ImageIO#createImageInputStream} takes)
+     * @return the plan the image would be decoded with. (no region)
+     * @throws IOException if the image cannot be read.
+     */
+    public static Plan inspect(Object Input) throws IOException {
+        try (var stream = open(Input)) {
+            var reader = getReader(stream);
+            try {
+                return plan(reader.getWidth(0), reader.getHeight(0), null);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * decodes a image following the plan for its size.
+     *
+     * @param Input the source. (a File, a InputStream or anything
+     * {@link ImageIO#createImageInputStream} takes) a InputStream is not
+     * closed. a {@link ImageInputStream} (as the one of a {@link MappedFile})
+     * is read as is and closed.
+     * @param Region the area to decode at full resolution. or null for the
+     * whole image (or a overview if is too large)
+     * @return the image and the plan used
+     * @throws IOException if the image cannot be read.
+     */
+    static Loaded load(Object Input, Rectangle Region) throws IOException {
+        try (var stream = open(Input)) {
+            var reader = getReader(stream);
+            try {
+                final var plan = plan(reader.getWidth(0), reader.getHeight(0), Region);
+                var param = reader.getDefaultReadParam();
+                if (plan.Strategy() == Strategy.Region) {
+                    param.setSourceRegion(plan.Region());
+                } else if (plan.Subsampling() > 1) {
+                    param.setSourceSubsampling(plan.Subsampling(), plan.Subsampling(), 0, 0);
+                }
+                var image = reader.read(0, param);
+                if (image == null) {
+                    throw new IOException("the reader returned no image");
+                }
+                return new Loaded(image, plan);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageInputStream open(Object Input) throws IOException {
+        Objects.requireNonNull(Input, "the source is null");
+        if (Input instanceof ImageInputStream stream) {
+            return stream;
+        }
+        var stream = ImageIO.createImageInputStream(Input);
+        if (stream == null) {
+            throw new IOException("Unable to open the source " + Input);
+        }
+        return stream;
+    }
+
+    private static ImageReader getReader(ImageInputStream Stream) throws IOException {
+        var readers = ImageIO.getImageReaders(Stream);
+        if (!readers.hasNext()) {
+            throw new IOException(new NullPointerException("We cannot Read the Image, This error can be caused by either there is no supported Image reader for the file or the file is Not a image."));
+        }
+        var reader = readers.next();
+        //the pixels are all we read. skip the metadata
+        reader.setInput(Stream, true, true);
+        return reader;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * scores how interesting the result of a transformation looks. so the user
+ * can start with the few that most likely hide something instead of checking
+ * every thumbnail.
+ * <br>
+ * the score reads a grid of at most {@value #GRID}x{@value #GRID} pixels (and
+ * their right and lower neighbors) not the whole result. it is the product
+ * of:
+ * <pre>
+ * structure:  the neighbor pixels differ less than random pixels do. noise
+ *             (most low bit planes) has none.
+ * occupancy:  the colors have some entropy. a flat or almost empty result has
+ *             none.
+ * novelty:    the result does not look like the original image. (the high bit
+ *             planes, the channels and the grey scale are the image again)
+ * </pre>
+ * so a bit plane that shows text or a shape over noise scores high.
+ *
+ * @author Eduardo Vindas
+ */
+final class ImageScore {
+
+    /**
+     * the max amount of samples on each axis.
+     */
+    static final int GRID = 256;
+    /**
+     * the difference (sum of the channels) from where two pixels are not
+     * alike.
+     */
+    private static final int EDGE = 48;
+    /**
+     * the entropy (bits) from where the result is fully occupied.
+     */
+    private static final double FULL_OCCUPANCY = 0.1;
+    private final int Width, Height;
+    /**
+     * the brightness of the original image on the grid.
+     */
+    private final int[] Reference;
+
+    /**
+     * @param Original the image the results come from.
+     */
+    ImageScore(CanvasContainer Original) {
+        Objects.requireNonNull(Original, "the image is null");
+        Width = Original.getWidth();
+        Height = Original.getHeight();
+        final int stepX = step(Width), stepY = step(Height);
+        final int columns = (Width - 1 + stepX - 1) / stepX, rows = (Height - 1 + stepY - 1) / stepY;
+        Reference = new int[Math.max(0, columns * rows)];
+        var row = new int[Width];
+        for (int j = 0; j < rows; j++) {
+            Original.getPackedARGBRow(j * stepY, row);
+            for (int i = 0; i < columns; i++) {
+                Reference[j * columns + i] = brightness(row[i * stepX]);
+            }
+        }
+    }
+
+    private static int step(int size) {
+        return Math.max(1, (size + GRID - 1) / GRID);
+    }
+
+    private static int brightness(int rgb) {
+        return ((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF);
+    }
+
+    private static int difference(int a, int b) {
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF))
+                + Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF))
+                + Math.abs((a & 0xFF) - (b & 0xFF));
+    }
+
+    /**
+     * scores a result.
+     *
+     * @param Name the name of the result
+     * @param Image the result. if null the score is 0
+     * @return the scored result
+     */
+    ScoredResult score(String Name, BufferedImage Image) {
+        if (Image == null || Image.getWidth() < 2 || Image.getHeight() < 2) {
+            return new ScoredResult(Name, Image, 0, 0, 0, 0);
+        }
+        final int width = Image.getWidth(), height = Image.getHeight();
+        final int stepX = step(width), stepY = step(height);
+        final int columns = (width - 1 + stepX - 1) / stepX, rows = (height - 1 + stepY - 1) / stepY;
+        var samples = new int[columns * rows];
+        var histogram = new int[64];
+        int edges = 0;
+        for (int j = 0; j < rows; j++) {
+            final int y = j * stepY;
+            for (int i = 0; i < columns; i++) {
+                final int x = i * stepX;
+                final int pixel = Image.getRGB(x, y);
+                samples[j * columns + i] = pixel;
+                histogram[((pixel >> 18) & 0x30) | ((pixel >> 12) & 0xC) | ((pixel >> 6) & 0x3)]++;
+                if (difference(pixel, Image.getRGB(x + 1, y)) > EDGE) {
+                    edges++;
+                }
+                if (difference(pixel, Image.getRGB(x, y + 1)) > EDGE) {
+                    edges++;
+                }
+            }
+        }
+        final int count = samples.length;
+        //the same test on pairs of samples far apart. what noise would give.
+        int randomEdges = 0;
+        for (int i = 0; i < count; i++) {
+            if (difference(samples[i], samples[(i + count / 2 + 7) % count]) > EDGE) {
+                randomEdges++;
+            }
+        }
+        final double edgeRate = edges / (2.0 * count), randomRate = (double) randomEdges / count;
+        final double structure = randomRate == 0 ? 0 : Math.clamp(1 - edgeRate / randomRate, 0, 1);
+        double entropy = 0;
+        for (var bin : histogram) {
+            if (bin > 0) {
+                final double p = (double) bin / count;
+                entropy -= p * Math.log(p) / Math.log(2);
+            }
+        }
+        final double similarity = width == Width && height == Height ? similarity(samples) : 0;
+        final double score = structure * Math.min(1, entropy / FULL_OCCUPANCY) * (1 - similarity);
+        return new ScoredResult(Name, Image, score, structure, entropy, similarity);
+    }
+
+    /**
+     * the absolute correlation of the brightness with the original.
+     */
+    private double similarity(int[] samples) {
+        final int n = Math.min(samples.length, Reference.length);
+        if (n == 0) {
+            return 0;
+        }
+        double sumA = 0, sumB = 0, sumAA = 0, sumBB = 0, sumAB = 0;
+        for (int i = 0; i < n; i++) {
+            final double a = brightness(samples[i]), b = Reference[i];
+            sumA += a;
+            sumB += b;
+            sumAA += a * a;
+            sumBB += b * b;
+            sumAB += a * b;
+        }
+        final double varA = sumAA - sumA * sumA / n, varB = sumBB - sumB * sumB / n;
+        if (varA <= 0 || varB <= 0) {
+            return 0;
+        }
+        return Math.min(1, Math.abs((sumAB - sumA * sumB / n) / Math.sqrt(varA * varB)));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * the quantized DCT coefficients of a JPEG file as read by the
+ * {@link JPEGDecoder}. no de-quantization nor IDCT is done. these are the
+ * values as they are stored on the file. which is where JSteg, F5, OutGuess
+ * and similar tools hide their data.
+ * <br>
+ * the coefficients of each component are stored on a single {@code short[]}
+ * as blocks of 64 values on <strong>zigzag order</strong> (the order they are
+ * coded on the file). the blocks are on raster order with a stride of
+ * {@link Component#BlocksPerLineStride} blocks (the component is padded to
+ * whole MCUs) use {@link #ZIGZAG_TO_NATURAL} to get the natural (row major)
+ * position of a coefficient.
+ *
+ * @author Eduardo Vindas
+ */
+public final class JPEGCoefficients {
+
+    /**
+     * the amount of coefficients per block.
+     */
+    public static final int BLOCK = 64;
+    /**
+     * the name of the JSteg like LSB stream of the coefficients.
+     */
+    public static final String LSB_SOURCE = "JSteg LSB of DCT coefficients";
+    /**
+     * maps the zigzag index of a coefficient to its natural (row major)
+     * position in the 8x8 block.
+     */
+    public static final int[] ZIGZAG_TO_NATURAL = {
+        0, 1, 8, 16, 9, 2, 3, 10,
+        17, 24, 32, 25, 18, 11, 4, 5,
+        12, 19, 26, 33, 40, 48, 41, 34,
+        27, 20, 13, 6, 7, 14, 21, 28,
+        35, 42, 49, 56, 57, 50, 43, 36,
+        29, 22, 15, 23, 30, 37, 44, 51,
+        58, 59, 52, 45, 38, 31, 39, 46,
+        53, 60, 61, 54, 47, 55, 62, 63};
+
+    /**
+     * a component (channel) of the image.
+     *
+     * @param Id the component id on the frame
+     * @param H the horizontal sampling factor
+     * @param V the vertical sampling factor
+     * @param QuantizationTable the index of the quantization table used.
+     * @param BlocksPerLine the blocks with image data per line.
+     * @param BlocksPerColumn the blocks with image data per column.
+     * @param BlocksPerLineStride the blocks stored per line (padded to MCUs)
+     * @param Coefficients the quantized coefficients. blocks of 64 on zigzag
+     * order.
+     */
+    public record Component(int Id, int H, int V, int QuantizationTable,
+            int BlocksPerLine, int BlocksPerColumn, int BlocksPerLineStride, short[] Coefficients) {
+
+        /**
+         * @param BlockRow the row of the block
+         * @param BlockColumn the column of the block
+         * @return the offset of the first coefficient of the block.
+         */
+        public int getBlockOffset(int BlockRow, int BlockColumn) {
+            return (BlockRow * BlocksPerLineStride + BlockColumn) * BLOCK;
+        }
+    }
+
+    private final int Width;
+    private final int Height;
+    private final boolean Progressive;
+    private final int McusPerLine;
+    private final int McusPerColumn;
+    private final List<Component> Components;
+    private final int[][] QuantizationTables;
+    private final List<String> Warnings;
+
+    JPEGCoefficients(int Width, int Height, boolean Progressive, int McusPerLine, int McusPerColumn,
+            List<Component> Components, int[][] QuantizationTables, List<String> Warnings) {
+        this.Width = Width;
+        this.Height = Height;
+        this.Progressive = Progressive;
+        this.McusPerLine = McusPerLine;
+        this.McusPerColumn = McusPerColumn;
+        this.Components = List.copyOf(Components);
+        this.QuantizationTables = QuantizationTables;
+        this.Warnings = List.copyOf(Warnings);
+    }
+
+    public int getWidth() {
+        return Width;
+    }
+
+    public int getHeight() {
+        return Height;
+    }
+
+    public boolean isProgressive() {
+        return Progressive;
+    }
+
+    public List<Component> getComponents() {
+        return Components;
+    }
+
+    /**
+     * @param Index the table index (0 to 3)
+     * @return the quantization table (on zigzag order) or null if the table
+     * was not defined.
+     */
+    public int[] getQuantizationTable(int Index) {
+        var table = QuantizationTables[Index];
+        return table == null ? null : table.clone();
+    }
+
+    /**
+     * @return the issues found while decoding. (corrupt segments and the
+     * like)
+     */
+    public List<String> getWarnings() {
+        return Collections.unmodifiableList(Warnings);
+    }
+
+    /**
+     * counts the AC coefficients of the component with values between
+     * {@code -Range} and {@code Range}
+     *
+     * @param ComponentIndex the index of the component
+     * @param Range the max absolute value to count.
+     * @return the counts. index 0 is the value {@code -Range}
+     */
+    public long[] getACHistogram(int ComponentIndex, int Range) {
+        var histogram = new long[Range * 2 + 1];
+        var component = Components.get(ComponentIndex);
+        var data = component.Coefficients();
+        for (int block = 0; block < component.BlocksPerColumn(); block++) {
+            for (int column = 0; column < component.BlocksPerLine(); column++) {
+                var offset = component.getBlockOffset(block, column);
+                for (int k = 1; k < BLOCK; k++) {
+                    var value = data[offset + k];
+                    if (value >= -Range && value <= Range) {
+                        histogram[value + Range]++;
+                    }
+                }
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * feeds the JSteg like stream: the LSB of the AC coefficients that are not
+     * 0 nor 1 on the coding order of the file. (MCU by MCU for the
+     * interleaved images. block by block otherwise, each block on zigzag
+     * order) packed with the first bit as the most significant one.
+     *
+     * @param sink the consumer of the data.
+     */
+    void streamLSB(BitPlaneStream.ChunkSink sink) {
+        var chunk = new byte[4096];
+        var state = new int[3];//length, accumulator, bits
+        if (Components.size() == 1) {
+            var component = Components.get(0);
+            for (int row = 0; row < component.BlocksPerColumn(); row++) {
+                for (int column = 0; column < component.BlocksPerLine(); column++) {
+                    if (!packBlock(component, component.getBlockOffset(row, column), chunk, state, sink)) {
+                        return;
+                    }
+                }
+            }
+        } else {
+            for (int mcuRow = 0; mcuRow < McusPerColumn; mcuRow++) {
+                for (int mcuColumn = 0; mcuColumn < McusPerLine; mcuColumn++) {
+                    for (var component : Components) {
+                        for (int v = 0; v < component.V(); v++) {
+                            for (int h = 0; h < component.H(); h++) {
+                                var offset = component.getBlockOffset(mcuRow * component.V() + v, mcuColumn * component.H() + h);
+                                if (!packBlock(component, offset, chunk, state, sink)) {
+                                    return;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (state[0] > 0) {
+            sink.accept(chunk, state[0]);
+        }
+    }
+
+    private static boolean packBlock(Component component, int offset, byte[] chunk, int[] state, BitPlaneStream.ChunkSink sink) {
+        var data = component.Coefficients();
+        int length = state[0];
+        int accumulator = state[1];
+        int bits = state[2];
+        for (int k = 1; k < BLOCK; k++) {
+            var value = data[offset + k];
+            if (value == 0 || value == 1) {
+                continue;
+            }
+            accumulator = (accumulator << 1) | (value & 1);
+            if (++bits == 8) {
+                chunk[length++] = (byte) accumulator;
+                accumulator = 0;
+                bits = 0;
+                if (length == chunk.length) {
+                    if (!sink.accept(chunk, length)) {
+                        return false;
+                    }
+                    length = 0;
+                }
+            }
+        }
+        state[0] = length;
+        state[1] = accumulator;
+        state[2] = bits;
+        return true;
+    }
+}
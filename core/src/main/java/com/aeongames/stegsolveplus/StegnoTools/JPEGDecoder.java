@@ -0,0 +1,799 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * a JPEG entropy decoder. it reads the huffman coded data of baseline,
+ * extended (huffman) and progressive files and returns the quantized DCT
+ * coefficients. nothing else is done (no IDCT, no color conversion) as
+ * {@link javax.imageio.ImageIO} is already used for the pixels.
+ * <br>
+ * when the file uses restart intervals the segments between the restart
+ * markers are independent, so they are decoded in parallel on the common
+ * pool. a corrupt segment is reported as a warning and the rest of the scan is
+ * still decoded.
+ * <br>
+ * arithmetic coded, lossless and hierarchical files are not supported.
+ *
+ * @author Eduardo Vindas
+ */
+public final class JPEGDecoder {
+
+    /**
+     * the max amount of restart segments decoded by a single task.
+     */
+    private static final int SEGMENTS_PER_TASK = 4;
+    private static final int SOI = 0xD8, EOI = 0xD9, SOS = 0xDA, DQT = 0xDB, DRI = 0xDD, DHT = 0xC4;
+    private static final int SOF0 = 0xC0, SOF1 = 0xC1, SOF2 = 0xC2;
+    private static final int RST0 = 0xD0, RST7 = 0xD7;
+
+    private JPEGDecoder() {
+    }
+
+    /**
+     * checks if the file starts with the JPEG SOI marker.
+     *
+     * @param File the file to check
+     * @return true if the file looks like a JPEG
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isJPEG(Path File) throws IOException {
+        try (var channel = FileChannel.open(File, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(3);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+            }
+            return !header.hasRemaining() && (header.get(0) & 0xFF) == 0xFF
+                    && (header.get(1) & 0xFF) == SOI && (header.get(2) & 0xFF) == 0xFF;
+        }
+    }
+
+    /**
+     * checks if the mapped file starts with the JPEG SOI marker.
+     *
+     * @param File the file to check
+     * @return true if the file looks like a JPEG
+     */
+    public static boolean isJPEG(MappedFile File) {
+        return File.size() >= 3 && File.get(0) == 0xFF && File.get(1) == SOI && File.get(2) == 0xFF;
+    }
+
+    /**
+     * decodes the coefficients of the JPEG file.
+     *
+     * @param File the file to decode
+     * @return the quantized coefficients.
+     * @throws IOException if the file cannot be read, is not a JPEG or uses an
+     * unsupported coding.
+     */
+    public static JPEGCoefficients decode(Path File) throws IOException {
+        return decode(MappedFile.open(File));
+    }
+
+    /**
+     * decodes the coefficients of the mapped JPEG file. (see
+     * {@link MappedFile})
+     *
+     * @param File the file to decode
+     * @return the quantized coefficients.
+     * @throws IOException if the file is not a JPEG or uses an unsupported
+     * coding.
+     */
+    public static JPEGCoefficients decode(MappedFile File) throws IOException {
+        return decode(File.asByteBuffer());
+    }
+
+    /**
+     * decodes the coefficients of the JPEG data on the buffer (from 0 to the
+     * limit) the buffer is read with absolute reads. its position is not
+     * changed.
+     *
+     * @param data the JPEG data
+     * @return the quantized coefficients.
+     * @throws IOException if the data is not a JPEG or uses an unsupported
+     * coding.
+     */
+    public static JPEGCoefficients decode(ByteBuffer data) throws IOException {
+        return new Parser(data).parse();
+    }
+
+    /**
+     * a component as read from the frame header. with its decoding state.
+     */
+    private static final class FrameComponent {
+
+        final int Id, H, V, Tq;
+        int BlocksPerLine, BlocksPerColumn, Stride;
+        short[] Coefficients;
+
+        FrameComponent(int Id, int H, int V, int Tq) {
+            this.Id = Id;
+            this.H = H;
+            this.V = V;
+            this.Tq = Tq;
+        }
+    }
+
+    /**
+     * a huffman table with a lookup table for the short codes. the long codes
+     * are resolved by length as on the F.2.2.3 procedure of the spec.
+     */
+    private static final class HuffmanTable {
+
+        private static final int FAST_BITS = 9;
+        /**
+         * (length << 8 | symbol) for the codes of FAST_BITS or less. -1 for
+         * longer codes
+         */
+        final short[] Fast = new short[1 << FAST_BITS];
+        final int[] MaxCode = new int[18];
+        final int[] Delta = new int[17];
+        final byte[] Symbols;
+
+        HuffmanTable(int[] Counts, byte[] Symbols) throws IOException {
+            this.Symbols = Symbols;
+            Arrays.fill(Fast, (short) -1);
+            int code = 0, index = 0;
+            for (int length = 1; length <= 16; length++) {
+                Delta[length] = index - code;
+                //checked before the codes are placed. a code past 1 << length would be out of the lookup
+                if (code + Counts[length - 1] > 1 << length) {
+                    throw new IOException("invalid huffman table (too many codes)");
+                }
+                for (int i = 0; i < Counts[length - 1]; i++, index++, code++) {
+                    if (length <= FAST_BITS) {
+                        int first = code << (FAST_BITS - length);
+                        int count = 1 << (FAST_BITS - length);
+                        for (int j = 0; j < count; j++) {
+                            Fast[first + j] = (short) (length << 8 | (Symbols[index] & 0xFF));
+                        }
+                    }
+                }
+                MaxCode[length] = code;//exclusive
+                code <<= 1;
+            }
+            MaxCode[17] = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * thrown when the entropy coded data cannot be decoded.
+     */
+    private static final class CorruptDataException extends RuntimeException {
+
+        CorruptDataException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    private static final class Parser {
+
+        private final ByteBuffer Data;
+        private final int Size;
+        private final HuffmanTable[] DCTables = new HuffmanTable[4];
+        private final HuffmanTable[] ACTables = new HuffmanTable[4];
+        private final int[][] Quantization = new int[4][];
+        private final Queue<String> Warnings = new ConcurrentLinkedQueue<>();
+        private List<FrameComponent> Components;
+        private boolean Progressive;
+        private int Width, Height, McusPerLine, McusPerColumn, MaxH, MaxV;
+        private int RestartInterval;
+
+        Parser(ByteBuffer Data) {
+            this.Data = Data;
+            this.Size = Data.limit();
+        }
+
+        private int u8(int position) {
+            return Data.get(position) & 0xFF;
+        }
+
+        private int u16(int position) {
+            return Data.getShort(position) & 0xFFFF;
+        }
+
+        JPEGCoefficients parse() throws IOException {
+            if (Size < 4 || u8(0) != 0xFF || u8(1) != SOI) {
+                throw new IOException("the data is not a JPEG (no SOI marker)");
+            }
+            int position = 2;
+            while (position < Size) {
+                if (u8(position) != 0xFF) {
+                    //garbage between segments. look for the next marker.
+                    position++;
+                    continue;
+                }
+                int marker = 0xFF;
+                while (position < Size && (marker = u8(position)) == 0xFF) {
+                    position++;//fill bytes
+                }
+                position++;
+                if (marker == EOI) {
+                    break;
+                }
+                if (marker == SOI || marker == 0x01 || (marker >= RST0 && marker <= RST7)) {
+                    continue;//markers without payload
+                }
+                if (position + 2 > Size) {
+                    break;
+                }
+                final int length = u16(position);
+                final int start = position + 2;
+                final int end = position + length;
+                if (length < 2 || end > Size) {
+                    Warnings.add(String.format("truncated segment 0x%02X at 0x%08X", marker, position - 2));
+                    break;
+                }
+                switch (marker) {
+                    case SOF0, SOF1, SOF2 ->
+                        readFrame(start, end, marker == SOF2);
+                    case DHT ->
+                        readHuffmanTables(start, end);
+                    case DQT ->
+                        readQuantizationTables(start, end);
+                    case DRI -> {
+                        if (start + 2 > end) {
+                            throw new IOException("invalid restart interval segment");
+                        }
+                        RestartInterval = u16(start);
+                    }
+                    case SOS -> {
+                        position = decodeScan(start, end);
+                        continue;
+                    }
+                    default -> {
+                        if ((marker >= 0xC3 && marker <= 0xCF) && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                            throw new IOException(String.format("unsupported JPEG coding (SOF%d)", marker - 0xC0));
+                        }
+                    }
+                }
+                position = end;
+            }
+            if (Components == null) {
+                throw new IOException("the JPEG has no frame header");
+            }
+            var components = new ArrayList<JPEGCoefficients.Component>(Components.size());
+            for (var c : Components) {
+                components.add(new JPEGCoefficients.Component(c.Id, c.H, c.V, c.Tq,
+                        c.BlocksPerLine, c.BlocksPerColumn, c.Stride, c.Coefficients));
+            }
+            return new JPEGCoefficients(Width, Height, Progressive, McusPerLine, McusPerColumn,
+                    components, Quantization, new ArrayList<>(Warnings));
+        }
+
+        private void readFrame(int position, int end, boolean progressive) throws IOException {
+            if (Components != null) {
+                throw new IOException("multiple frames are not supported");
+            }
+            if (position + 6 > end || position + 6 + u8(position + 5) * 3 > end) {
+                throw new IOException("the frame header is truncated");
+            }
+            Progressive = progressive;
+            Height = u16(position + 1);
+            Width = u16(position + 3);
+            final int count = u8(position + 5);
+            if (Height == 0 || Width == 0 || count == 0) {
+                throw new IOException("invalid or unsupported frame size (DNL is not supported)");
+            }
+            Components = new ArrayList<>(count);
+            for (int i = 0, p = position + 6; i < count; i++, p += 3) {
+                final int sampling = u8(p + 1);
+                final int h = sampling >> 4, v = sampling & 15;
+                if (h < 1 || h > 4 || v < 1 || v > 4) {
+                    throw new IOException("invalid sampling factors on component " + u8(p));
+                }
+                Components.add(new FrameComponent(u8(p), h, v, u8(p + 2) & 3));
+                MaxH = Math.max(MaxH, h);
+                MaxV = Math.max(MaxV, v);
+            }
+            McusPerLine = ceilDiv(Width, 8 * MaxH);
+            McusPerColumn = ceilDiv(Height, 8 * MaxV);
+            for (var c : Components) {
+                c.BlocksPerLine = ceilDiv(ceilDiv(Width * c.H, MaxH), 8);
+                c.BlocksPerColumn = ceilDiv(ceilDiv(Height * c.V, MaxV), 8);
+                c.Stride = McusPerLine * c.H;
+                final long coefficients = (long) c.Stride * McusPerColumn * c.V * JPEGCoefficients.BLOCK;
+                if (coefficients > Integer.MAX_VALUE - 8) {
+                    throw new IOException("the image is too large");
+                }
+                c.Coefficients = new short[(int) coefficients];
+            }
+        }
+
+        private void readHuffmanTables(int position, int end) throws IOException {
+            while (position + 17 <= end) {
+                final int info = u8(position);
+                var counts = new int[16];
+                int total = 0;
+                for (int i = 0; i < 16; i++) {
+                    counts[i] = u8(position + 1 + i);
+                    total += counts[i];
+                }
+                position += 17;
+                if (position + total > end || total > 256) {
+                    throw new IOException("invalid huffman table");
+                }
+                var symbols = new byte[total];
+                Data.get(position, symbols);
+                position += total;
+                var table = new HuffmanTable(counts, symbols);
+                if ((info >> 4) == 0) {
+                    DCTables[info & 3] = table;
+                } else {
+                    ACTables[info & 3] = table;
+                }
+            }
+        }
+
+        private void readQuantizationTables(int position, int end) throws IOException {
+            while (position < end) {
+                final int info = u8(position++);
+                final boolean wide = (info >> 4) != 0;
+                if (position + (wide ? 128 : 64) > end) {
+                    throw new IOException("the quantization table is truncated");
+                }
+                var table = new int[JPEGCoefficients.BLOCK];
+                for (int i = 0; i < table.length; i++) {
+                    table[i] = wide ? u16(position + i * 2) : u8(position + i);
+                }
+                position += wide ? 128 : 64;
+                Quantization[info & 3] = table;
+            }
+        }
+
+        /**
+         * reads the scan header, finds the restart segments and decodes them.
+         *
+         * @param position the start of the SOS payload
+         * @param headerEnd the end of the scan header. (where the data starts)
+         * @return the position of the marker after the scan data.
+         */
+        private int decodeScan(int position, int headerEnd) throws IOException {
+            if (Components == null) {
+                throw new IOException("scan before the frame header");
+            }
+            if (position + 1 > headerEnd) {
+                throw new IOException("the scan header is truncated");
+            }
+            final int count = u8(position);
+            if (count < 1 || count > 4 || position + 1 + count * 2 + 3 > headerEnd) {
+                throw new IOException("invalid or truncated scan header");
+            }
+            var scan = new Scan();
+            scan.Components = new FrameComponent[count];
+            scan.DC = new HuffmanTable[count];
+            scan.AC = new HuffmanTable[count];
+            for (int i = 0, p = position + 1; i < count; i++, p += 2) {
+                final int id = u8(p);
+                final int tables = u8(p + 1);
+                scan.Components[i] = Components.stream().filter(c -> c.Id == id).findFirst()
+                        .orElseThrow(() -> new IOException("scan references unknown component " + id));
+                scan.DC[i] = DCTables[tables >> 4 & 3];
+                scan.AC[i] = ACTables[tables & 3];
+            }
+            final int p = position + 1 + count * 2;
+            scan.SpectralStart = u8(p);
+            scan.SpectralEnd = u8(p + 1);
+            scan.High = u8(p + 2) >> 4;
+            scan.Low = u8(p + 2) & 15;
+            scan.Mode = scanMode(scan);
+            for (int i = 0; i < count; i++) {
+                final boolean needsDC = scan.Mode == Scan.BASELINE || scan.Mode == Scan.DC_FIRST;
+                final boolean needsAC = scan.Mode == Scan.BASELINE || scan.Mode >= Scan.AC_FIRST;
+                if ((needsDC && scan.DC[i] == null) || (needsAC && scan.AC[i] == null)) {
+                    throw new IOException("scan references an undefined huffman table");
+                }
+            }
+            if (count == 1) {
+                var c = scan.Components[0];
+                scan.TotalMcus = c.BlocksPerLine * c.BlocksPerColumn;
+            } else {
+                scan.TotalMcus = McusPerLine * McusPerColumn;
+            }
+            scan.RestartInterval = RestartInterval;
+            //find the restart segments and the end of the scan.
+            var segments = new ArrayList<int[]>();
+            int start = headerEnd;
+            int index = start;
+            while (index < Size - 1) {
+                if (u8(index) != 0xFF) {
+                    index++;
+                    continue;
+                }
+                final int next = u8(index + 1);
+                if (next == 0x00 || next == 0xFF) {
+                    index += next == 0 ? 2 : 1;
+                } else if (next >= RST0 && next <= RST7) {
+                    segments.add(new int[]{start, index});
+                    index += 2;
+                    start = index;
+                } else {
+                    break;
+                }
+            }
+            final int end = Math.min(index, Size);
+            segments.add(new int[]{start, end});
+            if (RestartInterval > 0 && segments.size() > 1) {
+                final long expected = ceilDiv(scan.TotalMcus, RestartInterval);
+                if (expected != segments.size()) {
+                    Warnings.add(String.format("scan at 0x%08X has %d restart segments. %d were expected",
+                            position, segments.size(), expected));
+                }
+                new SegmentsTask(scan, segments, 0, segments.size()).invokeOnPool();
+            } else {
+                //no restart markers. the scan is a single segment.
+                decodeSegment(scan, segments.get(0)[0], end, 0, scan.TotalMcus);
+            }
+            return end;
+        }
+
+        private int scanMode(Scan scan) throws IOException {
+            if (!Progressive) {
+                return Scan.BASELINE;
+            }
+            if (scan.SpectralStart == 0) {
+                if (scan.SpectralEnd != 0) {
+                    throw new IOException("invalid progressive DC scan");
+                }
+                return scan.High == 0 ? Scan.DC_FIRST : Scan.DC_REFINE;
+            }
+            if (scan.Components.length != 1 || scan.SpectralEnd > 63 || scan.SpectralStart > scan.SpectralEnd) {
+                throw new IOException("invalid progressive AC scan");
+            }
+            return scan.High == 0 ? Scan.AC_FIRST : Scan.AC_REFINE;
+        }
+
+        private void decodeSegment(Scan scan, int start, int end, int firstMcu, int lastMcu) {
+            var reader = new SegmentDecoder(Data, start, end, scan);
+            try {
+                for (int mcu = firstMcu; mcu < lastMcu; mcu++) {
+                    reader.decodeMcu(mcu);
+                }
+            } catch (CorruptDataException e) {
+                Warnings.add(String.format("corrupt entropy data on segment at 0x%08X: %s", start, e.getMessage()));
+            }
+        }
+
+        /**
+         * decodes a range of restart segments. splits the work while there
+         * are more than {@link #SEGMENTS_PER_TASK} segments.
+         */
+        private final class SegmentsTask extends RecursiveAction {
+
+            private final Scan scan;
+            private final List<int[]> segments;
+            private final int from, to;
+
+            SegmentsTask(Scan scan, List<int[]> segments, int from, int to) {
+                this.scan = scan;
+                this.segments = segments;
+                this.from = from;
+                this.to = to;
+            }
+
+            void invokeOnPool() {
+                if (inForkJoinPool()) {
+                    invoke();
+                } else {
+                    ForkJoinPool.commonPool().invoke(this);
+                }
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from > SEGMENTS_PER_TASK) {
+                    final int middle = (from + to) >>> 1;
+                    invokeAll(new SegmentsTask(scan, segments, from, middle),
+                            new SegmentsTask(scan, segments, middle, to));
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    final long first = (long) i * scan.RestartInterval;
+                    if (first >= scan.TotalMcus) {
+                        break;
+                    }
+                    final int last = (int) Math.min(first + scan.RestartInterval, scan.TotalMcus);
+                    decodeSegment(scan, segments.get(i)[0], segments.get(i)[1], (int) first, last);
+                }
+            }
+        }
+
+        /**
+         * the parameters of a scan. (shared by all the segments)
+         */
+        private final class Scan {
+
+            static final int BASELINE = 0, DC_FIRST = 1, DC_REFINE = 2, AC_FIRST = 3, AC_REFINE = 4;
+            FrameComponent[] Components;
+            HuffmanTable[] DC, AC;
+            int SpectralStart, SpectralEnd, High, Low, Mode;
+            int TotalMcus, RestartInterval;
+
+            int mcusPerLine() {
+                return McusPerLine;
+            }
+        }
+    }
+
+    /**
+     * decodes the entropy coded data of a single restart segment. keeps the
+     * bit reader and the state that is reset on each restart marker. (DC
+     * predictors and the end of band run)
+     */
+    private static final class SegmentDecoder {
+
+        private final ByteBuffer Data;
+        private final int End;
+        private final Parser.Scan Scan;
+        private final int[] Predictors;
+        private int Position;
+        private long Bits;
+        private int BitCount;
+        private int EOBRun;
+        private int RefineState;
+        private int RefineValue;
+
+        SegmentDecoder(ByteBuffer Data, int Start, int End, Parser.Scan Scan) {
+            this.Data = Data;
+            this.Position = Start;
+            this.End = End;
+            this.Scan = Scan;
+            this.Predictors = new int[Scan.Components.length];
+        }
+
+        /**
+         * fills the bit buffer to at least 57 bits. past the end of the
+         * segment (or on a marker) zeros are fed.
+         */
+        private void fill() {
+            while (BitCount <= 56) {
+                int value = 0;
+                if (Position < End) {
+                    value = Data.get(Position) & 0xFF;
+                    if (value == 0xFF) {
+                        final int next = Position + 1 < End ? Data.get(Position + 1) & 0xFF : 0xFF;
+                        if (next == 0) {
+                            Position += 2;
+                        } else {
+                            value = 0;
+                            Position = End;
+                        }
+                    } else {
+                        Position++;
+                    }
+                }
+                Bits = Bits << 8 | value;
+                BitCount += 8;
+            }
+        }
+
+        private int readBits(int count) {
+            if (count == 0) {
+                return 0;
+            }
+            if (BitCount < count) {
+                fill();
+            }
+            BitCount -= count;
+            return (int) (Bits >>> BitCount) & ((1 << count) - 1);
+        }
+
+        private int readBit() {
+            if (BitCount < 1) {
+                fill();
+            }
+            BitCount--;
+            return (int) (Bits >>> BitCount) & 1;
+        }
+
+        private int extend(int count) {
+            final int value = readBits(count);
+            return value < 1 << (count - 1) ? value - (1 << count) + 1 : value;
+        }
+
+        private int decodeHuffman(HuffmanTable table) {
+            if (BitCount < 16) {
+                fill();
+            }
+            final int peek = (int) (Bits >>> (BitCount - 16)) & 0xFFFF;
+            final int fast = table.Fast[peek >>> (16 - HuffmanTable.FAST_BITS)];
+            if (fast >= 0) {
+                BitCount -= fast >> 8;
+                return fast & 0xFF;
+            }
+            for (int length = HuffmanTable.FAST_BITS + 1; length <= 16; length++) {
+                final int code = peek >>> (16 - length);
+                if (code < table.MaxCode[length]) {
+                    BitCount -= length;
+                    return table.Symbols[code + table.Delta[length]] & 0xFF;
+                }
+            }
+            throw new CorruptDataException("invalid huffman code");
+        }
+
+        void decodeMcu(int mcu) {
+            var components = Scan.Components;
+            if (components.length == 1) {
+                var c = components[0];
+                final int row = mcu / c.BlocksPerLine, column = mcu % c.BlocksPerLine;
+                decodeBlock(0, c.Coefficients, (row * c.Stride + column) * JPEGCoefficients.BLOCK);
+                return;
+            }
+            final int mcusPerLine = Scan.mcusPerLine();
+            final int mcuRow = mcu / mcusPerLine, mcuColumn = mcu % mcusPerLine;
+            for (int i = 0; i < components.length; i++) {
+                var c = components[i];
+                for (int v = 0; v < c.V; v++) {
+                    final int row = mcuRow * c.V + v;
+                    for (int h = 0; h < c.H; h++) {
+                        decodeBlock(i, c.Coefficients, (row * c.Stride + mcuColumn * c.H + h) * JPEGCoefficients.BLOCK);
+                    }
+                }
+            }
+        }
+
+        private void decodeBlock(int component, short[] block, int offset) {
+            switch (Scan.Mode) {
+                case Parser.Scan.BASELINE ->
+                    decodeBaseline(component, block, offset);
+                case Parser.Scan.DC_FIRST -> {
+                    final int size = decodeHuffman(Scan.DC[component]);
+                    final int diff = size == 0 ? 0 : extend(size) << Scan.Low;
+                    block[offset] = (short) (Predictors[component] += diff);
+                }
+                case Parser.Scan.DC_REFINE -> {
+                    if (readBit() != 0) {
+                        block[offset] |= (short) (1 << Scan.Low);
+                    }
+                }
+                case Parser.Scan.AC_FIRST ->
+                    decodeACFirst(block, offset);
+                default ->
+                    decodeACRefine(block, offset);
+            }
+        }
+
+        private void decodeBaseline(int component, short[] block, int offset) {
+            final int size = decodeHuffman(Scan.DC[component]);
+            final int diff = size == 0 ? 0 : extend(size);
+            block[offset] = (short) (Predictors[component] += diff);
+            var ac = Scan.AC[component];
+            for (int k = 1; k < 64;) {
+                final int rs = decodeHuffman(ac);
+                final int s = rs & 15, r = rs >> 4;
+                if (s == 0) {
+                    if (r < 15) {
+                        break;
+                    }
+                    k += 16;
+                    continue;
+                }
+                k += r;
+                if (k > 63) {
+                    throw new CorruptDataException("coefficient index out of range");
+                }
+                block[offset + k++] = (short) extend(s);
+            }
+        }
+
+        private void decodeACFirst(short[] block, int offset) {
+            if (EOBRun > 0) {
+                EOBRun--;
+                return;
+            }
+            var ac = Scan.AC[0];
+            for (int k = Scan.SpectralStart; k <= Scan.SpectralEnd;) {
+                final int rs = decodeHuffman(ac);
+                final int s = rs & 15, r = rs >> 4;
+                if (s == 0) {
+                    if (r < 15) {
+                        EOBRun = (1 << r) + readBits(r) - 1;
+                        break;
+                    }
+                    k += 16;
+                    continue;
+                }
+                k += r;
+                if (k > 63) {
+                    throw new CorruptDataException("coefficient index out of range");
+                }
+                block[offset + k++] = (short) (extend(s) * (1 << Scan.Low));
+            }
+        }
+
+        /**
+         * the refinement of the AC coefficients (G.1.2.3 of the spec) coded as
+         * a state machine so a band can be refined across several blocks. 0:
+         * initial, 1: skipping a run of 16 zeros, 2: skipping a run of zeros
+         * before a new value, 3: placing the new value, 4: end of band
+         */
+        private void decodeACRefine(short[] block, int offset) {
+            final int bit = 1 << Scan.Low;
+            var ac = Scan.AC[0];
+            int run = 0;
+            for (int k = Scan.SpectralStart; k <= Scan.SpectralEnd;) {
+                final int index = offset + k;
+                final int current = block[index];
+                switch (RefineState) {
+                    case 0 -> {
+                        final int rs = decodeHuffman(ac);
+                        final int s = rs & 15;
+                        run = rs >> 4;
+                        if (s == 0) {
+                            if (run < 15) {
+                                EOBRun = readBits(run) + (1 << run);
+                                RefineState = 4;
+                            } else {
+                                run = 16;
+                                RefineState = 1;
+                            }
+                        } else {
+                            if (s != 1) {
+                                throw new CorruptDataException("invalid refinement value");
+                            }
+                            RefineValue = extend(s);
+                            RefineState = run != 0 ? 2 : 3;
+                        }
+                        continue;
+                    }
+                    case 1, 2 -> {
+                        if (current != 0) {
+                            refine(block, index, current, bit);
+                        } else if (--run == 0) {
+                            RefineState = RefineState == 2 ? 3 : 0;
+                        }
+                    }
+                    case 3 -> {
+                        if (current != 0) {
+                            refine(block, index, current, bit);
+                        } else {
+                            block[index] = (short) (RefineValue * bit);
+                            RefineState = 0;
+                        }
+                    }
+                    default -> {
+                        if (current != 0) {
+                            refine(block, index, current, bit);
+                        }
+                    }
+                }
+                k++;
+            }
+            if (RefineState == 4 && --EOBRun == 0) {
+                RefineState = 0;
+            }
+        }
+
+        private void refine(short[] block, int index, int current, int bit) {
+            if (readBit() != 0 && (current & bit) == 0) {
+                block[index] = (short) (current >= 0 ? current + bit : current - bit);
+            }
+        }
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
@@ -0,0 +1,444 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * walks the marker segments of a JPEG file. like the {@link PNGInspector} the
+ * file is memory mapped and read in place and no pixel is decoded. every
+ * segment is listed with its offset, the entropy coded data of each scan is
+ * listed as its own entry, the comments and the EXIF fields are added to the
+ * metadata, the EXIF thumbnail is kept and the data after the EOI marker is
+ * reported.
+ * <br>
+ * the APPn segments with an unknown identifier are flagged, as are the
+ * restart markers outside of a scan and any garbage between the segments.
+ *
+ * @author Eduardo Vindas
+ */
+public final class JPEGInspector {
+
+    private static final int SOI = 0xD8, EOI = 0xD9, SOS = 0xDA, DQT = 0xDB, DRI = 0xDD, DHT = 0xC4, COM = 0xFE;
+    private static final int APP0 = 0xE0, APP15 = 0xEF;
+    private static final int RST0 = 0xD0, RST7 = 0xD7;
+    private static final String EXIF_ID = "Exif";
+    private static final String XMP_ID = "http://ns.adobe.com/xap/1.0/";
+    /**
+     * the identifiers commonly found on each APPn segment.
+     */
+    private static final Map<Integer, Set<String>> KNOWN_APPS = Map.of(
+            0, Set.of("JFIF", "JFXX"),
+            1, Set.of(EXIF_ID, XMP_ID, "http://ns.adobe.com/xmp/extension/"),
+            2, Set.of("ICC_PROFILE", "MPF", "FPXR"),
+            12, Set.of("Ducky"),
+            13, Set.of("Photoshop 3.0", "Adobe_Photoshop2.5:"),
+            14, Set.of("Adobe"));
+    private static final String[] FRAME_TYPES = {
+        "Baseline", "Extended sequential", "Progressive", "Lossless", "", "Differential sequential",
+        "Differential progressive", "Differential lossless", "", "Extended sequential (arithmetic)",
+        "Progressive (arithmetic)", "Lossless (arithmetic)", "", "Differential sequential (arithmetic)",
+        "Differential progressive (arithmetic)", "Differential lossless (arithmetic)"};
+    /**
+     * the max mean difference (per channel) between the thumbnail and the
+     * scaled down image before the thumbnail is considered not to match.
+     */
+    private static final double THUMBNAIL_TOLERANCE = 24;
+    private static final int MAX_XMP = 4096;
+
+    private JPEGInspector() {
+    }
+
+    /**
+     * inspects the JPEG file.
+     *
+     * @param File the file to inspect
+     * @return the structure of the file.
+     * @throws IOException if the file cannot be read or is not a JPEG
+     */
+    public static FileStructure inspect(Path File) throws IOException {
+        return inspect(MappedFile.open(File));
+    }
+
+    /**
+     * inspects the mapped JPEG file. (see {@link MappedFile})
+     *
+     * @param File the file to inspect
+     * @return the structure of the file.
+     * @throws IOException if the file is not a JPEG
+     */
+    public static FileStructure inspect(MappedFile File) throws IOException {
+        var structure = inspect(File.asByteBuffer());
+        if (File.size() > Integer.MAX_VALUE) {
+            structure.addWarning("the file is larger than 2GB. only the first 2GB were inspected");
+        }
+        return structure;
+    }
+
+    /**
+     * inspects the JPEG data on the buffer. (from 0 to the limit). the buffer
+     * is read with absolute reads. its position is not changed.
+     *
+     * @param data the JPEG data
+     * @return the structure of the data.
+     * @throws IOException if the data is not a JPEG.
+     */
+    public static FileStructure inspect(ByteBuffer data) throws IOException {
+        final int size = data.limit();
+        if (size < 4 || (data.get(0) & 0xFF) != 0xFF || (data.get(1) & 0xFF) != SOI) {
+            throw new IOException("the data is not a JPEG (no SOI marker)");
+        }
+        var structure = new FileStructure("JPEG", size);
+        structure.addEntry(new StructureEntry("SOI", 0, 2, "start of image", false));
+        int position = 2;
+        int segments = 0;
+        boolean ended = false;
+        while (!ended) {
+            if (position >= size) {
+                structure.addWarning("the file ends without a EOI marker");
+                break;
+            }
+            if ((data.get(position) & 0xFF) != 0xFF) {
+                final int start = position;
+                while (position < size && (data.get(position) & 0xFF) != 0xFF) {
+                    position++;
+                }
+                structure.addEntry(new StructureEntry("Garbage", start, position - start,
+                        "data between segments: " + PNGInspector.preview(data, start, position), true));
+                continue;
+            }
+            final int markerOffset = position;
+            while (position < size && (data.get(position) & 0xFF) == 0xFF) {
+                position++;//fill bytes
+            }
+            if (position >= size) {
+                structure.addWarning("the file ends without a EOI marker");
+                break;
+            }
+            final int marker = data.get(position++) & 0xFF;
+            segments++;
+            if (marker == EOI) {
+                structure.addEntry(new StructureEntry("EOI", markerOffset, 2, "end of image", false));
+                ended = true;
+                break;
+            }
+            if (marker == SOI || marker == 0x01 || marker == 0x00 || (marker >= RST0 && marker <= RST7)) {
+                structure.addEntry(new StructureEntry(markerName(marker), markerOffset, 2, "unexpected marker outside of a scan", true));
+                continue;
+            }
+            if (position + 2 > size) {
+                structure.addWarning(String.format("truncated segment at 0x%08X", markerOffset));
+                break;
+            }
+            final int length = data.getShort(position) & 0xFFFF;
+            final int start = position + 2;
+            final int end = position + length;
+            if (length < 2 || end > size) {
+                structure.addEntry(new StructureEntry(markerName(marker), markerOffset, length,
+                        "the segment length goes beyond the end of the file", true));
+                structure.addWarning(String.format("segment %s at 0x%08X is truncated or its length is corrupt", markerName(marker), markerOffset));
+                break;
+            }
+            var details = "";
+            boolean suspicious = false;
+            if (marker >= APP0 && marker <= APP15) {
+                final int app = marker - APP0;
+                var identifier = readIdentifier(data, start, end);
+                var known = KNOWN_APPS.getOrDefault(app, Set.of());
+                suspicious = !known.contains(identifier);
+                details = (identifier.isEmpty() ? "no identifier" : identifier) + (suspicious ? ". unusual APP segment" : "");
+                if (app == 1 && identifier.equals(EXIF_ID)) {
+                    details = describeExif(data, start + 6, end, structure);
+                } else if (app == 1 && identifier.equals(XMP_ID)) {
+                    var xmp = readText(data, start + XMP_ID.length() + 1, end, MAX_XMP, StandardCharsets.UTF_8);
+                    structure.addMetadata("XMP", xmp);
+                    details = String.format("XMP packet, %d bytes", end - start);
+                } else if (app == 0 && identifier.equals("JFIF") && end - start >= 12) {
+                    details = String.format("JFIF %d.%02d, density %dx%d (unit %d)", data.get(start + 5), data.get(start + 6),
+                            data.getShort(start + 8) & 0xFFFF, data.getShort(start + 10) & 0xFFFF, data.get(start + 7));
+                }
+            } else if (marker == COM) {
+                var text = readText(data, start, end, Integer.MAX_VALUE, StandardCharsets.ISO_8859_1);
+                structure.addMetadata("Comment", text);
+                details = PNGInspector.abbreviate(text);
+            } else if (marker == DQT) {
+                details = describeQuantization(data, start, end);
+            } else if (marker == DHT) {
+                details = describeHuffman(data, start, end);
+            } else if (marker == DRI) {
+                suspicious = start + 2 > end;
+                details = !suspicious ? "restart interval " + (data.getShort(start) & 0xFFFF) + " MCUs" : "malformed restart interval";
+            } else if (isFrame(marker)) {
+                details = describeFrame(data, marker, start, end, structure);
+                suspicious = details.startsWith("malformed");
+            } else if (marker == SOS) {
+                final int count = start < end ? data.get(start) & 0xFF : 0;
+                final int spectral = start + 1 + count * 2;
+                suspicious = start >= end || spectral + 2 >= end;
+                details = !suspicious ? String.format("%d components, spectral %d-%d, approximation %d/%d", count,
+                        data.get(spectral) & 0xFF, data.get(spectral + 1) & 0xFF, (data.get(spectral + 2) & 0xF0) >> 4,
+                        data.get(spectral + 2) & 0x0F) : "malformed scan header";
+            }
+            structure.addEntry(new StructureEntry(markerName(marker), markerOffset, length, details, suspicious));
+            if (marker == APP0 + 1 && structure.hasThumbnail() && structure.getThumbnailOffset() > markerOffset
+                    && structure.getThumbnailOffset() < end) {
+                var thumbnail = structure.getThumbnail();
+                final boolean valid = thumbnail.length > 2 && (thumbnail[0] & 0xFF) == 0xFF && (thumbnail[1] & 0xFF) == SOI;
+                structure.addEntry(new StructureEntry("EXIF thumbnail", structure.getThumbnailOffset(), thumbnail.length,
+                        valid ? "JPEG thumbnail" : "thumbnail without SOI", !valid));
+            }
+            position = end;
+            if (marker == SOS) {
+                position = addScanData(data, position, structure);
+            }
+        }
+        if (ended && position < size) {
+            structure.setTrailingData(position, size - position);
+            structure.addEntry(new StructureEntry("Trailing data", position, size - position,
+                    String.format("%d bytes after EOI: %s", size - position, PNGInspector.preview(data, position, size)), true));
+            structure.addWarning(String.format("there are %d bytes after the EOI marker (at 0x%08X)", size - position, position));
+        }
+        structure.addMetadata("Segments", Integer.toString(segments));
+        return structure;
+    }
+
+    /**
+     * compares the thumbnail with the image scaled down to the thumbnail
+     * size. (the image is fit inside of the thumbnail keeping its aspect. as
+     * the cameras letterbox the thumbnails)
+     *
+     * @param Thumbnail the decoded thumbnail
+     * @param Image the image
+     * @return the mean absolute difference per channel (0 to 255)
+     */
+    static double compareThumbnail(BufferedImage Thumbnail, CanvasContainer Image) {
+        final int width = Image.getWidth(), height = Image.getHeight();
+        final int thumbWidth = Thumbnail.getWidth(), thumbHeight = Thumbnail.getHeight();
+        final double scale = Math.min((double) thumbWidth / width, (double) thumbHeight / height);
+        final int contentWidth = Math.max(1, (int) Math.round(width * scale));
+        final int contentHeight = Math.max(1, (int) Math.round(height * scale));
+        final int left = (thumbWidth - contentWidth) / 2, top = (thumbHeight - contentHeight) / 2;
+        //box average of the image per thumbnail pixel of the content area
+        var sums = new long[contentWidth * contentHeight * 3];
+        var counts = new int[contentWidth * contentHeight];
+        var row = new int[width];
+        for (int y = 0; y < height; y++) {
+            Image.getPackedARGBRow(y, row);
+            final int cell = (int) ((long) y * contentHeight / height) * contentWidth;
+            for (int x = 0; x < width; x++) {
+                final int index = cell + (int) ((long) x * contentWidth / width);
+                final int argb = row[x];
+                sums[index * 3] += (argb >> 16) & 0xFF;
+                sums[index * 3 + 1] += (argb >> 8) & 0xFF;
+                sums[index * 3 + 2] += argb & 0xFF;
+                counts[index]++;
+            }
+        }
+        double difference = 0;
+        for (int y = 0; y < contentHeight; y++) {
+            for (int x = 0; x < contentWidth; x++) {
+                final int index = y * contentWidth + x;
+                final int thumb = Thumbnail.getRGB(Math.min(thumbWidth - 1, left + x), Math.min(thumbHeight - 1, top + y));
+                final int count = Math.max(1, counts[index]);
+                difference += Math.abs(((thumb >> 16) & 0xFF) - sums[index * 3] / count)
+                        + Math.abs(((thumb >> 8) & 0xFF) - sums[index * 3 + 1] / count)
+                        + Math.abs((thumb & 0xFF) - sums[index * 3 + 2] / count);
+            }
+        }
+        return difference / (contentWidth * (double) contentHeight * 3);
+    }
+
+    /**
+     * @param Difference the result of
+     * {@link #compareThumbnail(BufferedImage, CanvasContainer)}
+     * @return true if the difference is too large for the thumbnail to be of
+     * the same image.
+     */
+    static boolean isThumbnailMismatch(double Difference) {
+        return Difference > THUMBNAIL_TOLERANCE;
+    }
+
+    private static String describeExif(ByteBuffer data, int tiffStart, int end, FileStructure structure) {
+        if (tiffStart >= end) {
+            return "Exif, no TIFF data";
+        }
+        var exif = new ExifReader(data.slice(tiffStart, end - tiffStart), tiffStart);
+        var fields = exif.getFields();
+        for (var field : fields) {
+            structure.addMetadata("EXIF " + field.Ifd() + " " + field.Name(), field.Value());
+        }
+        for (var warning : exif.getWarnings()) {
+            structure.addWarning("EXIF: " + warning);
+        }
+        var thumbnail = exif.getThumbnail();
+        if (thumbnail != null) {
+            var bytes = new byte[thumbnail.remaining()];
+            thumbnail.get(bytes);
+            structure.setThumbnail(exif.getThumbnailFileOffset(), bytes);
+        }
+        return String.format("Exif, %d fields%s", fields.size(), thumbnail != null ? ", with thumbnail" : "");
+    }
+
+    private static String describeFrame(ByteBuffer data, int marker, int start, int end, FileStructure structure) {
+        //the header and a component (id, sampling, table) each
+        if (start + 6 > end || start + 6 + (data.get(start + 5) & 0xFF) * 3 > end) {
+            return "malformed frame header";
+        }
+        final int precision = data.get(start) & 0xFF;
+        final int height = data.getShort(start + 1) & 0xFFFF;
+        final int width = data.getShort(start + 3) & 0xFFFF;
+        final int count = data.get(start + 5) & 0xFF;
+        var sampling = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            final int factors = data.get(start + 7 + i * 3) & 0xFF;
+            sampling.append(i > 0 ? "," : "").append(factors >> 4).append('x').append(factors & 15);
+        }
+        var type = FRAME_TYPES[marker - 0xC0];
+        structure.addMetadata("Dimensions", width + "x" + height);
+        structure.addMetadata("Coding", type);
+        structure.addMetadata("Components", count + " (sampling " + sampling + ")");
+        return String.format("%s, %dx%d, %d bit, %d components (%s)", type, width, height, precision, count, sampling);
+    }
+
+    private static String describeQuantization(ByteBuffer data, int start, int end) {
+        var tables = new StringBuilder();
+        for (int position = start; position < end;) {
+            final int info = data.get(position) & 0xFF;
+            tables.append(tables.isEmpty() ? "" : ", ").append(info & 15).append((info >> 4) != 0 ? " (16 bit)" : " (8 bit)");
+            position += 1 + ((info >> 4) != 0 ? 128 : 64);
+        }
+        return "tables " + tables;
+    }
+
+    private static String describeHuffman(ByteBuffer data, int start, int end) {
+        var tables = new StringBuilder();
+        for (int position = start; position + 17 <= end;) {
+            final int info = data.get(position) & 0xFF;
+            int total = 0;
+            for (int i = 1; i <= 16; i++) {
+                total += data.get(position + i) & 0xFF;
+            }
+            tables.append(tables.isEmpty() ? "" : ", ").append((info >> 4) == 0 ? "DC" : "AC").append(info & 15);
+            position += 17 + total;
+        }
+        return "tables " + tables;
+    }
+
+    /**
+     * adds the entry of the entropy coded data after a scan header.
+     *
+     * @return the position of the marker after the data.
+     */
+    private static int addScanData(ByteBuffer data, int start, FileStructure structure) {
+        final int size = data.limit();
+        int position = start;
+        int restarts = 0;
+        while (position < size - 1) {
+            if ((data.get(position) & 0xFF) != 0xFF) {
+                position++;
+                continue;
+            }
+            final int next = data.get(position + 1) & 0xFF;
+            if (next == 0x00) {
+                position += 2;
+            } else if (next >= RST0 && next <= RST7) {
+                restarts++;
+                position += 2;
+            } else if (next == 0xFF) {
+                position++;
+            } else {
+                break;
+            }
+        }
+        if (position >= size - 1) {
+            position = size;
+        }
+        structure.addEntry(new StructureEntry("Scan data", start, position - start,
+                restarts > 0 ? String.format("entropy coded data, %d restart markers", restarts) : "entropy coded data", false));
+        return position;
+    }
+
+    private static boolean isFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != DHT && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private static String markerName(int marker) {
+        if (marker >= APP0 && marker <= APP15) {
+            return "APP" + (marker - APP0);
+        }
+        if (marker >= RST0 && marker <= RST7) {
+            return "RST" + (marker - RST0);
+        }
+        if (isFrame(marker)) {
+            return "SOF" + (marker - 0xC0);
+        }
+        return switch (marker) {
+            case SOI ->
+                "SOI";
+            case SOS ->
+                "SOS";
+            case DQT ->
+                "DQT";
+            case DHT ->
+                "DHT";
+            case DRI ->
+                "DRI";
+            case COM ->
+                "COM";
+            case 0xDC ->
+                "DNL";
+            case 0xCC ->
+                "DAC";
+            default ->
+                String.format("0x%02X", marker);
+        };
+    }
+
+    /**
+     * @return the null terminated identifier at the start of a APPn segment.
+     */
+    private static String readIdentifier(ByteBuffer data, int start, int end) {
+        var identifier = new StringBuilder();
+        for (int i = start; i < Math.min(end, start + 64); i++) {
+            final int value = data.get(i) & 0xFF;
+            if (value == 0) {
+                return identifier.toString();
+            }
+            if (value < 0x20 || value >= 0x7F) {
+                break;
+            }
+            identifier.append((char) value);
+        }
+        //no terminator. (Adobe and Ducky are not null terminated)
+        var text = identifier.toString();
+        for (var known : new String[]{"Adobe", "Ducky"}) {
+            if (text.startsWith(known)) {
+                return known;
+            }
+        }
+        return text.length() > 16 ? text.substring(0, 16) : text;
+    }
+
+    private static String readText(ByteBuffer data, int start, int end, int max, Charset charset) {
+        var bytes = new byte[Math.max(0, Math.min(end - start, max))];
+        data.get(start, bytes);
+        return new String(bytes, charset);
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * writes JSON straight into a writer. a token at the time, no tree and no
+ * reflection. the numbers are written from a reused buffer (no strings) and
+ * the texts are escaped as they are copied. so a report costs the writer and
+ * little else. (see {@link AnalysisReport})
+ * <br>
+ * a object (or array) at the top ends a record. {@link #endLine()} ends it
+ * with a new line. (one record per line is NDJSON)
+ * <br>
+ * not thread safe.
+ *
+ * @author Eduardo Vindas
+ */
+public final class JsonWriter {
+
+    /**
+     * the decimals written for a double. (trailing zeros are dropped)
+     */
+    private static final int DECIMALS = 6;
+    private static final long DECIMALS_SCALE = 1_000_000L;
+    /**
+     * up to this a double is written as fixed point. larger ones (rare on a
+     * report) with {@link Double#toString(double)}
+     */
+    private static final double FIXED_LIMIT = 9e12;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final Writer Out;
+    private final char[] Digits = new char[20];
+    /**
+     * per open object or array. whether it has no member yet.
+     */
+    private boolean[] Empty = new boolean[16];
+    private int Depth;
+    private boolean AfterName;
+
+    public JsonWriter(Writer Out) {
+        this.Out = Objects.requireNonNull(Out, "the writer is null");
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        Out.write('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        pop();
+        Out.write('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        Out.write('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        pop();
+        Out.write(']');
+        return this;
+    }
+
+    /**
+     * writes the name of the next member of a object.
+     */
+    public JsonWriter name(String Name) throws IOException {
+        if (Depth == 0 || AfterName) {
+            throw new IllegalStateException("a name goes inside a object before its value");
+        }
+        separate();
+        quote(Name);
+        Out.write(':');
+        AfterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String Value) throws IOException {
+        if (Value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        quote(Value);
+        return this;
+    }
+
+    public JsonWriter value(long Value) throws IOException {
+        beforeValue();
+        writeLong(Value);
+        return this;
+    }
+
+    /**
+     * writes the number with up to {@value #DECIMALS} decimals. NaN and the
+     * infinities (not valid JSON) are written as null.
+     */
+    public JsonWriter value(double Value) throws IOException {
+        if (!Double.isFinite(Value)) {
+            return nullValue();
+        }
+        beforeValue();
+        if (Math.abs(Value) >= FIXED_LIMIT) {
+            Out.write(Double.toString(Value));
+            return this;
+        }
+        long scaled = Math.round(Math.abs(Value) * DECIMALS_SCALE);
+        if (Value < 0 && scaled != 0) {
+            Out.write('-');
+        }
+        writeLong(scaled / DECIMALS_SCALE);
+        long fraction = scaled % DECIMALS_SCALE;
+        if (fraction != 0) {
+            int decimals = DECIMALS;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                decimals--;
+            }
+            Out.write('.');
+            for (int i = decimals - 1; i >= 0; i--) {
+                Digits[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            Out.write(Digits, 0, decimals);
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean Value) throws IOException {
+        beforeValue();
+        Out.write(Value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        Out.write("null");
+        return this;
+    }
+
+    public JsonWriter field(String Name, String Value) throws IOException {
+        return name(Name).value(Value);
+    }
+
+    public JsonWriter field(String Name, long Value) throws IOException {
+        return name(Name).value(Value);
+    }
+
+    public JsonWriter field(String Name, double Value) throws IOException {
+        return name(Name).value(Value);
+    }
+
+    public JsonWriter field(String Name, boolean Value) throws IOException {
+        return name(Name).value(Value);
+    }
+
+    /**
+     * ends the record. (a new line) all the objects and arrays must be closed.
+     */
+    public void endLine() throws IOException {
+        if (Depth != 0) {
+            throw new IllegalStateException("the record has open objects or arrays");
+        }
+        Out.write('\n');
+    }
+
+    public void flush() throws IOException {
+        Out.flush();
+    }
+
+    private void beforeValue() throws IOException {
+        if (AfterName) {
+            AfterName = false;
+            return;
+        }
+        if (Depth > 0) {
+            separate();
+        }
+    }
+
+    private void separate() throws IOException {
+        if (Empty[Depth - 1]) {
+            Empty[Depth - 1] = false;
+        } else {
+            Out.write(',');
+        }
+    }
+
+    private void push() {
+        if (Depth == Empty.length) {
+            Empty = Arrays.copyOf(Empty, Depth * 2);
+        }
+        Empty[Depth++] = true;
+    }
+
+    private void pop() {
+        if (Depth == 0 || AfterName) {
+            throw new IllegalStateException("nothing to close");
+        }
+        Depth--;
+    }
+
+    private void writeLong(long Value) throws IOException {
+        if (Value == Long.MIN_VALUE) {
+            Out.write(Long.toString(Value));
+            return;
+        }
+        if (Value < 0) {
+            Out.write('-');
+            Value = -Value;
+        }
+        int position = Digits.length;
+        do {
+            Digits[--position] = (char) ('0' + Value % 10);
+            Value /= 10;
+        } while (Value != 0);
+        Out.write(Digits, position, Digits.length - position);
+    }
+
+    /**
+     * writes the text quoted. the runs that need no escape are copied as is.
+     */
+    private void quote(String Text) throws IOException {
+        Out.write('"');
+        int run = 0;
+        final int length = Text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = Text.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            Out.write(Text, run, i - run);
+            run = i + 1;
+            switch (c) {
+                case '"' ->
+                    Out.write("\\\"");
+                case '\\' ->
+                    Out.write("\\\\");
+                case '\n' ->
+                    Out.write("\\n");
+                case '\r' ->
+                    Out.write("\\r");
+                case '\t' ->
+                    Out.write("\\t");
+                default -> {
+                    Out.write("\\u00");
+                    Out.write(HEX[c >> 4]);
+                    Out.write(HEX[c & 0xF]);
+                }
+            }
+        }
+        Out.write(Text, run, length - run);
+        Out.write('"');
+    }
+}
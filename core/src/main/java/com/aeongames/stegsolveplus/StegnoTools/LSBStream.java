@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.util.function.ObjIntConsumer;
+
+/**
+ * the least significant bit streams that are searched for embedded files. the
+ * pixels are read on row order (left to right, top to bottom) and for each
+ * pixel the LSB of the channels on the listed order are appended. the bits are
+ * packed into bytes with the first bit as the most significant one (the same
+ * way most of the LSB embedding tools do it)
+ * <br>
+ * the stream is produced one row at the time so it can be consumed (scanned)
+ * without holding the whole stream on memory.
+ *
+ * @see BitPlaneStream
+ * @author Eduardo Vindas
+ */
+public enum LSBStream {
+    RGB("LSB of R,G,B", 16, 8, 0),
+    BGR("LSB of B,G,R", 0, 8, 16),
+    Red("LSB of Red", 16),
+    Green("LSB of Green", 8),
+    Blue("LSB of Blue", 0);
+
+    public final String Name;
+    private final BitPlaneStream Plane;
+
+    private LSBStream(String name, int... shifts) {
+        Name = name;
+        Plane = new BitPlaneStream(name, 0, false, shifts);
+    }
+
+    /**
+     * @param source the image the stream will be read from
+     * @return the size in bytes of the stream for the provided image. (the
+     * trailing bits that does not fill a byte are dropped)
+     */
+    long getLength(CanvasContainer source) {
+        return Plane.getLength(source);
+    }
+
+    /**
+     * reads the stream from the image and feeds it to the consumer. a row at
+     * the time. the consumer receives a buffer and the amount of valid bytes
+     * on it. <strong>the buffer is reused</strong> between calls, so the
+     * consumer should not keep a reference to it.
+     *
+     * @param source the image to read the stream from
+     * @param sink the consumer of the data.
+     */
+    void stream(CanvasContainer source, ObjIntConsumer<byte[]> sink) {
+        Plane.stream(source, (data, length) -> {
+            sink.accept(data, length);
+            return true;
+        });
+    }
+
+    /**
+     * reads the whole stream into a array.
+     *
+     * @param source the image to read the stream from
+     * @return the stream bytes.
+     * @throws IllegalStateException if the stream is larger than what a array
+     * can hold.
+     */
+    byte[] extract(CanvasContainer source) {
+        var size = getLength(source);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("the stream is too large to be hold on memory");
+        }
+        var result = new byte[(int) size];
+        var position = new int[1];
+        stream(source, (data, length) -> {
+            System.arraycopy(data, 0, result, position[0], length);
+            position[0] += length;
+        });
+        return result;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * applies {@link LUTTransform}s to a image. all the transformations are done
+ * on a single pass: each row is read once and mapped by every table. the rows
+ * are split on bands that run in parallel on the common pool and write
+ * straight into the arrays of the results. (like {@link ImageCombiner})
+ * <br>
+ * the transformations that depend on the image (contrast, equalization) need
+ * the histograms first. see {@link #histograms(CanvasContainer)}
+ *
+ * @author Eduardo Vindas
+ */
+final class LUTEngine {
+
+    /**
+     * the lowest amount of rows a band should have before we stop splitting
+     * the work.
+     */
+    private static final int MIN_BAND_ROWS = 32;
+
+    private LUTEngine() {
+    }
+
+    /**
+     * counts the values of the red, green and blue channels. on a single
+     * parallel pass.
+     *
+     * @param Source the image
+     * @return the histograms. {@code [channel][value]} with the channels on
+     * the order red, green, blue.
+     */
+    static long[][] histograms(CanvasContainer Source) {
+        Objects.requireNonNull(Source, "the image is null");
+        return ForkJoinPool.commonPool().invoke(new HistogramTask(Source, 0, Source.getHeight()));
+    }
+
+    /**
+     * applies the transformations to the image.
+     *
+     * @param Source the image
+     * @param Transforms the transformations
+     * @return the results on the same order. opaque {@code TYPE_INT_RGB} for
+     * the color transformations and {@code TYPE_BYTE_GRAY} for the grey ones.
+     */
+    static List<BufferedImage> apply(CanvasContainer Source, List<LUTTransform> Transforms) {
+        Objects.requireNonNull(Source, "the image is null");
+        var transforms = Transforms.toArray(LUTTransform[]::new);
+        var results = new ArrayList<BufferedImage>(transforms.length);
+        var outputs = new Object[transforms.length];
+        for (int i = 0; i < transforms.length; i++) {
+            var image = new BufferedImage(Source.getWidth(), Source.getHeight(),
+                    transforms[i].isGrey() ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+            var buffer = image.getRaster().getDataBuffer();
+            outputs[i] = transforms[i].isGrey() ? ((DataBufferByte) buffer).getData() : ((DataBufferInt) buffer).getData();
+            results.add(image);
+        }
+        if (transforms.length > 0) {
+            ForkJoinPool.commonPool().invoke(new BandTask(Source, transforms, outputs, 0, Source.getHeight()));
+        }
+        return results;
+    }
+
+    /**
+     * maps a band of rows. for all the transformations.
+     */
+    private static class BandTask extends RecursiveAction {
+
+        private final CanvasContainer Source;
+        private final LUTTransform[] Transforms;
+        private final Object[] Outputs;
+        private final int From, To;
+
+        BandTask(CanvasContainer Source, LUTTransform[] Transforms, Object[] Outputs, int From, int To) {
+            this.Source = Source;
+            this.Transforms = Transforms;
+            this.Outputs = Outputs;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected void compute() {
+            if (To - From > MIN_BAND_ROWS * 2) {
+                final int middle = (From + To) >>> 1;
+                invokeAll(new BandTask(Source, Transforms, Outputs, From, middle),
+                        new BandTask(Source, Transforms, Outputs, middle, To));
+                return;
+            }
+            final int width = Source.getWidth();
+            var row = new int[width];
+            for (int y = From; y < To; y++) {
+                Source.getPackedARGBRow(y, row);
+                final int base = y * width;
+                for (int i = 0; i < Transforms.length; i++) {
+                    var transform = Transforms[i];
+                    if (Outputs[i] instanceof byte[] grey) {
+                        for (int x = 0; x < width; x++) {
+                            grey[base + x] = (byte) transform.map(row[x]);
+                        }
+                    } else {
+                        var color = (int[]) Outputs[i];
+                        for (int x = 0; x < width; x++) {
+                            color[base + x] = transform.map(row[x]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * counts the values of a band of rows.
+     */
+    private static class HistogramTask extends RecursiveTask<long[][]> {
+
+        private final CanvasContainer Source;
+        private final int From, To;
+
+        HistogramTask(CanvasContainer Source, int From, int To) {
+            this.Source = Source;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (To - From > MIN_BAND_ROWS * 2) {
+                final int middle = (From + To) >>> 1;
+                var upper = new HistogramTask(Source, From, middle);
+                upper.fork();
+                var counts = new HistogramTask(Source, middle, To).compute();
+                var other = upper.join();
+                for (int channel = 0; channel < 3; channel++) {
+                    for (int value = 0; value < 256; value++) {
+                        counts[channel][value] += other[channel][value];
+                    }
+                }
+                return counts;
+            }
+            //int counters for the band. a band can not overflow them.
+            var red = new int[256];
+            var green = new int[256];
+            var blue = new int[256];
+            var row = new int[Source.getWidth()];
+            for (int y = From; y < To; y++) {
+                Source.getPackedARGBRow(y, row);
+                for (var pixel : row) {
+                    red[(pixel >> 16) & 0xFF]++;
+                    green[(pixel >> 8) & 0xFF]++;
+                    blue[pixel & 0xFF]++;
+                }
+            }
+            var counts = new long[3][256];
+            for (int value = 0; value < 256; value++) {
+                counts[0][value] = red[value];
+                counts[1][value] = green[value];
+                counts[2][value] = blue[value];
+            }
+            return counts;
+        }
+    }
+}
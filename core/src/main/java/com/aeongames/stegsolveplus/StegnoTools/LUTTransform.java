@@ -0,0 +1,287 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * a transformation that maps each channel value through a lookup table. most
+ * of the "look at the values from other angle" transformations are like
+ * that: inversion, bit planes, contrast, equalization, false colors. the
+ * tables are computed once (256 entries per channel) so the pixels only pay
+ * for a array read. see {@link LUTEngine} for the pass over the image.
+ * <br>
+ * there are two kinds:
+ * <pre>
+ * color: each channel maps through its own table into the same channel.
+ * grey:  each channel maps into a 16 bit weight. the sum of the 3 indexes a
+ *        65536 entries tone table that gives the grey level. (so a non linear
+ *        luminance like the gamma corrected one costs 4 array reads)
+ * </pre>
+ *
+ * @author Eduardo Vindas
+ */
+public final class LUTTransform {
+
+    /**
+     * the amount of entries of the grey tone table.
+     */
+    static final int TONE_SIZE = 65536;
+    private static final int LEVELS = 256;
+    /**
+     * the amount of lower and upper pixels ignored by the contrast stretch.
+     */
+    private static final double STRETCH_CLIP = 0.005;
+    private final String Name;
+    private final byte[] Red, Green, Blue;
+    private final int[] RedWeight, GreenWeight, BlueWeight;
+    private final byte[] Tone;
+
+    private LUTTransform(String Name, byte[] Red, byte[] Green, byte[] Blue) {
+        this.Name = Objects.requireNonNull(Name, "the name is null");
+        this.Red = checkTable(Red);
+        this.Green = checkTable(Green);
+        this.Blue = checkTable(Blue);
+        RedWeight = GreenWeight = BlueWeight = null;
+        Tone = null;
+    }
+
+    private LUTTransform(String Name, int[] RedWeight, int[] GreenWeight, int[] BlueWeight, byte[] Tone) {
+        this.Name = Objects.requireNonNull(Name, "the name is null");
+        for (int value = 0; value < LEVELS; value++) {
+            if (RedWeight[value] + GreenWeight[value] + BlueWeight[value] >= TONE_SIZE) {
+                throw new IllegalArgumentException("the weights overflow the tone table");
+            }
+        }
+        this.RedWeight = RedWeight;
+        this.GreenWeight = GreenWeight;
+        this.BlueWeight = BlueWeight;
+        this.Tone = Objects.requireNonNull(Tone, "the tone table is null");
+        if (Tone.length != TONE_SIZE) {
+            throw new IllegalArgumentException("the tone table must have 65536 entries");
+        }
+        Red = Green = Blue = null;
+    }
+
+    private static byte[] checkTable(byte[] table) {
+        if (Objects.requireNonNull(table, "the table is null").length != LEVELS) {
+            throw new IllegalArgumentException("the table must have 256 entries");
+        }
+        return table;
+    }
+
+    /**
+     * creates a color transformation.
+     *
+     * @param Name the name of the transformation
+     * @param Red the 256 entries table for the red channel
+     * @param Green the 256 entries table for the green channel
+     * @param Blue the 256 entries table for the blue channel
+     * @return the transformation
+     */
+    public static LUTTransform color(String Name, byte[] Red, byte[] Green, byte[] Blue) {
+        return new LUTTransform(Name, Red.clone(), Green.clone(), Blue.clone());
+    }
+
+    /**
+     * creates a color transformation that applies the same map to the 3
+     * channels.
+     *
+     * @param Name the name of the transformation
+     * @param Table the 256 entries table
+     * @return the transformation
+     */
+    public static LUTTransform color(String Name, byte[] Table) {
+        var table = Table.clone();
+        return new LUTTransform(Name, table, table, table);
+    }
+
+    /**
+     * @param Name the name of the transformation
+     * @return the transformation that inverts the 3 channels.
+     */
+    public static LUTTransform inversion(String Name) {
+        var table = new byte[LEVELS];
+        for (int value = 0; value < LEVELS; value++) {
+            table[value] = (byte) ~value;
+        }
+        return new LUTTransform(Name, table, table, table);
+    }
+
+    /**
+     * shows a pair of bits of each channel moved to the top of the byte. (so
+     * they are visible)
+     *
+     * @param Name the name of the transformation
+     * @param Part the pair of bits. 0 for the bits 1 and 2 (the lowest) up to 3
+     * for the bits 7 and 8
+     * @return the transformation
+     */
+    public static LUTTransform bitPair(String Name, int Part) {
+        Objects.checkIndex(Part, 4);
+        final int mask = 0b11 << Part * 2;
+        final int move = 6 - 2 * Part;
+        var table = new byte[LEVELS];
+        for (int value = 0; value < LEVELS; value++) {
+            table[value] = (byte) ((value & mask) << move);
+        }
+        return new LUTTransform(Name, table, table, table);
+    }
+
+    /**
+     * the grey scale of the REC 709 luminance. with or without the gamma
+     * correction. (linearize each channel, weight, and compand the sum back)
+     *
+     * @param Name the name of the transformation
+     * @param GammaCorrected true to linearize the channels before the sum.
+     * @return the transformation
+     */
+    public static LUTTransform greyScale(String Name, boolean GammaCorrected) {
+        final double[] weights = {0.2126, 0.7152, 0.0722};
+        final int scale = TONE_SIZE - 4;//room for the rounding of the 3 weights
+        var tables = new int[3][LEVELS];
+        for (int channel = 0; channel < 3; channel++) {
+            for (int value = 0; value < LEVELS; value++) {
+                final double level = GammaCorrected ? Math.pow(value / 255.0, 2.2) : value / 255.0;
+                tables[channel][value] = (int) Math.round(weights[channel] * level * scale);
+            }
+        }
+        var tone = new byte[TONE_SIZE];
+        for (int sum = 0; sum < TONE_SIZE; sum++) {
+            final double luminance = Math.min(1.0, (double) sum / scale);
+            final double level = GammaCorrected ? Math.pow(luminance, 1.0 / 2.2) : luminance;
+            tone[sum] = (byte) Math.round(255.0 * level);
+        }
+        return new LUTTransform(Name, tables[0], tables[1], tables[2], tone);
+    }
+
+    /**
+     * stretches each channel so the used range (ignoring the lowest and
+     * highest {@value #STRETCH_CLIP} of the pixels) covers the whole range.
+     * subtle differences on a flat area become visible.
+     *
+     * @param Name the name of the transformation
+     * @param Histograms the histograms of the red, green and blue channels.
+     * see {@link LUTEngine#histograms}
+     * @return the transformation
+     */
+    public static LUTTransform contrastStretch(String Name, long[][] Histograms) {
+        var tables = new byte[3][];
+        for (int channel = 0; channel < 3; channel++) {
+            var histogram = Histograms[channel];
+            final long total = sum(histogram);
+            final long clip = (long) (total * STRETCH_CLIP);
+            int low = 0, high = LEVELS - 1;
+            for (long seen = 0; low < LEVELS - 1 && (seen += histogram[low]) <= clip; low++) {
+            }
+            for (long seen = 0; high > 0 && (seen += histogram[high]) <= clip; high--) {
+            }
+            var table = new byte[LEVELS];
+            for (int value = 0; value < LEVELS; value++) {
+                if (high <= low) {
+                    table[value] = (byte) (value < low ? 0 : value > low ? 255 : 128);
+                } else {
+                    table[value] = (byte) Math.clamp(Math.round((value - low) * 255.0 / (high - low)), 0, 255);
+                }
+            }
+            tables[channel] = table;
+        }
+        return new LUTTransform(Name, tables[0], tables[1], tables[2]);
+    }
+
+    /**
+     * equalizes the histogram of each channel. the values are spread
+     * according to how many pixels use them. so the range used by most of
+     * the image gets most of the levels.
+     *
+     * @param Name the name of the transformation
+     * @param Histograms the histograms of the red, green and blue channels.
+     * see {@link LUTEngine#histograms}
+     * @return the transformation
+     */
+    public static LUTTransform equalization(String Name, long[][] Histograms) {
+        var tables = new byte[3][];
+        for (int channel = 0; channel < 3; channel++) {
+            var histogram = Histograms[channel];
+            final long total = sum(histogram);
+            long first = 0;
+            for (var count : histogram) {
+                if (count > 0) {
+                    first = count;
+                    break;
+                }
+            }
+            var table = new byte[LEVELS];
+            long cumulative = 0;
+            for (int value = 0; value < LEVELS; value++) {
+                cumulative += histogram[value];
+                final long range = total - first;
+                table[value] = (byte) (range <= 0 ? value : Math.round((cumulative - first) * 255.0 / range));
+            }
+            tables[channel] = table;
+        }
+        return new LUTTransform(Name, tables[0], tables[1], tables[2]);
+    }
+
+    /**
+     * maps each value of each channel to a random value. values that are
+     * close (and look the same) most likely end far apart.
+     *
+     * @param Name the name of the transformation
+     * @param Seed the seed of the colors
+     * @return the transformation
+     */
+    public static LUTTransform randomColorMap(String Name, long Seed) {
+        var random = new Random(Seed);
+        var tables = new byte[3][LEVELS];
+        for (var table : tables) {
+            random.nextBytes(table);
+        }
+        return new LUTTransform(Name, tables[0], tables[1], tables[2]);
+    }
+
+    private static long sum(long[] histogram) {
+        long total = 0;
+        for (var count : histogram) {
+            total += count;
+        }
+        return total;
+    }
+
+    public String getName() {
+        return Name;
+    }
+
+    /**
+     * @return true if the result is a grey image.
+     */
+    public boolean isGrey() {
+        return Tone != null;
+    }
+
+    /**
+     * maps a packed pixel.
+     *
+     * @param ARGB the pixel as {@code 0xAARRGGBB}
+     * @return the mapped pixel as {@code 0xRRGGBB} or the grey level (0 to
+     * 255) for the grey transformations.
+     */
+    int map(int ARGB) {
+        final int r = (ARGB >> 16) & 0xFF, g = (ARGB >> 8) & 0xFF, b = ARGB & 0xFF;
+        if (Tone != null) {
+            return Tone[RedWeight[r] + GreenWeight[g] + BlueWeight[b]] & 0xFF;
+        }
+        return (Red[r] & 0xFF) << 16 | (Green[g] & 0xFF) << 8 | (Blue[b] & 0xFF);
+    }
+}
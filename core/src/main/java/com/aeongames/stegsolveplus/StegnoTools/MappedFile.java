@@ -0,0 +1,165 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * a file mapped (read only) on memory. every reader of the analysis shares it:
+ * the image decoder (thru {@link #newImageInputStream()}) the structure
+ * inspectors, the carving and the strings scan. they all read from the page
+ * cache. so the file is read from the disk once per analysis.
+ * <br>
+ * a {@link MappedByteBuffer} holds up to 2 GB. so the file is mapped on
+ * windows that start each {@value #STRIDE} bytes and run up to 2 GB. (they
+ * overlap) so any part of up to {@value #MAX_SLICE} bytes is inside a single
+ * window. and the first 2 GB are the first window. (see
+ * {@link #asByteBuffer()}) the overlap costs address space only.
+ * <br>
+ * the buffers are unmapped once no one holds them. (by the GC) they can be
+ * read from any thread. (the reads here are absolute)
+ *
+ * @author Eduardo Vindas
+ */
+public final class MappedFile {
+
+    /**
+     * the distance between the start of the windows.
+     */
+    static final long STRIDE = 1L << 30;
+    /**
+     * the largest part of the file that is always inside a window.
+     */
+    public static final int MAX_SLICE = (int) (Integer.MAX_VALUE - STRIDE);
+    private final Path File;
+    private final long Size;
+    private final MappedByteBuffer[] Windows;
+
+    private MappedFile(Path File, long Size, MappedByteBuffer[] Windows) {
+        this.File = File;
+        this.Size = Size;
+        this.Windows = Windows;
+    }
+
+    /**
+     * maps a file.
+     *
+     * @param File the file
+     * @return the mapped file.
+     * @throws IOException if the file cannot be open or mapped.
+     */
+    public static MappedFile open(Path File) throws IOException {
+        Objects.requireNonNull(File, "the path is null");
+        try (var channel = FileChannel.open(File, StandardOpenOption.READ)) {
+            //the mapping outlives the channel.
+            final long size = channel.size();
+            final var windows = new MappedByteBuffer[(int) Math.max(1, (size + STRIDE - 1) / STRIDE)];
+            for (int i = 0; i < windows.length; i++) {
+                final long start = i * STRIDE;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, Integer.MAX_VALUE));
+            }
+            return new MappedFile(File, size, windows);
+        }
+    }
+
+    public Path getFile() {
+        return File;
+    }
+
+    public long size() {
+        return Size;
+    }
+
+    /**
+     * @param Offset the position on the file
+     * @return the byte (0 to 255)
+     */
+    public int get(long Offset) {
+        Objects.checkIndex(Offset, Size);
+        return Windows[(int) (Offset / STRIDE)].get((int) (Offset % STRIDE)) & 0xFF;
+    }
+
+    /**
+     * copies the bytes from the offset. (up to the end of the file)
+     *
+     * @param Offset the position on the file
+     * @param Destination where to copy
+     * @param From the first index of the destination
+     * @param Length the max amount of bytes
+     * @return the amount of bytes copied. 0 if the offset is at (or past) the
+     * end.
+     */
+    public int read(long Offset, byte[] Destination, int From, int Length) {
+        Objects.checkFromIndexSize(From, Length, Destination.length);
+        if (Offset < 0 || Offset >= Size) {
+            return 0;
+        }
+        //a window holds at least the rest of its stride and the next. so a copy is done on one
+        final int count = (int) Math.min(Math.min(Length, MAX_SLICE), Size - Offset);
+        Windows[(int) (Offset / STRIDE)].get((int) (Offset % STRIDE), Destination, From, count);
+        return count;
+    }
+
+    /**
+     * a view of a part of the file. no data is copied.
+     *
+     * @param Offset the start of the view
+     * @param Length the length of the view. (up to {@value #MAX_SLICE} bytes
+     * at any offset. up to 2 GB at the start of the file)
+     * @return a read only buffer of the part. from 0 to its limit.
+     * @throws IndexOutOfBoundsException if the part is not on the file or on a
+     * single window.
+     */
+    public ByteBuffer slice(long Offset, int Length) {
+        Objects.checkFromIndexSize(Offset, Length, Size);
+        final var window = Windows[(int) (Offset / STRIDE)];
+        final int start = (int) (Offset % STRIDE);
+        if (Length > window.capacity() - start) {
+            throw new IndexOutOfBoundsException(String.format("%,d bytes at %,d are not on a single window", Length, Offset));
+        }
+        return window.slice(start, Length);
+    }
+
+    /**
+     * @return a view of the file (up to the first 2 GB) for the parsers that
+     * take a buffer.
+     */
+    public ByteBuffer asByteBuffer() {
+        return slice(0, (int) Math.min(Size, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param Prefix the bytes to compare
+     * @return true if the file starts with the bytes.
+     */
+    public boolean startsWith(byte[] Prefix) {
+        if (Size < Prefix.length) {
+            return false;
+        }
+        return slice(0, Prefix.length).equals(ByteBuffer.wrap(Prefix));
+    }
+
+    /**
+     * @return a new stream over the file for the image readers. (see
+     * {@link MappedImageInputStream}) closing it does not unmap the file.
+     */
+    public MappedImageInputStream newImageInputStream() {
+        return new MappedImageInputStream(this);
+    }
+}
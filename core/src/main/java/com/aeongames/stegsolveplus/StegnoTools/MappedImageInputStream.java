@@ -0,0 +1,79 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.util.Objects;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * a {@link javax.imageio.stream.ImageInputStream} over a mapped file. (see
+ * {@link MappedFile}) the reads are copies from the mapped buffers. there is
+ * no buffer of its own, no system call per read and seeking is free. the
+ * {@link javax.imageio.stream.FileImageInputStream} that
+ * {@link javax.imageio.ImageIO#read(java.io.File)} uses reads thru a
+ * {@link java.io.RandomAccessFile} instead.
+ *
+ * @author Eduardo Vindas
+ */
+public final class MappedImageInputStream extends ImageInputStreamImpl {
+
+    private final MappedFile File;
+    private final long Length;
+
+    MappedImageInputStream(MappedFile File) {
+        this.File = Objects.requireNonNull(File, "the file is null");
+        Length = File.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= Length) {
+            return -1;
+        }
+        return File.get(streamPos++);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        Objects.checkFromIndexSize(off, len, b.length);
+        bitOffset = 0;
+        if (len == 0) {
+            return 0;
+        }
+        if (streamPos >= Length) {
+            return -1;
+        }
+        final int count = File.read(streamPos, b, off, len);
+        streamPos += count;
+        return count;
+    }
+
+    @Override
+    public long length() {
+        return Length;
+    }
+
+    @Override
+    public boolean isCached() {
+        return true;
+    }
+
+    @Override
+    public boolean isCachedMemory() {
+        return true;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * a small PNG encoder for the export. (8 bits gray, RGB or RGBA. no metadata)
+ * the encoder of the JDK tries the five filters on each row. this one tries
+ * the three cheap ones (None, Sub and Up. with the heuristic of libpng: the
+ * smallest sum of the bytes as signed values) and deflates a row at the time
+ * into 64 KB IDAT chunks. at the same level it is as fast (or faster) and its
+ * files are smaller. (Up pays on the bit planes) with
+ * {@link ResultExporter#FAST_LEVEL} it takes about 2/3 of the time of the
+ * encoder of the JDK.
+ *
+ * @author Eduardo Vindas
+ */
+public final class PNGEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int FILTER_NONE = 0, FILTER_SUB = 1, FILTER_UP = 2;
+
+    private PNGEncoder() {
+    }
+
+    /**
+     * writes the image as PNG.
+     *
+     * @param Image the image
+     * @param Level the deflate level. (0 to 9)
+     * @param Destination the file to write. (replaced if exists)
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(BufferedImage Image, int Level, Path Destination) throws IOException {
+        try (var out = Files.newOutputStream(Destination)) {
+            write(Image, Level, out);
+        }
+    }
+
+    /**
+     * writes the image as PNG into the stream.
+     *
+     * @param Image the image
+     * @param Level the deflate level. (0 to 9)
+     * @param Destination where to write. (flushed, not closed)
+     * @throws IOException if the stream fails.
+     */
+    public static void write(BufferedImage Image, int Level, OutputStream Destination) throws IOException {
+        final int width = Image.getWidth(), height = Image.getHeight();
+        final boolean gray = Image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        final boolean alpha = !gray && Image.getColorModel().hasAlpha();
+        final int bpp = gray ? 1 : alpha ? 4 : 3;
+        final int colorType = gray ? 0 : alpha ? 6 : 2;
+        //the rows of these are the pixels as is. no need to convert them.
+        final boolean packed = Image.getType() == BufferedImage.TYPE_INT_RGB || Image.getType() == BufferedImage.TYPE_INT_ARGB;
+        final var deflater = new Deflater(Level);
+        try {
+            final var out = new DataOutputStream(new BufferedOutputStream(Destination, CHUNK_SIZE));
+            out.write(SIGNATURE);
+            var header = new ByteArrayOutputStream(13);
+            var headerData = new DataOutputStream(header);
+            headerData.writeInt(width);
+            headerData.writeInt(height);
+            headerData.write(8);
+            headerData.write(colorType);
+            headerData.write(0);
+            headerData.write(0);
+            headerData.write(0);
+            writeChunk(out, "IHDR", header.toByteArray(), header.size());
+            try (var idat = new DeflaterOutputStream(new IDATOutputStream(out), deflater, CHUNK_SIZE)) {
+                final int stride = width * bpp;
+                var previous = new byte[stride];
+                var current = new byte[stride];
+                final var pixels = new int[width];
+                final var grays = gray ? new int[width] : null;
+                final var filtered = new byte[3][stride + 1];
+                for (int y = 0; y < height; y++) {
+                    if (gray) {
+                        Image.getRaster().getSamples(0, y, width, 1, 0, grays);
+                        for (int x = 0; x < width; x++) {
+                            current[x] = (byte) grays[x];
+                        }
+                    } else {
+                        if (packed) {
+                            Image.getRaster().getDataElements(0, y, width, 1, pixels);
+                        } else {
+                            Image.getRGB(0, y, width, 1, pixels, 0, width);
+                        }
+                        for (int x = 0, i = 0; x < width; x++) {
+                            final int pixel = pixels[x];
+                            current[i++] = (byte) (pixel >>> 16);
+                            current[i++] = (byte) (pixel >>> 8);
+                            current[i++] = (byte) pixel;
+                            if (alpha) {
+                                current[i++] = (byte) (pixel >>> 24);
+                            }
+                        }
+                    }
+                    idat.write(filter(current, previous, bpp, y == 0, filtered));
+                    var swap = previous;
+                    previous = current;
+                    current = swap;
+                }
+            }
+            writeChunk(out, "IEND", new byte[0], 0);
+            out.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * filters a row with the filter that gives the smallest sum.
+     *
+     * @return the filtered row. (one of the buffers of Filtered) starting
+     * with the filter type.
+     */
+    private static byte[] filter(byte[] Row, byte[] Previous, int Bpp, boolean First, byte[][] Filtered) {
+        final var none = Filtered[FILTER_NONE];
+        final var sub = Filtered[FILTER_SUB];
+        final var up = Filtered[FILTER_UP];
+        none[0] = FILTER_NONE;
+        sub[0] = FILTER_SUB;
+        up[0] = FILTER_UP;
+        long sumNone = 0, sumSub = 0, sumUp = 0;
+        for (int i = 0; i < Row.length; i++) {
+            final byte value = Row[i];
+            final byte left = i >= Bpp ? Row[i - Bpp] : 0;
+            final byte subbed = (byte) (value - left);
+            final byte upped = (byte) (value - Previous[i]);
+            none[i + 1] = value;
+            sub[i + 1] = subbed;
+            up[i + 1] = upped;
+            sumNone += Math.abs(value);
+            sumSub += Math.abs(subbed);
+            sumUp += Math.abs(upped);
+        }
+        if (!First && sumUp < sumSub && sumUp < sumNone) {
+            return up;
+        }
+        return sumSub < sumNone ? sub : none;
+    }
+
+    private static void writeChunk(DataOutputStream Out, String Type, byte[] Data, int Length) throws IOException {
+        final var type = Type.getBytes(StandardCharsets.US_ASCII);
+        final var crc = new CRC32();
+        crc.update(type);
+        crc.update(Data, 0, Length);
+        Out.writeInt(Length);
+        Out.write(type);
+        Out.write(Data, 0, Length);
+        Out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * splits the deflated data into IDAT chunks. closing it writes the last
+     * chunk. (the file is not closed)
+     */
+    private static final class IDATOutputStream extends OutputStream {
+
+        private final DataOutputStream Out;
+        private final byte[] Buffer = new byte[CHUNK_SIZE];
+        private int Count;
+
+        private IDATOutputStream(DataOutputStream Out) {
+            this.Out = Out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (Count == Buffer.length) {
+                flushChunk();
+            }
+            Buffer[Count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (Count == Buffer.length) {
+                    flushChunk();
+                }
+                final int count = Math.min(len, Buffer.length - Count);
+                System.arraycopy(b, off, Buffer, Count, count);
+                Count += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void flushChunk() throws IOException {
+            if (Count > 0) {
+                writeChunk(Out, "IDAT", Buffer, Count);
+                Count = 0;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flushChunk();
+        }
+    }
+}
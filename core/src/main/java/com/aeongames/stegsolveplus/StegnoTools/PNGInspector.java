@@ -0,0 +1,348 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * walks the chunks of a PNG file. the file is memory mapped and the chunks are
+ * read in place (no copy of the chunk data is done other than the small text
+ * chunks that are decoded) and no pixel is decoded, so this is fast even for
+ * huge files. (the CRC check is the only thing that reads all the data)
+ * <br>
+ * reports every chunk with its offset and size, validates the CRCs, decodes
+ * the {@code tEXt}, {@code zTXt} and {@code iTXt} chunks, flags the unknown
+ * chunks and reports the data after the {@code IEND} chunk.
+ *
+ * @author Eduardo Vindas
+ */
+public final class PNGInspector {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A};
+    /**
+     * the chunks defined by the PNG specification (and its registered
+     * extensions)
+     */
+    private static final Set<String> KNOWN_CHUNKS = Set.of(
+            "IHDR", "PLTE", "IDAT", "IEND", "tRNS", "cHRM", "gAMA", "iCCP",
+            "sBIT", "sRGB", "cICP", "mDCV", "cLLI", "mDCv", "cLLi", "tEXt",
+            "zTXt", "iTXt", "bKGD", "hIST", "pHYs", "sPLT", "eXIf", "tIME",
+            "acTL", "fcTL", "fdAT", "oFFs", "pCAL", "sCAL", "sTER", "gIFg",
+            "gIFx", "dSIG");
+    /**
+     * the max amount of text decoded (per text chunk)
+     */
+    private static final int MAX_TEXT = 64 * 1024;
+    private static final String[] COLOR_TYPES = {"Greyscale", "?", "Truecolor", "Indexed", "Greyscale with alpha", "?", "Truecolor with alpha"};
+
+    private PNGInspector() {
+    }
+
+    /**
+     * checks if the file starts with the PNG signature.
+     *
+     * @param File the file to check
+     * @return true if the file is a PNG
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isPNG(Path File) throws IOException {
+        try (var channel = FileChannel.open(File, StandardOpenOption.READ)) {
+            var header = ByteBuffer.allocate(SIGNATURE.length);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+            }
+            return !header.hasRemaining() && header.flip().equals(ByteBuffer.wrap(SIGNATURE));
+        }
+    }
+
+    /**
+     * checks if the mapped file starts with the PNG signature.
+     *
+     * @param File the file to check
+     * @return true if the file is a PNG
+     */
+    public static boolean isPNG(MappedFile File) {
+        return File.startsWith(SIGNATURE);
+    }
+
+    /**
+     * inspects the PNG file.
+     *
+     * @param File the file to inspect
+     * @return the structure of the file.
+     * @throws IOException if the file cannot be read or is not a PNG
+     */
+    public static FileStructure inspect(Path File) throws IOException {
+        return inspect(MappedFile.open(File));
+    }
+
+    /**
+     * inspects the mapped PNG file. (see {@link MappedFile})
+     *
+     * @param File the file to inspect
+     * @return the structure of the file.
+     * @throws IOException if the file is not a PNG
+     */
+    public static FileStructure inspect(MappedFile File) throws IOException {
+        var structure = inspect(File.asByteBuffer());
+        if (File.size() > Integer.MAX_VALUE) {
+            structure.addWarning("the file is larger than 2GB. only the first 2GB were inspected");
+        }
+        return structure;
+    }
+
+    /**
+     * inspects the PNG data on the buffer. (from 0 to the limit). the buffer
+     * is read with absolute reads. its position is not changed.
+     *
+     * @param data the PNG data
+     * @return the structure of the data.
+     * @throws IOException if the data is not a PNG.
+     */
+    public static FileStructure inspect(ByteBuffer data) throws IOException {
+        final int size = data.limit();
+        if (size < SIGNATURE.length || !data.slice(0, SIGNATURE.length).equals(ByteBuffer.wrap(SIGNATURE))) {
+            throw new IOException("the data is not a PNG (invalid signature)");
+        }
+        var structure = new FileStructure("PNG", size);
+        structure.addEntry(new StructureEntry("Signature", 0, SIGNATURE.length, "PNG signature", false));
+        var crc = new CRC32();
+        int position = SIGNATURE.length;
+        boolean ended = false;
+        int chunks = 0;
+        String previous = null;
+        boolean idatDone = false;
+        while (!ended) {
+            if (position + 12 > size) {
+                if (position < size) {
+                    structure.addWarning(String.format("truncated chunk at 0x%08X", position));
+                } else {
+                    structure.addWarning("the file ends without a IEND chunk");
+                }
+                break;
+            }
+            final long length = Integer.toUnsignedLong(data.getInt(position));
+            final String type = readType(data, position + 4);
+            final int dataStart = position + 8;
+            if (length > size - dataStart - 4L) {
+                structure.addEntry(new StructureEntry(type, position, length,
+                        "the chunk length goes beyond the end of the file", true));
+                structure.addWarning(String.format("chunk %s at 0x%08X is truncated or its length is corrupt", type, position));
+                break;
+            }
+            final int chunkLength = (int) length;
+            crc.reset();
+            crc.update(data.slice(position + 4, chunkLength + 4));
+            final int stored = data.getInt(dataStart + chunkLength);
+            final int computed = (int) crc.getValue();
+            var details = new StringBuilder();
+            boolean suspicious = false;
+            if (stored != computed) {
+                suspicious = true;
+                details.append(String.format("CRC mismatch (stored %08X computed %08X). ", stored, computed));
+            }
+            if (!KNOWN_CHUNKS.contains(type)) {
+                suspicious = true;
+                details.append(isAncillary(type) ? "unknown ancillary chunk. " : "unknown CRITICAL chunk. ");
+            }
+            if (type.equals("IDAT")) {
+                if (idatDone) {
+                    suspicious = true;
+                    details.append("IDAT chunks are not consecutive. ");
+                }
+            } else if ("IDAT".equals(previous)) {
+                idatDone = true;
+            }
+            switch (type) {
+                case "IHDR" ->
+                    details.append(describeHeader(data, dataStart, chunkLength, structure));
+                case "tEXt" ->
+                    details.append(decodeText(data, dataStart, chunkLength, structure));
+                case "zTXt" ->
+                    details.append(decodeCompressedText(data, dataStart, chunkLength, structure));
+                case "iTXt" ->
+                    details.append(decodeInternationalText(data, dataStart, chunkLength, structure));
+                case "IEND" -> {
+                    ended = true;
+                    if (chunkLength != 0) {
+                        suspicious = true;
+                        details.append("IEND with data. ");
+                    }
+                }
+                default -> {
+                }
+            }
+            structure.addEntry(new StructureEntry(type, position, chunkLength, details.toString().strip(), suspicious));
+            previous = type;
+            chunks++;
+            position = dataStart + chunkLength + 4;
+        }
+        if (ended && position < size) {
+            structure.setTrailingData(position, size - position);
+            structure.addEntry(new StructureEntry("Trailing data", position, size - position,
+                    String.format("%d bytes after IEND: %s", size - position, preview(data, position, size)), true));
+            structure.addWarning(String.format("there are %d bytes after the IEND chunk (at 0x%08X)", size - position, position));
+        }
+        structure.addMetadata("Chunks", Integer.toString(chunks));
+        return structure;
+    }
+
+    private static boolean isAncillary(String type) {
+        return Character.isLowerCase(type.charAt(0));
+    }
+
+    private static String readType(ByteBuffer data, int offset) {
+        var chars = new char[4];
+        for (int i = 0; i < 4; i++) {
+            var value = data.get(offset + i) & 0xFF;
+            chars[i] = value >= 0x20 && value < 0x7F ? (char) value : '?';
+        }
+        return new String(chars);
+    }
+
+    private static String describeHeader(ByteBuffer data, int start, int length, FileStructure structure) {
+        if (length != 13) {
+            return "invalid IHDR length.";
+        }
+        var width = Integer.toUnsignedLong(data.getInt(start));
+        var height = Integer.toUnsignedLong(data.getInt(start + 4));
+        var depth = data.get(start + 8) & 0xFF;
+        var colorType = data.get(start + 9) & 0xFF;
+        var interlace = data.get(start + 12) & 0xFF;
+        var color = colorType < COLOR_TYPES.length ? COLOR_TYPES[colorType] : "?";
+        structure.addMetadata("Dimensions", width + "x" + height);
+        structure.addMetadata("Bit depth", Integer.toString(depth));
+        structure.addMetadata("Color type", colorType + " (" + color + ")");
+        structure.addMetadata("Interlace", interlace == 1 ? "Adam7" : "None");
+        return String.format("%dx%d, %d bit, %s%s", width, height, depth, color, interlace == 1 ? ", interlaced" : "");
+    }
+
+    /**
+     * @return the index of the first 0 byte between start and end or -1
+     */
+    private static int findNull(ByteBuffer data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data.get(i) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String readString(ByteBuffer data, int start, int end, Charset charset) {
+        var length = Math.min(end - start, MAX_TEXT);
+        var bytes = new byte[Math.max(0, length)];
+        data.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    private static String decodeText(ByteBuffer data, int start, int length, FileStructure structure) {
+        final int end = start + length;
+        var separator = findNull(data, start, end);
+        if (separator < 0) {
+            return "malformed: no keyword separator.";
+        }
+        var keyword = readString(data, start, separator, StandardCharsets.ISO_8859_1);
+        var text = readString(data, separator + 1, end, StandardCharsets.ISO_8859_1);
+        structure.addMetadata(keyword, text);
+        return keyword + ": " + abbreviate(text);
+    }
+
+    private static String decodeCompressedText(ByteBuffer data, int start, int length, FileStructure structure) {
+        final int end = start + length;
+        var separator = findNull(data, start, end);
+        if (separator < 0 || separator + 2 > end) {
+            return "malformed: no keyword separator.";
+        }
+        var keyword = readString(data, start, separator, StandardCharsets.ISO_8859_1);
+        try {
+            var text = new String(inflate(data, separator + 2, end), StandardCharsets.ISO_8859_1);
+            structure.addMetadata(keyword, text);
+            return keyword + ": " + abbreviate(text);
+        } catch (DataFormatException ex) {
+            return keyword + ": unable to decompress (" + ex.getMessage() + ")";
+        }
+    }
+
+    private static String decodeInternationalText(ByteBuffer data, int start, int length, FileStructure structure) {
+        final int end = start + length;
+        var keywordEnd = findNull(data, start, end);
+        if (keywordEnd < 0 || keywordEnd + 3 > end) {
+            return "malformed: no keyword separator.";
+        }
+        var keyword = readString(data, start, keywordEnd, StandardCharsets.ISO_8859_1);
+        var compressed = data.get(keywordEnd + 1) != 0;
+        var languageEnd = findNull(data, keywordEnd + 3, end);
+        var translatedEnd = languageEnd < 0 ? -1 : findNull(data, languageEnd + 1, end);
+        if (translatedEnd < 0) {
+            return keyword + ": malformed international text.";
+        }
+        var language = readString(data, keywordEnd + 3, languageEnd, StandardCharsets.US_ASCII);
+        try {
+            var text = compressed
+                    ? new String(inflate(data, translatedEnd + 1, end), StandardCharsets.UTF_8)
+                    : readString(data, translatedEnd + 1, end, StandardCharsets.UTF_8);
+            var key = language.isEmpty() ? keyword : keyword + " [" + language + "]";
+            structure.addMetadata(key, text);
+            return key + ": " + abbreviate(text);
+        } catch (DataFormatException ex) {
+            return keyword + ": unable to decompress (" + ex.getMessage() + ")";
+        }
+    }
+
+    /**
+     * inflates the zlib data between start and end. up to {@link #MAX_TEXT}
+     * bytes. (to avoid decompression bombs)
+     */
+    private static byte[] inflate(ByteBuffer data, int start, int end) throws DataFormatException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice(start, end - start));
+            var output = new ByteArrayOutputStream();
+            var buffer = new byte[4096];
+            while (!inflater.finished() && output.size() < MAX_TEXT) {
+                var read = inflater.inflate(buffer);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                output.write(buffer, 0, Math.min(read, MAX_TEXT - output.size()));
+            }
+            return output.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    static String abbreviate(String text) {
+        var single = text.replaceAll("\\s+", " ");
+        return single.length() > 80 ? single.substring(0, 77) + "..." : single;
+    }
+
+    static String preview(ByteBuffer data, int start, int size) {
+        var hex = new StringBuilder();
+        for (int i = start; i < Math.min(size, start + 16); i++) {
+            hex.append(String.format("%02X ", data.get(i)));
+        }
+        return hex.toString().strip();
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * the palette analysis of a indexed image (GIF, PNG-8 and the like). a indexed
+ * image stores a index into its palette for each pixel. a lot of data can hide
+ * there: on palette entries that no pixel uses, on entries with the same (or
+ * almost the same) color as other entry, or on the LSB of the indexes.
+ * <br>
+ * the indexes are read once into a array that is shared (as the raster) by
+ * every image this class renders. so each transformation is just a new
+ * palette (256 entries at most) over the same pixels. instead of a pass over
+ * the whole image.
+ * <br>
+ * <strong>the rendered images share the raster</strong> they should be
+ * treated as read only.
+ *
+ * @author Eduardo Vindas
+ */
+public class PaletteImage {
+
+    /**
+     * the LSB streams that can be read from the palette.
+     */
+    public enum LSBOrder {
+        /**
+         * the LSB of the index of each pixel. row order.
+         */
+        Indices("LSB of palette indices"),
+        /**
+         * the LSB of the position of the index of each pixel on the palette
+         * sorted by luminance. (the way EzStego hides data) row order.
+         */
+        SortedIndices("LSB of luminance sorted palette indices"),
+        /**
+         * the LSB of the R,G,B of each palette entry. palette order.
+         */
+        Entries("LSB of palette entries R,G,B");
+        public final String Name;
+
+        private LSBOrder(String name) {
+            Name = name;
+        }
+    }
+
+    /**
+     * the name of the palette table transformation.
+     */
+    public static final String TABLE_NAME = "Palette Table";
+    /**
+     * the name of the LSB of the index transformation.
+     */
+    public static final String INDEX_LSB_NAME = "Palette Index LSB";
+    /**
+     * the format of the name of the isolation maps.
+     */
+    public static final String ISOLATION_NAME = "Palette Index %d";
+    /**
+     * the format of the name of the random palettes.
+     */
+    public static final String RANDOM_NAME = "Random Palette %d";
+    /**
+     * the max amount of isolation maps {@link #getIsolationCandidates()}
+     * returns.
+     */
+    public static final int MAX_ISOLATION_MAPS = 32;
+    private static final int CELL = 16;
+    private static final int COLUMNS = 16;
+    private final int Size;
+    private final byte[] Red, Green, Blue, Alpha;
+    /**
+     * the raster shared by the rendered images. backed by the index array.
+     */
+    private final WritableRaster Indices;
+    private final byte[] IndexData;
+    private final int[] Usage;
+
+    private PaletteImage(int Width, int Height, IndexColorModel Palette, byte[] IndexData) {
+        this.IndexData = IndexData;
+        Size = Palette.getMapSize();
+        Red = new byte[Size];
+        Green = new byte[Size];
+        Blue = new byte[Size];
+        Alpha = new byte[Size];
+        Palette.getReds(Red);
+        Palette.getGreens(Green);
+        Palette.getBlues(Blue);
+        Palette.getAlphas(Alpha);
+        Usage = new int[256];
+        for (var index : IndexData) {
+            Usage[index & 0xFF]++;
+        }
+        Indices = Raster.createInterleavedRaster(new DataBufferByte(IndexData, IndexData.length),
+                Width, Height, Width, 1, new int[]{0}, null);
+    }
+
+    /**
+     * reads the palette and the indexes of the image.
+     *
+     * @param Source the image
+     * @return the palette analysis. or null if the image is not indexed.
+     */
+    static PaletteImage of(CanvasContainer Source) {
+        var palette = Source.getPalette();
+        if (palette == null) {
+            return null;
+        }
+        return new PaletteImage(Source.getWidth(), Source.getHeight(), palette, Source.getPaletteIndices());
+    }
+
+    /**
+     * @return the amount of entries of the palette.
+     */
+    public int getSize() {
+        return Size;
+    }
+
+    /**
+     * @param Index the palette entry
+     * @return the amount of pixels that use the entry.
+     */
+    public int getUsage(int Index) {
+        return Usage[Index];
+    }
+
+    /**
+     * @param Index the palette entry
+     * @return the color of the entry packed as {@code 0xAARRGGBB}
+     */
+    public int getARGB(int Index) {
+        return (Alpha[Index] & 0xFF) << 24 | (Red[Index] & 0xFF) << 16
+                | (Green[Index] & 0xFF) << 8 | (Blue[Index] & 0xFF);
+    }
+
+    /**
+     * renders the palette as a table of {@value #COLUMNS} swatches per row on
+     * palette order. the entries that no pixel uses are crossed.
+     *
+     * @return the palette table.
+     */
+    public BufferedImage renderTable() {
+        final int rows = (Size + COLUMNS - 1) / COLUMNS;
+        var image = new BufferedImage(COLUMNS * CELL, rows * CELL, BufferedImage.TYPE_INT_RGB);
+        var g = image.createGraphics();
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (int index = 0; index < Size; index++) {
+            final int x = (index % COLUMNS) * CELL, y = (index / COLUMNS) * CELL;
+            var color = new Color(getARGB(index) & CanvasContainer.RGBMASK);
+            g.setColor(color);
+            g.fillRect(x + 1, y + 1, CELL - 2, CELL - 2);
+            if (Usage[index] == 0) {
+                //a contrasting color for the cross
+                g.setColor(new Color(~color.getRGB() & CanvasContainer.RGBMASK));
+                g.drawLine(x + 1, y + 1, x + CELL - 2, y + CELL - 2);
+                g.drawLine(x + CELL - 2, y + 1, x + 1, y + CELL - 2);
+            }
+        }
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * renders the image with the pixels of the entry in white and the rest in
+     * black.
+     *
+     * @param Index the palette entry to isolate
+     * @return the isolation map.
+     */
+    public BufferedImage isolate(int Index) {
+        var levels = new byte[Size];
+        levels[Index] = (byte) 0xFF;
+        return withPalette(levels, levels, levels);
+    }
+
+    /**
+     * renders the image with the pixels with a odd index in white and the
+     * even ones in black.
+     *
+     * @return the index LSB map.
+     */
+    public BufferedImage renderIndexLSB() {
+        var levels = new byte[Size];
+        for (int index = 1; index < Size; index += 2) {
+            levels[index] = (byte) 0xFF;
+        }
+        return withPalette(levels, levels, levels);
+    }
+
+    /**
+     * renders the image with a random color for each entry. so entries with
+     * the same (or close) color stand out from each other.
+     *
+     * @param Seed the seed of the colors
+     * @return the recolored image.
+     */
+    public BufferedImage randomPalette(long Seed) {
+        var random = new Random(Seed);
+        var red = new byte[Size];
+        var green = new byte[Size];
+        var blue = new byte[Size];
+        random.nextBytes(red);
+        random.nextBytes(green);
+        random.nextBytes(blue);
+        return withPalette(red, green, blue);
+    }
+
+    /**
+     * @return the entries worth a isolation map: the used entries. if there
+     * are more than {@link #MAX_ISOLATION_MAPS} the least used ones. (the data
+     * drawn with a look alike color is usually a few pixels) sorted by index.
+     */
+    public List<Integer> getIsolationCandidates() {
+        return IntStream.range(0, Size)
+                .filter(index -> Usage[index] > 0)
+                .boxed()
+                .sorted(Comparator.comparingInt(index -> Usage[index]))
+                .limit(MAX_ISOLATION_MAPS)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * creates a image over the shared raster with the provided palette. (fully
+     * opaque)
+     */
+    private BufferedImage withPalette(byte[] red, byte[] green, byte[] blue) {
+        return new BufferedImage(new IndexColorModel(8, Size, red, green, blue), Indices, false, null);
+    }
+
+    /**
+     * feeds the LSB stream to the sink. the bits are packed with the first bit
+     * as the most significant one. <strong>the buffer is reused</strong>
+     * between calls.
+     *
+     * @param Order the stream to read
+     * @param sink the consumer of the data. the stream stops once it returns
+     * false.
+     */
+    void streamLSB(LSBOrder Order, BitPlaneStream.ChunkSink sink) {
+        var chunk = new byte[4096];
+        int length = 0, accumulator = 0, bits = 0;
+        if (Order == LSBOrder.Entries) {
+            for (int index = 0; index < Size; index++) {
+                for (var channel : new byte[][]{Red, Green, Blue}) {
+                    accumulator = (accumulator << 1) | (channel[index] & 1);
+                    if (++bits == 8) {
+                        chunk[length++] = (byte) accumulator;
+                        accumulator = bits = 0;
+                    }
+                }
+            }
+        } else {
+            var bitOf = getIndexBits(Order);
+            for (var index : IndexData) {
+                accumulator = (accumulator << 1) | bitOf[index & 0xFF];
+                if (++bits == 8) {
+                    chunk[length++] = (byte) accumulator;
+                    accumulator = bits = 0;
+                    if (length == chunk.length) {
+                        if (!sink.accept(chunk, length)) {
+                            return;
+                        }
+                        length = 0;
+                    }
+                }
+            }
+        }
+        if (length > 0) {
+            sink.accept(chunk, length);
+        }
+    }
+
+    /**
+     * @return the size in bytes of the LSB stream.
+     */
+    long getLength(LSBOrder Order) {
+        return Order == LSBOrder.Entries ? Size * 3 / 8 : IndexData.length / 8;
+    }
+
+    /**
+     * @return the bit each index contributes to the stream.
+     */
+    private byte[] getIndexBits(LSBOrder Order) {
+        var bitOf = new byte[256];
+        if (Order == LSBOrder.SortedIndices) {
+            var sorted = new ArrayList<Integer>(Size);
+            for (int index = 0; index < Size; index++) {
+                sorted.add(index);
+            }
+            sorted.sort(Comparator.comparingInt(this::getLuminance));
+            for (int rank = 0; rank < Size; rank++) {
+                bitOf[sorted.get(rank)] = (byte) (rank & 1);
+            }
+        } else {
+            for (int index = 0; index < bitOf.length; index++) {
+                bitOf[index] = (byte) (index & 1);
+            }
+        }
+        return bitOf;
+    }
+
+    /**
+     * the REC 601 luma. times 1000 to stay on integers.
+     */
+    private int getLuminance(int Index) {
+        return 299 * (Red[Index] & 0xFF) + 587 * (Green[Index] & 0xFF) + 114 * (Blue[Index] & 0xFF);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+
+/**
+ * reads the values of a single pixel. (and the pixels around it) for the
+ * hover readout. the pixel is read straight from the arrays of the image (see
+ * {@link CanvasContainer#getPackedARGB(int, int)}) and the text is written on
+ * a builder the caller reuses. so a mouse move does not allocate per pixel
+ * nor box values.
+ *
+ * @author Eduardo Vindas
+ */
+public class PixelInspector {
+
+    private static final String[] CHANNELS = {"A", "R", "G", "B"};
+    private final CanvasContainer Source;
+
+    PixelInspector(CanvasContainer Source) {
+        this.Source = Objects.requireNonNull(Source, "the image is null");
+    }
+
+    /**
+     * creates a inspector for the image of a analyzer.
+     *
+     * @param Analyzer the analyzer
+     * @return the inspector
+     * @throws IllegalStateException if the image is not loaded.
+     */
+    public static PixelInspector of(StegnoAnalyzer Analyzer) {
+        var image = Analyzer.getImageCache();
+        if (image == null) {
+            throw new IllegalStateException("the image is not yet loaded");
+        }
+        return new PixelInspector(image);
+    }
+
+    public int getWidth() {
+        return Source.getWidth();
+    }
+
+    public int getHeight() {
+        return Source.getHeight();
+    }
+
+    /**
+     * @param x the column
+     * @param y the row
+     * @return true if the pixel is on the image.
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < Source.getWidth() && y < Source.getHeight();
+    }
+
+    /**
+     * writes the readout of a pixel: the coordinates, the ARGB value, each
+     * channel in decimal and binary, the palette index and the value of the
+     * same pixel on each transformation of the same size.
+     *
+     * @param x the column
+     * @param y the row
+     * @param Transforms the results of the transformations. (can be null)
+     * @param Out where to write. it is cleared first.
+     */
+    public void describe(int x, int y, Iterable<? extends Pair<String, BufferedImage>> Transforms, StringBuilder Out) {
+        Out.setLength(0);
+        if (!contains(x, y)) {
+            return;
+        }
+        final int pixel = Source.getPackedARGB(x, y);
+        Out.append("x: ").append(x).append("  y: ").append(y).append('\n');
+        final var plan = Source.getLoadPlan();
+        if (plan.Strategy() != ImageLoader.Strategy.Full) {
+            //a overview or a region. where the pixel is on the file
+            Out.append("on the file x: ").append(plan.Region().x + x * plan.Subsampling())
+                    .append("  y: ").append(plan.Region().y + y * plan.Subsampling()).append('\n');
+        }
+        Out.append("ARGB: 0x");
+        appendHex(Out, pixel, 8);
+        Out.append('\n');
+        for (int channel = 0; channel < 4; channel++) {
+            final int value = (pixel >>> (24 - channel * 8)) & 0xFF;
+            Out.append(CHANNELS[channel]).append(' ');
+            if (value < 100) {
+                Out.append(' ');
+            }
+            if (value < 10) {
+                Out.append(' ');
+            }
+            Out.append(value).append("  ");
+            appendBits(Out, value, 8);
+            Out.append('\n');
+        }
+        final int index = Source.getPaletteIndex(x, y);
+        if (index >= 0) {
+            Out.append("palette index: ").append(index).append('\n');
+        }
+        if (Transforms == null) {
+            return;
+        }
+        Out.append('\n');
+        for (var transform : Transforms) {
+            var image = transform.getRight();
+            if (image == null || image.getWidth() != Source.getWidth() || image.getHeight() != Source.getHeight()) {
+                continue;//not a pixel to pixel result (a map or a chart)
+            }
+            Out.append(transform.getLeft()).append(": 0x");
+            appendHex(Out, image.getRGB(x, y), 8);
+            Out.append('\n');
+        }
+    }
+
+    /**
+     * dumps a bit of each channel for the pixels around a pixel. as a text
+     * block per channel (one row of {@code 0} and {@code 1} per image row)
+     * followed by the ARGB values. meant to be copied to the clipboard.
+     *
+     * @param x the column of the center
+     * @param y the row of the center
+     * @param Size the size of the block (8 for 8x8)
+     * @param Bit the bit to dump (0 is the LSB)
+     * @return the dump.
+     */
+    public String dumpBits(int x, int y, int Size, int Bit) {
+        Objects.checkIndex(Bit, 8);
+        if (Size <= 0) {
+            throw new IllegalArgumentException("invalid size");
+        }
+        //the block is kept inside of the image.
+        final int left = Math.clamp(x - Size / 2 + 1, 0, Math.max(0, Source.getWidth() - Size));
+        final int top = Math.clamp(y - Size / 2 + 1, 0, Math.max(0, Source.getHeight() - Size));
+        final int right = Math.min(Source.getWidth(), left + Size), bottom = Math.min(Source.getHeight(), top + Size);
+        var out = new StringBuilder();
+        out.append(String.format("bit %d of the pixels (%d,%d) to (%d,%d)\n", Bit, left, top, right - 1, bottom - 1));
+        for (int channel = 1; channel < 4 + (Source.HasAlphaChannel() ? 1 : 0); channel++) {
+            final int shift = 24 - (channel % 4) * 8 + Bit;
+            out.append(CHANNELS[channel % 4]).append('\n');
+            for (int row = top; row < bottom; row++) {
+                for (int column = left; column < right; column++) {
+                    out.append((Source.getPackedARGB(column, row) >>> shift) & 1);
+                }
+                out.append('\n');
+            }
+        }
+        out.append("ARGB\n");
+        for (int row = top; row < bottom; row++) {
+            for (int column = left; column < right; column++) {
+                if (column > left) {
+                    out.append(' ');
+                }
+                appendHex(out, Source.getPackedARGB(column, row), 8);
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void appendHex(StringBuilder Out, int value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            Out.append(Character.toUpperCase(Character.forDigit((value >>> shift) & 0xF, 16)));
+        }
+    }
+
+    private static void appendBits(StringBuilder Out, int value, int bits) {
+        for (int bit = bits - 1; bit >= 0; bit--) {
+            Out.append((value >>> bit) & 1);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * writes the results of a analysis into a folder. each transformation as a PNG
+ * and each bit stream (see {@link StegnoAnalyzer#getStreamSources()}) as a
+ * binary file.
+ * <br>
+ * most of the time of a export is the PNG encoding. so the images are
+ * written by {@link PNGEncoder} (faster than the encoder of the JDK) from a
+ * pool of threads (one per core by default) each one taking the next result
+ * from a queue. the queue drops the result once taken, so the exporter does
+ * not keep the images it already wrote. the deflate level can be lowered (see
+ * {@link #FAST_LEVEL}) when the size of the files does not matter. the
+ * streams are written as they are read. (a row at the time)
+ *
+ * @author Eduardo Vindas
+ */
+public final class ResultExporter {
+
+    /**
+     * the fastest deflate level. the files are larger than with the default.
+     */
+    public static final int FAST_LEVEL = 1;
+    /**
+     * the deflate level the encoder of the JDK uses.
+     */
+    public static final int DEFAULT_LEVEL = 4;
+    /**
+     * the smallest files. (and the slowest)
+     */
+    public static final int BEST_LEVEL = 9;
+    private static final Logger loger = LoggingHelper.getLogger(ResultExporter.class.getName());
+
+    /**
+     * receives the progress of a export. called from the threads that write.
+     */
+    @FunctionalInterface
+    public interface Progress {
+
+        /**
+         * @param Done the results written so far
+         * @param Total the amount of results
+         * @param Name the name of the last result written
+         */
+        void update(int Done, int Total, String Name);
+    }
+
+    /**
+     * the outcome of a export.
+     *
+     * @param Written the amount of files written
+     * @param Bytes the size of the files written
+     * @param Failed the names of the results that could not be written
+     */
+    public record Summary(int Written, long Bytes, List<String> Failed) {
+
+    }
+
+    /**
+     * a result to write. the number (the order it was queued) prefixes the
+     * file name so the files sort the same on each export.
+     */
+    private record Job(int Number, String Name, String Extension, Writer Writer) {
+
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+
+        void write(Path Destination) throws IOException;
+    }
+
+    private final Path Directory;
+    private final int DeflateLevel;
+    private final int Threads;
+    private final ConcurrentLinkedQueue<Job> Queue = new ConcurrentLinkedQueue<>();
+    private int Queued;
+
+    /**
+     * @param Directory the folder to write into. (created if missing)
+     * @param Level the deflate level of the PNG files. (0 to 9)
+     */
+    public ResultExporter(Path Directory, int Level) {
+        this(Directory, Level, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param Directory the folder to write into. (created if missing)
+     * @param Level the deflate level of the PNG files. (0 to 9)
+     * @param Threads the max amount of files written at once.
+     */
+    public ResultExporter(Path Directory, int Level, int Threads) {
+        if (Level < 0 || Level > 9) {
+            throw new IllegalArgumentException("the deflate level must be between 0 and 9");
+        }
+        if (Threads < 1) {
+            throw new IllegalArgumentException("at least a thread is required");
+        }
+        this.Directory = Objects.requireNonNull(Directory, "the directory is null");
+        this.DeflateLevel = Level;
+        this.Threads = Threads;
+    }
+
+    /**
+     * queues the transformations. (as PNG)
+     *
+     * @param Images the name and image of each result.
+     */
+    public void addImages(List<Pair<String, BufferedImage>> Images) {
+        for (var pair : Images) {
+            addImage(pair.getLeft(), pair.getRight());
+        }
+    }
+
+    /**
+     * queues a image. (as PNG)
+     *
+     * @param Name the name of the result.
+     * @param Image the image.
+     */
+    public void addImage(String Name, BufferedImage Image) {
+        Objects.requireNonNull(Image, "the image is null");
+        Queue.add(new Job(++Queued, Name, "png", destination -> PNGEncoder.write(Image, DeflateLevel, destination)));
+    }
+
+    /**
+     * queues the bit streams of the analysis. (as binary files)
+     *
+     * @param Analyst the analysis the streams are read from.
+     */
+    public void addStreams(StegnoAnalyzer Analyst) {
+        for (var source : Analyst.getStreamSources()) {
+            Queue.add(new Job(++Queued, source, "bin", destination -> Analyst.writeStream(source, destination)));
+        }
+    }
+
+    /**
+     * writes all the queued results. blocks until all are written (or the
+     * export is cancelled) a result that fails is logged and skipped.
+     *
+     * @param Listener receives the progress. can be null
+     * @param Cancelled checked before each result. can be null
+     * @return the outcome
+     * @throws IOException if the directory cannot be created.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     * (the writers are interrupted too)
+     */
+    public Summary export(Progress Listener, BooleanSupplier Cancelled) throws IOException, InterruptedException {
+        Files.createDirectories(Directory);
+        final int total = Queue.size();
+        final int digits = Integer.toString(Queued).length();
+        final var done = new AtomicInteger();
+        final var bytes = new AtomicLong();
+        final var failed = Collections.synchronizedList(new ArrayList<String>());
+        final int workers = Math.max(1, Math.min(Threads, total));
+        final var pool = Executors.newFixedThreadPool(workers, run -> {
+            var thread = new Thread(run, "ResultExporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            var futures = new ArrayList<Future<?>>(workers);
+            for (int worker = 0; worker < workers; worker++) {
+                futures.add(pool.submit(() -> {
+                    Job job;
+                    //the job is dropped from the queue (and so its image) once taken.
+                    while ((Cancelled == null || !Cancelled.getAsBoolean())
+                            && !Thread.currentThread().isInterrupted() && (job = Queue.poll()) != null) {
+                        var file = Directory.resolve(String.format("%0" + digits + "d_%s", job.Number(), toFileName(job.Name(), job.Extension())));
+                        try {
+                            job.Writer().write(file);
+                            bytes.addAndGet(Files.size(file));
+                        } catch (IOException | RuntimeException ex) {
+                            loger.log(Level.SEVERE, String.format("unable to export %s", job.Name()), ex);
+                            failed.add(job.Name());
+                        }
+                        var count = done.incrementAndGet();
+                        if (Listener != null) {
+                            Listener.update(count, total, job.Name());
+                        }
+                    }
+                }));
+            }
+            for (var future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException ex) {
+                    loger.log(Level.SEVERE, "a export thread failed", ex.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            Queue.clear();
+        }
+        return new Summary(done.get() - failed.size(), bytes.get(), List.copyOf(failed));
+    }
+
+    /**
+     * @param Name the name of a result
+     * @param Extension the extension of the file
+     * @return a file name for the result. (only letters, digits, dots and
+     * dashes)
+     */
+    public static String toFileName(String Name, String Extension) {
+        var name = Name.replaceAll("[^A-Za-z0-9.-]+", "_").replaceAll("^_+|_+$", "");
+        return String.format("%s.%s", name.isEmpty() ? "result" : name, Extension);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import java.awt.image.BufferedImage;
+
+/**
+ * the result of a transformation with how interesting it looks. see
+ * {@link ImageScore}
+ *
+ * @author Eduardo Vindas
+ */
+public class ScoredResult extends Pair<String, BufferedImage> {
+
+    private final double Score, Structure, Entropy, Similarity;
+
+    ScoredResult(String Name, BufferedImage Image, double Score, double Structure, double Entropy, double Similarity) {
+        super(Name, Image);
+        this.Score = Score;
+        this.Structure = Structure;
+        this.Entropy = Entropy;
+        this.Similarity = Similarity;
+    }
+
+    /**
+     * @return how interesting the result looks. from 0 (noise, flat or the
+     * image again) to 1.
+     */
+    public double getScore() {
+        return Score;
+    }
+
+    /**
+     * @return how much more the neighbor pixels look alike than random pixels.
+     * 0 for noise, 1 for a image made of solid areas.
+     */
+    public double getStructure() {
+        return Structure;
+    }
+
+    /**
+     * @return the entropy of the colors, in bits. (of 6) a low value means
+     * the result compresses well.
+     */
+    public double getEntropy() {
+        return Entropy;
+    }
+
+    /**
+     * @return how much the result looks like the original image. (the
+     * absolute correlation of the brightness, 0 to 1)
+     */
+    public double getSimilarity() {
+        return Similarity;
+    }
+
+    /**
+     * @return a short description of the score.
+     */
+    public String describe() {
+        return String.format("score %.2f (structure %.2f, entropy %.2f bits, like the original %.2f)",
+                Score, Structure, Entropy, Similarity);
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.AhoCorasick;
+import com.aeongames.edi.utils.data.Pair;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * looks for embedded files (by their signature) on the bytes of the file and
+ * on the LSB streams of the image. all the signatures are matched at once with
+ * a single {@link AhoCorasick} automaton. so the source is read a single time
+ * regardless of the amount of signatures.
+ * <br>
+ * the files are read thru a {@link MappedFile} on windows of
+ * {@link #MAP_WINDOW} bytes. the state of the automaton is carried between the
+ * windows so signatures that cross a window boundary are found as well.
+ * <br>
+ * appended data (a zip or rar after the image data) is the most common case
+ * this is intended to catch.
+ *
+ * @author Eduardo Vindas
+ */
+public final class SignatureCarver {
+
+    /**
+     * the name of the source for the hits found on the file bytes.
+     */
+    public static final String FILE_SOURCE = "File bytes";
+    /**
+     * the size of the mapped windows.
+     */
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final AhoCorasick<FileSignature> SIGNATURES = buildAutomaton();
+    private static final Comparator<CarvedHit> BY_OFFSET = Comparator.comparingLong(CarvedHit::Offset);
+
+    private SignatureCarver() {
+    }
+
+    private static AhoCorasick<FileSignature> buildAutomaton() {
+        var patterns = new ArrayList<Pair<byte[], FileSignature>>();
+        for (var signature : FileSignature.values()) {
+            for (var magic : signature.getMagics()) {
+                patterns.add(new Pair<>(magic, signature));
+            }
+        }
+        return new AhoCorasick<>(patterns);
+    }
+
+    /**
+     * scans the bytes of the file for signatures.
+     *
+     * @param File the file to scan
+     * @param Listener the listener that is notified as soon as a hit is found.
+     * can be null.
+     * @return the list of hits found sorted by the offset.
+     * @throws IOException if the file cannot be read.
+     */
+    public static List<CarvedHit> scanFile(Path File, Consumer<CarvedHit> Listener) throws IOException {
+        return scanFile(MappedFile.open(File), Listener);
+    }
+
+    /**
+     * scans the bytes of the mapped file for signatures. (see
+     * {@link MappedFile})
+     *
+     * @param File the file to scan
+     * @param Listener the listener that is notified as soon as a hit is found.
+     * can be null.
+     * @return the list of hits found sorted by the offset.
+     */
+    public static List<CarvedHit> scanFile(MappedFile File, Consumer<CarvedHit> Listener) {
+        var hits = new ArrayList<CarvedHit>();
+        final long size = File.size();
+        int state = AhoCorasick.INITIAL_STATE;
+        for (long position = 0; position < size; position += MAP_WINDOW) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            var window = File.slice(position, (int) Math.min(MAP_WINDOW, size - position));
+            state = SIGNATURES.scan(state, window, position, (offset, signature) -> {
+                var hit = new CarvedHit(FILE_SOURCE, signature, offset);
+                hits.add(hit);
+                if (Listener != null) {
+                    Listener.accept(hit);
+                }
+            });
+        }
+        //the automaton reports a hit where its signature ends. a longer one can start before a shorter one found first
+        hits.sort(BY_OFFSET);
+        return hits;
+    }
+
+    /**
+     * scans a LSB stream of the image for signatures. the stream is never
+     * fully loaded on memory. it is scanned as it is extracted.
+     *
+     * @param Source the image to read
+     * @param Stream the stream to scan
+     * @param Listener the listener that is notified as soon as a hit is found.
+     * can be null.
+     * @return the list of hits found sorted by the offset.
+     */
+    static List<CarvedHit> scanStream(CanvasContainer Source, LSBStream Stream, Consumer<CarvedHit> Listener) {
+        return scanChunks(Stream.Name, sink -> Stream.stream(Source, sink), Listener);
+    }
+
+    /**
+     * scans the JSteg like LSB stream of the DCT coefficients of a JPEG for
+     * signatures.
+     *
+     * @param Coefficients the coefficients of the JPEG
+     * @param Listener the listener that is notified as soon as a hit is found.
+     * can be null.
+     * @return the list of hits found sorted by the offset.
+     */
+    static List<CarvedHit> scanCoefficients(JPEGCoefficients Coefficients, Consumer<CarvedHit> Listener) {
+        return scanChunks(JPEGCoefficients.LSB_SOURCE, coefficientsProducer(Coefficients), Listener);
+    }
+
+    /**
+     * scans a LSB stream of the palette of a indexed image for signatures.
+     *
+     * @param Palette the palette of the image
+     * @param Order the stream to scan
+     * @param Listener the listener that is notified as soon as a hit is found.
+     * can be null.
+     * @return the list of hits found sorted by the offset.
+     */
+    static List<CarvedHit> scanPalette(PaletteImage Palette, PaletteImage.LSBOrder Order, Consumer<CarvedHit> Listener) {
+        return scanChunks(Order.Name, paletteProducer(Palette, Order), Listener);
+    }
+
+    private static Consumer<ObjIntConsumer<byte[]>> paletteProducer(PaletteImage Palette, PaletteImage.LSBOrder Order) {
+        return sink -> Palette.streamLSB(Order, (data, length) -> {
+            sink.accept(data, length);
+            return true;
+        });
+    }
+
+    private static Consumer<ObjIntConsumer<byte[]>> coefficientsProducer(JPEGCoefficients Coefficients) {
+        return sink -> Coefficients.streamLSB((data, length) -> {
+            sink.accept(data, length);
+            return true;
+        });
+    }
+
+    /**
+     * scans the chunks the producer feeds. the automaton state is carried
+     * between the chunks.
+     */
+    private static List<CarvedHit> scanChunks(String Name, Consumer<ObjIntConsumer<byte[]>> Producer, Consumer<CarvedHit> Listener) {
+        var hits = new ArrayList<CarvedHit>();
+        //state and offset of the automaton. carried between chunks
+        var progress = new long[]{AhoCorasick.INITIAL_STATE, 0};
+        Producer.accept((data, length) -> {
+            progress[0] = SIGNATURES.scan((int) progress[0], data, 0, length, progress[1], (offset, signature) -> {
+                var hit = new CarvedHit(Name, signature, offset);
+                hits.add(hit);
+                if (Listener != null) {
+                    Listener.accept(hit);
+                }
+            });
+            progress[1] += length;
+        });
+        hits.sort(BY_OFFSET);
+        return hits;
+    }
+
+    /**
+     * copies the data of the file from the hit offset to the end of the file
+     * into the destination.
+     *
+     * @param File the file where the hit was found
+     * @param Hit the hit to extract
+     * @param Destination the file to write
+     * @throws IOException if the file cannot be read or the destination
+     * written
+     */
+    public static void extractFromFile(Path File, CarvedHit Hit, Path Destination) throws IOException {
+        try (var in = FileChannel.open(File, StandardOpenOption.READ);
+                var out = FileChannel.open(Destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = Hit.Offset();
+            final long size = in.size();
+            while (position < size) {
+                var copied = in.transferTo(position, size - position, out);
+                if (copied <= 0) {
+                    break;
+                }
+                position += copied;
+            }
+        }
+    }
+
+    /**
+     * writes the LSB stream from the hit offset to the end of the stream into
+     * the destination.
+     *
+     * @param Source the image to read
+     * @param Stream the stream where the hit was found
+     * @param Hit the hit to extract
+     * @param Destination the file to write
+     * @throws IOException if the destination cannot be written
+     */
+    static void extractFromStream(CanvasContainer Source, LSBStream Stream, CarvedHit Hit, Path Destination) throws IOException {
+        extractChunks(sink -> Stream.stream(Source, sink), Hit, Destination);
+    }
+
+    /**
+     * writes the LSB stream of the DCT coefficients from the hit offset to the
+     * end of the stream into the destination.
+     *
+     * @param Coefficients the coefficients of the JPEG
+     * @param Hit the hit to extract
+     * @param Destination the file to write
+     * @throws IOException if the destination cannot be written
+     */
+    static void extractFromCoefficients(JPEGCoefficients Coefficients, CarvedHit Hit, Path Destination) throws IOException {
+        extractChunks(coefficientsProducer(Coefficients), Hit, Destination);
+    }
+
+    /**
+     * writes the LSB stream of the palette from the hit offset to the end of
+     * the stream into the destination.
+     *
+     * @param Palette the palette of the image
+     * @param Order the stream where the hit was found
+     * @param Hit the hit to extract
+     * @param Destination the file to write
+     * @throws IOException if the destination cannot be written
+     */
+    static void extractFromPalette(PaletteImage Palette, PaletteImage.LSBOrder Order, CarvedHit Hit, Path Destination) throws IOException {
+        extractChunks(paletteProducer(Palette, Order), Hit, Destination);
+    }
+
+    private static void extractChunks(Consumer<ObjIntConsumer<byte[]>> Producer, CarvedHit Hit, Path Destination) throws IOException {
+        try (OutputStream out = Files.newOutputStream(Destination)) {
+            var position = new long[]{0};
+            Producer.accept((data, length) -> {
+                var end = position[0] + length;
+                if (end > Hit.Offset()) {
+                    var skip = (int) Math.max(0, Hit.Offset() - position[0]);
+                    try {
+                        out.write(data, skip, length - skip);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+                position[0] = end;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * writes the hits as CSV (with a header line) into the writer.
+     *
+     * @param Hits the hits to write
+     * @param Output where to write
+     * @throws IOException if the writer fails.
+     */
+    public static void writeCSV(List<CarvedHit> Hits, Writer Output) throws IOException {
+        Output.write("source,signature,extension,offset,offset_hex\n");
+        for (var hit : Hits) {
+            Output.write(String.format("\"%s\",\"%s\",%s,%d,%s\n",
+                    hit.Source().replace("\"", "\"\""),
+                    hit.Signature().Name,
+                    hit.Signature().Extension,
+                    hit.Offset(),
+                    hit.getHexOffset()));
+        }
+        Output.flush();
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * renders the log magnitude of the 2D Fourier transform of a channel of the
+ * image. periodic patterns (watermarks, spread spectrum payloads, tiling)
+ * show up as bright peaks away from the center. the zero frequency is moved to
+ * the center of the output.
+ * <br>
+ * the 2D transform is done as a FFT per row and then a FFT per column (see
+ * {@link FFT}) both passes are split on bands that run in parallel on the
+ * common pool. as the rows are real they are transformed two at a time, and
+ * the columns are gathered on groups so the image is read row by row. the
+ * data is kept on {@code float[]} to halve the memory and each band
+ * transforms its lines on its own {@code double[]} buffers.
+ * <br>
+ * images larger than {@link #MAX_PIXELS} are box averaged down first. the
+ * spectrum of the reduced image still shows the same (low and mid) frequency
+ * features and the memory stays bounded.
+ *
+ * @author Eduardo Vindas
+ */
+public class SpectrumMap {
+
+    /**
+     * the channels that can be transformed.
+     */
+    public enum Channel {
+        Red("Red", 16), Green("Green", 8), Blue("Blue", 0);
+        public final String Name;
+        final int Shift;
+
+        private Channel(String name, int shift) {
+            Name = name;
+            Shift = shift;
+        }
+    }
+
+    /**
+     * the max amount of pixels transformed.
+     */
+    public static final int MAX_PIXELS = 8 * 1024 * 1024;
+    /**
+     * the lowest amount of lines a band should have before we stop splitting
+     * the work.
+     */
+    private static final int MIN_BAND_LINES = 16;
+    /**
+     * the amount of columns gathered at once.
+     */
+    private static final int COLUMN_GROUP = 8;
+    private final CanvasContainer Source;
+    private final int Factor;
+    private final int Width;
+    private final int Height;
+
+    SpectrumMap(CanvasContainer Source) {
+        this.Source = Objects.requireNonNull(Source, "the Source image is null");
+        final long pixels = (long) Source.getWidth() * Source.getHeight();
+        Factor = pixels > MAX_PIXELS ? (int) Math.ceil(Math.sqrt((double) pixels / MAX_PIXELS)) : 1;
+        Width = Math.max(1, Source.getWidth() / Factor);
+        Height = Math.max(1, Source.getHeight() / Factor);
+    }
+
+    /**
+     * calculates the spectrum of the channel and renders it as a grey scale
+     * image.
+     *
+     * @param channel the channel to transform
+     * @return the spectrum. (the size of the image, or of the reduced image)
+     */
+    public BufferedImage render(Channel channel) {
+        var re = new float[Width * Height];
+        var im = new float[Width * Height];
+        loadChannel(channel, re);
+        var pool = ForkJoinPool.commonPool();
+        pool.invoke(new LinesTask(re, im, true, 0, Height));
+        pool.invoke(new LinesTask(re, im, false, 0, Width));
+        //log magnitude. reuse the real buffer.
+        float max = 0;
+        for (int i = 0; i < re.length; i++) {
+            re[i] = (float) Math.log1p(Math.hypot(re[i], im[i]));
+            if (i != 0 && re[i] > max) {
+                max = re[i];//the DC term is left out of the scale
+            }
+        }
+        im = null;
+        var image = new BufferedImage(Width, Height, BufferedImage.TYPE_BYTE_GRAY);
+        var pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        final float scale = max > 0 ? 255f / max : 0;
+        final int halfWidth = Width / 2, halfHeight = Height / 2;
+        for (int y = 0; y < Height; y++) {
+            final int row = ((y + halfHeight) % Height) * Width;
+            for (int x = 0; x < Width; x++) {
+                final int value = (int) (re[y * Width + x] * scale);
+                pixels[row + (x + halfWidth) % Width] = (byte) Math.min(255, value);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * reads the channel into the buffer. box averaged when the image is
+     * reduced.
+     */
+    private void loadChannel(Channel channel, float[] target) {
+        var row = new int[Source.getWidth()];
+        final float area = Factor * Factor;
+        for (int y = 0; y < Height * Factor; y++) {
+            Source.getPackedARGBRow(y, row);
+            final int line = (y / Factor) * Width;
+            for (int x = 0; x < Width * Factor; x++) {
+                target[line + x / Factor] += ((row[x] >> channel.Shift) & 0xFF) / area;
+            }
+        }
+    }
+
+    /**
+     * transforms a band of rows (or columns) in place.
+     */
+    private class LinesTask extends RecursiveAction {
+
+        private final float[] Re, Im;
+        private final boolean Rows;
+        private final int From, To;
+
+        LinesTask(float[] Re, float[] Im, boolean Rows, int From, int To) {
+            this.Re = Re;
+            this.Im = Im;
+            this.Rows = Rows;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected void compute() {
+            if (To - From > MIN_BAND_LINES * 2) {
+                final int middle = (From + To) >>> 1;
+                invokeAll(new LinesTask(Re, Im, Rows, From, middle), new LinesTask(Re, Im, Rows, middle, To));
+                return;
+            }
+            if (Rows) {
+                transformRows();
+            } else {
+                transformColumns();
+            }
+        }
+
+        /**
+         * the rows are real. so two rows are transformed at once: one as the
+         * real part and the other as the imaginary part. then split.
+         */
+        private void transformRows() {
+            var fft = FFT.of(Width);
+            var workspace = fft.newWorkspace();
+            var lineRe = new double[Width];
+            var lineIm = new double[Width];
+            for (int line = From; line < To; line += 2) {
+                final int first = line * Width;
+                final boolean pair = line + 1 < To;
+                final int second = pair ? first + Width : first;
+                for (int i = 0; i < Width; i++) {
+                    lineRe[i] = Re[first + i];
+                    lineIm[i] = pair ? Re[second + i] : 0;
+                }
+                fft.transform(lineRe, lineIm, workspace);
+                for (int k = 0; k < Width; k++) {
+                    final int mirror = k == 0 ? 0 : Width - k;
+                    final double firstRe = (lineRe[k] + lineRe[mirror]) / 2;
+                    final double firstIm = (lineIm[k] - lineIm[mirror]) / 2;
+                    if (pair) {
+                        Re[second + k] = (float) ((lineIm[k] + lineIm[mirror]) / 2);
+                        Im[second + k] = (float) ((lineRe[mirror] - lineRe[k]) / 2);
+                    }
+                    Re[first + k] = (float) firstRe;
+                    Im[first + k] = (float) firstIm;
+                }
+            }
+        }
+
+        private void transformColumns() {
+            var fft = FFT.of(Height);
+            var workspace = fft.newWorkspace();
+            var groupRe = new double[COLUMN_GROUP][Height];
+            var groupIm = new double[COLUMN_GROUP][Height];
+            for (int column = From; column < To; column += COLUMN_GROUP) {
+                final int count = Math.min(COLUMN_GROUP, To - column);
+                for (int y = 0; y < Height; y++) {
+                    final int base = y * Width + column;
+                    for (int j = 0; j < count; j++) {
+                        groupRe[j][y] = Re[base + j];
+                        groupIm[j][y] = Im[base + j];
+                    }
+                }
+                for (int j = 0; j < count; j++) {
+                    fft.transform(groupRe[j], groupIm[j], workspace);
+                }
+                for (int y = 0; y < Height; y++) {
+                    final int base = y * Width + column;
+                    for (int j = 0; j < count; j++) {
+                        Re[base + j] = (float) groupRe[j][y];
+                        Im[base + j] = (float) groupIm[j][y];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,1419 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.data.Pair;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+
+/**
+ * this class conducts and waits for the underline Color transformations are
+ * done. some of the underline transformations needs to be enhanced as some of
+ * them are a bit slow. also there are a few that work similar (for example.
+ * getting the blue pixels are pulled and showed. but at this same point the
+ * process could also pull the independent bits & so on.
+ *
+ * generally speaking this is fine for images that are less than 2k resolution
+ * but for big images takes several seconds to minutes..
+ *
+ * NOTE: the analysis runs on the calling thread. (and the common pool) there
+ * is no UI here. the Swing front end runs it on its own workers.
+ *
+ * TODO: load image from URL should be easy to add. but require changes on the
+ * UI to support it.
+ *
+ * @author Eduardo Vindas
+ */
+public class StegnoAnalyzer {
+
+    public static final String ValidImagesFiles[] = ImageIO.getReaderFormatNames();
+
+    public enum TransformAnalysis {
+        OriginalImage("Original"),
+        GreyMap("Grey Map"),
+        GreyScale("Grey Scale"),
+        BluePixels("Blue Pixels"),
+        GreenPixels("Green Pixels"),
+        RedPixels("Red Pixels"),
+        AlphaPixels("Alpha Pixels"),
+        FirstForthImage("Image of the bit 1 and 2"),
+        SecondForthImage("Image of the bit 3 and 4"),
+        ThirdForthImage("Image of the bit 5 and 6"),
+        ForthForthImage("Image of the bit 7 and 8"),
+        XorInversion("inverted Bits Image"),
+        ContrastStretch("Contrast Stretch"),
+        Equalized("Histogram Equalization"),
+        GreyScaleGamma("Grey Scale REC709 (gamma Corrected)"),
+        RandomColorMap1("Random Color Map 1"),
+        RandomColorMap2("Random Color Map 2"),
+        RandomColorMap3("Random Color Map 3"),
+        InvertHue("Inverted Hue"),
+        InvertHueBright("Inverted Hue and Brightness"),
+        InvertSaturation("Inverted Saturation"),
+        InvertBright("Inverted Brightness"),
+        LSBEntropyMap("Local Entropy of the LSB planes"),
+        ByteEntropyMap("Local Entropy of the bytes"),
+        RedSpectrum("FFT Spectrum of Red"),
+        GreenSpectrum("FFT Spectrum of Green"),
+        BlueSpectrum("FFT Spectrum of Blue");
+        public final String Name;
+
+        private TransformAnalysis(String name) {
+            this.Name = name;
+        }
+    }
+
+    /**
+     * the source file to read and or check data from.
+     */
+    private final Path File;
+    private final URL ImageAddress;
+    /**
+     * the image to analyze when the source is not a file or URL. (a frame of
+     * a multi frame file) and its name.
+     */
+    private final BufferedImage SourceImage;
+    private final String SourceName;
+    /**
+     * if the source image is taken as is. (not copied, see
+     * {@link #StegnoAnalyzer(BufferedImage, String, boolean)})
+     */
+    private final boolean AdoptImage;
+    /**
+     * the area of the file to analyze at full resolution. null for the whole
+     * image. (see {@link ImageLoader})
+     */
+    private final Rectangle Region;
+    /**
+     * the downloaded file of the URL. (see {@link URLSpooler})
+     */
+    private volatile Path Spooled;
+    /**
+     * the local file mapped on memory. shared by every reader of the file.
+     * (see {@link MappedFile})
+     */
+    private MappedFile Mapped;
+    private final Object MappedLock = new Object();
+    private volatile int FrameCount = 1;
+    private CanvasContainer ImageCache;
+    private volatile FileStructure Structure;
+    private JPEGCoefficients Coefficients;
+    private boolean CoefficientsRead;
+    private PaletteImage Palette;
+    private boolean PaletteRead;
+    private static final Logger loger = LoggingHelper.getLogger(StegnoAnalyzer.class.getName());
+    /**
+     * the transformation runs in progress. so they can be stopped.
+     */
+    private final Set<TransformationRun> Runs = ConcurrentHashMap.newKeySet();
+    private volatile boolean Stopped;
+    /**
+     * the min length for the strings on the bit streams. is larger than the
+     * one for the file as the random LSB data is full of short printable runs.
+     */
+    private static final int STREAM_STRING_MIN_LENGTH = 10;
+    /**
+     * the flag patterns the strings search looks for.
+     */
+    private volatile List<Pattern> FlagPatterns = StringScanner.DEFAULT_FLAGS;
+
+    public StegnoAnalyzer(Path File) {
+        this(File, null);
+    }
+
+    /**
+     * creates a analyzer for a area of a image file. the area is decoded at
+     * full resolution and nothing else. so a large image can be analyzed where
+     * the payload is. (the rest of the image is never decoded)
+     *
+     * @param File the file
+     * @param Region the area to analyze. null for the whole image.
+     */
+    public StegnoAnalyzer(Path File, Rectangle Region) {
+        this.File = File;
+        this.Region = Region == null ? null : new Rectangle(Region);
+        ImageAddress = null;
+        SourceImage = null;
+        SourceName = null;
+        AdoptImage = false;
+    }
+
+    public StegnoAnalyzer(File file) {
+        this(file.toPath());
+    }
+
+    public StegnoAnalyzer(URL Address) {
+        this.ImageAddress = Address;
+        File = null;
+        Region = null;
+        SourceImage = null;
+        SourceName = null;
+        AdoptImage = false;
+    }
+
+    /**
+     * creates a analyzer for a image that is already on memory. (for example a
+     * frame of a multi frame file) the image is copied.
+     *
+     * @param Image the image to analyze
+     * @param Name the name to show for the image
+     */
+    public StegnoAnalyzer(BufferedImage Image, String Name) {
+        this(Image, Name, false);
+    }
+
+    /**
+     * creates a analyzer for a image that is already on memory.
+     *
+     * @param Image the image to analyze
+     * @param Name the name to show for the image
+     * @param Adopt true if the caller gives up the image. (a image pasted from
+     * the clipboard) so it is analyzed as is instead of copied when its type
+     * allows it. the image must not be changed after.
+     */
+    public StegnoAnalyzer(BufferedImage Image, String Name, boolean Adopt) {
+        this.SourceImage = Objects.requireNonNull(Image, "the image is null");
+        this.SourceName = Objects.requireNonNull(Name, "the name is null");
+        AdoptImage = Adopt;
+        File = null;
+        ImageAddress = null;
+        Region = null;
+    }
+
+    /**
+     * @return the structure of the file. or null if it was not (or cannot be)
+     * inspected.
+     */
+    public FileStructure getFileStructure() {
+        return Structure;
+    }
+
+    /**
+     * @return true if the source is a JPEG file.
+     */
+    public boolean isJPEG() {
+        try {
+            final var file = getMappedFile();
+            return file != null && JPEGDecoder.isJPEG(file);
+        } catch (IOException ex) {
+            loger.log(Level.WARNING, "Unable to read the file header", ex);
+            return false;
+        }
+    }
+
+    /**
+     * the quantized DCT coefficients of the file. these are decoded on the
+     * first call (other callers wait for it) and kept.
+     *
+     * @return the coefficients. or null if the source is not a JPEG file or
+     * they cannot be decoded.
+     */
+    public synchronized JPEGCoefficients getDCTCoefficients() {
+        if (!CoefficientsRead) {
+            CoefficientsRead = true;
+            if (isJPEG()) {
+                try {
+                    Coefficients = JPEGDecoder.decode(getMappedFile());
+                    for (var warning : Coefficients.getWarnings()) {
+                        loger.log(Level.WARNING, "JPEG decoding: {0}", warning);
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    loger.log(Level.WARNING, "Unable to decode the DCT coefficients", ex);
+                }
+            }
+        }
+        return Coefficients;
+    }
+
+    /**
+     * the palette and the indexes of the image. read on the first call (other
+     * callers wait for it) and kept.
+     *
+     * @return the palette analysis. or null if the image is not loaded or is
+     * not a indexed (palette) image.
+     */
+    public synchronized PaletteImage getPaletteImage() {
+        if (!PaletteRead && ImageCache != null) {
+            PaletteRead = true;
+            Palette = PaletteImage.of(ImageCache);
+        }
+        return Palette;
+    }
+
+    /**
+     * runs the transformations on the calling thread. (the transformations
+     * run on the common pool) the results are not kept. the listener is the
+     * only one that gets them. so a caller that writes them to disk holds a
+     * few images at the time instead of all of them.
+     *
+     * @param Listener receives each result (a {@link ScoredResult}) once done.
+     * (from the threads of the pool)
+     * @param Cancelled checked between transformations. can be null
+     */
+    public void transform(Consumer<Pair<String, BufferedImage>> Listener, BooleanSupplier Cancelled) {
+        transform(Listener, Cancelled, false);
+    }
+
+    /**
+     * runs the transformations on the calling thread. (the transformations
+     * run on the common pool) a run can be stopped with
+     * {@link #stopAnalysis()}
+     *
+     * @param Listener receives each result (a {@link ScoredResult}) once done.
+     * (from the threads of the pool)
+     * @param Cancelled checked between transformations. can be null
+     * @param Retain whether the results are kept and returned.
+     * @return the results. (empty if not retained)
+     */
+    public List<Pair<String, BufferedImage>> transform(Consumer<Pair<String, BufferedImage>> Listener, BooleanSupplier Cancelled, boolean Retain) {
+        if (ImageCache == null) {
+            throw new NullPointerException("Image is not yet loaded");
+        }
+        var run = new TransformationRun(Objects.requireNonNull(Listener, "the listener is null"), stoppedOr(Cancelled), Retain);
+        Runs.add(run);
+        try {
+            //a stop that came before the run was registered
+            if (Stopped) {
+                return List.of();
+            }
+            return run.run();
+        } finally {
+            Runs.remove(run);
+        }
+    }
+
+    /**
+     * stops the transformations, the carving and the strings search in
+     * progress. (the analyzer cannot run them again after)
+     */
+    public void stopAnalysis() {
+        Stopped = true;
+        Runs.forEach(TransformationRun::cancel);
+    }
+
+    /**
+     * @return true once {@link #stopAnalysis()} is called.
+     */
+    public boolean isStopped() {
+        return Stopped;
+    }
+
+    /**
+     * sets the flag patterns the strings search looks for. (see
+     * {@link #findStrings}) the default ones are
+     * {@link StringScanner#DEFAULT_FLAGS}
+     *
+     * @param Flags the patterns.
+     */
+    public void setFlagPatterns(List<Pattern> Flags) {
+        FlagPatterns = List.copyOf(Objects.requireNonNull(Flags, "the flags cannot be null"));
+    }
+
+    public List<Pattern> getFlagPatterns() {
+        return FlagPatterns;
+    }
+
+    private BooleanSupplier stoppedOr(BooleanSupplier Cancelled) {
+        return Cancelled == null ? () -> Stopped : () -> Stopped || Cancelled.getAsBoolean();
+    }
+
+    /**
+     * writes the data from the hit offset to the end of its source into the
+     * destination file.
+     *
+     * @param Hit the hit to extract.
+     * @param Destination the file to write.
+     * @throws IOException if the data cannot be read or written.
+     * @throws IllegalArgumentException if the hit source is unknown.
+     */
+    public void extractHit(CarvedHit Hit, Path Destination) throws IOException {
+        if (SignatureCarver.FILE_SOURCE.equals(Hit.Source())) {
+            final var file = getLocalFile();
+            if (file == null) {
+                throw new IllegalArgumentException("the source has no file to extract from");
+            }
+            SignatureCarver.extractFromFile(file, Hit, Destination);
+            return;
+        }
+        if (JPEGCoefficients.LSB_SOURCE.equals(Hit.Source()) && getDCTCoefficients() != null) {
+            SignatureCarver.extractFromCoefficients(getDCTCoefficients(), Hit, Destination);
+            return;
+        }
+        for (var stream : LSBStream.values()) {
+            if (stream.Name.equals(Hit.Source())) {
+                SignatureCarver.extractFromStream(ImageCache, stream, Hit, Destination);
+                return;
+            }
+        }
+        for (var order : PaletteImage.LSBOrder.values()) {
+            if (order.Name.equals(Hit.Source()) && getPaletteImage() != null) {
+                SignatureCarver.extractFromPalette(getPaletteImage(), order, Hit, Destination);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Unknown source: " + Hit.Source());
+    }
+
+    /**
+     * @return the names of the bit streams of the image that can be written
+     * whole. (see {@link #writeStream(String, Path)}) the LSB streams plus the
+     * ones of the DCT coefficients (JPEG) and the palette (indexed images)
+     */
+    public List<String> getStreamSources() {
+        var sources = new ArrayList<String>();
+        if (ImageCache == null) {
+            return sources;
+        }
+        for (var stream : LSBStream.values()) {
+            sources.add(stream.Name);
+        }
+        if (isJPEG() && getDCTCoefficients() != null) {
+            sources.add(JPEGCoefficients.LSB_SOURCE);
+        }
+        if (getPaletteImage() != null) {
+            for (var order : PaletteImage.LSBOrder.values()) {
+                sources.add(order.Name);
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * writes a whole bit stream into the destination file.
+     *
+     * @param Source the name of the stream. (see {@link #getStreamSources()})
+     * @param Destination the file to write.
+     * @throws IOException if the data cannot be read or written.
+     * @throws IllegalArgumentException if the source is unknown.
+     */
+    public void writeStream(String Source, Path Destination) throws IOException {
+        //a hit at the start of the stream is the whole stream.
+        extractHit(new CarvedHit(Source, null, 0), Destination);
+    }
+
+    /**
+     * @return the bytes of the file for the hex view. or null if there is no
+     * local file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    public HexDocument getFileDocument() throws IOException {
+        final var mapped = getMappedFile();
+        return mapped == null ? null : HexDocument.of(getSourceName(), mapped);
+    }
+
+    /**
+     * the bytes of a hit (from its offset to the end of its source) for the
+     * hex view. a hit on the file is a view of the mapping. the other sources
+     * are extracted first to a temporal file. (see
+     * {@link #extractHit(CarvedHit, Path)}) then mapped.
+     *
+     * @param Hit the hit
+     * @return the document
+     * @throws IOException if the data cannot be read or extracted.
+     */
+    public HexDocument openHit(CarvedHit Hit) throws IOException {
+        final var name = String.format("%s %s @ %s", Hit.Source(), Hit.Signature(), Hit.getHexOffset());
+        if (SignatureCarver.FILE_SOURCE.equals(Hit.Source())) {
+            final var mapped = getMappedFile();
+            if (mapped == null) {
+                throw new IllegalArgumentException("the source has no file to read from");
+            }
+            return new HexDocument(name, mapped, Hit.Offset());
+        }
+        var extracted = Files.createTempFile("hit", "." + Hit.Signature().Extension);
+        extracted.toFile().deleteOnExit();
+        extractHit(Hit, extracted);
+        return HexDocument.of(name, MappedFile.open(extracted));
+    }
+
+    /**
+     * @return true once the image is loaded.
+     */
+    public boolean isImageLoaded() {
+        return ImageCache != null;
+    }
+
+    /**
+     * @return the loaded image. or null if it is not yet loaded.
+     */
+    CanvasContainer getImageCache() {
+        return ImageCache;
+    }
+
+    /**
+     * counts the values of each channel of the loaded image. a single pass
+     * over the rows.
+     *
+     * @return the histograms of red, green, blue and alpha. (256 counts each)
+     * or null if the image is not yet loaded.
+     */
+    public int[][] getHistograms() {
+        final var image = ImageCache;
+        if (image == null) {
+            return null;
+        }
+        final int[][] histograms = new int[4][256];
+        final int[] red = histograms[0], green = histograms[1], blue = histograms[2], alpha = histograms[3];
+        final int width = image.getWidth(), height = image.getHeight();
+        int[] row = null;
+        for (int y = 0; y < height; y++) {
+            row = image.getPackedARGBRow(y, row);
+            for (int x = 0; x < width; x++) {
+                final int pixel = row[x];
+                alpha[pixel >>> 24]++;
+                red[(pixel >> 16) & 0xFF]++;
+                green[(pixel >> 8) & 0xFF]++;
+                blue[pixel & 0xFF]++;
+            }
+        }
+        return histograms;
+    }
+
+    /**
+     * @return true if the loaded image has a alpha channel. false if it has
+     * not or it is not yet loaded.
+     */
+    public boolean hasAlpha() {
+        final var image = ImageCache;
+        return image != null && image.HasAlphaChannel();
+    }
+
+    /**
+     * @return the amount of frames (or pages) of the file. 1 until the image
+     * is loaded or if the source is not a multi frame file.
+     */
+    public int getFrameCount() {
+        return FrameCount;
+    }
+
+    public Path getFilePath() {
+        return File;
+    }
+
+    /**
+     * @return the file the image is read from. the file of the analysis or the
+     * downloaded file of the URL. null if there is none (yet)
+     */
+    public Path getLocalFile() {
+        return File != null ? File : Spooled;
+    }
+
+    /**
+     * the local file mapped on memory. mapped on the first call and shared by
+     * the decoder, the inspectors, the carving and the strings scan. so the
+     * file is read from the disk once.
+     *
+     * @return the mapped file. or null if there is no local file (yet)
+     * @throws IOException if the file cannot be mapped.
+     */
+    MappedFile getMappedFile() throws IOException {
+        synchronized (MappedLock) {
+            if (Mapped == null) {
+                final var file = getLocalFile();
+                if (file == null) {
+                    return null;
+                }
+                Mapped = MappedFile.open(file);
+            }
+            return Mapped;
+        }
+    }
+
+    /**
+     * stops the analysis and drops the mapping of the file. (it is unmapped
+     * once the readers still on it are done) the analyzer cannot be used
+     * after.
+     */
+    public void close() {
+        stopAnalysis();
+        synchronized (MappedLock) {
+            Mapped = null;
+        }
+    }
+
+    /**
+     * @return the area of the file under analysis. or null if is the whole
+     * image.
+     */
+    public Rectangle getRegion() {
+        return Region == null ? null : new Rectangle(Region);
+    }
+
+    /**
+     * @return how the image was decoded. (the whole image, a overview of a
+     * large image or a region) null until the image is loaded.
+     */
+    public ImageLoader.Plan getLoadPlan() {
+        var image = ImageCache;
+        return image == null ? null : image.getLoadPlan();
+    }
+
+    public String getAnalysisSource() {
+        if (SourceName != null) {
+            return SourceName;
+        }
+        if (File != null) {
+            return File.toString();
+        } else {
+            return ImageAddress.toString();
+        }
+    }
+
+    public String getSourceName() {
+        if (SourceName != null) {
+            return SourceName;
+        }
+        if (File != null && Region != null) {
+            return String.format("%s [%dx%d at %d,%d]", File.getFileName().toString().strip(),
+                    Region.width, Region.height, Region.x, Region.y);
+        } else if (File != null) {
+            return File.getFileName().toString().strip();
+        } else {
+            return ImageAddress.getPath().toString();
+        }
+    }
+
+    /**
+     * Create a Buffer Image that contains pixels with the FillColor where the
+     * specific pixel data r=g=b. for example. if a pixel color is all 0 (black)
+     * or White (all 1) or any color that for all color the data is the same for
+     * example. "1f1f1f" and so on. Highlights just the pixels for which r=g=b
+     * (this is also known as "gray bits" because all R G B are the same value)
+     *
+     * @see
+     * {@link https://web.stanford.edu/class/cs101/image-6-grayscale-adva.html}
+     *
+     */
+    private BufferedImage TranformSymetricPixels(Color FillColor) {
+        return ImageCache.getSymetricPixels(FillColor);
+    }
+
+    private BufferedImage getGrayScaleCopy() {
+        return ImageCache.getGrayScale();
+    }
+
+    /**
+     * @return a copy of the loaded image. or null if it is not yet loaded.
+     */
+    public BufferedImage getUnEditedCopy() {
+        if (ImageCache != null) {
+            return ImageCache.getCloneImage();
+        }
+        return null;
+    }
+
+    /**
+     * the transformations that are a map of each channel value. (see
+     * {@link LUTTransform}) they are applied together on a single pass.
+     * <br>
+     * the grey scale uses the REC 709 luminance. (gamma corrected)
+     * https://en.wikipedia.org/wiki/Grayscale
+     * http://www.w3.org/Graphics/Color/sRGB
+     *
+     * @return the transformations
+     */
+    private List<LUTTransform> getLUTTransforms() {
+        var histograms = LUTEngine.histograms(ImageCache);
+        return List.of(
+                LUTTransform.bitPair(TransformAnalysis.FirstForthImage.Name, 0),
+                LUTTransform.bitPair(TransformAnalysis.SecondForthImage.Name, 1),
+                LUTTransform.bitPair(TransformAnalysis.ThirdForthImage.Name, 2),
+                LUTTransform.bitPair(TransformAnalysis.ForthForthImage.Name, 3),
+                LUTTransform.inversion(TransformAnalysis.XorInversion.Name),
+                LUTTransform.contrastStretch(TransformAnalysis.ContrastStretch.Name, histograms),
+                LUTTransform.equalization(TransformAnalysis.Equalized.Name, histograms),
+                LUTTransform.greyScale(TransformAnalysis.GreyScaleGamma.Name, true),
+                LUTTransform.randomColorMap(TransformAnalysis.RandomColorMap1.Name, 1),
+                LUTTransform.randomColorMap(TransformAnalysis.RandomColorMap2.Name, 2),
+                LUTTransform.randomColorMap(TransformAnalysis.RandomColorMap3.Name, 3));
+    }
+
+    /**
+     * Inverts the color of the image using HSV Rotation. <br>
+     * <a href="https://www.niwa.nu/2013/05/math-behind-colorspace-conversions-rgb-hsl/">Source
+     * 1</a>
+     * <a href="https://geraldbakker.nl/psnumbers/hsb-explained.html">Source
+     * 2</a>
+     *
+     * @return a instance of BufferImage with the inverted HUE colors.
+     */
+    private void getHSVInversions(List<Pair<String, BufferedImage>> storage) {
+        //inverted hue 
+        var transform = ImageCache.createBIemptyCopy();
+        //iverted hue and Brightness 
+        var transform2 = ImageCache.createBIemptyCopy();
+        //inverted saturation
+        var transform3 = ImageCache.createBIemptyCopy();
+        //inverted brightness only.
+        var transform4 = ImageCache.createBIemptyCopy();
+
+        ImageCache.MathOnPixelsbyIndex((RGB, Index) -> {
+            float[] HSV = new float[3];
+            Color.RGBtoHSB(
+                    RGB[CanvasContainer.RED],
+                    RGB[CanvasContainer.GREEN],
+                    RGB[CanvasContainer.BLUE],
+                    HSV);
+            var invertedHue = (HSV[0] + 0.5f) % 1f;
+            var invertedbright = 1f - HSV[2];
+            var InvertedColor = Color.HSBtoRGB(invertedHue, HSV[1], HSV[2]);
+            transform.getRaster().getDataBuffer().setElem(Index, InvertedColor);
+            InvertedColor = Color.HSBtoRGB(invertedHue, HSV[1], invertedbright);
+            transform2.getRaster().getDataBuffer().setElem(Index, InvertedColor);
+            InvertedColor = Color.HSBtoRGB(HSV[1], 1f - HSV[1], HSV[2]);
+            transform3.getRaster().getDataBuffer().setElem(Index, InvertedColor);
+            InvertedColor = Color.HSBtoRGB(HSV[1], HSV[1], invertedbright);
+            transform4.getRaster().getDataBuffer().setElem(Index, InvertedColor);
+        });
+        var e = new Pair<>(TransformAnalysis.InvertHue.Name, transform);
+        storage.add(e);
+        e = new Pair<>(TransformAnalysis.InvertHueBright.Name, transform2);
+        storage.add(e);
+        e = new Pair<>(TransformAnalysis.InvertSaturation.Name, transform3);
+        storage.add(e);
+        e = new Pair<>(TransformAnalysis.InvertBright.Name, transform4);
+        storage.add(e);
+    }
+
+    /**
+     * Inverts the color of the image using HSV Rotation. <br>
+     * <a href="https://www.niwa.nu/2013/05/math-behind-colorspace-conversions-rgb-hsl/">Source
+     * 1</a>
+     * <a href="https://geraldbakker.nl/psnumbers/hsb-explained.html">Source
+     * 2</a>
+     *
+     * @return a instance of BufferImage with the inverted HUE colors.
+     */
+    private BufferedImage HueInversionHSV() {
+        //inverted hue 
+        return ImageCache.MathOnPixels(BufferedImage.TYPE_INT_ARGB, RGB -> {
+            float[] HSV = new float[3];
+            Color.RGBtoHSB(
+                    RGB[CanvasContainer.RED],
+                    RGB[CanvasContainer.GREEN],
+                    RGB[CanvasContainer.BLUE],
+                    HSV);
+            var InvertedColor = Color.HSBtoRGB((HSV[0] + 0.5f) % 1f, HSV[1], HSV[2]);
+            var results = new Short[4];
+            results[CanvasContainer.ALPHA] = (short) ((InvertedColor >> 24) & CanvasContainer.MAXUBYTE);
+            results[CanvasContainer.RED] = (short) ((InvertedColor >> 16) & CanvasContainer.MAXUBYTE);
+            results[CanvasContainer.GREEN] = (short) ((InvertedColor >> 8) & CanvasContainer.MAXUBYTE);
+            results[CanvasContainer.BLUE] = (short) (InvertedColor & CanvasContainer.MAXUBYTE);
+            return results;
+        });
+    }
+
+    /**
+     * creates a new BufferedImage that is only White and a Fill Color.
+     *
+     * @param FillColor The fill Color to use to fill the pixels that contains
+     * data on the desired bit index to inspect. (if null the fill will be
+     * black)
+     * @param Index the color index of a ARGB(32 bit integer) value to inspect
+     * @return a new BufferedImage that is only White and a Fill Color. or null
+     * if the Index is invalid.
+     * @throws IndexOutOfBoundsException if the index is invalid.
+     */
+    private BufferedImage transformFromIndexBit(int Index, Color FillColor) {
+        if (Index >= 32 || Index < 0) {
+            //invalid index color data exist on a 32bit integer
+            throw new IndexOutOfBoundsException("the index cannot be less than 0 or larger than 31");
+            //return null;
+        }
+        FillColor = Objects.requireNonNullElse(FillColor, Color.BLACK);
+        //which channel?
+        if (Index < 8) {//blue channel
+            return ImageCache.getBlueForIndex(Index, FillColor);
+        }
+        if (Index < 16) {//green 
+            return ImageCache.getGreenForIndex(Index & 8, FillColor);
+        }
+        if (Index < 24) {//red
+            return ImageCache.getRedForIndex(Index & 8, FillColor);
+        }
+        return ImageCache.getAlphaForIndex(Index & 8, FillColor);
+    }
+
+    private List<Pair<String, BufferedImage>> getImagePerBitOnBlueChannel(List<Pair<String, BufferedImage>> storage) {
+        storage = storage == null ? new ArrayList<>(8) : storage;
+        for (int index = 0; index < 8; index++) {
+            storage.add(new Pair<>(String.format("Blue Bit at the %d bit", index + 1), ImageCache.getBlueForIndex(index, Color.BLUE)));
+        }
+        return storage;
+    }
+
+    private List<Pair<String, BufferedImage>> getImagePerBitOnGreenChannel(List<Pair<String, BufferedImage>> storage) {
+        storage = storage == null ? new ArrayList<>(8) : storage;
+        for (int index = 0; index < 8; index++) {
+            storage.add(new Pair<>(String.format("Green Bit at the %d bit", index), ImageCache.getGreenForIndex(index, Color.GREEN)));
+        }
+        return storage;
+    }
+
+    private List<Pair<String, BufferedImage>> getImagePerBitOnRedChannel(List<Pair<String, BufferedImage>> storage) {
+        storage = storage == null ? new ArrayList<>(8) : storage;
+        for (int index = 0; index < 8; index++) {
+            storage.add(new Pair<>(String.format("Red Bit at the %d bit", index), ImageCache.getRedForIndex(index, Color.RED)));
+        }
+        return storage;
+    }
+
+    private List<Pair<String, BufferedImage>> getImagePerBitOnAlphaChannel(List<Pair<String, BufferedImage>> storage) {
+        storage = storage == null ? new ArrayList<>(8) : storage;
+        if (ImageCache.HasAlphaChannel()) {
+            for (int index = 0; index < 8; index++) {
+                storage.add(new Pair<>(String.format("Alpha Bit at the %d bit", index), ImageCache.getAlphaForIndex(index, Color.BLACK)));
+            }
+        }
+        return storage;
+    }
+
+    /**
+     * loads the image on the calling thread. before the image is decoded the
+     * file structure is inspected (if the format is supported) and provided
+     * to the listener so it can be shown while the image decodes.
+     *
+     * @param Status receives the progress messages. can be null
+     * @param StructureListener receives the file structure once inspected
+     * (and again if amended) can be null
+     * @throws IOException if the image cannot be read.
+     */
+    public void loadImage(Consumer<String> Status, Consumer<FileStructure> StructureListener) throws IOException {
+        final Consumer<String> status = Status == null ? message -> {
+        } : Status;
+        final Consumer<FileStructure> structureListener = StructureListener == null ? structure -> {
+        } : StructureListener;
+        try {
+            if (File != null) {
+                inspectStructure(status, structureListener);
+                status.accept(String.format("Loading the File %s", File.getFileName().toString()));
+                ImageCache = new CanvasContainer(getMappedFile(), Region);
+                status.accept(String.format("Loaded %s", ImageCache.getLoadPlan().describe()));
+                checkThumbnail(structureListener);
+                countFrames();
+            } else if (SourceImage != null) {
+                status.accept(String.format("Loading %s", SourceName));
+                ImageCache = new CanvasContainer(SourceImage, AdoptImage);
+            } else {
+                status.accept(String.format("Loading the URL %s", ImageAddress.getPath()));
+                Spooled = URLSpooler.getDefault().fetch(ImageAddress, (received, total) -> status.accept(total > 0
+                        ? String.format("Downloading %s: %,d of %,d KB", ImageAddress.getPath(), received / 1024, total / 1024)
+                        : String.format("Downloading %s: %,d KB", ImageAddress.getPath(), received / 1024)));
+                //from here on is a file. all of the file analysis apply
+                inspectStructure(status, structureListener);
+                ImageCache = new CanvasContainer(getMappedFile(), null);
+                status.accept(String.format("Loaded %s", ImageCache.getLoadPlan().describe()));
+                checkThumbnail(structureListener);
+                countFrames();
+            }
+        } catch (IOException ex) {
+            status.accept(String.format("Unable to Load the Image for Analysis due a error: %s", ex.getMessage()));
+            loger.log(Level.SEVERE, "Error Loading the underline Image from the provided Source", ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * counts the frames (or pages) of the file. {@link CanvasContainer} only
+     * holds the first one. a failure here is not fatal.
+     */
+    private void countFrames() {
+        try {
+            FrameCount = FrameReader.countFrames(getMappedFile());
+        } catch (IOException | RuntimeException ex) {
+            loger.log(Level.WARNING, "Unable to count the frames of the file", ex);
+        }
+    }
+
+    /**
+     * walks the file structure. (no pixel decoding) a failure here is not
+     * fatal. the image might still be decoded.
+     */
+    private void inspectStructure(Consumer<String> Status, Consumer<FileStructure> StructureListener) {
+        try {
+            final var file = getMappedFile();
+            if (PNGInspector.isPNG(file)) {
+                Status.accept("Inspecting the PNG structure");
+                Structure = PNGInspector.inspect(file);
+            } else if (JPEGDecoder.isJPEG(file)) {
+                Status.accept("Inspecting the JPEG structure");
+                Structure = JPEGInspector.inspect(file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            loger.log(Level.WARNING, "Unable to inspect the file structure", ex);
+        }
+        if (Structure != null) {
+            StructureListener.accept(Structure);
+        }
+    }
+
+    /**
+     * compares the embedded thumbnail (if any) with the loaded image. if they
+     * do not match the structure is amended and provided again. a region is
+     * not compared. the thumbnail shows the whole image.
+     */
+    private void checkThumbnail(Consumer<FileStructure> StructureListener) {
+        var structure = Structure;
+        if (structure == null || !structure.hasThumbnail()
+                || ImageCache.getLoadPlan().Strategy() == ImageLoader.Strategy.Region) {
+            return;
+        }
+        try {
+            var thumbnail = ImageIO.read(new ByteArrayInputStream(structure.getThumbnail()));
+            if (thumbnail == null) {
+                return;
+            }
+            var difference = JPEGInspector.compareThumbnail(thumbnail, ImageCache);
+            if (JPEGInspector.isThumbnailMismatch(difference)) {
+                var amended = structure.copy();
+                amended.addEntry(new StructureEntry("Thumbnail mismatch", structure.getThumbnailOffset(), structure.getThumbnail().length,
+                        String.format("the thumbnail does not match the image (mean difference %.1f)", difference), true));
+                amended.addWarning("the embedded thumbnail shows a different image than the main one");
+                Structure = amended;
+                StructureListener.accept(amended);
+            }
+        } catch (IOException | RuntimeException ex) {
+            loger.log(Level.WARNING, "Unable to compare the thumbnail", ex);
+        }
+    }
+
+    /**
+     * a run of the transformations. each one is a task on the common pool.
+     * the results are given to the listener as they are done. (from the
+     * threads of the pool) and joined into the list returned. unless they are
+     * not retained. then the listener is the only one that gets them. so a
+     * caller that writes the results somewhere can let them go. (see
+     * {@link #transform(Consumer, BooleanSupplier, boolean)})
+     */
+    private final class TransformationRun {
+
+        private final ConcurrentLinkedDeque<RecursiveTask<Pair<String, BufferedImage>>> stack = new ConcurrentLinkedDeque<>();
+        private final ConcurrentLinkedDeque<RecursiveTask<List<Pair<String, BufferedImage>>>> stackListResult = new ConcurrentLinkedDeque<>();
+        private final Consumer<Pair<String, BufferedImage>> Publish;
+        private final BooleanSupplier Cancelled;
+        private final boolean Retain;
+
+        private TransformationRun(Consumer<Pair<String, BufferedImage>> Publish, BooleanSupplier Cancelled, boolean Retain) {
+            this.Publish = Publish;
+            this.Cancelled = Cancelled;
+            this.Retain = Retain;
+        }
+
+        private void bookandStartTask(ConcurrentLinkedDeque<RecursiveTask<Pair<String, BufferedImage>>> stack, RecursiveTask<Pair<String, BufferedImage>> recursiveTask) {
+            if (Cancelled.getAsBoolean()) {
+                return;
+            }
+            var Pool = ForkJoinPool.commonPool();
+            stack.push(recursiveTask);
+            //recursiveTask.fork();
+            Pool.submit(recursiveTask);
+        }
+
+        private void bookandStartListTask(ConcurrentLinkedDeque<RecursiveTask<List<Pair<String, BufferedImage>>>> stack, RecursiveTask<List<Pair<String, BufferedImage>>> recursiveTask) {
+            if (Cancelled.getAsBoolean()) {
+                return;
+            }
+            var Pool = ForkJoinPool.commonPool();
+            stack.push(recursiveTask);
+            //recursiveTask.fork();
+            Pool.submit(recursiveTask);
+        }
+
+        private List<Pair<String, BufferedImage>> keep(List<Pair<String, BufferedImage>> list) {
+            return Retain ? list : List.of();
+        }
+
+        private Pair<String, BufferedImage> keep(Pair<String, BufferedImage> created) {
+            return Retain ? created : new Pair<>(created.getLeft(), null);
+        }
+
+        private List<Pair<String, BufferedImage>> run() {
+            var list = new ArrayList<Pair<String, BufferedImage>>(20);
+            /**
+             * *****************************************************
+             */
+            //each result is scored on the task that made it. (see ImageScore)
+            final var scorer = new ImageScore(ImageCache);
+            loger.log(Level.INFO, "Schelduling Tasks");
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start getHSVInversions Task");
+                    var list = new ArrayList<Pair<String, BufferedImage>>(4);
+                    getHSVInversions(list);
+                    list.replaceAll(pair -> scorer.score(pair.getLeft(), pair.getRight()));
+                    for (Pair<String, BufferedImage> pair : list) {
+                        Publish.accept(pair);
+                    }
+                    loger.log(Level.INFO, "Task: getHSVInversions, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start getImagePerBitOnBlueChannel Task");
+                    var list = getImagePerBitOnBlueChannel(null);
+                    list.replaceAll(pair -> scorer.score(pair.getLeft(), pair.getRight()));
+                    for (var e : list) {
+                        Publish.accept(e);
+                    }
+                    loger.log(Level.INFO, "Task: getImagePerBitOnBlueChannel, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start getImagePerBitOnGreenChannel Task");
+                    var list = getImagePerBitOnGreenChannel(null);
+                    list.replaceAll(pair -> scorer.score(pair.getLeft(), pair.getRight()));
+                    for (var e : list) {
+                        Publish.accept(e);
+                    }
+                    loger.log(Level.INFO, "Task: getImagePerBitOnGreenChannel, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start getImagePerBitOnRedChannel Task");
+                    var list = getImagePerBitOnRedChannel(null);
+                    list.replaceAll(pair -> scorer.score(pair.getLeft(), pair.getRight()));
+                    for (var e : list) {
+                        Publish.accept(e);
+                    }
+                    loger.log(Level.INFO, "Task: getImagePerBitOnRedChannel, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start getImagePerBitOnAlphaChannel Task");
+                    var list = getImagePerBitOnAlphaChannel(null);
+                    list.replaceAll(pair -> scorer.score(pair.getLeft(), pair.getRight()));
+                    for (var e : list) {
+                        Publish.accept(e);
+                    }
+                    loger.log(Level.INFO, "Task: getImagePerBitOnAlphaChannel, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    var created = new Pair<>(TransformAnalysis.OriginalImage.Name, getUnEditedCopy());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: Copy Original, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    var created = scorer.score(TransformAnalysis.GreyMap.Name, TranformSymetricPixels(Color.BLACK));
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: GreyMask, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    var created = scorer.score(TransformAnalysis.GreyScale.Name, getGrayScaleCopy());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: GreyScale, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start LUTTransform Task");
+                    var transforms = getLUTTransforms();
+                    var images = LUTEngine.apply(ImageCache, transforms);
+                    var list = new ArrayList<Pair<String, BufferedImage>>(transforms.size());
+                    for (int i = 0; i < transforms.size(); i++) {
+                        list.add(scorer.score(transforms.get(i).getName(), images.get(i)));
+                        Publish.accept(list.getLast());
+                    }
+                    loger.log(Level.INFO, "Task: LUTTransform, Done");
+                    return keep(list);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start BluePixels Task");
+                    var created = scorer.score(TransformAnalysis.BluePixels.Name, ImageCache.getBlueImage());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: BluePixels, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start GreenPixels Task");
+                    var created = scorer.score(TransformAnalysis.GreenPixels.Name, ImageCache.getGreenImage());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: GreenPixels, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start RedPixels Task");
+                    var created = scorer.score(TransformAnalysis.RedPixels.Name, ImageCache.getRedImage());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: RedPixels, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start AlphaPixels Task");
+                    var created = scorer.score(TransformAnalysis.AlphaPixels.Name, ImageCache.getAlphaImage());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: AlphaPixels, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start LSBEntropyMap Task");
+                    var map = new EntropyMap(ImageCache, EntropyMap.SampleMode.LSBPlanes);
+                    var created = scorer.score(TransformAnalysis.LSBEntropyMap.Name, map.render());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: LSBEntropyMap, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                @Override
+                protected Pair<String, BufferedImage> compute() {
+                    loger.log(Level.INFO, "Start ByteEntropyMap Task");
+                    var map = new EntropyMap(ImageCache, EntropyMap.SampleMode.Bytes);
+                    var created = scorer.score(TransformAnalysis.ByteEntropyMap.Name, map.render());
+                    Publish.accept(created);
+                    loger.log(Level.INFO, "Task: ByteEntropyMap, Done");
+                    return keep(created);
+                }
+            });
+            bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                @Override
+                protected List<Pair<String, BufferedImage>> compute() {
+                    loger.log(Level.INFO, "Start SpectrumMap Task");
+                    var map = new SpectrumMap(ImageCache);
+                    var list = new ArrayList<Pair<String, BufferedImage>>(3);
+                    list.add(scorer.score(TransformAnalysis.RedSpectrum.Name, map.render(SpectrumMap.Channel.Red)));
+                    Publish.accept(list.getLast());
+                    list.add(scorer.score(TransformAnalysis.GreenSpectrum.Name, map.render(SpectrumMap.Channel.Green)));
+                    Publish.accept(list.getLast());
+                    list.add(scorer.score(TransformAnalysis.BlueSpectrum.Name, map.render(SpectrumMap.Channel.Blue)));
+                    Publish.accept(list.getLast());
+                    loger.log(Level.INFO, "Task: SpectrumMap, Done");
+                    return keep(list);
+                }
+            });
+            if (getPaletteImage() != null) {
+                bookandStartListTask(stackListResult, new RecursiveTask<List<Pair<String, BufferedImage>>>() {
+                    @Override
+                    protected List<Pair<String, BufferedImage>> compute() {
+                        loger.log(Level.INFO, "Start PaletteImage Task");
+                        var palette = getPaletteImage();
+                        var candidates = palette.getIsolationCandidates();
+                        var list = new ArrayList<Pair<String, BufferedImage>>(candidates.size() + 5);
+                        list.add(scorer.score(PaletteImage.TABLE_NAME, palette.renderTable()));
+                        list.add(scorer.score(PaletteImage.INDEX_LSB_NAME, palette.renderIndexLSB()));
+                        for (int i = 1; i <= 3; i++) {
+                            list.add(scorer.score(String.format(PaletteImage.RANDOM_NAME, i), palette.randomPalette(i)));
+                        }
+                        for (var index : candidates) {
+                            list.add(scorer.score(String.format(PaletteImage.ISOLATION_NAME, index), palette.isolate(index)));
+                        }
+                        for (var pair : list) {
+                            Publish.accept(pair);
+                        }
+                        loger.log(Level.INFO, "Task: PaletteImage, Done");
+                        return keep(list);
+                    }
+                });
+            }
+            if (isJPEG()) {
+                bookandStartTask(stack, new RecursiveTask<Pair<String, BufferedImage>>() {
+                    @Override
+                    protected Pair<String, BufferedImage> compute() {
+                        loger.log(Level.INFO, "Start CoefficientHistogram Task");
+                        var coefficients = getDCTCoefficients();
+                        var created = new Pair<>(CoefficientHistogram.NAME, coefficients == null ? null : CoefficientHistogram.render(coefficients));
+                        if (created.getRight() != null) {
+                            Publish.accept(created);
+                        }
+                        loger.log(Level.INFO, "Task: CoefficientHistogram, Done");
+                        return keep(created);
+                    }
+                });
+            }
+            loger.log(Level.INFO, "Joining Tasks");
+            while (!stack.isEmpty() && !Cancelled.getAsBoolean()) {
+                var poped = stack.pop().join();
+                if (poped.getRight() != null) {
+                    list.add(poped);
+                }
+            }
+            while (!stackListResult.isEmpty() && !Cancelled.getAsBoolean()) {
+                var poped = stackListResult.pop();
+                list.addAll(poped.join());
+            }
+            if (Cancelled.getAsBoolean()) {
+                while (!stack.isEmpty()) {
+                    stack.pop().cancel(true);
+                }
+                while (!stackListResult.isEmpty()) {
+                    stackListResult.pop().cancel(true);
+                }
+            }
+            loger.log(Level.INFO, "done");
+            return list;
+        }
+
+        private void cancel() {
+            stack.forEach((t) -> {
+                t.cancel(true);//this does not interrupt... thus the underline thread might still stuck. 
+                //and the functions on canvas are not aware they are paralelized. (by design) 
+            });
+            stackListResult.forEach((t) -> {
+                t.cancel(true);
+            });
+        }
+    }
+
+    /**
+     * looks for embedded file signatures on the file bytes and the LSB
+     * streams of the image. runs on the calling thread. (the sources are
+     * scanned on the common pool)
+     *
+     * @param Listener receives each hit as found. (from the threads of the
+     * pool)
+     * @param Cancelled checked while scanning. can be null
+     * @return the hits.
+     */
+    public List<CarvedHit> carve(Consumer<CarvedHit> Listener, BooleanSupplier Cancelled) {
+        final BooleanSupplier cancelled = stoppedOr(Cancelled);
+        final var stack = new ConcurrentLinkedDeque<RecursiveTask<List<CarvedHit>>>();
+        var Pool = ForkJoinPool.commonPool();
+        if (getLocalFile() != null) {
+            var task = new RecursiveTask<List<CarvedHit>>() {
+                @Override
+                protected List<CarvedHit> compute() {
+                    loger.log(Level.INFO, "Start Carving Task: File bytes");
+                    try {
+                        return SignatureCarver.scanFile(getMappedFile(), hit -> Listener.accept(hit));
+                    } catch (IOException ex) {
+                        loger.log(Level.SEVERE, "Unable to scan the file bytes", ex);
+                        return List.of();
+                    } finally {
+                        loger.log(Level.INFO, "Carving Task: File bytes, Done");
+                    }
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        for (var stream : LSBStream.values()) {
+            var task = new RecursiveTask<List<CarvedHit>>() {
+                @Override
+                protected List<CarvedHit> compute() {
+                    loger.log(Level.INFO, "Start Carving Task: {0}", stream.Name);
+                    var hits = SignatureCarver.scanStream(ImageCache, stream, hit -> Listener.accept(hit));
+                    loger.log(Level.INFO, "Carving Task: {0}, Done", stream.Name);
+                    return hits;
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        if (isJPEG()) {
+            var task = new RecursiveTask<List<CarvedHit>>() {
+                @Override
+                protected List<CarvedHit> compute() {
+                    loger.log(Level.INFO, "Start Carving Task: {0}", JPEGCoefficients.LSB_SOURCE);
+                    var coefficients = getDCTCoefficients();
+                    var hits = coefficients == null ? List.<CarvedHit>of()
+                            : SignatureCarver.scanCoefficients(coefficients, hit -> Listener.accept(hit));
+                    loger.log(Level.INFO, "Carving Task: {0}, Done", JPEGCoefficients.LSB_SOURCE);
+                    return hits;
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        if (getPaletteImage() != null) {
+            for (var order : PaletteImage.LSBOrder.values()) {
+                var task = new RecursiveTask<List<CarvedHit>>() {
+                    @Override
+                    protected List<CarvedHit> compute() {
+                        loger.log(Level.INFO, "Start Carving Task: {0}", order.Name);
+                        var hits = SignatureCarver.scanPalette(getPaletteImage(), order, hit -> Listener.accept(hit));
+                        loger.log(Level.INFO, "Carving Task: {0}, Done", order.Name);
+                        return hits;
+                    }
+                };
+                stack.push(task);
+                Pool.submit(task);
+            }
+        }
+        var results = new ArrayList<CarvedHit>();
+        while (!stack.isEmpty() && !cancelled.getAsBoolean()) {
+            results.addAll(stack.pollLast().join());
+        }
+        if (cancelled.getAsBoolean()) {
+            stack.forEach(t -> t.cancel(true));
+            stack.clear();
+        }
+        return results;
+    }
+
+    /**
+     * looks for printable strings and flag patterns on the file bytes and on
+     * the candidate bit streams of the image (every bit plane, channel order
+     * and bit packing) runs on the calling thread. (the sources are scanned on
+     * the common pool)
+     *
+     * @param Listener receives each string as found. (from the threads of the
+     * pool)
+     * @param Cancelled checked while scanning. can be null
+     * @return the strings.
+     */
+    public List<FoundString> findStrings(Consumer<FoundString> Listener, BooleanSupplier Cancelled) {
+        final BooleanSupplier cancelled = stoppedOr(Cancelled);
+        final var stack = new ConcurrentLinkedDeque<RecursiveTask<List<FoundString>>>();
+        var Pool = ForkJoinPool.commonPool();
+        final var flags = FlagPatterns;
+        if (getLocalFile() != null) {
+            var task = new RecursiveTask<List<FoundString>>() {
+                @Override
+                protected List<FoundString> compute() {
+                    loger.log(Level.INFO, "Start Strings Task: File bytes");
+                    try {
+                        return new StringScanner(StringScanner.DEFAULT_MIN_LENGTH, StringScanner.DEFAULT_STRING_LIMIT, flags, false)
+                                .scanFile(getMappedFile(), found -> Listener.accept(found));
+                    } catch (IOException ex) {
+                        loger.log(Level.SEVERE, "Unable to scan the file bytes", ex);
+                        return List.of();
+                    } finally {
+                        loger.log(Level.INFO, "Strings Task: File bytes, Done");
+                    }
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        //the candidates are split on groups. each group reads the image once
+        var candidates = BitPlaneStream.candidates(ImageCache.HasAlphaChannel());
+        var groups = Math.max(1, Math.min(Pool.getParallelism(), candidates.size()));
+        var scanner = new StringScanner(STREAM_STRING_MIN_LENGTH, StringScanner.DEFAULT_STRING_LIMIT, flags, false);
+        for (int group = 0; group < groups; group++) {
+            var from = candidates.size() * group / groups;
+            var to = candidates.size() * (group + 1) / groups;
+            var streams = candidates.subList(from, to);
+            var task = new RecursiveTask<List<FoundString>>() {
+                @Override
+                protected List<FoundString> compute() {
+                    loger.log(Level.INFO, "Start Strings Task: {0} bit streams", streams.size());
+                    var found = scanner.scanStreams(ImageCache, streams, result -> Listener.accept(result), cancelled);
+                    loger.log(Level.INFO, "Strings Task: {0} bit streams, Done", streams.size());
+                    return found;
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        if (isJPEG()) {
+            var task = new RecursiveTask<List<FoundString>>() {
+                @Override
+                protected List<FoundString> compute() {
+                    loger.log(Level.INFO, "Start Strings Task: {0}", JPEGCoefficients.LSB_SOURCE);
+                    var coefficients = getDCTCoefficients();
+                    var found = coefficients == null ? List.<FoundString>of()
+                            : scanner.scanCoefficients(coefficients, result -> Listener.accept(result), cancelled);
+                    loger.log(Level.INFO, "Strings Task: {0}, Done", JPEGCoefficients.LSB_SOURCE);
+                    return found;
+                }
+            };
+            stack.push(task);
+            Pool.submit(task);
+        }
+        if (getPaletteImage() != null) {
+            for (var order : PaletteImage.LSBOrder.values()) {
+                var task = new RecursiveTask<List<FoundString>>() {
+                    @Override
+                    protected List<FoundString> compute() {
+                        loger.log(Level.INFO, "Start Strings Task: {0}", order.Name);
+                        var found = scanner.scanPalette(getPaletteImage(), order, result -> Listener.accept(result), cancelled);
+                        loger.log(Level.INFO, "Strings Task: {0}, Done", order.Name);
+                        return found;
+                    }
+                };
+                stack.push(task);
+                Pool.submit(task);
+            }
+        }
+        var results = new ArrayList<FoundString>();
+        while (!stack.isEmpty() && !cancelled.getAsBoolean()) {
+            results.addAll(stack.pollLast().join());
+        }
+        if (cancelled.getAsBoolean()) {
+            stack.forEach(t -> t.cancel(true));
+            stack.clear();
+        }
+        return results;
+    }
+
+    public static List<String> getAnalysisTransformationNames() {
+        var list = new ArrayList<String>(TransformAnalysis.values().length);
+        for (var ordered : TransformAnalysis.values()) {
+            list.add(ordered.Name);
+        }
+        return list;
+    }
+
+}
@@ -0,0 +1,294 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * the stereogram solver. (as stegsolve does) the image is combined with
+ * itself moved to the left by a offset. (wrapping around) on a autostereogram
+ * the pattern repeats every N pixels, so at the right offset the pattern
+ * cancels and the hidden shape shows.
+ * <br>
+ * the render writes into a image that is reused between offsets, the rows are
+ * split on bands that run in parallel and each band reuses its row buffer.
+ * the sweep tries every offset on a sample of the rows (read once) and scores
+ * each by the energy of the difference.
+ *
+ * @author Eduardo Vindas
+ */
+public class StereogramSolver {
+
+    public enum Mode {
+        Xor("XOR"),
+        Sub("SUB (absolute, R,G,B separate)");
+        public final String Name;
+
+        private Mode(String name) {
+            Name = name;
+        }
+
+        @Override
+        public String toString() {
+            return Name;
+        }
+    }
+
+    /**
+     * the result of a sweep.
+     *
+     * @param Energy the energy of the difference for each offset. (the index)
+     * the offset 0 is not scored.
+     * @param Best the proposed offset.
+     */
+    public record Sweep(double[] Energy, int Best) {
+
+    }
+
+    /**
+     * the amount of rows scored by the sweep.
+     */
+    private static final int SWEEP_ROWS = 64;
+    /**
+     * the offsets on each side compared to find a dip on the energy.
+     */
+    private static final int DIP_WINDOW = 8;
+    /**
+     * the lowest amount of rows a band should have before we stop splitting
+     * the work.
+     */
+    private static final int MIN_BAND_ROWS = 32;
+    /**
+     * the lowest amount of offsets a sweep task should have before we stop
+     * splitting the work.
+     */
+    private static final int MIN_SWEEP_OFFSETS = 16;
+    private final CanvasContainer Source;
+    private final int Width, Height;
+
+    StereogramSolver(CanvasContainer Source) {
+        this.Source = Objects.requireNonNull(Source, "the image is null");
+        Width = Source.getWidth();
+        Height = Source.getHeight();
+    }
+
+    /**
+     * creates a solver for the image of a analyzer.
+     *
+     * @param Analyzer the analyzer
+     * @return the solver
+     * @throws IllegalStateException if the image is not loaded.
+     */
+    public static StereogramSolver of(StegnoAnalyzer Analyzer) {
+        var image = Analyzer.getImageCache();
+        if (image == null) {
+            throw new IllegalStateException("the image is not yet loaded");
+        }
+        return new StereogramSolver(image);
+    }
+
+    public int getWidth() {
+        return Width;
+    }
+
+    public int getHeight() {
+        return Height;
+    }
+
+    /**
+     * @return the largest offset that the sweep scores.
+     */
+    public int getMaxOffset() {
+        return Math.max(1, Width / 2);
+    }
+
+    /**
+     * creates a image where {@link #render} can draw.
+     *
+     * @return a new image of the size of the image.
+     */
+    public BufferedImage createTarget() {
+        return new BufferedImage(Width, Height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * combines the image with itself moved by the offset.
+     *
+     * @param Offset the offset in pixels
+     * @param How the combination
+     * @param Target a image created by {@link #createTarget()}
+     */
+    public void render(int Offset, Mode How, BufferedImage Target) {
+        Objects.requireNonNull(How, "the mode is null");
+        if (Target.getWidth() != Width || Target.getHeight() != Height
+                || Target.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("the target was not created by this solver");
+        }
+        final int offset = Math.floorMod(Offset, Width);
+        var out = ((DataBufferInt) Target.getRaster().getDataBuffer()).getData();
+        ForkJoinPool.commonPool().invoke(new BandTask(offset, How, out, 0, Height));
+    }
+
+    /**
+     * renders the offset on a new image.
+     *
+     * @param Offset the offset in pixels
+     * @param How the combination
+     * @return the image
+     */
+    public BufferedImage render(int Offset, Mode How) {
+        var image = createTarget();
+        render(Offset, How, image);
+        return image;
+    }
+
+    /**
+     * scores every offset from 1 to {@link #getMaxOffset()} and proposes the
+     * one where the energy of the difference dips the most compared to the
+     * nearby offsets. (a smooth image differs less at small offsets. a
+     * repeating pattern differs a lot less on its period only)
+     *
+     * @return the scores and the proposal
+     */
+    public Sweep sweep() {
+        final int step = Math.max(1, Height / SWEEP_ROWS);
+        var rows = new int[(Height + step - 1) / step][Width];
+        for (int i = 0; i < rows.length; i++) {
+            Source.getPackedARGBRow(i * step, rows[i]);
+        }
+        final int max = getMaxOffset();
+        var energy = new double[max + 1];
+        ForkJoinPool.commonPool().invoke(new SweepTask(rows, energy, 1, max + 1));
+        int best = 1;
+        double bestDip = Double.NEGATIVE_INFINITY;
+        for (int offset = 1; offset <= max; offset++) {
+            double sum = 0;
+            int count = 0;
+            for (int near = offset - DIP_WINDOW; near <= offset + DIP_WINDOW; near++) {
+                if (near >= 1 && near <= max && Math.abs(near - offset) > 1) {
+                    sum += energy[near];
+                    count++;
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            final double mean = sum / count;
+            final double dip = mean <= 0 ? 0 : (mean - energy[offset]) / mean;
+            if (dip > bestDip) {
+                bestDip = dip;
+                best = offset;
+            }
+        }
+        return new Sweep(energy, best);
+    }
+
+    private static int combine(int a, int b, Mode How) {
+        if (How == Mode.Xor) {
+            return (a ^ b) & CanvasContainer.RGBMASK;
+        }
+        return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) << 16
+                | Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) << 8
+                | Math.abs((a & 0xFF) - (b & 0xFF));
+    }
+
+    /**
+     * combines a band of rows.
+     */
+    private class BandTask extends RecursiveAction {
+
+        private final int Offset;
+        private final Mode How;
+        private final int[] Output;
+        private final int From, To;
+
+        BandTask(int Offset, Mode How, int[] Output, int From, int To) {
+            this.Offset = Offset;
+            this.How = How;
+            this.Output = Output;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected void compute() {
+            if (To - From > MIN_BAND_ROWS * 2) {
+                final int middle = (From + To) >>> 1;
+                invokeAll(new BandTask(Offset, How, Output, From, middle), new BandTask(Offset, How, Output, middle, To));
+                return;
+            }
+            var row = new int[Width];
+            final int split = Width - Offset;
+            for (int y = From; y < To; y++) {
+                Source.getPackedARGBRow(y, row);
+                final int base = y * Width;
+                //two loops avoid the modulo of the wrap around.
+                for (int x = 0; x < split; x++) {
+                    Output[base + x] = combine(row[x], row[x + Offset], How);
+                }
+                for (int x = split; x < Width; x++) {
+                    Output[base + x] = combine(row[x], row[x - split], How);
+                }
+            }
+        }
+    }
+
+    /**
+     * scores a range of offsets.
+     */
+    private class SweepTask extends RecursiveAction {
+
+        private final int[][] Rows;
+        private final double[] Energy;
+        private final int From, To;
+
+        SweepTask(int[][] Rows, double[] Energy, int From, int To) {
+            this.Rows = Rows;
+            this.Energy = Energy;
+            this.From = From;
+            this.To = To;
+        }
+
+        @Override
+        protected void compute() {
+            if (To - From > MIN_SWEEP_OFFSETS * 2) {
+                final int middle = (From + To) >>> 1;
+                invokeAll(new SweepTask(Rows, Energy, From, middle), new SweepTask(Rows, Energy, middle, To));
+                return;
+            }
+            for (int offset = From; offset < To; offset++) {
+                final int split = Width - offset;
+                long sum = 0;
+                for (var row : Rows) {
+                    for (int x = 0; x < split; x++) {
+                        sum += difference(row[x], row[x + offset]);
+                    }
+                    for (int x = split; x < Width; x++) {
+                        sum += difference(row[x], row[x - split]);
+                    }
+                }
+                Energy[offset] = (double) sum / ((long) Rows.length * Width);
+            }
+        }
+
+        private static int difference(int a, int b) {
+            return Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF))
+                    + Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF))
+                    + Math.abs((a & 0xFF) - (b & 0xFF));
+        }
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.File.PropertiesHelper;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * a {@code strings} like scanner. finds the runs of printable ASCII and
+ * UTF-16LE characters (at both byte alignments. so big endian text shows up as
+ * well) of at least a minimum length, and runs the flag patterns against them.
+ * <br>
+ * the scanner is streaming: the data is fed on chunks and only the current
+ * run of each encoding is kept (up to {@link #MAX_RUN} characters, longer runs
+ * are split keeping a small overlap so a flag is not lost on the split) so the
+ * memory used does not depend on the size of the source. the amount of
+ * strings and flags reported per source is capped as well.
+ * <br>
+ * the flag patterns are compiled once. the default ones are read from the
+ * {@code Regex.properties} ({@code FlagPattern.N} keys)
+ *
+ * @author Eduardo Vindas
+ */
+public final class StringScanner {
+
+    public static final int DEFAULT_MIN_LENGTH = 6;
+    /**
+     * the default max amount of plain strings reported per source.
+     */
+    public static final int DEFAULT_STRING_LIMIT = 500;
+    /**
+     * the max amount of flags reported per source.
+     */
+    public static final int FLAG_LIMIT = 100;
+    /**
+     * the longest run kept. longer runs are split.
+     */
+    static final int MAX_RUN = 2048;
+    /**
+     * the characters of a split run that are carried to the next part.
+     */
+    private static final int OVERLAP = 256;
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final boolean[] PRINTABLE = new boolean[256];
+    /**
+     * the default flag patterns.
+     */
+    public static final List<Pattern> DEFAULT_FLAGS = loadFlags();
+
+    static {
+        for (int c = 0x20; c < 0x7F; c++) {
+            PRINTABLE[c] = true;
+        }
+        PRINTABLE['\t'] = true;
+    }
+
+    private final int MinLength;
+    private final int StringLimit;
+    private final List<Pattern> Flags;
+    private final boolean StopOnFirstFlag;
+
+    /**
+     * creates a scanner with the default settings and flags.
+     */
+    public StringScanner() {
+        this(DEFAULT_MIN_LENGTH, DEFAULT_STRING_LIMIT, DEFAULT_FLAGS, false);
+    }
+
+    /**
+     * creates a new scanner.
+     *
+     * @param MinLength the minimum length (in characters) of the strings to
+     * report.
+     * @param StringLimit the max amount of plain strings to report per
+     * source. (0 to report flags only)
+     * @param Flags the flag patterns to look for.
+     * @param StopOnFirstFlag if the scan of a source stops as soon as a flag is
+     * found on it.
+     */
+    public StringScanner(int MinLength, int StringLimit, List<Pattern> Flags, boolean StopOnFirstFlag) {
+        if (MinLength < 1 || MinLength > MAX_RUN - OVERLAP) {
+            throw new IllegalArgumentException("Invalid minimum length: " + MinLength);
+        }
+        this.MinLength = MinLength;
+        this.StringLimit = Math.max(0, StringLimit);
+        this.Flags = List.copyOf(Objects.requireNonNull(Flags, "the flags cannot be null"));
+        this.StopOnFirstFlag = StopOnFirstFlag;
+    }
+
+    private static List<Pattern> loadFlags() {
+        var list = new ArrayList<Pattern>();
+        try {
+            var properties = new PropertiesHelper("/com/aeongames/stegsolveplus/text/Regex.properties", false, StringScanner.class);
+            for (int index = 1;; index++) {
+                var regex = properties.getProperty("FlagPattern." + index);
+                if (regex == null) {
+                    break;
+                }
+                list.add(Pattern.compile(regex));
+            }
+        } catch (IOException | RuntimeException ex) {
+            LoggingHelper.getLogger(StringScanner.class.getName()).log(Level.SEVERE, "unable to load the flag patterns", ex);
+        }
+        if (list.isEmpty()) {
+            list.add(Pattern.compile("(?i)(?:flag|key|(?<![A-Za-z0-9_])ctf)\\{[^{}\\r\\n]{1,128}\\}"));
+        }
+        return List.copyOf(list);
+    }
+
+    /**
+     * reads flag patterns from a file. one regular expression per line. the
+     * empty lines and the ones that start with # are skipped.
+     *
+     * @param File the file to read. (UTF-8)
+     * @return the patterns.
+     * @throws IOException if the file cannot be read.
+     * @throws PatternSyntaxException if a line is not a valid expression.
+     */
+    public static List<Pattern> readFlags(Path File) throws IOException {
+        var list = new ArrayList<Pattern>();
+        for (var line : Files.readAllLines(File, StandardCharsets.UTF_8)) {
+            var regex = line.strip();
+            if (!regex.isEmpty() && !regex.startsWith("#")) {
+                list.add(Pattern.compile(regex));
+            }
+        }
+        return List.copyOf(list);
+    }
+
+    /**
+     * starts a new scan.
+     *
+     * @param Source the name of the source. (to be reported on the results)
+     * @param Listener the consumer of the strings found.
+     * @return a new scan to feed the data into.
+     */
+    public Scan newScan(String Source, Consumer<FoundString> Listener) {
+        return new Scan(Source, Listener);
+    }
+
+    /**
+     * scans the bytes of the file. thru a {@link MappedFile}.
+     *
+     * @param File the file to scan
+     * @param Listener the listener that is notified as soon as a string is
+     * found. can be null.
+     * @return the strings found.
+     * @throws IOException if the file cannot be read.
+     */
+    public List<FoundString> scanFile(Path File, Consumer<FoundString> Listener) throws IOException {
+        return scanFile(MappedFile.open(File), Listener);
+    }
+
+    /**
+     * scans the bytes of the mapped file. (see {@link MappedFile})
+     *
+     * @param File the file to scan
+     * @param Listener the listener that is notified as soon as a string is
+     * found. can be null.
+     * @return the strings found.
+     */
+    public List<FoundString> scanFile(MappedFile File, Consumer<FoundString> Listener) {
+        var results = new ArrayList<FoundString>();
+        var scan = newScan(SignatureCarver.FILE_SOURCE, found -> {
+            results.add(found);
+            if (Listener != null) {
+                Listener.accept(found);
+            }
+        });
+        final long size = File.size();
+        for (long position = 0; position < size; position += MAP_WINDOW) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            var window = File.slice(position, (int) Math.min(MAP_WINDOW, size - position));
+            if (!scan.feed(window)) {
+                break;
+            }
+        }
+        scan.finish();
+        return results;
+    }
+
+    /**
+     * scans several bit streams of the image. the streams are produced on a
+     * single pass over the image.
+     *
+     * @param Source the image
+     * @param Streams the streams to scan
+     * @param Listener the listener that is notified as soon as a string is
+     * found. can be null.
+     * @param Cancelled checked on each chunk. to stop all the scans.
+     * @return the strings found.
+     */
+    List<FoundString> scanStreams(CanvasContainer Source, List<BitPlaneStream> Streams, Consumer<FoundString> Listener, BooleanSupplier Cancelled) {
+        var results = new ArrayList<FoundString>();
+        Consumer<FoundString> collector = found -> {
+            results.add(found);
+            if (Listener != null) {
+                Listener.accept(found);
+            }
+        };
+        var scans = new ArrayList<Scan>(Streams.size());
+        var sinks = new ArrayList<BitPlaneStream.ChunkSink>(Streams.size());
+        for (var stream : Streams) {
+            var scan = newScan(stream.Name, collector);
+            scans.add(scan);
+            sinks.add((data, length) -> !Cancelled.getAsBoolean() && scan.feed(data, 0, length));
+        }
+        BitPlaneStream.streamAll(Source, Streams, sinks);
+        if (!Cancelled.getAsBoolean()) {
+            for (var scan : scans) {
+                scan.finish();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * scans the JSteg like LSB stream of the DCT coefficients of a JPEG.
+     *
+     * @param Coefficients the coefficients of the JPEG
+     * @param Listener notified as each string is found. can be null.
+     * @param Cancelled checked between chunks. the scan stops once true.
+     * @return the strings found.
+     */
+    List<FoundString> scanCoefficients(JPEGCoefficients Coefficients, Consumer<FoundString> Listener, BooleanSupplier Cancelled) {
+        var results = new ArrayList<FoundString>();
+        var scan = newScan(JPEGCoefficients.LSB_SOURCE, found -> {
+            results.add(found);
+            if (Listener != null) {
+                Listener.accept(found);
+            }
+        });
+        Coefficients.streamLSB((data, length) -> !Cancelled.getAsBoolean() && scan.feed(data, 0, length));
+        if (!Cancelled.getAsBoolean()) {
+            scan.finish();
+        }
+        return results;
+    }
+
+    /**
+     * scans a LSB stream of the palette of a indexed image.
+     *
+     * @param Palette the palette of the image
+     * @param Order the stream to scan
+     * @param Listener notified as each string is found. can be null.
+     * @param Cancelled checked between chunks. the scan stops once true.
+     * @return the strings found.
+     */
+    List<FoundString> scanPalette(PaletteImage Palette, PaletteImage.LSBOrder Order, Consumer<FoundString> Listener, BooleanSupplier Cancelled) {
+        var results = new ArrayList<FoundString>();
+        var scan = newScan(Order.Name, found -> {
+            results.add(found);
+            if (Listener != null) {
+                Listener.accept(found);
+            }
+        });
+        Palette.streamLSB(Order, (data, length) -> !Cancelled.getAsBoolean() && scan.feed(data, 0, length));
+        if (!Cancelled.getAsBoolean()) {
+            scan.finish();
+        }
+        return results;
+    }
+
+    /**
+     * writes the strings as CSV (with a header line) into the writer.
+     *
+     * @param Strings the strings to write
+     * @param Output where to write
+     * @throws IOException if the writer fails.
+     */
+    public static void writeCSV(List<FoundString> Strings, Writer Output) throws IOException {
+        Output.write("source,offset,offset_hex,encoding,flag,text\n");
+        for (var found : Strings) {
+            Output.write(String.format("%s,%d,%s,%s,%s,%s\n",
+                    quote(found.Source()),
+                    found.Offset(),
+                    found.getHexOffset(),
+                    found.Encoding(),
+                    found.isFlag() ? quote(found.Flag()) : "",
+                    quote(found.Text())));
+        }
+        Output.flush();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * a run of printable characters for one encoding.
+     */
+    private static final class Run {
+
+        private final String Encoding;
+        /**
+         * the bytes per character.
+         */
+        private final int Unit;
+        private final char[] Buffer = new char[MAX_RUN];
+        private int Length;
+        private long Start;
+        /**
+         * the characters at the start of the buffer that were already
+         * reported (carried from a split)
+         */
+        private int Carried;
+
+        private Run(String encoding, int unit) {
+            Encoding = encoding;
+            Unit = unit;
+        }
+    }
+
+    /**
+     * the state of the scan of a single source. the data is fed in order.
+     * this is not thread safe. each source needs its own scan.
+     */
+    public final class Scan {
+
+        private final String Source;
+        private final Consumer<FoundString> Listener;
+        private final Run Ascii = new Run("ASCII", 1);
+        /**
+         * the UTF-16 runs that start on even and odd offsets.
+         */
+        private final Run[] Wide = {new Run("UTF-16LE", 2), new Run("UTF-16LE", 2)};
+        /**
+         * the low byte of the current UTF-16 unit for each alignment. (-1 if
+         * none)
+         */
+        private final int[] Low = {-1, -1};
+        private long Position;
+        private int StringsReported;
+        private int FlagsReported;
+        private boolean Stopped;
+
+        private Scan(String Source, Consumer<FoundString> Listener) {
+            this.Source = Source;
+            this.Listener = Objects.requireNonNull(Listener, "the listener cannot be null");
+        }
+
+        /**
+         * feeds the bytes between {@code From} (inclusive) and {@code To}
+         * (exclusive)
+         *
+         * @return false if the scan is stopped and no more data is required.
+         */
+        public boolean feed(byte[] data, int From, int To) {
+            Objects.checkFromToIndex(From, To, data.length);
+            for (int i = From; i < To && !Stopped; i++) {
+                consume(data[i] & 0xFF);
+            }
+            return !Stopped;
+        }
+
+        /**
+         * feeds the remaining bytes of the buffer. (the position of the buffer
+         * is not changed)
+         *
+         * @return false if the scan is stopped and no more data is required.
+         */
+        public boolean feed(ByteBuffer data) {
+            final int end = data.limit();
+            for (int i = data.position(); i < end && !Stopped; i++) {
+                consume(data.get(i) & 0xFF);
+            }
+            return !Stopped;
+        }
+
+        /**
+         * ends the scan. reporting the runs that are still open.
+         */
+        public void finish() {
+            end(Ascii);
+            end(Wide[0]);
+            end(Wide[1]);
+        }
+
+        public boolean isStopped() {
+            return Stopped;
+        }
+
+        private void consume(int value) {
+            final long position = Position++;
+            if (PRINTABLE[value]) {
+                append(Ascii, (char) value, position);
+            } else {
+                end(Ascii);
+            }
+            //this byte is the low byte for the alignment of its offset.
+            //and the high byte for the other one.
+            final int alignment = (int) (position & 1);
+            final int other = alignment ^ 1;
+            var low = Low[other];
+            if (low >= 0) {
+                if (value == 0 && PRINTABLE[low]) {
+                    append(Wide[other], (char) low, position - 1);
+                } else {
+                    end(Wide[other]);
+                }
+                Low[other] = -1;
+            }
+            Low[alignment] = value;
+        }
+
+        private void append(Run run, char value, long position) {
+            if (Stopped) {
+                return;
+            }
+            if (run.Length == 0) {
+                run.Start = position;
+                run.Carried = 0;
+            } else if (run.Length == MAX_RUN) {
+                report(run);
+                //keep the tail. so a flag that cross the split is found.
+                System.arraycopy(run.Buffer, MAX_RUN - OVERLAP, run.Buffer, 0, OVERLAP);
+                run.Start += (long) (MAX_RUN - OVERLAP) * run.Unit;
+                run.Length = OVERLAP;
+                run.Carried = OVERLAP;
+            }
+            run.Buffer[run.Length++] = value;
+        }
+
+        private void end(Run run) {
+            if (run.Length >= MinLength && !Stopped) {
+                report(run);
+            }
+            run.Length = 0;
+            run.Carried = 0;
+        }
+
+        private void report(Run run) {
+            var text = new String(run.Buffer, 0, run.Length);
+            if (StringsReported < StringLimit && run.Length > run.Carried) {
+                StringsReported++;
+                Listener.accept(new FoundString(Source, run.Start + (long) run.Carried * run.Unit,
+                        run.Encoding, text.substring(run.Carried), null));
+            }
+            //the patterns might overlap (CTF{...} is a flag for more than one) each match is reported once.
+            Set<Long> reported = null;
+            for (var flag : Flags) {
+                var matcher = flag.matcher(text);
+                while (matcher.find() && FlagsReported < FLAG_LIMIT) {
+                    if (matcher.end() <= run.Carried) {
+                        //already reported before the split
+                        continue;
+                    }
+                    if (reported == null) {
+                        reported = new HashSet<>();
+                    }
+                    if (!reported.add(((long) matcher.start() << 32) | matcher.end())) {
+                        continue;
+                    }
+                    FlagsReported++;
+                    Listener.accept(new FoundString(Source, run.Start + (long) matcher.start() * run.Unit,
+                            run.Encoding, matcher.group(), flag.pattern()));
+                    if (StopOnFirstFlag) {
+                        Stopped = true;
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+/**
+ * a structural element of a file (a PNG chunk, a JPEG segment and so on)
+ *
+ * @param Name the name or type of the element
+ * @param Offset the offset where the element starts on the file
+ * @param Length the length of the element data (in bytes)
+ * @param Details a human readable description of the element content.
+ * @param Suspicious if the element is unusual or invalid and deserves a look.
+ * @author Eduardo Vindas
+ */
+public record StructureEntry(String Name, long Offset, long Length, String Details, boolean Suspicious) {
+
+    /**
+     * @return the offset as a hexadecimal string (0x prefixed)
+     */
+    public String getHexOffset() {
+        return String.format("0x%08X", Offset);
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * downloads the images to analyze. {@link javax.imageio.ImageIO#read(URL)}
+ * blocks with no timeout, tells nothing while it downloads and a second look
+ * at the same link downloads it again. the spooler instead:
+ * <pre>
+ * streams the body to a file on the spool folder. (a {@value #BUFFER_SIZE}
+ *   bytes buffer is all it keeps on memory)
+ * reports the progress.
+ * refuses a body larger than the max size. (from the Content-Length or while
+ *   it downloads)
+ * times out the connection and a download that stalls.
+ * resumes a broken download with a HTTP Range request. (If-Range keeps a
+ *   changed file from being mixed with the old part)
+ * names the downloaded file by the SHA-256 of its content and keeps a index
+ *   of the links. so a link is fetched once and two links to the same file
+ *   share it.
+ * </pre> the file links are not copied and the other protocols (ftp) are
+ * downloaded with {@link java.net.URLConnection} timeouts. (no resume)
+ *
+ * @author Eduardo Vindas
+ */
+public final class URLSpooler {
+
+    /**
+     * the default max size of a download. (512 MB)
+     */
+    public static final long DEFAULT_MAX_BYTES = 512L * 1024 * 1024;
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(15);
+    /**
+     * the time a download can go without data before it is dropped. (and
+     * resumed if there are attempts left)
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * the amount of bytes between progress reports.
+     */
+    private static final int PROGRESS_STEP = 256 * 1024;
+    private static final int ATTEMPTS = 3;
+    private static final String INDEX_FILE = "index.properties";
+    private static final String PART = ".part", VALIDATOR = ".validator";
+    private static final Logger loger = LoggingHelper.getLogger(URLSpooler.class.getName());
+    /**
+     * closes the downloads that stall. shared by all the spoolers.
+     */
+    private static final ScheduledExecutorService Watchdog = Executors.newSingleThreadScheduledExecutor(run -> {
+        var thread = new Thread(run, "URLSpooler watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static URLSpooler Default;
+
+    /**
+     * reports the progress of a download.
+     */
+    @FunctionalInterface
+    public interface Progress {
+
+        /**
+         * @param Received the bytes on the spool file. (resumed ones included)
+         * @param Total the size of the file. or -1 if the server did not tell.
+         */
+        void update(long Received, long Total);
+    }
+
+    /**
+     * the download went over the max size. not worth another attempt.
+     */
+    private static final class LimitException extends IOException {
+
+        private LimitException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * the lock of a link. with the threads that use it. (changed only inside
+     * of the compute of {@link #Locks})
+     */
+    private static final class Lock {
+
+        private int Users;
+    }
+
+    private final Path Directory;
+    private final long MaxBytes;
+    private final Duration IdleTimeout;
+    private final HttpClient Client;
+    /**
+     * the link to the name of the downloaded file.
+     */
+    private final Properties Index = new Properties();
+    /**
+     * the lock of each link being fetched. dropped once no one uses it.
+     */
+    private final ConcurrentHashMap<String, Lock> Locks = new ConcurrentHashMap<>();
+
+    /**
+     * creates a spooler.
+     *
+     * @param Directory the spool folder. created if missing. the links already
+     * on its index are not fetched again.
+     * @param MaxBytes the max size of a download
+     * @param ConnectTimeout the max time to connect
+     * @param IdleTimeout the max time without data (and to get the response)
+     * @throws IOException if the folder cannot be created or its index read.
+     */
+    public URLSpooler(Path Directory, long MaxBytes, Duration ConnectTimeout, Duration IdleTimeout) throws IOException {
+        this.Directory = Files.createDirectories(Objects.requireNonNull(Directory, "the folder is null"));
+        if (MaxBytes <= 0) {
+            throw new IllegalArgumentException("invalid max size");
+        }
+        this.MaxBytes = MaxBytes;
+        this.IdleTimeout = Objects.requireNonNull(IdleTimeout, "the idle timeout is null");
+        Client = HttpClient.newBuilder()
+                .connectTimeout(Objects.requireNonNull(ConnectTimeout, "the connect timeout is null"))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        var index = Directory.resolve(INDEX_FILE);
+        if (Files.isRegularFile(index)) {
+            try (var in = Files.newInputStream(index)) {
+                Index.load(in);
+            }
+        }
+    }
+
+    /**
+     * @return the spooler of the application. (on the temporal folder with
+     * the default limits)
+     * @throws IOException if the spool folder cannot be created.
+     */
+    public static synchronized URLSpooler getDefault() throws IOException {
+        if (Default == null) {
+            Default = new URLSpooler(Path.of(System.getProperty("java.io.tmpdir"), "StegSolvePlusSpool"),
+                    DEFAULT_MAX_BYTES, DEFAULT_CONNECT_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+        }
+        return Default;
+    }
+
+    public Path getDirectory() {
+        return Directory;
+    }
+
+    /**
+     * gets the file of a link. downloading it if it was not before.
+     *
+     * @param Link the link
+     * @param Listener the progress listener. called on the calling thread. can
+     * be null.
+     * @return the local file. <strong>do not modify it</strong> other links
+     * might share it.
+     * @throws IOException if the download fails (after the retries) or is
+     * larger than the max size.
+     */
+    public Path fetch(URL Link, Progress Listener) throws IOException {
+        Objects.requireNonNull(Link, "the link is null");
+        if ("file".equalsIgnoreCase(Link.getProtocol())) {
+            try {
+                return Path.of(Link.toURI());
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                throw new IOException("invalid file link " + Link, ex);
+            }
+        }
+        final var link = Link.toString();
+        final var key = HexFormat.of().formatHex(digest().digest(link.getBytes(StandardCharsets.UTF_8)));
+        //the users are counted inside of compute. so a lock is not dropped while a other thread waits on it
+        final var lock = Locks.compute(key, (k, held) -> {
+            held = held == null ? new Lock() : held;
+            held.Users++;
+            return held;
+        });
+        try {
+            synchronized (lock) {
+                return fetchLocked(Link, link, key, Listener);
+            }
+        } finally {
+            Locks.computeIfPresent(key, (k, held) -> --held.Users == 0 ? null : held);
+        }
+    }
+
+    /**
+     * fetches the link. holding the lock of its key.
+     */
+    private Path fetchLocked(URL Link, String Name, String Key, Progress Listener) throws IOException {
+        var cached = lookup(Name);
+        if (cached != null) {
+            loger.log(Level.INFO, "{0} already spooled at {1}", new Object[]{Name, cached});
+            return cached;
+        }
+        final var part = Directory.resolve(Key + PART);
+        final var protocol = Link.getProtocol().toLowerCase();
+        if (protocol.equals("http") || protocol.equals("https")) {
+            downloadHTTP(Link, part, Directory.resolve(Key + VALIDATOR), Listener);
+        } else {
+            download(Link, part, Listener);
+        }
+        return store(Name, part, extension(Link));
+    }
+
+    /**
+     * spools a stream (a upload) with the limits of a download. the file is
+     * not shared nor indexed. it belongs to the caller. (who deletes it once
+     * done)
+     *
+     * @param Body the data. read to the end. (not closed)
+     * @param Length the size of the data. -1 if unknown
+     * @param Extension the extension of the file. (with the dot) can be empty
+     * @return the local file.
+     * @throws IOException if the stream fails, stalls or is larger than the
+     * max size. (the part received is deleted)
+     */
+    public Path spool(InputStream Body, long Length, String Extension) throws IOException {
+        Objects.requireNonNull(Body, "the body is null");
+        if (Length > MaxBytes) {
+            throw new LimitException(String.format("the data is %d bytes. the max is %d", Length, MaxBytes));
+        }
+        final var file = Files.createTempFile(Directory, "upload-", Extension == null ? "" : Extension);
+        try {
+            copy(Body, file, 0, Length, null);
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        return file;
+    }
+
+    /**
+     * @return the spooled file of the link. or null if is not spooled.
+     */
+    private Path lookup(String link) {
+        String name;
+        synchronized (Index) {
+            name = Index.getProperty(link);
+        }
+        if (name == null) {
+            return null;
+        }
+        var file = Directory.resolve(name);
+        if (Files.isRegularFile(file)) {
+            return file;
+        }
+        synchronized (Index) {
+            Index.remove(link);
+        }
+        return null;
+    }
+
+    /**
+     * names the downloaded part by its content and adds the link (if any) to
+     * the index.
+     */
+    private Path store(String link, Path part, String extension) throws IOException {
+        var digest = digest();
+        var buffer = new byte[BUFFER_SIZE];
+        try (var in = Files.newInputStream(part)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        var file = Directory.resolve(HexFormat.of().formatHex(digest.digest()) + extension);
+        if (Files.exists(file)) {
+            Files.delete(part);//the same content from other link.
+        } else {
+            Files.move(part, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (link == null) {
+            return file;
+        }
+        synchronized (Index) {
+            Index.setProperty(link, file.getFileName().toString());
+            var index = Directory.resolve(INDEX_FILE);
+            var tmp = Directory.resolve(INDEX_FILE + ".tmp");
+            try (var out = Files.newOutputStream(tmp)) {
+                Index.store(out, "spooled links");
+            }
+            Files.move(tmp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return file;
+    }
+
+    private void downloadHTTP(URL Link, Path part, Path validatorFile, Progress Listener) throws IOException {
+        final URI uri;
+        try {
+            uri = Link.toURI();
+        } catch (URISyntaxException ex) {
+            throw new IOException("invalid link " + Link, ex);
+        }
+        IOException failure = null;
+        for (int attempt = 1; attempt <= ATTEMPTS; attempt++) {
+            long offset = Files.exists(part) ? Files.size(part) : 0;
+            final String validator = offset > 0 && Files.exists(validatorFile)
+                    ? Files.readString(validatorFile, StandardCharsets.UTF_8).strip() : null;
+            var request = HttpRequest.newBuilder(uri).timeout(IdleTimeout).GET();
+            if (offset > 0) {
+                request.header("Range", String.format("bytes=%d-", offset));
+                if (validator != null && !validator.isEmpty()) {
+                    request.header("If-Range", validator);
+                }
+            }
+            HttpResponse<InputStream> response;
+            try {
+                response = Client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("the download was interrupted");
+            } catch (IOException ex) {
+                failure = ex;
+                loger.log(Level.WARNING, String.format("attempt %d to download %s failed", attempt, Link), ex);
+                continue;
+            }
+            try (var body = response.body()) {
+                final var headers = response.headers();
+                long total = headers.firstValueAsLong("Content-Length").orElse(-1);
+                switch (response.statusCode()) {
+                    case 200 -> {
+                        offset = 0;//a full body. (the server ignored the range or the file changed)
+                    }
+                    case 206 -> {
+                        var range = headers.firstValue("Content-Range").orElse("");
+                        if (!range.startsWith(String.format("bytes %d-", offset))) {
+                            throw new IOException("unexpected range on the response: " + range);
+                        }
+                        final int slash = range.lastIndexOf('/');
+                        try {
+                            total = slash >= 0 && !range.endsWith("*") ? Long.parseLong(range.substring(slash + 1).strip()) : -1;
+                        } catch (NumberFormatException ex) {
+                            throw new IOException("unexpected range on the response: " + range, ex);
+                        }
+                    }
+                    case 416 -> {
+                        //the part might already be the whole file.
+                        var range = headers.firstValue("Content-Range").orElse("");
+                        if (range.equals(String.format("bytes */%d", offset))) {
+                            return;
+                        }
+                        Files.deleteIfExists(part);
+                        continue;
+                    }
+                    default ->
+                        throw new IOException(String.format("the server answered %d for %s", response.statusCode(), Link));
+                }
+                if (total > MaxBytes) {
+                    Files.deleteIfExists(part);
+                    throw new LimitException(String.format("%s is %d bytes. the max is %d", Link, total, MaxBytes));
+                }
+                var newValidator = headers.firstValue("ETag").or(() -> headers.firstValue("Last-Modified")).orElse("");
+                Files.writeString(validatorFile, newValidator, StandardCharsets.UTF_8);
+                final long received = copy(body, part, offset, total, Listener);
+                if (total < 0 || received == total) {
+                    Files.deleteIfExists(validatorFile);
+                    return;
+                }
+                failure = new IOException(String.format("the download ended at %d of %d bytes", received, total));
+            } catch (LimitException ex) {
+                Files.deleteIfExists(part);
+                Files.deleteIfExists(validatorFile);
+                throw ex;
+            } catch (InterruptedIOException ex) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw ex;
+                }
+                failure = ex;
+            } catch (IOException ex) {
+                failure = ex;
+            }
+            loger.log(Level.WARNING, String.format("attempt %d to download %s failed. resuming", attempt, Link), failure);
+        }
+        throw failure != null ? failure : new IOException("unable to download " + Link);
+    }
+
+    /**
+     * downloads with a {@link java.net.URLConnection}. (the protocols other
+     * than HTTP) no resume.
+     */
+    private void download(URL Link, Path part, Progress Listener) throws IOException {
+        var connection = Link.openConnection();
+        connection.setConnectTimeout((int) Math.min(Integer.MAX_VALUE, DEFAULT_CONNECT_TIMEOUT.toMillis()));
+        connection.setReadTimeout((int) Math.min(Integer.MAX_VALUE, IdleTimeout.toMillis()));
+        final long total = connection.getContentLengthLong();
+        if (total > MaxBytes) {
+            throw new IOException(String.format("%s is %d bytes. the max is %d", Link, total, MaxBytes));
+        }
+        try (var in = connection.getInputStream()) {
+            copy(in, part, 0, total, Listener);
+        } catch (IOException ex) {
+            Files.deleteIfExists(part);
+            throw ex;
+        }
+    }
+
+    /**
+     * copies the body to the part. from the offset. the body is closed if no
+     * data comes for the idle timeout.
+     *
+     * @return the size of the part
+     */
+    private long copy(InputStream body, Path part, long offset, long total, Progress Listener) throws IOException {
+        final var options = offset > 0
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING};
+        final var lastData = new AtomicLong(System.nanoTime());
+        final long idle = IdleTimeout.toNanos();
+        final var stalled = new AtomicBoolean();
+        var watch = Watchdog.scheduleWithFixedDelay(() -> {
+            if (System.nanoTime() - lastData.get() > idle) {
+                stalled.set(true);
+                try {
+                    body.close();
+                } catch (IOException ex) {
+                    //closing is all we want.
+                }
+            }
+        }, Math.max(1, idle / 4), Math.max(1, idle / 4), TimeUnit.NANOSECONDS);
+        long received = offset;
+        long reported = received;
+        try (OutputStream out = Files.newOutputStream(part, options)) {
+            var buffer = new byte[BUFFER_SIZE];
+            int read;
+            if (Listener != null) {
+                Listener.update(received, total);
+            }
+            while ((read = body.read(buffer)) >= 0) {
+                lastData.set(System.nanoTime());
+                if (received + read > MaxBytes) {
+                    throw new LimitException(String.format("the download is over the max of %d bytes", MaxBytes));
+                }
+                out.write(buffer, 0, read);
+                received += read;
+                if (Listener != null && received - reported >= PROGRESS_STEP) {
+                    reported = received;
+                    Listener.update(received, total);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("the download was interrupted");
+                }
+            }
+        } catch (IOException ex) {
+            if (stalled.get() && !(ex instanceof LimitException)) {
+                throw new InterruptedIOException(String.format("no data for %d s", IdleTimeout.toSeconds()));
+            }
+            throw ex;
+        } finally {
+            watch.cancel(false);
+        }
+        if (stalled.get()) {
+            throw new InterruptedIOException(String.format("no data for %d s", IdleTimeout.toSeconds()));
+        }
+        if (Listener != null) {
+            Listener.update(received, total);
+        }
+        return received;
+    }
+
+    private static String extension(URL Link) {
+        var path = Link.getPath();
+        final int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/') || path.length() - dot > 6) {
+            return "";
+        }
+        var extension = path.substring(dot).toLowerCase();
+        return extension.matches("\\.[a-z0-9]+") ? extension : "";
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the segments of the {@link JPEGInspector} whose length is too short for
+ * what they should hold.
+ *
+ * @author Eduardo Vindas
+ */
+class JPEGInspectorTest {
+
+    /**
+     * @return the bytes as unsigned values. (so 0xFF can be written)
+     */
+    private static ByteBuffer bytes(int... Values) {
+        var data = ByteBuffer.allocate(Values.length);
+        for (int value : Values) {
+            data.put((byte) value);
+        }
+        return data.flip();
+    }
+
+    private static StructureEntry entry(FileStructure Structure, String Name) {
+        return Structure.getEntries().stream().filter(entry -> entry.Name().equals(Name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void marksTheShortSegmentsAsMalformed() throws IOException {
+        var structure = JPEGInspector.inspect(bytes(0xFF, 0xD8,
+                0xFF, 0xDD, 0x00, 0x02, //DRI without the interval
+                0xFF, 0xC0, 0x00, 0x05, 0x08, 0x00, 0x10, //SOF0 without the width and the components
+                0xFF, 0xDA, 0x00, 0x02, //SOS without the header
+                0xFF, 0xD9));
+        assertEquals("malformed restart interval", entry(structure, "DRI").Details());
+        assertEquals("malformed frame header", entry(structure, "SOF0").Details());
+        assertEquals("malformed scan header", entry(structure, "SOS").Details());
+        assertTrue(entry(structure, "DRI").Suspicious());
+        assertTrue(entry(structure, "SOF0").Suspicious());
+        assertTrue(entry(structure, "EOI").Offset() > 0);
+    }
+
+    @Test
+    void readsTheFrameHeader() throws IOException {
+        var structure = JPEGInspector.inspect(bytes(0xFF, 0xD8,
+                0xFF, 0xDD, 0x00, 0x04, 0x00, 0x10,
+                0xFF, 0xC0, 0x00, 0x0B, 0x08, 0x00, 0x10, 0x00, 0x20, 0x01, 0x01, 0x22, 0x00,
+                0xFF, 0xD9));
+        assertEquals("restart interval 16 MCUs", entry(structure, "DRI").Details());
+        assertTrue(entry(structure, "SOF0").Details().contains("32x16"), entry(structure, "SOF0").Details());
+        assertTrue(entry(structure, "SOF0").Details().contains("(2x2)"), entry(structure, "SOF0").Details());
+        assertFalse(entry(structure, "SOF0").Suspicious());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the thumbnail check of the {@link StegnoAnalyzer}. on JPEG files with a
+ * EXIF thumbnail written here.
+ *
+ * @author Eduardo Vindas
+ */
+class StegnoAnalyzerTest {
+
+    private static final int WIDTH = 320, HEIGHT = 240;
+    @TempDir
+    Path Folder;
+
+    /**
+     * @return the image. black on the left half and white on the right one.
+     * (or the other way if inverted)
+     */
+    private static BufferedImage halves(int Width, int Height, boolean Inverted) {
+        var image = new BufferedImage(Width, Height, BufferedImage.TYPE_INT_RGB);
+        var g = image.createGraphics();
+        g.setColor(Inverted ? Color.WHITE : Color.BLACK);
+        g.fillRect(0, 0, Width / 2, Height);
+        g.setColor(Inverted ? Color.BLACK : Color.WHITE);
+        g.fillRect(Width / 2, 0, Width - Width / 2, Height);
+        g.dispose();
+        return image;
+    }
+
+    private static byte[] jpeg(BufferedImage Image) throws IOException {
+        var out = new ByteArrayOutputStream();
+        assertTrue(ImageIO.write(Image, "jpg", out));
+        return out.toByteArray();
+    }
+
+    /**
+     * writes the JPEG of the image with a APP1 Exif segment (after the APP0)
+     * whose IFD1 points to the thumbnail.
+     */
+    private Path withThumbnail(String Name, BufferedImage Image, BufferedImage Thumbnail) throws IOException {
+        var main = jpeg(Image);
+        var thumbnail = jpeg(Thumbnail);
+        //the TIFF header, a empty IFD0 and a IFD1 with the thumbnail offset and length
+        var tiff = ByteBuffer.allocate(44 + thumbnail.length);
+        tiff.putShort((short) 0x4D4D).putShort((short) 42).putInt(8);
+        tiff.putShort((short) 0).putInt(14);
+        tiff.putShort((short) 2);
+        tiff.putShort((short) 0x0201).putShort((short) 4).putInt(1).putInt(44);
+        tiff.putShort((short) 0x0202).putShort((short) 4).putInt(1).putInt(thumbnail.length);
+        tiff.putInt(0);
+        tiff.put(thumbnail);
+        var id = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        final int app0End = 4 + (((main[4] & 0xFF) << 8) | (main[5] & 0xFF));
+        var file = ByteBuffer.allocate(main.length + 4 + id.length + tiff.capacity());
+        file.put(main, 0, app0End);
+        file.put((byte) 0xFF).put((byte) 0xE1).putShort((short) (2 + id.length + tiff.capacity()));
+        file.put(id).put(tiff.array());
+        file.put(main, app0End, main.length - app0End);
+        return Files.write(Folder.resolve(Name), file.array());
+    }
+
+    private static FileStructure load(StegnoAnalyzer Analyst) throws IOException {
+        try {
+            Analyst.loadImage(null, null);
+            var structure = Analyst.getFileStructure();
+            assertNotNull(structure);
+            assertTrue(structure.hasThumbnail(), "the thumbnail was not found");
+            return structure;
+        } finally {
+            Analyst.close();
+        }
+    }
+
+    private static boolean hasMismatch(FileStructure Structure) {
+        return Structure.getEntries().stream().anyMatch(entry -> entry.Name().equals("Thumbnail mismatch"));
+    }
+
+    @Test
+    void reportsAThumbnailOfAnotherImage() throws IOException {
+        var file = withThumbnail("other.jpg", halves(WIDTH, HEIGHT, false), halves(160, 120, true));
+        assertTrue(hasMismatch(load(new StegnoAnalyzer(file))));
+    }
+
+    @Test
+    void acceptsTheThumbnailOfTheImage() throws IOException {
+        var file = withThumbnail("same.jpg", halves(WIDTH, HEIGHT, false), halves(160, 120, false));
+        assertFalse(hasMismatch(load(new StegnoAnalyzer(file))));
+    }
+
+    @Test
+    void doesNotCompareTheThumbnailWithARegion() throws IOException {
+        var file = withThumbnail("same.jpg", halves(WIDTH, HEIGHT, false), halves(160, 120, false));
+        //the left half is black. the whole thumbnail would not match it.
+        var structure = load(new StegnoAnalyzer(file, new Rectangle(0, 0, WIDTH / 2, HEIGHT)));
+        assertFalse(hasMismatch(structure));
+        assertTrue(structure.getWarnings().isEmpty(), structure.getWarnings().toString());
+    }
+}
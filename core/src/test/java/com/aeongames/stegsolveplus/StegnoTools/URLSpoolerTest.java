@@ -0,0 +1,284 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.StegnoTools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the downloads of the {@link URLSpooler} against a local stand-in server.
+ * (breaks, changes and stalls on purpose)
+ *
+ * @author Eduardo Vindas
+ */
+class URLSpoolerTest {
+
+    private static final int SIZE = 300 * 1024;
+    private static final Duration IDLE = Duration.ofMillis(500);
+    @TempDir
+    Path Spool;
+    private HttpServer Server;
+    private ExecutorService Executor;
+    /**
+     * the Range and If-Range of each request. ("" when not sent)
+     */
+    private final List<String> Requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        Executor = Executors.newCachedThreadPool();
+        Server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        Server.setExecutor(Executor);
+        Server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        Server.stop(0);
+        Executor.shutdownNow();
+    }
+
+    private URL serve(String Path, HttpHandler Handler) throws IOException {
+        Server.createContext(Path, Exchange -> {
+            var headers = Exchange.getRequestHeaders();
+            Requests.add(String.format("%s|%s", headers.getFirst("Range") == null ? "" : headers.getFirst("Range"),
+                    headers.getFirst("If-Range") == null ? "" : headers.getFirst("If-Range")));
+            try (Exchange) {
+                Handler.handle(Exchange);
+            }
+        });
+        return URI.create(String.format("http://127.0.0.1:%d%s", Server.getAddress().getPort(), Path)).toURL();
+    }
+
+    private URLSpooler newSpooler(long MaxBytes) throws IOException {
+        return new URLSpooler(Spool, MaxBytes, Duration.ofSeconds(5), IDLE);
+    }
+
+    private static byte[] data(long Seed) {
+        var data = new byte[SIZE];
+        new Random(Seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * sends the whole body or the range asked. (if the If-Range matches)
+     * the first response is cut at the half.
+     */
+    private static HttpHandler ranged(byte[][] Content, String[] ETag, AtomicInteger Calls) {
+        return Exchange -> {
+            final int call = Calls.incrementAndGet();
+            var data = Content[0];
+            var range = Exchange.getRequestHeaders().getFirst("Range");
+            var ifRange = Exchange.getRequestHeaders().getFirst("If-Range");
+            Exchange.getResponseHeaders().set("ETag", ETag[0]);
+            int from = 0;
+            if (range != null && (ifRange == null || ifRange.equals(ETag[0]))) {
+                from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                Exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/%d", from, data.length - 1, data.length));
+                Exchange.sendResponseHeaders(206, data.length - from);
+            } else {
+                Exchange.sendResponseHeaders(200, data.length);
+            }
+            if (call == 1) {
+                //the connection breaks at the half.
+                Exchange.getResponseBody().write(data, 0, data.length / 2);
+                Exchange.getResponseBody().flush();
+                throw new IOException("connection cut");
+            }
+            Exchange.getResponseBody().write(data, from, data.length - from);
+        };
+    }
+
+    @Test
+    void resumesABrokenDownload() throws IOException {
+        var content = data(1);
+        var calls = new AtomicInteger();
+        var link = serve("/image.png", ranged(new byte[][]{content}, new String[]{"\"v1\""}, calls));
+        var file = newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(link, null);
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertEquals(2, calls.get());
+        assertEquals("|", Requests.get(0));
+        assertTrue(Requests.get(1).startsWith("bytes="), "the second request resumes: " + Requests.get(1));
+        assertTrue(Requests.get(1).endsWith("|\"v1\""), "the resume sends If-Range: " + Requests.get(1));
+        assertTrue(file.getFileName().toString().endsWith(".png"));
+    }
+
+    @Test
+    void doesNotMixAChangedFile() throws IOException {
+        var content = new byte[][]{data(1)};
+        var etag = new String[]{"\"v1\""};
+        var calls = new AtomicInteger();
+        var link = serve("/image.png", Exchange -> {
+            if (calls.get() == 1) {
+                //the file changed after the first attempt broke.
+                content[0] = data(2);
+                etag[0] = "\"v2\"";
+            }
+            ranged(content, etag, calls).handle(Exchange);
+        });
+        var file = newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(link, null);
+        assertArrayEquals(data(2), Files.readAllBytes(file));
+        assertTrue(Requests.get(1).endsWith("|\"v1\""));
+    }
+
+    @Test
+    void failsOnACorruptRangeTotal() throws IOException {
+        var content = data(7);
+        var calls = new AtomicInteger();
+        var link = serve("/corrupt", Exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                Exchange.sendResponseHeaders(200, content.length);
+                Exchange.getResponseBody().write(content, 0, content.length / 2);
+                Exchange.getResponseBody().flush();
+                throw new IOException("connection cut");
+            }
+            var range = Exchange.getRequestHeaders().getFirst("Range");
+            final int from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+            Exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/lots", from, content.length - 1));
+            Exchange.sendResponseHeaders(206, content.length - from);
+            Exchange.getResponseBody().write(content, from, content.length - from);
+        });
+        assertThrows(IOException.class, () -> newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(link, null));
+    }
+
+    @Test
+    void resumesAStalledDownload() throws IOException {
+        var content = data(3);
+        var calls = new AtomicInteger();
+        var link = serve("/stall", Exchange -> {
+            if (calls.incrementAndGet() == 1) {
+                Exchange.getResponseHeaders().set("ETag", "\"s\"");
+                Exchange.sendResponseHeaders(200, content.length);
+                Exchange.getResponseBody().write(content, 0, 1000);
+                Exchange.getResponseBody().flush();
+                try {
+                    Thread.sleep(IDLE.toMillis() * 8);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("stalled");
+            }
+            var range = Exchange.getRequestHeaders().getFirst("Range");
+            final int from = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+            Exchange.getResponseHeaders().set("Content-Range", String.format("bytes %d-%d/%d", from, content.length - 1, content.length));
+            Exchange.sendResponseHeaders(206, content.length - from);
+            Exchange.getResponseBody().write(content, from, content.length - from);
+        });
+        final long start = System.nanoTime();
+        var file = newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(link, null);
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(IDLE.multipliedBy(6)) < 0, "the stall was not cut by the idle timeout");
+    }
+
+    @Test
+    void failsWhenItStallsOnEveryAttempt() throws IOException {
+        var link = serve("/dead", Exchange -> {
+            Exchange.sendResponseHeaders(200, SIZE);
+            Exchange.getResponseBody().write(new byte[10]);
+            Exchange.getResponseBody().flush();
+            try {
+                Thread.sleep(IDLE.toMillis() * 8);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThrows(InterruptedIOException.class, () -> newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(link, null));
+    }
+
+    @Test
+    void fetchesALinkOnceAndSharesTheSameContent() throws IOException {
+        var content = data(4);
+        var calls = new AtomicInteger();
+        HttpHandler handler = Exchange -> {
+            calls.incrementAndGet();
+            Exchange.sendResponseHeaders(200, content.length);
+            Exchange.getResponseBody().write(content);
+        };
+        var first = serve("/a.png", handler);
+        var second = serve("/b.png", handler);
+        var spooler = newSpooler(URLSpooler.DEFAULT_MAX_BYTES);
+        var file = spooler.fetch(first, null);
+        assertEquals(file, spooler.fetch(first, null));
+        assertEquals(1, calls.get());
+        assertEquals(file, spooler.fetch(second, null));
+        assertEquals(2, calls.get());
+        //a new spooler on the same folder reads the index.
+        assertEquals(file, newSpooler(URLSpooler.DEFAULT_MAX_BYTES).fetch(second, null));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void refusesALargeDownload() throws IOException {
+        var declared = serve("/declared", Exchange -> {
+            Exchange.sendResponseHeaders(200, SIZE);
+            Exchange.getResponseBody().write(data(5));
+        });
+        //chunked. the size is only known while it downloads.
+        var chunked = serve("/chunked", Exchange -> {
+            Exchange.sendResponseHeaders(200, 0);
+            Exchange.getResponseBody().write(data(5));
+        });
+        var spooler = newSpooler(SIZE / 2);
+        assertThrows(IOException.class, () -> spooler.fetch(declared, null));
+        assertThrows(IOException.class, () -> spooler.fetch(chunked, null));
+        //the limit is not retried
+        assertEquals(2, Requests.size());
+        assertNoParts();
+    }
+
+    @Test
+    void spoolsEachUploadToAFileOfItsOwn() throws IOException {
+        var content = data(6);
+        var spooler = newSpooler(SIZE);
+        var first = spooler.spool(new ByteArrayInputStream(content), content.length, ".png");
+        var second = spooler.spool(new ByteArrayInputStream(content), -1, ".png");
+        assertNotEquals(first, second);
+        assertArrayEquals(content, Files.readAllBytes(first));
+        assertArrayEquals(content, Files.readAllBytes(second));
+        assertThrows(IOException.class, () -> spooler.spool(new ByteArrayInputStream(content), SIZE + 1, ""));
+        assertThrows(IOException.class, () -> spooler.spool(new ByteArrayInputStream(new byte[SIZE + 1]), -1, ""));
+        try (Stream<Path> files = Files.list(Spool)) {
+            assertEquals(2, files.count(), "the refused uploads are deleted");
+        }
+    }
+
+    private void assertNoParts() throws IOException {
+        try (Stream<Path> files = Files.list(Spool)) {
+            assertEquals(List.of(), files.filter(file -> file.toString().endsWith(".part")).toList());
+        }
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.server;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.AnalysisReport;
+import com.aeongames.stegsolveplus.StegnoTools.HeapBudget;
+import com.aeongames.stegsolveplus.StegnoTools.JsonWriter;
+import com.aeongames.stegsolveplus.StegnoTools.PNGEncoder;
+import com.aeongames.stegsolveplus.StegnoTools.ResultExporter;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import com.aeongames.stegsolveplus.StegnoTools.URLSpooler;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * a local HTTP service that analyzes images for other tools on the same
+ * machine. it listens on the loopback only. each request runs on a virtual
+ * thread. (the analysis itself runs on the common pool)
+ * <pre>
+ * POST /analyze?path=/a/file.png   analyzes a local file. (under --root if
+ *                                  set)
+ * POST /analyze?name=file.png      analyzes the body. (the upload is spooled
+ *                                  to a file of the job, see
+ *                                  {@link URLSpooler#spool}. deleted once the
+ *                                  job ends)
+ *   optional: carving=false and strings=false skip those steps.
+ *   the response streams one JSON object per line (NDJSON) as the results
+ *   complete. accepted and then the lines of the {@link AnalysisReport}.
+ *   (the transforms with the link to their image) the last one is the
+ *   summary.
+ *   a job is refused (503 with Retry-After) if its estimated heap does not
+ *   fit on the budget now. (see {@link HeapBudget}) a upload is refused
+ *   before it is read if the budget is all taken.
+ * GET /results/{job}/{name}.png    the image of a transformation. encoded when
+ *                                  asked from the result cache. (404 once it
+ *                                  was dropped from the cache)
+ * DELETE /results/{job}            drops the images of a job.
+ * GET /status                      the budget, the cache and the jobs.
+ * </pre>
+ * the requests whose Host is not a loopback name are refused. (403)
+ *
+ * @author Eduardo Vindas
+ */
+public final class AnalysisServer {
+
+    public static final int DEFAULT_PORT = 8411;
+    /**
+     * the part of the max heap the jobs can take.
+     */
+    private static final double JOBS_SHARE = 0.5;
+    /**
+     * the part of the max heap the result cache can take.
+     */
+    private static final double CACHE_SHARE = 0.25;
+    private static final String NDJSON = "application/x-ndjson; charset=utf-8";
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int RETRY_AFTER_SECONDS = 5;
+    private static final Pattern LOOPBACK_V4 = Pattern.compile("127\\.(?:(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)\\.){2}(?:25[0-5]|2[0-4]\\d|1?\\d?\\d)");
+    private static final String USAGE = "usage: AnalysisServer [--port <n>] [--root <folder>] [-v]";
+    private static final Logger loger = LoggingHelper.getLogger(AnalysisServer.class.getName());
+    /**
+     * held so the level set stays. (the loggers are weakly referenced)
+     */
+    private static final Logger RootLogger = Logger.getLogger("com.aeongames");
+    private final HttpServer Server;
+    private final ExecutorService Executor;
+    private final HeapBudget Budget;
+    private final ResultCache Cache;
+    private final AtomicLong JobCounter = new AtomicLong();
+    private final AtomicInteger Running = new AtomicInteger();
+    /**
+     * the folder ?path= can read. null for any.
+     */
+    private final Path Root;
+
+    /**
+     * creates the server on the loopback.
+     *
+     * @param Port the port. 0 for any free port (see {@link #getPort()})
+     * @throws IOException if the port cannot be bound.
+     */
+    public AnalysisServer(int Port) throws IOException {
+        this(Port, null);
+    }
+
+    /**
+     * creates the server on the loopback. the paths to analyze are limited to
+     * a folder.
+     *
+     * @param Port the port. 0 for any free port (see {@link #getPort()})
+     * @param Root the folder <code>?path=</code> can read. null for any.
+     * @throws IOException if the port cannot be bound or the folder does not
+     * exist.
+     */
+    public AnalysisServer(int Port, Path Root) throws IOException {
+        this.Root = Root == null ? null : Root.toRealPath();
+        Budget = new HeapBudget(JOBS_SHARE);
+        Cache = new ResultCache((long) (Runtime.getRuntime().maxMemory() * CACHE_SHARE));
+        Executor = Executors.newVirtualThreadPerTaskExecutor();
+        Server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), Port), 0);
+        Server.setExecutor(Executor);
+        Server.createContext("/analyze", local(this::handleAnalyze));
+        Server.createContext("/results/", local(this::handleResults));
+        Server.createContext("/status", local(this::handleStatus));
+    }
+
+    public void start() {
+        Server.start();
+    }
+
+    /**
+     * stops the server. the jobs still running are interrupted.
+     */
+    public void stop() {
+        Server.stop(0);
+        Executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return Server.getAddress().getPort();
+    }
+
+    /**
+     * the heap budget of the jobs. (the tests take it to see the refusals)
+     */
+    HeapBudget getBudget() {
+        return Budget;
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        int port = DEFAULT_PORT;
+        Path root = null;
+        boolean verbose = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-p", "--port" -> {
+                    try {
+                        port = Integer.parseInt(args[++i]);
+                    } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+                        System.err.println(USAGE);
+                        System.exit(2);
+                    }
+                }
+                case "-r", "--root" -> {
+                    if (i + 1 == args.length) {
+                        System.err.println(USAGE);
+                        System.exit(2);
+                    }
+                    root = Path.of(args[++i]);
+                }
+                case "-v", "--verbose" ->
+                    verbose = true;
+                default -> {
+                    System.err.println(USAGE);
+                    System.exit(2);
+                }
+            }
+        }
+        RootLogger.setLevel(verbose ? Level.INFO : Level.WARNING);
+        try {
+            var server = new AnalysisServer(port, root);
+            server.start();
+            System.err.println(String.format("listening on http://%s:%d/", InetAddress.getLoopbackAddress().getHostAddress(), server.getPort()));
+        } catch (IOException ex) {
+            System.err.println(String.format("unable to start the server: %s", ex.getMessage()));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * wraps a handler. the requests must name a loopback host. the server only
+     * listens on the loopback, but a web page can reach it by DNS rebinding
+     * (a name of the page that resolves to 127.0.0.1) the browser sends that
+     * name as the Host.
+     */
+    private static HttpHandler local(HttpHandler Handler) {
+        return Exchange -> {
+            if (isLoopbackHost(Exchange.getRequestHeaders().getFirst("Host"))) {
+                Handler.handle(Exchange);
+                return;
+            }
+            try (Exchange) {
+                loger.log(Level.WARNING, "refused a request for the host {0}", Exchange.getRequestHeaders().getFirst("Host"));
+                sendJSON(Exchange, 403, error("only local hosts are served"));
+            }
+        };
+    }
+
+    /**
+     * @return whether the Host header names the loopback. (localhost, 127.x.x.x
+     * or [::1] with or without a port) a request without Host (HTTP/1.0) is
+     * local as the connection can only come from the loopback.
+     */
+    static boolean isLoopbackHost(String Host) {
+        if (Host == null) {
+            return true;
+        }
+        var name = Host.strip().toLowerCase(Locale.ROOT);
+        if (name.startsWith("[")) {
+            final int end = name.indexOf(']');
+            if (end < 0 || (end + 1 < name.length() && name.charAt(end + 1) != ':')) {
+                return false;
+            }
+            return name.substring(1, end).equals("::1");
+        }
+        final int colon = name.indexOf(':');
+        if (colon >= 0) {
+            if (!name.substring(colon + 1).matches("\\d{1,5}")) {
+                return false;
+            }
+            name = name.substring(0, colon);
+        }
+        if (name.endsWith(".")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name.equals("localhost") || LOOPBACK_V4.matcher(name).matches();
+    }
+
+    private void handleAnalyze(HttpExchange Exchange) throws IOException {
+        try (Exchange) {
+            if (!"POST".equals(Exchange.getRequestMethod())) {
+                sendJSON(Exchange, 405, error("use POST"));
+                return;
+            }
+            var query = parseQuery(Exchange.getRequestURI().getRawQuery());
+            Path file, upload = null;
+            if (query.containsKey("path")) {
+                final var asked = Path.of(query.get("path"));
+                //the root is checked first. otherwise a 404 or 403 tells whether a file outside of it exists
+                try {
+                    file = asked.toRealPath();
+                } catch (IOException ex) {
+                    file = null;
+                }
+                if (Root != null && !(file != null ? file : asked.toAbsolutePath().normalize()).startsWith(Root)) {
+                    sendJSON(Exchange, 403, error(String.format("%s is not under %s", asked, Root)));
+                    return;
+                }
+                //the job reads the resolved path. a link swapped after this check is not followed
+                if (file == null || !Files.isRegularFile(file) || !Files.isReadable(file)) {
+                    sendJSON(Exchange, 404, error(String.format("%s is not a readable file", asked)));
+                    return;
+                }
+            } else {
+                var length = Exchange.getRequestHeaders().getFirst("Content-Length");
+                if (length != null && length.strip().equals("0")) {
+                    sendJSON(Exchange, 400, error("send the image as the body or a path"));
+                    return;
+                }
+                //the size of the image is unknown until it is read. but if the budget is taken there is no point on receiving it
+                if (Budget.getAvailableMB() == 0) {
+                    refuse(Exchange, 1);
+                    return;
+                }
+                try {
+                    upload = file = URLSpooler.getDefault().spool(Exchange.getRequestBody(), length == null ? -1 : Long.parseLong(length.strip()),
+                            extension(query.getOrDefault("name", "")));
+                } catch (IOException | NumberFormatException ex) {
+                    sendJSON(Exchange, 413, error(String.format("unable to receive the upload: %s", ex.getMessage())));
+                    return;
+                }
+            }
+            try {
+                final int permits = Budget.estimateMB(file);
+                if (!Budget.tryAcquire(permits)) {
+                    refuse(Exchange, permits);
+                    return;
+                }
+                Running.incrementAndGet();
+                try {
+                    runJob(Exchange, file, permits, !"false".equals(query.get("carving")), !"false".equals(query.get("strings")));
+                } finally {
+                    Running.decrementAndGet();
+                    Budget.release(permits);
+                }
+            } finally {
+                if (upload != null) {
+                    deleteUpload(upload);
+                }
+            }
+        } catch (RuntimeException ex) {
+            loger.log(Level.SEVERE, "unable to handle the request", ex);
+        }
+    }
+
+    /**
+     * analyzes the file and streams the results. (see {@link AnalysisReport})
+     */
+    private void runJob(HttpExchange Exchange, Path File, int Permits, boolean Carving, boolean Strings) throws IOException {
+        final var job = Long.toString(JobCounter.incrementAndGet());
+        Exchange.getResponseHeaders().set("Content-Type", NDJSON);
+        Exchange.sendResponseHeaders(200, 0);
+        final var analyst = new StegnoAnalyzer(File);
+        final var report = new AnalysisReport(new BufferedWriter(new OutputStreamWriter(Exchange.getResponseBody(), StandardCharsets.UTF_8)), true);
+        report.setFailureListener(() -> {
+            loger.log(Level.INFO, "the client went away. stopping the job {0}", job);
+            analyst.stopAnalysis();
+        });
+        try {
+            report.event("accepted", json -> json.field("job", job).field("file", File.toString()).field("estimate_mb", Permits));
+            report.source(File.toString(), Files.size(File));
+            long stage = System.nanoTime();
+            analyst.loadImage(null, report::structure);
+            report.timing("load", millisSince(stage));
+            stage = System.nanoTime();
+            report.image(analyst);
+            report.timing("histograms", millisSince(stage));
+            stage = System.nanoTime();
+            analyst.transform(result -> {
+                var name = ResultExporter.toFileName(result.getLeft(), "png");
+                report.transform(result, Cache.put(job + "/" + name, result.getRight()) ? String.format("/results/%s/%s", job, name) : null);
+            }, null);
+            report.timing("transform", millisSince(stage));
+            if (Carving && !report.isBroken()) {
+                stage = System.nanoTime();
+                analyst.carve(report::carved, null);
+                report.timing("carving", millisSince(stage));
+            }
+            if (Strings && !report.isBroken()) {
+                stage = System.nanoTime();
+                //only the flags are streamed. a image has thousands of strings
+                report.strings(analyst.findStrings(report::string, null).size());
+                report.timing("strings", millisSince(stage));
+            }
+        } catch (IOException | RuntimeException | OutOfMemoryError ex) {
+            loger.log(Level.SEVERE, String.format("unable to analyze %s", File), ex);
+            report.error(ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage());
+        } finally {
+            analyst.close();
+        }
+        report.done();
+        report.summary();
+    }
+
+    /**
+     * answers 503. the job does not fit on the budget now.
+     */
+    private void refuse(HttpExchange Exchange, int Required) throws IOException {
+        Exchange.getResponseHeaders().set("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+        sendJSON(Exchange, 503, json(json -> json.field("type", "rejected").field("message", "the heap budget is exhausted")
+                .field("required_mb", Required).field("available_mb", Budget.getAvailableMB())));
+    }
+
+    /**
+     * deletes the spooled upload of a job. (it is not shared, see
+     * {@link URLSpooler#spool})
+     * <br>
+     * note: {@link StegnoAnalyzer#close} drops the {@code MappedFile} but a
+     * MappedByteBuffer stays mapped until it is garbage collected. on Windows a
+     * mapped file cannot be deleted so here it usually fails and falls back to
+     * deleteOnExit. a long running server on Windows keeps those uploads on the
+     * temporary folder until it exits.
+     */
+    private static void deleteUpload(Path Upload) {
+        try {
+            Files.deleteIfExists(Upload);
+        } catch (IOException ex) {
+            //on some systems a file still mapped cannot be deleted. try again on exit
+            loger.log(Level.WARNING, String.format("unable to delete the upload %s", Upload), ex);
+            Upload.toFile().deleteOnExit();
+        }
+    }
+
+    private static long millisSince(long Start) {
+        return (System.nanoTime() - Start) / 1_000_000;
+    }
+
+    private void handleResults(HttpExchange Exchange) throws IOException {
+        try (Exchange) {
+            //results/{job}/{name}.png or results/{job}
+            var parts = Exchange.getRequestURI().getPath().substring("/results/".length()).split("/");
+            switch (Exchange.getRequestMethod()) {
+                case "GET" -> {
+                    var image = parts.length == 2 ? Cache.get(parts[0] + "/" + parts[1]) : null;
+                    if (image == null) {
+                        sendJSON(Exchange, 404, error("the result is not (or no longer) cached"));
+                        return;
+                    }
+                    Exchange.getResponseHeaders().set("Content-Type", "image/png");
+                    Exchange.sendResponseHeaders(200, 0);
+                    PNGEncoder.write(image, ResultExporter.FAST_LEVEL, Exchange.getResponseBody());
+                }
+                case "DELETE" -> {
+                    if (parts.length != 1 || parts[0].isEmpty()) {
+                        sendJSON(Exchange, 400, error("use DELETE /results/{job}"));
+                        return;
+                    }
+                    final int removed = Cache.removeAll(parts[0] + "/");
+                    sendJSON(Exchange, 200, json(json -> json.field("removed", removed)));
+                }
+                default ->
+                    sendJSON(Exchange, 405, error("use GET or DELETE"));
+            }
+        }
+    }
+
+    private void handleStatus(HttpExchange Exchange) throws IOException {
+        try (Exchange) {
+            sendJSON(Exchange, 200, json(json -> json.field("jobs", Running.get())
+                    .field("budget_mb", Budget.getTotalMB()).field("available_mb", Budget.getAvailableMB())
+                    .field("cached", Cache.size()).field("cache_mb", Cache.getBytes() / (1024 * 1024))
+                    .field("cache_max_mb", Cache.getMaxBytes() / (1024 * 1024))));
+        }
+    }
+
+    private static void sendJSON(HttpExchange Exchange, int Status, String Body) throws IOException {
+        var bytes = (Body + "\n").getBytes(StandardCharsets.UTF_8);
+        Exchange.getResponseHeaders().set("Content-Type", JSON);
+        Exchange.sendResponseHeaders(Status, bytes.length);
+        Exchange.getResponseBody().write(bytes);
+    }
+
+    private static String error(String Message) {
+        return json(json -> json.field("type", "error").field("message", Message));
+    }
+
+    /**
+     * @return a JSON object with the fields written.
+     */
+    private static String json(AnalysisReport.Fields Fields) {
+        var text = new StringWriter();
+        try {
+            var json = new JsonWriter(text).beginObject();
+            Fields.write(json);
+            json.endObject();
+        } catch (IOException ex) {
+            //a StringWriter does not fail
+            throw new UncheckedIOException(ex);
+        }
+        return text.toString();
+    }
+
+    private static Map<String, String> parseQuery(String Query) {
+        var values = new HashMap<String, String>();
+        if (Query == null || Query.isEmpty()) {
+            return values;
+        }
+        for (var pair : Query.split("&")) {
+            final int equals = pair.indexOf('=');
+            var key = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            var value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            values.put(key, value);
+        }
+        return values;
+    }
+
+    /**
+     * @return the extension of the name of a upload. (with the dot) or empty.
+     */
+    private static String extension(String Name) {
+        final int dot = Name.lastIndexOf('.');
+        var extension = dot < 0 ? "" : Name.substring(dot).toLowerCase(Locale.ROOT);
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : "";
+    }
+}
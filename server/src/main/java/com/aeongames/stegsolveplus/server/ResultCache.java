@@ -0,0 +1,113 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.server;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.LinkedHashMap;
+
+/**
+ * the transformations of the jobs. so they are encoded (as PNG) only when
+ * asked for. the cache holds up to a amount of bytes of pixels and drops the
+ * least recently used images past that. a image dropped is no longer served.
+ *
+ * @author Eduardo Vindas
+ */
+final class ResultCache {
+
+    private final long MaxBytes;
+    private final LinkedHashMap<String, BufferedImage> Images = new LinkedHashMap<>(64, 0.75f, true);
+    private long Bytes;
+
+    /**
+     * @param MaxBytes the max size of the pixels held.
+     */
+    ResultCache(long MaxBytes) {
+        if (MaxBytes <= 0) {
+            throw new IllegalArgumentException("the size of the cache must be positive");
+        }
+        this.MaxBytes = MaxBytes;
+    }
+
+    /**
+     * adds a image. the least recently used ones are dropped to make room.
+     *
+     * @param Key the key of the image. (the job and the name)
+     * @param Image the image
+     * @return false if the image is larger than the whole cache. (it is not
+     * added)
+     */
+    synchronized boolean put(String Key, BufferedImage Image) {
+        final long size = sizeOf(Image);
+        if (size > MaxBytes) {
+            return false;
+        }
+        var replaced = Images.remove(Key);
+        if (replaced != null) {
+            Bytes -= sizeOf(replaced);
+        }
+        var iterator = Images.values().iterator();
+        while (Bytes + size > MaxBytes && iterator.hasNext()) {
+            Bytes -= sizeOf(iterator.next());
+            iterator.remove();
+        }
+        Images.put(Key, Image);
+        Bytes += size;
+        return true;
+    }
+
+    /**
+     * @param Key the key of the image.
+     * @return the image. or null if it is not (or no longer) cached.
+     */
+    synchronized BufferedImage get(String Key) {
+        return Images.get(Key);
+    }
+
+    /**
+     * drops the images of a job.
+     *
+     * @param Prefix the prefix of the keys of the job.
+     * @return the amount of images dropped.
+     */
+    synchronized int removeAll(String Prefix) {
+        int removed = 0;
+        var iterator = Images.entrySet().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.getKey().startsWith(Prefix)) {
+                Bytes -= sizeOf(entry.getValue());
+                iterator.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    synchronized int size() {
+        return Images.size();
+    }
+
+    synchronized long getBytes() {
+        return Bytes;
+    }
+
+    long getMaxBytes() {
+        return MaxBytes;
+    }
+
+    private static long sizeOf(BufferedImage Image) {
+        var buffer = Image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+}
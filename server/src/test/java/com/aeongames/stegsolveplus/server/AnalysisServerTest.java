@@ -0,0 +1,231 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.server;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * the HTTP interface of the {@link AnalysisServer}. on a free port.
+ *
+ * @author Eduardo Vindas
+ */
+class AnalysisServerTest {
+
+    private static final Pattern TYPE = Pattern.compile("\"type\":\"([a-z_]+)\"");
+    @TempDir
+    Path Folder;
+    private AnalysisServer Server;
+    private HttpClient Client;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        Server = new AnalysisServer(0);
+        Server.start();
+        Client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stopServer() {
+        Server.stop();
+    }
+
+    private URI uri(String PathAndQuery) {
+        return URI.create(String.format("http://127.0.0.1:%d%s", Server.getPort(), PathAndQuery));
+    }
+
+    private static String type(String Line) {
+        var matcher = TYPE.matcher(Line);
+        return matcher.find() ? matcher.group(1) : "";
+    }
+
+    private static String field(String Line, String Name) {
+        var matcher = Pattern.compile(String.format("\"%s\":(?:\"([^\"]*)\"|([-0-9.]+))", Name)).matcher(Line);
+        assertTrue(matcher.find(), String.format("%s has no %s", Line, Name));
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * @return a PNG of random pixels.
+     */
+    private static byte[] noise(int Width, int Height) throws IOException {
+        var image = new BufferedImage(Width, Height, BufferedImage.TYPE_INT_RGB);
+        var random = new Random(Width * 31L + Height);
+        for (int y = 0; y < Height; y++) {
+            for (int x = 0; x < Width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        var out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder Request) throws IOException, InterruptedException {
+        return Client.send(Request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int runningJobs() throws IOException, InterruptedException {
+        return Integer.parseInt(field(send(HttpRequest.newBuilder(uri("/status"))).body(), "jobs"));
+    }
+
+    @Test
+    void streamsTheResultsOfAUpload() throws IOException, InterruptedException {
+        var response = Client.send(HttpRequest.newBuilder(uri("/analyze?name=noise.png&carving=false"))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(noise(64, 48))).build(), HttpResponse.BodyHandlers.ofLines());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        List<String> lines = response.body().toList();
+        assertEquals("accepted", type(lines.get(0)));
+        assertEquals("summary", type(lines.get(lines.size() - 1)));
+        assertEquals("done", type(lines.get(lines.size() - 2)));
+        assertTrue(lines.stream().anyMatch(line -> type(line).equals("transform")), "no transformation was streamed");
+        assertEquals("ok", field(lines.get(lines.size() - 1), "status"));
+        //the upload is deleted once the job ends.
+        assertFalse(Files.exists(Path.of(field(lines.get(0), "file").replace("\\\\", "\\"))));
+    }
+
+    @Test
+    void servesAndDropsTheResultsOfAJob() throws IOException, InterruptedException {
+        var image = Files.write(Folder.resolve("noise.png"), noise(64, 48));
+        var lines = send(HttpRequest.newBuilder(uri("/analyze?carving=false&strings=false&path="
+                + URLEncoder.encode(image.toString(), StandardCharsets.UTF_8))).POST(HttpRequest.BodyPublishers.noBody()))
+                .body().lines().toList();
+        final var job = field(lines.get(0), "job");
+        var link = lines.stream().filter(line -> type(line).equals("transform") && line.contains("\"image\":\"/results/"))
+                .map(line -> field(line, "image")).findFirst().orElseThrow();
+        var result = Client.send(HttpRequest.newBuilder(uri(link)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, result.statusCode());
+        var png = ImageIO.read(new ByteArrayInputStream(result.body()));
+        assertEquals(64, png.getWidth());
+        assertEquals(48, png.getHeight());
+        var removed = send(HttpRequest.newBuilder(uri("/results/" + job)).DELETE());
+        assertEquals(200, removed.statusCode());
+        assertTrue(Integer.parseInt(field(removed.body(), "removed")) > 0);
+        assertEquals(404, send(HttpRequest.newBuilder(uri(link))).statusCode());
+    }
+
+    @Test
+    void refusesAJobWhenTheBudgetIsTaken() throws IOException, InterruptedException {
+        var image = Files.write(Folder.resolve("noise.png"), noise(64, 48));
+        var budget = Server.getBudget();
+        final int total = budget.getTotalMB();
+        assertTrue(budget.tryAcquire(total));
+        try {
+            var byPath = send(HttpRequest.newBuilder(uri("/analyze?path=" + URLEncoder.encode(image.toString(), StandardCharsets.UTF_8)))
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+            assertEquals(503, byPath.statusCode());
+            assertTrue(byPath.headers().firstValue("Retry-After").isPresent());
+            assertEquals("rejected", type(byPath.body()));
+            var upload = send(HttpRequest.newBuilder(uri("/analyze?name=noise.png"))
+                    .POST(HttpRequest.BodyPublishers.ofFile(image)));
+            assertEquals(503, upload.statusCode());
+        } finally {
+            budget.release(total);
+        }
+        assertEquals(total, budget.getAvailableMB());
+        assertEquals(0, runningJobs());
+    }
+
+    @Test
+    void stopsTheJobWhenTheClientGoesAway() throws IOException, InterruptedException {
+        var image = Files.write(Folder.resolve("noise.png"), noise(2500, 2500));
+        var budget = Server.getBudget();
+        try (var socket = new Socket("127.0.0.1", Server.getPort())) {
+            var request = String.format("POST /analyze?path=%s HTTP/1.1\r\nHost: 127.0.0.1\r\nContent-Length: 0\r\n\r\n",
+                    URLEncoder.encode(image.toString(), StandardCharsets.UTF_8));
+            socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+            var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null && !line.contains("\"type\":\"accepted\"")) {
+                //the headers and the chunk sizes
+            }
+            assertNotNull(line, "the job was not accepted");
+            assertEquals(1, runningJobs());
+        }
+        //the next line written fails and the job is stopped. far before the analysis would end.
+        final long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (runningJobs() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, runningJobs());
+        assertEquals(budget.getTotalMB(), budget.getAvailableMB());
+    }
+
+    @Test
+    void refusesOtherHosts() throws IOException {
+        try (var socket = new Socket("127.0.0.1", Server.getPort())) {
+            socket.getOutputStream().write("GET /status HTTP/1.1\r\nHost: attacker.example\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            var status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            assertTrue(status.contains(" 403 "), status);
+        }
+    }
+
+    @Test
+    void hidesTheFilesOutsideOfTheRoot() throws IOException, InterruptedException {
+        var root = Files.createDirectory(Folder.resolve("root"));
+        var outside = Files.write(Folder.resolve("noise.png"), noise(16, 16));
+        var rooted = new AnalysisServer(0, root);
+        rooted.start();
+        try {
+            for (var path : List.of(outside, Folder.resolve("missing.png"), root.resolve("../noise.png"))) {
+                var response = send(HttpRequest.newBuilder(URI.create(String.format("http://127.0.0.1:%d/analyze?path=%s",
+                        rooted.getPort(), URLEncoder.encode(path.toString(), StandardCharsets.UTF_8))))
+                        .POST(HttpRequest.BodyPublishers.noBody()));
+                assertEquals(403, response.statusCode(), path.toString());
+            }
+            var missing = send(HttpRequest.newBuilder(URI.create(String.format("http://127.0.0.1:%d/analyze?path=%s",
+                    rooted.getPort(), URLEncoder.encode(root.resolve("missing.png").toString(), StandardCharsets.UTF_8))))
+                    .POST(HttpRequest.BodyPublishers.noBody()));
+            assertEquals(404, missing.statusCode());
+        } finally {
+            rooted.stop();
+        }
+    }
+
+    @Test
+    void acceptsTheLoopbackNames() {
+        assertTrue(AnalysisServer.isLoopbackHost(null));
+        assertTrue(AnalysisServer.isLoopbackHost("localhost:8411"));
+        assertTrue(AnalysisServer.isLoopbackHost("127.0.0.1"));
+        assertTrue(AnalysisServer.isLoopbackHost("[::1]:8411"));
+        assertFalse(AnalysisServer.isLoopbackHost("localhost.example"));
+        assertFalse(AnalysisServer.isLoopbackHost("127.0.0.1.example"));
+        assertFalse(AnalysisServer.isLoopbackHost("[::2]"));
+        assertFalse(AnalysisServer.isLoopbackHost("example:80"));
+    }
+}
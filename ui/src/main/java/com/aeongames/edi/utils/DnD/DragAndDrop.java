@@ -14,6 +14,7 @@ package com.aeongames.edi.utils.DnD;
 import com.aeongames.edi.utils.File.PropertiesHelper;
 import com.aeongames.edi.utils.error.LoggingHelper;
 import java.awt.Component;
+import java.awt.Image;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
@@ -23,8 +24,10 @@ import java.awt.dnd.DropTargetDragEvent;
 import java.awt.dnd.DropTargetDropEvent;
 import java.awt.dnd.DropTargetEvent;
 import java.awt.dnd.DropTargetListener;
+import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -42,13 +45,16 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
+import javax.swing.ImageIcon;
 import javax.swing.SwingUtilities;
 
 /**
  * a Helper (abstract) class to handle Drop (from the Drag and Drop) into an
  * application this class simplify handling drag and drop events. to listen and
- * handle specific events. for this class currently it handles Files, URL and
- * Text other events might require further code to be added.
+ * handle specific events. for this class currently it handles Files, URL,
+ * PNG bytes, images and Text other events might require further code to be
+ * added. the same handling is available for the clipboard. (see
+ * {@link #ProcessTransferable(Transferable)})
  *
  * @author Eduardo Vindas
  */
@@ -265,57 +271,7 @@ public abstract class DragAndDrop implements DropTargetListener {
         var supports = CheckForSupportedFlavors(flavors);
         if (supports.hasSupported()) {
             dtde.acceptDrop(DnDConstants.ACTION_COPY);
-            List<Path> fileList = null;
-            URL FileLink = null;
-            String DropData = null;
-            if (supports.isFileBacked()) {
-                fileList = preProcessFile(supports, dtde.getTransferable());
-            }
-            if (fileList == null && supports.isURLBacked()) {
-                FileLink = preProcessURL(supports.URLflavor, dtde.getTransferable());
-                //check if the URL is a File on the system. 
-                try {
-                    var scheme = FileLink.toURI().getScheme();
-                    if (scheme != null ? scheme.equalsIgnoreCase("file") : false) {
-                        fileList = new LinkedList<>();
-                        fileList.add(Path.of(FileLink.toURI()));
-                        //FileLink = null;
-                    }
-                } catch (URISyntaxException ex) {
-                }
-            }
-            if (fileList == null && FileLink == null && supports.isTextBacked()) {
-                var Result = preProcessText(supports.Textflavor, dtde.getTransferable());
-                switch (Result) {
-                    case Path path -> {
-                        fileList = new LinkedList<>();
-                        fileList.add(path);
-                    }
-                    case URL url ->
-                        FileLink = url;
-                    case String data ->
-                        DropData = data;
-                    case LinkedList<?> List -> {
-                        fileList = new LinkedList<>();
-                        for (Object element : List) {
-                            if (element instanceof Path file) {
-                                fileList.add(file);
-                            }
-                        }
-                    }
-                    default -> {
-                    }
-                }
-            }
-            if (fileList != null && !fileList.isEmpty()) {
-                NotifyFoundPaths(fileList);
-                handled = true;
-            } else if (FileLink != null) {
-                NotifyFoundUrl(FileLink);
-                handled = true;
-            } else {
-                //for now nothing. 
-            }
+            handled = ProcessTransferable(supports, dtde.getTransferable());
         } else {
             dtde.acceptDrop(DnDConstants.ACTION_NONE);
         }
@@ -329,6 +285,89 @@ public abstract class DragAndDrop implements DropTargetListener {
         DropCompleteUI(dtde);
     }
 
+    /**
+     * process the data of a transfer that is not a drop. (the clipboard) the
+     * same way a drop is. the files, a URL, the bytes of a PNG, a image or a
+     * text that names a file or URL. (on that order) and notify the first
+     * found.
+     *
+     * @param Data the data to process
+     * @return true if a supported data was found and notified.
+     */
+    public boolean ProcessTransferable(Transferable Data) {
+        var supports = CheckForSupportedFlavors(Data.getTransferDataFlavors());
+        return supports.hasSupported() && ProcessTransferable(supports, Data);
+    }
+
+    private boolean ProcessTransferable(FlavorSupportedDrop supports, Transferable Data) {
+        List<Path> fileList = null;
+        URL FileLink = null;
+        String DropData = null;
+        if (supports.isFileBacked()) {
+            fileList = preProcessFile(supports, Data);
+        }
+        if (fileList == null && supports.isURLBacked()) {
+            FileLink = preProcessURL(supports.URLflavor, Data);
+            //check if the URL is a File on the system. 
+            try {
+                var scheme = FileLink == null ? null : FileLink.toURI().getScheme();
+                if (scheme != null ? scheme.equalsIgnoreCase("file") : false) {
+                    fileList = new LinkedList<>();
+                    fileList.add(Path.of(FileLink.toURI()));
+                    //FileLink = null;
+                }
+            } catch (URISyntaxException ex) {
+            }
+        }
+        if (fileList == null && FileLink == null && supports.isPNGBacked()) {
+            //the bytes as they are. (no decode and encode that would lose data)
+            var pasted = preProcessPNG(supports.PNGflavor, Data);
+            if (pasted != null) {
+                fileList = new LinkedList<>();
+                fileList.add(pasted);
+            }
+        }
+        if (fileList == null && FileLink == null && supports.isImageBacked()) {
+            var image = preProcessImage(supports.Imageflavor, Data);
+            if (image != null) {
+                NotifyFoundImage(image);
+                return true;
+            }
+        }
+        if (fileList == null && FileLink == null && supports.isTextBacked()) {
+            var Result = preProcessText(supports.Textflavor, Data);
+            switch (Result) {
+                case Path path -> {
+                    fileList = new LinkedList<>();
+                    fileList.add(path);
+                }
+                case URL url ->
+                    FileLink = url;
+                case String data ->
+                    DropData = data;
+                case LinkedList<?> List -> {
+                    fileList = new LinkedList<>();
+                    for (Object element : List) {
+                        if (element instanceof Path file) {
+                            fileList.add(file);
+                        }
+                    }
+                }
+                case null, default -> {
+                }
+            }
+        }
+        if (fileList != null && !fileList.isEmpty()) {
+            NotifyFoundPaths(fileList);
+            return true;
+        } else if (FileLink != null) {
+            NotifyFoundUrl(FileLink);
+            return true;
+        }
+        //for now nothing. 
+        return false;
+    }
+
     private void DropCompleteUI(DropTargetDropEvent dtde) {
         if (SwingUtilities.isEventDispatchThread()) {
             DropComplete(dtde);
@@ -371,15 +410,16 @@ public abstract class DragAndDrop implements DropTargetListener {
                     log.log(Level.INFO, "data is String Type Mime: {0}", supportedflavor.getMimeType());
                     flavorSupport.setTextBacked(supportedflavor);
                 }
+            } else if (supportedflavor.isMimeTypeEqual("image/png")
+                    && InputStream.class.isAssignableFrom(supportedflavor.getRepresentationClass())) {
+                log.log(Level.INFO, "data is PNG Type: {0}", supportedflavor);
+                flavorSupport.setPNGBacked(supportedflavor);
+            } else if (supportedflavor.equals(DataFlavor.imageFlavor)) {
+                log.log(Level.INFO, "data is Image Type: {0}", supportedflavor);
+                flavorSupport.setImageBacked(supportedflavor);
             }
-            /**
-             * TODO: add support for ImageFlavor ?
-             *
-             * else if (supportedflavor.equals(DataFlavor.imageFlavor)) {
-             * log.log(Level.INFO, "data is Image Type: {0}", supportedflavor);
-             * flavorSupport.setImageBacked(supportedflavor); }
-             */
-            if (flavorSupport.isFileBacked() && flavorSupport.isTextBacked() && flavorSupport.isURLBacked()) {
+            if (flavorSupport.isFileBacked() && flavorSupport.isTextBacked() && flavorSupport.isURLBacked()
+                    && flavorSupport.isPNGBacked() && flavorSupport.isImageBacked()) {
                 log.log(Level.INFO, "found all the application supported flavors");
                 break;
             }
@@ -396,11 +436,29 @@ public abstract class DragAndDrop implements DropTargetListener {
         private DataFlavor Fileflavor;
         private DataFlavor Textflavor;
         private DataFlavor URLflavor;
+        private DataFlavor PNGflavor;
+        private DataFlavor Imageflavor;
 
         private FlavorSupportedDrop() {
             Fileflavor = Textflavor = null;
         }
 
+        private void setPNGBacked(DataFlavor pngbased) {
+            PNGflavor = pngbased;
+        }
+
+        private void setImageBacked(DataFlavor imagebased) {
+            Imageflavor = imagebased;
+        }
+
+        private boolean isPNGBacked() {
+            return Objects.nonNull(PNGflavor);
+        }
+
+        private boolean isImageBacked() {
+            return Objects.nonNull(Imageflavor);
+        }
+
         private void setFileBacked(DataFlavor filebased) {
             Fileflavor = filebased;
         }
@@ -414,7 +472,8 @@ public abstract class DragAndDrop implements DropTargetListener {
         }
 
         private boolean hasSupported() {
-            return Objects.nonNull(Fileflavor) || Objects.nonNull(Textflavor);
+            return Objects.nonNull(Fileflavor) || Objects.nonNull(Textflavor)
+                    || Objects.nonNull(PNGflavor) || Objects.nonNull(Imageflavor);
         }
 
         private boolean isFileBacked() {
@@ -496,6 +555,81 @@ public abstract class DragAndDrop implements DropTargetListener {
         return null;
     }
 
+    /**
+     * writes the bytes of a PNG transfer (as they are) into a file of the
+     * temporal folder. so the file is analyzed with nothing lost to a decode
+     * and encode.
+     *
+     * @return the file. or null if the bytes cannot be read or written.
+     */
+    private Path preProcessPNG(DataFlavor PNGFlavor, Transferable DropTransfeable) {
+        var log = LoggingHelper.getLogger(DragAndDrop.class.getName());
+        Path file = null;
+        try (var data = (InputStream) DropTransfeable.getTransferData(PNGFlavor)) {
+            file = ANALISIS_DIRECTORY != null
+                    ? Files.createTempFile(ANALISIS_DIRECTORY, "Pasted", ".png")
+                    : Files.createTempFile("Pasted", ".png");
+            file.toFile().deleteOnExit();
+            if (Files.copy(data, file, StandardCopyOption.REPLACE_EXISTING) > 0) {
+                return file;
+            }
+            log.log(Level.WARNING, "The Transferible PNG is empty");
+        } catch (UnsupportedFlavorException ex) {
+            log.log(Level.SEVERE, "Unsuported Flavor", ex);
+        } catch (IOException | ClassCastException ex) {
+            log.log(Level.SEVERE, "IO unable to transfer data?", ex);
+        }
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the image of a image transfer. (as a {@link BufferedImage} if it
+     * is not one already) or null if it cannot be read.
+     */
+    private BufferedImage preProcessImage(DataFlavor ImageFlavor, Transferable DropTransfeable) {
+        var log = LoggingHelper.getLogger(DragAndDrop.class.getName());
+        Object ob = null;
+        try {
+            ob = DropTransfeable.getTransferData(ImageFlavor);
+        } catch (UnsupportedFlavorException ex) {
+            log.log(Level.SEVERE, "Unsuported Flavor", ex);
+        } catch (IOException ex) {
+            log.log(Level.SEVERE, "IO unable to transfer data?", ex);
+        }
+        switch (ob) {
+            case null -> {
+                log.log(Level.WARNING, "The Transferible Object cannot be read");
+                return null;
+            }
+            case BufferedImage image -> {
+                return image;
+            }
+            case Image image -> {
+                //a toolkit image. drawn once into a image we can read
+                var icon = new ImageIcon(image);
+                if (icon.getIconWidth() <= 0 || icon.getIconHeight() <= 0) {
+                    log.log(Level.WARNING, "The Transferible Image has no size");
+                    return null;
+                }
+                var buffered = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_INT_ARGB);
+                var graphics = buffered.createGraphics();
+                graphics.drawImage(icon.getImage(), 0, 0, null);
+                graphics.dispose();
+                return buffered;
+            }
+            default -> {
+                log.log(Level.WARNING, "The Transferible Object is NOT a Image! reports as: {0}", ob.getClass().getName());
+                return null;
+            }
+        }
+    }
+
     private URL preProcessURL(DataFlavor TextFlavor, Transferable DropTransfeable) {
         var log = LoggingHelper.getLogger(DragAndDrop.class.getName());
         Object ob = null;
@@ -683,6 +817,17 @@ public abstract class DragAndDrop implements DropTargetListener {
      */
     public abstract void NotifyFoundUrl(URL link);
 
+    /**
+     * a method to be implemented by child classes. called when the data is a
+     * image (with no file or bytes behind it, a screenshot for example) we
+     * ensure that the parameter is not null. the image was read for this call
+     * and no one else holds it. so it can be taken as is.
+     * <strong>we do not warrantee this will be called from EDT</strong>
+     *
+     * @param image the image provided
+     */
+    public abstract void NotifyFoundImage(BufferedImage image);
+
     /**
      * triggered by the Event Dispatch thread when a
      * {@link DropTargetListener#drop(java.awt.dnd.DropTargetDropEvent)} event
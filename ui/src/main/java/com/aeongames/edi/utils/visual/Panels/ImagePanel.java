@@ -63,6 +63,11 @@ public class ImagePanel extends javax.swing.JPanel {
      * minimal transparency
      */
     private static final float MINTRASPT = 0.20f;
+    /**
+     * where the image was drawn the last time. (to map the panel coordinates
+     * back to the image)
+     */
+    private int DrawX, DrawY, DrawWidth, DrawHeight;
 
     /**
      * the Image Panel is a normal Swing panel that just change the way it draws
@@ -314,6 +319,7 @@ public class ImagePanel extends javax.swing.JPanel {
             int Width = (getWidth() / 2) - RenderImage.getWidth(null) / 2;
             int Height = (getHeight() / 2) - RenderImage.getHeight(null) / 2;
             g.drawImage(RenderImage, Width, Height, RenderImage.getWidth(null), RenderImage.getHeight(null), this);
+            setDrawArea(Width, Height, RenderImage.getWidth(null), RenderImage.getHeight(null));
         } else {
             paintRespectRatio(g);
         }
@@ -328,6 +334,7 @@ public class ImagePanel extends javax.swing.JPanel {
         //ok now we want to keep the image ratio so lets try the new aproach
         int[] size = ImageUtils.keep_ratio_for_size(getWidth(), getHeight(), RenderImage);
         g.drawImage(RenderImage, size[2], size[3], size[0], size[1], this);
+        setDrawArea(size[2], size[3], size[0], size[1]);
     }
 
     /**
@@ -336,6 +343,7 @@ public class ImagePanel extends javax.swing.JPanel {
      */
     private void paintDefault(Graphics g) {
         g.drawImage(RenderImage, 0, 0, getWidth(), getHeight(), this);
+        setDrawArea(0, 0, getWidth(), getHeight());
     }
 
     /**
@@ -360,9 +368,69 @@ public class ImagePanel extends javax.swing.JPanel {
             yupto = ((BufferedImage) RenderImage).getHeight();
         }
         ((Graphics2D) g).fillRect(0, 0, Xupto, yupto);
+        setDrawArea(0, 0, ((BufferedImage) RenderImage).getWidth(), ((BufferedImage) RenderImage).getHeight());
         ((Graphics2D) g).setPaint(tempaint);
     }
 
+    private void setDrawArea(int x, int y, int width, int height) {
+        DrawX = x;
+        DrawY = y;
+        DrawWidth = width;
+        DrawHeight = height;
+    }
+
+    /**
+     * maps a x coordinate of the panel to the column of the image. (as it was
+     * drawn the last time) nothing is allocated so it can be called on each
+     * mouse move.
+     *
+     * @param PanelX the x coordinate on the panel
+     * @return the column of the image or -1 if the coordinate is outside of
+     * the image.
+     */
+    public int toImageX(int PanelX) {
+        return toImage(PanelX - DrawX, DrawWidth, RenderImage == null ? -1 : RenderImage.getWidth(null));
+    }
+
+    /**
+     * maps a y coordinate of the panel to the row of the image. see
+     * {@link #toImageX(int)}
+     *
+     * @param PanelY the y coordinate on the panel
+     * @return the row of the image or -1 if the coordinate is outside of the
+     * image.
+     */
+    public int toImageY(int PanelY) {
+        return toImage(PanelY - DrawY, DrawHeight, RenderImage == null ? -1 : RenderImage.getHeight(null));
+    }
+
+    /**
+     * maps a area of the image to the panel. (as it was drawn the last time)
+     * to draw over the image.
+     *
+     * @param ImageArea the area on the image
+     * @return the area on the panel. empty if there is no image.
+     */
+    public Rectangle toPanel(Rectangle ImageArea) {
+        final int width = RenderImage == null ? -1 : RenderImage.getWidth(null);
+        final int height = RenderImage == null ? -1 : RenderImage.getHeight(null);
+        if (width <= 0 || height <= 0) {
+            return new Rectangle();
+        }
+        final int left = DrawX + (int) ((long) ImageArea.x * DrawWidth / width);
+        final int top = DrawY + (int) ((long) ImageArea.y * DrawHeight / height);
+        final int right = DrawX + (int) ((long) (ImageArea.x + ImageArea.width) * DrawWidth / width);
+        final int bottom = DrawY + (int) ((long) (ImageArea.y + ImageArea.height) * DrawHeight / height);
+        return new Rectangle(left, top, right - left, bottom - top);
+    }
+
+    private static int toImage(int offset, int drawn, int size) {
+        if (drawn <= 0 || size <= 0 || offset < 0 || offset >= drawn) {
+            return -1;
+        }
+        return (int) ((long) offset * size / drawn);
+    }
+
     /**
      * provides the image Dimension. the Dimensions are generated each time this
      * method is called.
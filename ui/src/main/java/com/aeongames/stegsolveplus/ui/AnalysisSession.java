@@ -0,0 +1,330 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.data.Pair;
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.CarvedHit;
+import com.aeongames.stegsolveplus.StegnoTools.FileStructure;
+import com.aeongames.stegsolveplus.StegnoTools.FoundString;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingWorker;
+
+/**
+ * runs a {@link StegnoAnalyzer} for the UI. each step (the load, the
+ * transformations, the carving and the strings search) runs on a
+ * {@link SwingWorker} and its results are delivered on the EDT. the analyzer
+ * itself knows nothing of Swing.
+ *
+ * NOTE: Once done is called and the results are read and used. the List is
+ * cleared and thus calling get again the result object would be empty.
+ *
+ * @author Eduardo Vindas
+ */
+public class AnalysisSession {
+
+    public static final String STATE_STAGE = "STATE_STAGE";
+    public static final String STAGE_ERROR = "STAGE_ERROR";
+    /**
+     * fired by the loader with the {@link FileStructure} of the file. (before
+     * the image is decoded)
+     */
+    public static final String STAGE_STRUCTURE = "STAGE_STRUCTURE";
+    private static final Logger loger = LoggingHelper.getLogger(AnalysisSession.class.getName());
+    private final StegnoAnalyzer Analyst;
+    private final FileLoaderWorker LoaderWorker;
+    private final TransformationWorker TransformationWorker;
+    private final CarvingWorker CarvingWorker;
+    private final StringsWorker StringsWorker;
+
+    public AnalysisSession(StegnoAnalyzer Analyst) {
+        this.Analyst = Objects.requireNonNull(Analyst, "the analyzer is null");
+        LoaderWorker = new FileLoaderWorker();
+        TransformationWorker = new TransformationWorker();
+        CarvingWorker = new CarvingWorker();
+        StringsWorker = new StringsWorker();
+    }
+
+    public StegnoAnalyzer getAnalyst() {
+        return Analyst;
+    }
+
+    public void LoadImageData(Consumer<BufferedImage> Callback) {
+        LoadImageData(Callback, null);
+    }
+
+    /**
+     * loads the image. before the image is decoded the file structure is
+     * inspected (if the format is supported) and provided to the
+     * {@code StructureCallback} (on the EDT) so it can be shown while the
+     * image decodes.
+     *
+     * @param Callback the consumer of the loaded image (or null if failed)
+     * @param StructureCallback the consumer of the file structure. can be
+     * null.
+     */
+    public void LoadImageData(Consumer<BufferedImage> Callback, Consumer<FileStructure> StructureCallback) {
+        LoaderWorker.SetCallback(Callback);
+        if (StructureCallback != null) {
+            LoaderWorker.addPropertyChangeListener(evt -> {
+                if (STAGE_STRUCTURE.equals(evt.getPropertyName())) {
+                    StructureCallback.accept((FileStructure) evt.getNewValue());
+                }
+            });
+        }
+        LoaderWorker.execute();
+    }
+
+    public void RunTransformations(Consumer<List<Pair<String, BufferedImage>>> callback) {
+        if (Analyst.isImageLoaded()) {
+            TransformationWorker.setCallback(callback);
+            TransformationWorker.execute();
+        } else {
+            throw new NullPointerException("Image is not yet loaded");
+        }
+    }
+
+    /**
+     * starts looking for embedded files signatures on the file bytes and the
+     * LSB streams of the image. the callback is called (on the EDT) with the
+     * hits as they are found. and once more with the whole list (sorted) when
+     * the search is done. (or null if the search failed)
+     *
+     * @param callback the consumer of the hits.
+     */
+    public void RunCarving(Consumer<List<CarvedHit>> callback) {
+        if (Analyst.isImageLoaded()) {
+            CarvingWorker.setCallback(callback);
+            CarvingWorker.execute();
+        } else {
+            throw new NullPointerException("Image is not yet loaded");
+        }
+    }
+
+    public boolean isCarvingDone() {
+        return CarvingWorker.isDone();
+    }
+
+    /**
+     * starts looking for printable strings and flag patterns on the file bytes
+     * and on the candidate bit streams of the image (every bit plane, channel
+     * order and bit packing). the callback is called (on the EDT) with the
+     * strings as they are found. and once more with the whole list when the
+     * search is done. (or null if the search failed)
+     *
+     * @param callback the consumer of the strings.
+     */
+    public void RunStrings(Consumer<List<FoundString>> callback) {
+        if (Analyst.isImageLoaded()) {
+            StringsWorker.setCallback(callback);
+            StringsWorker.execute();
+        } else {
+            throw new NullPointerException("Image is not yet loaded");
+        }
+    }
+
+    public boolean isStringsDone() {
+        return StringsWorker.isDone();
+    }
+
+    public void stopAnalysis() {
+        if (!LoaderWorker.isCancelled() && !LoaderWorker.isDone()) {
+            LoaderWorker.cancel(true);
+        }
+        //stops the runs on the pool. the workers return once their tasks are cancelled
+        Analyst.stopAnalysis();
+        if (!StringsWorker.isCancelled() && !StringsWorker.isDone()) {
+            StringsWorker.cancel(true);
+        }
+        if (!CarvingWorker.isCancelled() && !CarvingWorker.isDone()) {
+            CarvingWorker.cancel(true);
+        }
+        TransformationWorker.cancel(true);
+    }
+
+    /**
+     * stops the analysis and closes the analyzer. (see
+     * {@link StegnoAnalyzer#close()})
+     */
+    public void close() {
+        stopAnalysis();
+        Analyst.close();
+    }
+
+    public boolean isDone() {
+        return LoaderWorker.isDone() && TransformationWorker.isDone();
+    }
+
+    public boolean isCancelled() {
+        return LoaderWorker.isCancelled() || TransformationWorker.isCancelled();
+    }
+
+    public Throwable exceptionNow() {
+        Throwable result = LoaderWorker.exceptionNow();
+        if (result == null) {
+            result = TransformationWorker.exceptionNow();
+        }
+        return result;
+    }
+
+    private class FileLoaderWorker extends SwingWorker<BufferedImage, String> {
+
+        private Consumer<BufferedImage> Callback;
+
+        @Override
+        protected BufferedImage doInBackground() throws Exception {
+            //a error is rethrown so the Future class traps it at the setException
+            Analyst.loadImage(status -> publish(status), structure -> firePropertyChange(STAGE_STRUCTURE, null, structure));
+            return Analyst.getUnEditedCopy();
+        }
+
+        @Override
+        protected void done() {
+            BufferedImage results = null;
+            try {
+                results = get();
+            } catch (InterruptedException | ExecutionException ex) {
+                loger.log(Level.SEVERE, "Error loading the image", ex);
+            }
+            if (Callback != null) {
+                Callback.accept(results);
+            }
+        }
+
+        private void SetCallback(Consumer<BufferedImage> Callback) {
+            this.Callback = Callback;
+        }
+    }
+
+    private class TransformationWorker extends SwingWorker<List<Pair<String, BufferedImage>>, Pair<String, BufferedImage>> {
+
+        private Consumer<List<Pair<String, BufferedImage>>> callBack;
+
+        public void setCallback(Consumer<List<Pair<String, BufferedImage>>> callback) {
+            this.callBack = callback;
+        }
+
+        @Override
+        protected List<Pair<String, BufferedImage>> doInBackground() throws Exception {
+            var Stage = "Image is loaded. Starting Transformation Analysis.";
+            firePropertyChange(STATE_STAGE, null, Stage);
+            loger.log(Level.INFO, Stage);
+            var results = Analyst.transform(pair -> publish(pair), this::isCancelled, true);
+            System.gc();
+            return results;
+        }
+
+        @Override
+        protected void process(List<Pair<String, BufferedImage>> chunks) {
+            callBack.accept(chunks);
+        }
+
+        @Override
+        protected void done() {
+            List<Pair<String, BufferedImage>> results = null;
+            loger.log(Level.INFO, "StegnoAnalysis Done, Calling back");
+            try {
+                results = get();
+            } catch (CancellationException | InterruptedException ex) {
+                loger.log(Level.SEVERE, "Task was Cancelled. or interrupted.", ex);
+            } catch (ExecutionException ex) {
+                //TODO add a callback if error.
+                loger.log(Level.SEVERE, "an error happend during execution", ex.getCause());
+            }
+            callBack.accept(results);
+            if (results != null && !results.isEmpty()) {
+                results.clear();
+            }
+        }
+    }
+
+    private class CarvingWorker extends SwingWorker<List<CarvedHit>, CarvedHit> {
+
+        private Consumer<List<CarvedHit>> callBack;
+
+        public void setCallback(Consumer<List<CarvedHit>> callback) {
+            this.callBack = callback;
+        }
+
+        @Override
+        protected List<CarvedHit> doInBackground() throws Exception {
+            return Analyst.carve(found -> publish(found), this::isCancelled);
+        }
+
+        @Override
+        protected void process(List<CarvedHit> chunks) {
+            //once done the whole list is delivered by done(). skip late chunks
+            if (!isDone()) {
+                callBack.accept(chunks);
+            }
+        }
+
+        @Override
+        protected void done() {
+            List<CarvedHit> results = null;
+            try {
+                results = get();
+            } catch (CancellationException | InterruptedException ex) {
+                loger.log(Level.INFO, "Carving was Cancelled. or interrupted.", ex);
+                return;
+            } catch (ExecutionException ex) {
+                loger.log(Level.SEVERE, "an error happend during carving", ex.getCause());
+            }
+            callBack.accept(results);
+        }
+    }
+
+    private class StringsWorker extends SwingWorker<List<FoundString>, FoundString> {
+
+        private Consumer<List<FoundString>> callBack;
+
+        public void setCallback(Consumer<List<FoundString>> callback) {
+            this.callBack = callback;
+        }
+
+        @Override
+        protected List<FoundString> doInBackground() throws Exception {
+            return Analyst.findStrings(found -> publish(found), this::isCancelled);
+        }
+
+        @Override
+        protected void process(List<FoundString> chunks) {
+            //once done the whole list is delivered by done(). skip late chunks
+            if (!isDone()) {
+                callBack.accept(chunks);
+            }
+        }
+
+        @Override
+        protected void done() {
+            List<FoundString> results = null;
+            try {
+                results = get();
+            } catch (CancellationException | InterruptedException ex) {
+                loger.log(Level.INFO, "Strings search was Cancelled. or interrupted.", ex);
+                return;
+            } catch (ExecutionException ex) {
+                loger.log(Level.SEVERE, "an error happend during the strings search", ex.getCause());
+            }
+            callBack.accept(results);
+        }
+    }
+}
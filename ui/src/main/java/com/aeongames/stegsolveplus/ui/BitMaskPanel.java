@@ -0,0 +1,264 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.visual.ImageScaleComponents;
+import com.aeongames.stegsolveplus.StegnoTools.BitMaskView;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import java.awt.GraphicsEnvironment;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.SwingWorker;
+
+/**
+ * shows the image of any combination of bits. (one check box per bit of each
+ * channel) the preview is redrawn on each change of the mask. see
+ * {@link BitMaskView}. the current mask can be opened at full size, that
+ * fires a {@link ImagePreviewPanel#ThumbClickEvent} with the name and the
+ * image.
+ *
+ * @author Eduardo Vindas
+ */
+public class BitMaskPanel extends javax.swing.JPanel {
+
+    private static final String[] CHANNELS = {"Alpha", "Red", "Green", "Blue"};
+    private final StegnoAnalyzer Analyst;
+    private final JCheckBox[][] Bits = new JCheckBox[CHANNELS.length][8];
+    private BitMaskView View;
+    private BufferedImage Target;
+
+    /**
+     * Creates new form BitMaskPanel
+     */
+    public BitMaskPanel(StegnoAnalyzer Analyst) {
+        this.Analyst = Analyst;
+        initComponents();
+        for (int channel = 0; channel < CHANNELS.length; channel++) {
+            BitsPanel.add(new JLabel(CHANNELS[channel]));
+            for (int bit = 7; bit >= 0; bit--) {
+                var check = new JCheckBox(Integer.toString(bit));
+                check.setOpaque(false);
+                check.setEnabled(false);
+                check.addItemListener(evt -> render());
+                Bits[channel][bit] = check;
+                BitsPanel.add(check);
+            }
+        }
+        prepare();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ControlsPanel = new javax.swing.JPanel();
+        BitsPanel = new javax.swing.JPanel();
+        ButtonsPanel = new javax.swing.JPanel();
+        ClearButton = new javax.swing.JButton();
+        LsbButton = new javax.swing.JButton();
+        OpenButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        MaskView = new com.aeongames.edi.utils.visual.Panels.ImagePanel();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ControlsPanel.setOpaque(false);
+        ControlsPanel.setLayout(new java.awt.BorderLayout());
+
+        BitsPanel.setOpaque(false);
+        BitsPanel.setLayout(new java.awt.GridLayout(4, 9));
+        ControlsPanel.add(BitsPanel, java.awt.BorderLayout.CENTER);
+
+        ButtonsPanel.setOpaque(false);
+        ButtonsPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        ClearButton.setText("Clear");
+        ClearButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ClearButtonActionPerformed(evt);
+            }
+        });
+        ButtonsPanel.add(ClearButton);
+
+        LsbButton.setText("RGB LSB");
+        LsbButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                LsbButtonActionPerformed(evt);
+            }
+        });
+        ButtonsPanel.add(LsbButton);
+
+        OpenButton.setText("Open Full Size");
+        OpenButton.setEnabled(false);
+        OpenButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                OpenButtonActionPerformed(evt);
+            }
+        });
+        ButtonsPanel.add(OpenButton);
+
+        StatusLabel.setText("Preparing the image...");
+        ButtonsPanel.add(StatusLabel);
+
+        ControlsPanel.add(ButtonsPanel, java.awt.BorderLayout.PAGE_END);
+
+        add(ControlsPanel, java.awt.BorderLayout.PAGE_START);
+
+        MaskView.SetBackgroundPolicy(ImageScaleComponents.SCALE_SMALL_ONLY);
+        MaskView.SmoothWhenScale(false);
+
+        javax.swing.GroupLayout MaskViewLayout = new javax.swing.GroupLayout(MaskView);
+        MaskView.setLayout(MaskViewLayout);
+        MaskViewLayout.setHorizontalGroup(
+            MaskViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+        MaskViewLayout.setVerticalGroup(
+            MaskViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+
+        add(MaskView, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void ClearButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ClearButtonActionPerformed
+        setMask(0);
+    }//GEN-LAST:event_ClearButtonActionPerformed
+
+    private void LsbButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_LsbButtonActionPerformed
+        setMask(0x00010101);
+    }//GEN-LAST:event_LsbButtonActionPerformed
+
+    private void OpenButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_OpenButtonActionPerformed
+        openFullSize();
+    }//GEN-LAST:event_OpenButtonActionPerformed
+
+    /**
+     * copies the image (at the size of the screen) on the background.
+     */
+    private void prepare() {
+        var screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        new SwingWorker<BitMaskView, Void>() {
+            @Override
+            protected BitMaskView doInBackground() throws Exception {
+                return BitMaskView.of(Analyst, screen.width, screen.height);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    View = get();
+                    Target = View.createTarget();
+                    for (int channel = 0; channel < CHANNELS.length; channel++) {
+                        for (var check : Bits[channel]) {
+                            check.setEnabled(channel != 0 || View.hasAlpha());
+                        }
+                    }
+                    OpenButton.setEnabled(true);
+                    MaskView.changeImage(Target);
+                    render();
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(BitMaskPanel.class.getName()).log(Level.SEVERE, "unable to prepare the bit mask view", ex);
+                    StatusLabel.setText(String.format("unable to prepare the image: %s", ex.getMessage()));
+                }
+            }
+        }.execute();
+    }
+
+    private int getMask() {
+        int mask = 0;
+        for (int channel = 0; channel < CHANNELS.length; channel++) {
+            for (int bit = 0; bit < 8; bit++) {
+                if (Bits[channel][bit].isSelected()) {
+                    mask |= 1 << (24 - channel * 8 + bit);
+                }
+            }
+        }
+        return mask;
+    }
+
+    private void setMask(int mask) {
+        for (int channel = 0; channel < CHANNELS.length; channel++) {
+            for (int bit = 0; bit < 8; bit++) {
+                //each change renders. so only touch the ones that change.
+                var selected = (mask & (1 << (24 - channel * 8 + bit))) != 0;
+                if (Bits[channel][bit].isSelected() != selected) {
+                    Bits[channel][bit].setSelected(selected);
+                }
+            }
+        }
+    }
+
+    /**
+     * draws the current mask. on the EDT. it is a single pass over a image of
+     * the size of the screen.
+     */
+    private void render() {
+        if (View == null) {
+            return;
+        }
+        final int mask = getMask();
+        final long start = System.nanoTime();
+        View.render(mask, Target);
+        final double elapsed = (System.nanoTime() - start) / 1e6;
+        MaskView.changeImage(Target);
+        StatusLabel.setText(String.format("mask 0x%08X, %dx%d%s, %.1f ms", mask, View.getWidth(), View.getHeight(),
+                View.isScaled() ? " preview" : "", elapsed));
+    }
+
+    private void openFullSize() {
+        if (View == null) {
+            return;
+        }
+        final int mask = getMask();
+        OpenButton.setEnabled(false);
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() throws Exception {
+                return View.renderFull(mask);
+            }
+
+            @Override
+            protected void done() {
+                OpenButton.setEnabled(true);
+                try {
+                    firePropertyChange(ImagePreviewPanel.ThumbClickEvent, String.format("Bit Mask 0x%08X", mask), get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(BitMaskPanel.class.getName()).log(Level.SEVERE, "unable to render the bit mask", ex);
+                    StatusLabel.setText(String.format("unable to render the mask: %s", ex.getMessage()));
+                }
+            }
+        }.execute();
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JPanel BitsPanel;
+    private javax.swing.JPanel ButtonsPanel;
+    private javax.swing.JButton ClearButton;
+    private javax.swing.JPanel ControlsPanel;
+    private javax.swing.JButton LsbButton;
+    private com.aeongames.edi.utils.visual.Panels.ImagePanel MaskView;
+    private javax.swing.JButton OpenButton;
+    private javax.swing.JLabel StatusLabel;
+    // End of variables declaration//GEN-END:variables
+}
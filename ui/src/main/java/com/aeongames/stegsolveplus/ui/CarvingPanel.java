@@ -0,0 +1,313 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.CarvedHit;
+import com.aeongames.stegsolveplus.StegnoTools.HexDocument;
+import com.aeongames.stegsolveplus.StegnoTools.SignatureCarver;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * lists the embedded file signatures found on the file and its LSB streams.
+ * the hits can be exported as CSV or extracted (from the hit offset to the end
+ * of the source) into a file or shown on the hex view. (see
+ * {@link #VIEW_HEX})
+ *
+ * @author Eduardo Vindas
+ */
+public class CarvingPanel extends javax.swing.JPanel {
+
+    /**
+     * fired once the selected hit is ready to be shown on the hex view. the
+     * new value is the {@link HexDocument}.
+     */
+    public static final String VIEW_HEX = "ViewHex";
+    private static final String[] COLUMNS = {"Source", "Signature", "Offset", "Offset (hex)"};
+    private final StegnoAnalyzer Analyst;
+    private final HitsModel Model = new HitsModel();
+
+    /**
+     * Creates new form CarvingPanel
+     */
+    public CarvingPanel(StegnoAnalyzer Analyst) {
+        this.Analyst = Analyst;
+        initComponents();
+        HitsTable.getSelectionModel().addListSelectionListener(evt -> updateButtons());
+        updateButtons();
+    }
+
+    /**
+     * adds the hits found so far. (the list is not kept)
+     *
+     * @param hits the new hits.
+     */
+    public void addHits(List<CarvedHit> hits) {
+        Model.add(hits);
+        StatusLabel.setText(String.format("Searching for embedded files... %d found so far", Model.Hits.size()));
+        updateButtons();
+    }
+
+    /**
+     * replaces the hits with the final results. if the list is null the search
+     * failed.
+     *
+     * @param hits the whole list of hits.
+     */
+    public void setHits(List<CarvedHit> hits) {
+        if (hits == null) {
+            StatusLabel.setText("the search for embedded files failed. see the logs");
+            return;
+        }
+        Model.clear();
+        var sorted = new ArrayList<>(hits);
+        sorted.sort(Comparator.comparing(CarvedHit::Source).thenComparingLong(CarvedHit::Offset));
+        Model.add(sorted);
+        var embedded = sorted.stream().filter(hit -> !hit.isHostSignature()).count();
+        StatusLabel.setText(String.format("Search done: %d signatures found (%d excluding the file own header)", sorted.size(), embedded));
+        updateButtons();
+    }
+
+    private void updateButtons() {
+        ExportButton.setEnabled(!Model.Hits.isEmpty());
+        ExtractButton.setEnabled(HitsTable.getSelectedRow() >= 0);
+        HexButton.setEnabled(HitsTable.getSelectedRow() >= 0);
+    }
+
+    private void exportCSV() {
+        JFileChooser fileChooser = new JFileChooser(System.getProperty("user.dir"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        fileChooser.setSelectedFile(new File("carving.csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        var destination = fileChooser.getSelectedFile().toPath();
+        try (var writer = Files.newBufferedWriter(destination, StandardCharsets.UTF_8)) {
+            SignatureCarver.writeCSV(List.copyOf(Model.Hits), writer);
+        } catch (IOException ex) {
+            LoggingHelper.getLogger(CarvingPanel.class.getName()).log(Level.SEVERE, "unable to export the hits", ex);
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Unable to export", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void extractSelected() {
+        var row = HitsTable.getSelectedRow();
+        if (row < 0) {
+            return;
+        }
+        var hit = Model.Hits.get(HitsTable.convertRowIndexToModel(row));
+        JFileChooser fileChooser = new JFileChooser(System.getProperty("user.dir"));
+        fileChooser.setSelectedFile(new File(String.format("%s_%s.%s",
+                hit.Source().replaceAll("[^A-Za-z0-9]+", "_"), hit.getHexOffset(), hit.Signature().Extension)));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        var destination = fileChooser.getSelectedFile().toPath();
+        ExtractButton.setEnabled(false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                Analyst.extractHit(hit, destination);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                updateButtons();
+                try {
+                    get();
+                    StatusLabel.setText(String.format("Extracted to %s", destination.getFileName()));
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(CarvingPanel.class.getName()).log(Level.SEVERE, "unable to extract the hit", ex);
+                    JOptionPane.showMessageDialog(CarvingPanel.this, ex.getMessage(), "Unable to extract", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    private void viewSelected() {
+        var row = HitsTable.getSelectedRow();
+        if (row < 0) {
+            return;
+        }
+        var hit = Model.Hits.get(HitsTable.convertRowIndexToModel(row));
+        HexButton.setEnabled(false);
+        new SwingWorker<HexDocument, Void>() {
+            @Override
+            protected HexDocument doInBackground() throws Exception {
+                return Analyst.openHit(hit);
+            }
+
+            @Override
+            protected void done() {
+                updateButtons();
+                try {
+                    firePropertyChange(VIEW_HEX, null, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(CarvingPanel.class.getName()).log(Level.SEVERE, "unable to open the hit", ex);
+                    JOptionPane.showMessageDialog(CarvingPanel.this, ex.getMessage(), "Unable to open", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ToolbarPanel = new javax.swing.JPanel();
+        ExportButton = new javax.swing.JButton();
+        ExtractButton = new javax.swing.JButton();
+        HexButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        HitsScroll = new javax.swing.JScrollPane();
+        HitsTable = new javax.swing.JTable();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        ExportButton.setText("Export CSV...");
+        ExportButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ExportButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(ExportButton);
+
+        ExtractButton.setText("Extract Selected...");
+        ExtractButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ExtractButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(ExtractButton);
+
+        HexButton.setText("View Hex");
+        HexButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                HexButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(HexButton);
+
+        StatusLabel.setText("Searching for embedded files...");
+        ToolbarPanel.add(StatusLabel);
+
+        add(ToolbarPanel, java.awt.BorderLayout.PAGE_START);
+
+        HitsTable.setAutoCreateRowSorter(true);
+        HitsTable.setModel(Model);
+        HitsTable.setSelectionMode(javax.swing.ListSelectionModel.SINGLE_SELECTION);
+        HitsScroll.setViewportView(HitsTable);
+
+        add(HitsScroll, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void ExportButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ExportButtonActionPerformed
+        exportCSV();
+    }//GEN-LAST:event_ExportButtonActionPerformed
+
+    private void ExtractButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ExtractButtonActionPerformed
+        extractSelected();
+    }//GEN-LAST:event_ExtractButtonActionPerformed
+
+    private void HexButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_HexButtonActionPerformed
+        viewSelected();
+    }//GEN-LAST:event_HexButtonActionPerformed
+
+    private static class HitsModel extends AbstractTableModel {
+
+        private final List<CarvedHit> Hits = new ArrayList<>();
+
+        private void add(List<CarvedHit> hits) {
+            if (hits.isEmpty()) {
+                return;
+            }
+            var first = Hits.size();
+            Hits.addAll(hits);
+            fireTableRowsInserted(first, Hits.size() - 1);
+        }
+
+        private void clear() {
+            Hits.clear();
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return Hits.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 2 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            var hit = Hits.get(row);
+            return switch (column) {
+                case 0 ->
+                    hit.Source();
+                case 1 ->
+                    hit.Signature().Name;
+                case 2 ->
+                    hit.Offset();
+                default ->
+                    hit.getHexOffset();
+            };
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton ExportButton;
+    private javax.swing.JButton ExtractButton;
+    private javax.swing.JButton HexButton;
+    private javax.swing.JScrollPane HitsScroll;
+    private javax.swing.JTable HitsTable;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JPanel ToolbarPanel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.visual.ImageScaleComponents;
+import com.aeongames.edi.utils.visual.Panels.ImagePanel;
+import com.aeongames.stegsolveplus.StegnoTools.ImageCombiner;
+import com.aeongames.stegsolveplus.ui.tabcomponents.Tab;
+import com.aeongames.stegsolveplus.ui.tabcomponents.TabClose;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+
+/**
+ * shows the results of combining two images. (see {@link ImageCombiner}) all
+ * the operations are computed on a single pass on the background and the
+ * thumbnails are filled once done. a double click on a thumbnail opens it on
+ * its own tab.
+ *
+ * @author Eduardo Vindas
+ */
+public class CombinerTab extends Tab {
+
+    private final ImageCombiner Combiner;
+    private final EnumMap<ImageCombiner.Operation, ImagePreviewPanel> Thumbs = new EnumMap<>(ImageCombiner.Operation.class);
+
+    /**
+     * @param Combiner the combiner of the images
+     * @param FirstName the name of the first image
+     * @param SecondName the name of the second image
+     */
+    public CombinerTab(ImageCombiner Combiner, String FirstName, String SecondName) {
+        super("Combined");
+        this.Combiner = Combiner;
+        var title = String.format("%s + %s", FirstName, SecondName);
+        _InternalSetTitle(title.length() > 20 ? title.substring(0, 17) + "..." : title);
+        initComponents();
+        StatusLabel.setText(String.format("Combining %s with %s (%s, %dx%d)...", FirstName, SecondName,
+                Combiner.getAlignment(), Combiner.getWidth(), Combiner.getHeight()));
+        for (var operation : ImageCombiner.Operation.values()) {
+            var preview = new ImagePreviewPanel(operation.Name);
+            preview.addPropertyChangeListener(ImagePreviewPanel.ThumbClickEvent, evt -> openResult(evt.getOldValue().toString(), (Image) evt.getNewValue()));
+            Thumbs.put(operation, preview);
+            ThumbGridPanel.add(preview);
+        }
+        combine();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        HeaderPanel = new javax.swing.JPanel();
+        StatusLabel = new javax.swing.JLabel();
+        ResultTabs = new javax.swing.JTabbedPane();
+        CombinationsScroll = new javax.swing.JScrollPane();
+        ThumbGridPanel = new javax.swing.JPanel();
+
+        setLayout(new java.awt.BorderLayout());
+
+        HeaderPanel.setOpaque(false);
+        HeaderPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+        HeaderPanel.add(StatusLabel);
+
+        add(HeaderPanel, java.awt.BorderLayout.PAGE_START);
+
+        CombinationsScroll.getVerticalScrollBar().setUnitIncrement(25);
+
+        ThumbGridPanel.setLayout(new java.awt.GridLayout(0, 3));
+        CombinationsScroll.setViewportView(ThumbGridPanel);
+
+        ResultTabs.addTab("Combinations", CombinationsScroll);
+
+        add(ResultTabs, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void combine() {
+        setBusy();
+        new SwingWorker<Map<ImageCombiner.Operation, BufferedImage>, Void>() {
+            @Override
+            protected Map<ImageCombiner.Operation, BufferedImage> doInBackground() throws Exception {
+                return Combiner.combine(EnumSet.allOf(ImageCombiner.Operation.class));
+            }
+
+            @Override
+            protected void done() {
+                setAvailable();
+                try {
+                    for (var result : get().entrySet()) {
+                        Thumbs.get(result.getKey()).SetImage(result.getValue());
+                    }
+                    StatusLabel.setText(String.format("%s (%s, %dx%d)", getTitle(), Combiner.getAlignment(),
+                            Combiner.getWidth(), Combiner.getHeight()));
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(CombinerTab.class.getName()).log(Level.SEVERE, "unable to combine the images", ex);
+                    StatusLabel.setText(String.format("unable to combine the images: %s", ex.getMessage()));
+                }
+            }
+        }.execute();
+    }
+
+    private void openResult(String name, Image image) {
+        if (image == null) {
+            return;
+        }
+        var closeComponent = new TabClose(ResultTabs);
+        var imagep = new ImagePanel(image);
+        imagep.SetBackgroundPolicy(ImageScaleComponents.SCALE_ALWAYS);
+        imagep.SmoothWhenScale(false);
+        ResultTabs.addTab(name, imagep);
+        ResultTabs.setTabComponentAt(ResultTabs.getTabCount() - 1, closeComponent);
+        ResultTabs.setSelectedIndex(ResultTabs.getTabCount() - 1);
+        closeComponent.Update(ResultTabs.getTabCount() - 1);
+    }
+
+    @Override
+    protected void setBusy() {
+        SetCursorBusy();
+    }
+
+    @Override
+    protected void setAvailable() {
+        ClearCursor();
+    }
+
+    @Override
+    public boolean Close(boolean force) {
+        return true;
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JScrollPane CombinationsScroll;
+    private javax.swing.JPanel HeaderPanel;
+    private javax.swing.JTabbedPane ResultTabs;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JPanel ThumbGridPanel;
+    // End of variables declaration//GEN-END:variables
+}
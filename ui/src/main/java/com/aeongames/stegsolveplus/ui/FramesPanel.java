@@ -0,0 +1,290 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.visual.ImageScaleComponents;
+import com.aeongames.stegsolveplus.StegnoTools.FrameReader;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+
+/**
+ * browses the frames (or pages) of a multi frame file. one frame is decoded
+ * at the time (see {@link FrameReader}) and it can be shown as a viewer shows
+ * it, as it is stored on the file or as the difference with the previous
+ * frame. the frame on screen can be sent to a new tab for the full analysis.
+ *
+ * @author Eduardo Vindas
+ */
+public class FramesPanel extends javax.swing.JPanel {
+
+    /**
+     * fired when the user requests the analysis of the frame on screen. the
+     * old value is the name for the frame and the new value the frame
+     * ({@link BufferedImage})
+     */
+    public static final String ANALYZE_FRAME = "ANALYZE_FRAME";
+
+    private enum Mode {
+        Composed("Frame"), Raw("Frame as stored"), Difference("Difference with previous");
+        private final String Name;
+
+        private Mode(String name) {
+            Name = name;
+        }
+
+        @Override
+        public String toString() {
+            return Name;
+        }
+    }
+
+    private final Path File;
+    private final int FrameCount;
+    private FrameReader Frames;
+    /**
+     * true once closed. the file is not opened again.
+     */
+    private boolean Closed;
+    /**
+     * the last request made. the results of older requests are dropped.
+     */
+    private int Request;
+    /**
+     * the decode of the last request. cancelled by the next one.
+     */
+    private SwingWorker<BufferedImage, Void> Decoding;
+    private BufferedImage Shown;
+
+    /**
+     * Creates new form FramesPanel
+     */
+    public FramesPanel(Path File, int FrameCount) {
+        this.File = File;
+        this.FrameCount = FrameCount;
+        initComponents();
+        showFrame();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ToolbarPanel = new javax.swing.JPanel();
+        PreviousButton = new javax.swing.JButton();
+        FrameSpinner = new javax.swing.JSpinner();
+        NextButton = new javax.swing.JButton();
+        CountLabel = new javax.swing.JLabel();
+        ModeBox = new javax.swing.JComboBox<>();
+        AnalyzeButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        FrameView = new com.aeongames.edi.utils.visual.Panels.ImagePanel();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        PreviousButton.setText("<");
+        PreviousButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                PreviousButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(PreviousButton);
+
+        FrameSpinner.setModel(new javax.swing.SpinnerNumberModel(1, 1, FrameCount, 1));
+        FrameSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                FrameSpinnerStateChanged(evt);
+            }
+        });
+        ToolbarPanel.add(FrameSpinner);
+
+        NextButton.setText(">");
+        NextButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                NextButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(NextButton);
+
+        CountLabel.setText(String.format("of %d", FrameCount));
+        ToolbarPanel.add(CountLabel);
+
+        ModeBox.setModel(new javax.swing.DefaultComboBoxModel<>(Mode.values()));
+        ModeBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ModeBoxActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(ModeBox);
+
+        AnalyzeButton.setText("Analyze Frame");
+        AnalyzeButton.setEnabled(false);
+        AnalyzeButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                AnalyzeButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(AnalyzeButton);
+        ToolbarPanel.add(StatusLabel);
+
+        add(ToolbarPanel, java.awt.BorderLayout.PAGE_START);
+
+        FrameView.SetBackgroundPolicy(ImageScaleComponents.SCALE_SMALL_ONLY);
+        FrameView.SmoothWhenScale(false);
+
+        javax.swing.GroupLayout FrameViewLayout = new javax.swing.GroupLayout(FrameView);
+        FrameView.setLayout(FrameViewLayout);
+        FrameViewLayout.setHorizontalGroup(
+            FrameViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+        FrameViewLayout.setVerticalGroup(
+            FrameViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+
+        add(FrameView, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void PreviousButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_PreviousButtonActionPerformed
+        step(-1);
+    }//GEN-LAST:event_PreviousButtonActionPerformed
+
+    private void FrameSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_FrameSpinnerStateChanged
+        showFrame();
+    }//GEN-LAST:event_FrameSpinnerStateChanged
+
+    private void NextButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_NextButtonActionPerformed
+        step(1);
+    }//GEN-LAST:event_NextButtonActionPerformed
+
+    private void ModeBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ModeBoxActionPerformed
+        showFrame();
+    }//GEN-LAST:event_ModeBoxActionPerformed
+
+    private void AnalyzeButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_AnalyzeButtonActionPerformed
+        analyzeFrame();
+    }//GEN-LAST:event_AnalyzeButtonActionPerformed
+
+    private void step(int delta) {
+        var frame = (int) FrameSpinner.getValue() + delta;
+        if (frame >= 1 && frame <= FrameCount) {
+            FrameSpinner.setValue(frame);
+        }
+    }
+
+    private void showFrame() {
+        final int request = ++Request;
+        final int index = (int) FrameSpinner.getValue() - 1;
+        final var mode = (Mode) ModeBox.getSelectedItem();
+        AnalyzeButton.setEnabled(false);
+        StatusLabel.setText("Decoding...");
+        //not interrupted. a decode already running ends (the reader is shared) but one still queued does not start
+        if (Decoding != null) {
+            Decoding.cancel(false);
+        }
+        Decoding = new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() throws Exception {
+                var frames = getFrames();
+                return switch (mode) {
+                    case Raw ->
+                        frames.readRawFrame(index);
+                    case Difference ->
+                        frames.readDifference(index);
+                    default ->
+                        frames.readFrame(index);
+                };
+            }
+
+            @Override
+            protected void done() {
+                if (request != Request || isCancelled()) {
+                    return;//the user moved on (or the panel was closed)
+                }
+                try {
+                    Shown = get();
+                    FrameView.changeImage(Shown);
+                    StatusLabel.setText(Shown == null ? "the first frame has no previous frame"
+                            : String.format("%dx%d", Shown.getWidth(), Shown.getHeight()));
+                    AnalyzeButton.setEnabled(Shown != null);
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(FramesPanel.class.getName()).log(Level.SEVERE, "unable to read the frame", ex);
+                    StatusLabel.setText(String.format("unable to read the frame: %s", ex.getMessage()));
+                }
+            }
+        };
+        Decoding.execute();
+    }
+
+    private synchronized FrameReader getFrames() throws IOException {
+        if (Closed) {
+            throw new IOException("the frames panel is closed");
+        }
+        if (Frames == null) {
+            Frames = new FrameReader(File);
+        }
+        return Frames;
+    }
+
+    private void analyzeFrame() {
+        if (Shown == null) {
+            return;
+        }
+        var name = String.format("%s [%s %d]", File.getFileName(), ModeBox.getSelectedItem(), (int) FrameSpinner.getValue());
+        firePropertyChange(ANALYZE_FRAME, name, Shown);
+    }
+
+    /**
+     * closes the file. the panel should not be used after this call.
+     */
+    public synchronized void close() {
+        Closed = true;
+        if (Decoding != null) {
+            Decoding.cancel(false);
+        }
+        if (Frames != null) {
+            try {
+                Frames.close();
+            } catch (IOException ex) {
+                LoggingHelper.getLogger(FramesPanel.class.getName()).log(Level.WARNING, "unable to close the frames", ex);
+            }
+            Frames = null;
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton AnalyzeButton;
+    private javax.swing.JLabel CountLabel;
+    private javax.swing.JSpinner FrameSpinner;
+    private com.aeongames.edi.utils.visual.Panels.ImagePanel FrameView;
+    private javax.swing.JComboBox<Mode> ModeBox;
+    private javax.swing.JButton NextButton;
+    private javax.swing.JButton PreviousButton;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JPanel ToolbarPanel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -0,0 +1,469 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.HexDocument;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+import javax.swing.UIManager;
+
+/**
+ * a hex (or bits) and ASCII view of a {@link HexDocument}. the view is
+ * virtual: only the rows on screen are read and drawn (into a reused buffer
+ * and line) and the scroll bar counts rows instead of pixels. so a 2 GB file
+ * scrolls as fast as a small one and the heap used does not depend on its
+ * size. the search runs on the background.
+ *
+ * @author Eduardo Vindas
+ */
+public class HexViewPanel extends javax.swing.JPanel {
+
+    /**
+     * how the bytes are shown.
+     */
+    public enum Layout {
+        Hex(16),
+        Bits(4);
+        private final int BytesPerRow;
+
+        private Layout(int BytesPerRow) {
+            this.BytesPerRow = BytesPerRow;
+        }
+    }
+
+    private static final Color MATCH = new Color(255, 200, 0);
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private HexDocument Document;
+    private Layout Shown = Layout.Hex;
+    /**
+     * the first row on screen.
+     */
+    private long TopRow;
+    /**
+     * the rows per unit of the scroll bar. (1 unless the document has more
+     * rows than the bar can count)
+     */
+    private long RowsPerUnit = 1;
+    private long MatchOffset = -1;
+    private int MatchLength;
+    /**
+     * true once a search found nothing after the offset. the next one starts
+     * at the top.
+     */
+    private boolean Wrap;
+    private SwingWorker<Long, Void> Search;
+
+    /**
+     * Creates new form HexViewPanel
+     */
+    public HexViewPanel() {
+        initComponents();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ToolbarPanel = new javax.swing.JPanel();
+        Documents = new javax.swing.JComboBox<>();
+        LayoutBox = new javax.swing.JComboBox<>();
+        GoToLabel = new javax.swing.JLabel();
+        OffsetField = new javax.swing.JTextField();
+        FindLabel = new javax.swing.JLabel();
+        PatternField = new javax.swing.JTextField();
+        FindButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        View = new RowsView();
+        ScrollBar = new javax.swing.JScrollBar();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        Documents.setRenderer(new DocumentRenderer());
+        Documents.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                DocumentsActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(Documents);
+
+        LayoutBox.setModel(new javax.swing.DefaultComboBoxModel<>(Layout.values()));
+        LayoutBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                LayoutBoxActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(LayoutBox);
+
+        GoToLabel.setText("Go to");
+        ToolbarPanel.add(GoToLabel);
+
+        OffsetField.setColumns(12);
+        OffsetField.setToolTipText("offset. 0x prefixed hex or decimal");
+        OffsetField.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                OffsetFieldActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(OffsetField);
+
+        FindLabel.setText("Find");
+        ToolbarPanel.add(FindLabel);
+
+        PatternField.setColumns(16);
+        PatternField.setToolTipText("hex bytes (50 4B 03 04) or \"text\"");
+        PatternField.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                PatternFieldActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(PatternField);
+
+        FindButton.setText("Find Next");
+        FindButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                FindButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(FindButton);
+        ToolbarPanel.add(StatusLabel);
+
+        add(ToolbarPanel, java.awt.BorderLayout.PAGE_START);
+
+        View.setPreferredSize(new java.awt.Dimension(720, 400));
+        View.addMouseWheelListener(new java.awt.event.MouseWheelListener() {
+            public void mouseWheelMoved(java.awt.event.MouseWheelEvent evt) {
+                ViewMouseWheelMoved(evt);
+            }
+        });
+        View.addComponentListener(new java.awt.event.ComponentAdapter() {
+            public void componentResized(java.awt.event.ComponentEvent evt) {
+                ViewComponentResized(evt);
+            }
+        });
+
+        javax.swing.GroupLayout ViewLayout = new javax.swing.GroupLayout(View);
+        View.setLayout(ViewLayout);
+        ViewLayout.setHorizontalGroup(
+            ViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 720, Short.MAX_VALUE)
+        );
+        ViewLayout.setVerticalGroup(
+            ViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 400, Short.MAX_VALUE)
+        );
+
+        add(View, java.awt.BorderLayout.CENTER);
+
+        ScrollBar.addAdjustmentListener(new java.awt.event.AdjustmentListener() {
+            public void adjustmentValueChanged(java.awt.event.AdjustmentEvent evt) {
+                ScrollBarAdjustmentValueChanged(evt);
+            }
+        });
+        add(ScrollBar, java.awt.BorderLayout.LINE_END);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void DocumentsActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_DocumentsActionPerformed
+        if (Documents.getSelectedItem() instanceof HexDocument doc && doc != Document) {
+            show(doc);
+        }
+    }//GEN-LAST:event_DocumentsActionPerformed
+
+    private void LayoutBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_LayoutBoxActionPerformed
+        final long offset = TopRow * Shown.BytesPerRow;
+        Shown = (Layout) LayoutBox.getSelectedItem();
+        updateScrollBar();
+        scrollTo(offset);
+    }//GEN-LAST:event_LayoutBoxActionPerformed
+
+    private void OffsetFieldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_OffsetFieldActionPerformed
+        goTo();
+    }//GEN-LAST:event_OffsetFieldActionPerformed
+
+    private void PatternFieldActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_PatternFieldActionPerformed
+        find();
+    }//GEN-LAST:event_PatternFieldActionPerformed
+
+    private void FindButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_FindButtonActionPerformed
+        find();
+    }//GEN-LAST:event_FindButtonActionPerformed
+
+    private void ViewMouseWheelMoved(java.awt.event.MouseWheelEvent evt) {//GEN-FIRST:event_ViewMouseWheelMoved
+        ScrollBar.setValue(ScrollBar.getValue() + evt.getWheelRotation() * 3);
+    }//GEN-LAST:event_ViewMouseWheelMoved
+
+    private void ViewComponentResized(java.awt.event.ComponentEvent evt) {//GEN-FIRST:event_ViewComponentResized
+        updateScrollBar();
+    }//GEN-LAST:event_ViewComponentResized
+
+    private void ScrollBarAdjustmentValueChanged(java.awt.event.AdjustmentEvent evt) {//GEN-FIRST:event_ScrollBarAdjustmentValueChanged
+        TopRow = Math.min((long) evt.getValue() * RowsPerUnit, Math.max(0, getRowCount() - 1));
+        View.repaint();
+    }//GEN-LAST:event_ScrollBarAdjustmentValueChanged
+
+    /**
+     * adds a document and shows it.
+     *
+     * @param Document the document
+     */
+    public void addDocument(HexDocument Document) {
+        Objects.requireNonNull(Document, "the document is null");
+        Documents.addItem(Document);
+        Documents.setSelectedItem(Document);
+    }
+
+    private void show(HexDocument Document) {
+        cancelSearch();
+        this.Document = Document;
+        MatchOffset = -1;
+        Wrap = false;
+        TopRow = 0;
+        updateScrollBar();
+        ScrollBar.setValue(0);
+        StatusLabel.setText(String.format("%,d bytes", Document.size()));
+        View.repaint();
+    }
+
+    /**
+     * @return the rows that fit on the view. (the last one can be cut)
+     */
+    private int getVisibleRows() {
+        return View.getHeight() / View.getFontMetrics(View.getFont()).getHeight() + 1;
+    }
+
+    private long getRowCount() {
+        return Document == null ? 0 : (Document.size() + Shown.BytesPerRow - 1) / Shown.BytesPerRow;
+    }
+
+    private void updateScrollBar() {
+        final long rows = getRowCount();
+        RowsPerUnit = Math.max(1, (rows + Integer.MAX_VALUE / 2 - 1) / (Integer.MAX_VALUE / 2));
+        final int visible = Math.max(1, getVisibleRows() - 1);
+        final int units = (int) ((rows + RowsPerUnit - 1) / RowsPerUnit);
+        final int extent = (int) Math.max(1, visible / RowsPerUnit);
+        ScrollBar.setValues(Math.min(ScrollBar.getValue(), units), extent, 0, Math.max(units, extent));
+        ScrollBar.setBlockIncrement(extent);
+        ScrollBar.setUnitIncrement(1);
+    }
+
+    /**
+     * scrolls so the offset is on the first row.
+     */
+    private void scrollTo(long Offset) {
+        final long row = Offset / Shown.BytesPerRow;
+        ScrollBar.setValue((int) (row / RowsPerUnit));
+        TopRow = row;
+        View.repaint();
+    }
+
+    private void goTo() {
+        if (Document == null) {
+            return;
+        }
+        try {
+            final long offset = HexDocument.parseOffset(OffsetField.getText());
+            if (offset < 0 || offset >= Document.size()) {
+                StatusLabel.setText(String.format("the offset is out of the %,d bytes", Document.size()));
+                return;
+            }
+            scrollTo(offset);
+            StatusLabel.setText(String.format("offset 0x%X", offset));
+        } catch (NumberFormatException ex) {
+            StatusLabel.setText("invalid offset. use 0x prefixed hex or decimal");
+        }
+    }
+
+    private void cancelSearch() {
+        if (Search != null && !Search.isDone()) {
+            Search.cancel(true);
+        }
+        FindButton.setEnabled(true);
+    }
+
+    /**
+     * looks for the pattern after the current match (or from the top row)
+     * after a search that found nothing it starts at the top of the file.
+     */
+    private void find() {
+        if (Document == null) {
+            return;
+        }
+        final byte[] pattern;
+        try {
+            pattern = HexDocument.parsePattern(PatternField.getText());
+        } catch (IllegalArgumentException ex) {
+            StatusLabel.setText(ex.getMessage());
+            return;
+        }
+        cancelSearch();
+        final var document = Document;
+        final long from = Wrap ? 0 : MatchOffset >= 0 ? MatchOffset + 1 : TopRow * Shown.BytesPerRow;
+        Wrap = false;
+        FindButton.setEnabled(false);
+        StatusLabel.setText("Searching...");
+        Search = new SwingWorker<>() {
+            @Override
+            protected Long doInBackground() throws Exception {
+                return document.find(pattern, from, this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || document != Document) {
+                    return;
+                }
+                FindButton.setEnabled(true);
+                try {
+                    final long found = get();
+                    if (found < 0) {
+                        StatusLabel.setText(from > 0 ? "not found after the offset. (the next search starts at the top)" : "not found");
+                        MatchOffset = -1;
+                        Wrap = from > 0;
+                        View.repaint();
+                        return;
+                    }
+                    MatchOffset = found;
+                    MatchLength = pattern.length;
+                    scrollTo(found);
+                    StatusLabel.setText(String.format("found at 0x%X", found));
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(HexViewPanel.class.getName()).log(Level.SEVERE, "unable to search", ex);
+                    StatusLabel.setText(String.format("unable to search: %s", ex.getMessage()));
+                }
+            }
+        };
+        Search.execute();
+    }
+
+    /**
+     * draws the rows on screen. the bytes and the text of a row go to buffers
+     * reused on each paint.
+     */
+    private class RowsView extends javax.swing.JPanel {
+
+        private final Font Mono = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+        private byte[] Bytes = new byte[0];
+        private char[] Line = new char[0];
+
+        private RowsView() {
+            setFont(Mono);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            g.setColor(UIManager.getColor("TextArea.background") != null ? UIManager.getColor("TextArea.background") : Color.WHITE);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            if (Document == null) {
+                return;
+            }
+            g.setFont(Mono);
+            final var metrics = g.getFontMetrics();
+            final int lineHeight = metrics.getHeight(), charWidth = metrics.charWidth('0');
+            final int perRow = Shown.BytesPerRow, cell = Shown == Layout.Hex ? 3 : 9;
+            final int offsetDigits = Document.size() > 0xFFFFFFFFL ? 16 : 8;
+            final int asciiStart = offsetDigits + 2 + perRow * cell + 1;
+            final int rows = getVisibleRows();
+            if (Bytes.length < rows * perRow) {
+                Bytes = new byte[rows * perRow];
+            }
+            if (Line.length < asciiStart + perRow) {
+                Line = new char[asciiStart + perRow];
+            }
+            final long start = TopRow * perRow;
+            final int count = Document.read(start, Bytes, rows * perRow);
+            final var text = UIManager.getColor("TextArea.foreground") != null ? UIManager.getColor("TextArea.foreground") : Color.BLACK;
+            for (int row = 0; row * perRow < count; row++) {
+                final long offset = start + (long) row * perRow;
+                final int y = row * lineHeight;
+                final int length = Math.min(perRow, count - row * perRow);
+                int pos = 0;
+                for (int shift = (offsetDigits - 1) * 4; shift >= 0; shift -= 4) {
+                    Line[pos++] = HEX[(int) (offset >>> shift) & 0xF];
+                }
+                Line[pos++] = ' ';
+                Line[pos++] = ' ';
+                for (int i = 0; i < perRow; i++) {
+                    final int value = Bytes[row * perRow + i] & 0xFF;
+                    if (i >= length) {
+                        for (int c = 0; c < cell; c++) {
+                            Line[pos++] = ' ';
+                        }
+                        continue;
+                    }
+                    if (Shown == Layout.Hex) {
+                        Line[pos++] = HEX[value >>> 4];
+                        Line[pos++] = HEX[value & 0xF];
+                    } else {
+                        for (int bit = 7; bit >= 0; bit--) {
+                            Line[pos++] = (char) ('0' + ((value >>> bit) & 1));
+                        }
+                    }
+                    Line[pos++] = ' ';
+                }
+                Line[pos++] = '|';
+                for (int i = 0; i < length; i++) {
+                    final int value = Bytes[row * perRow + i] & 0xFF;
+                    Line[pos++] = value >= 0x20 && value < 0x7F ? (char) value : '.';
+                }
+                if (MatchOffset >= 0 && MatchOffset < offset + length && MatchOffset + MatchLength > offset) {
+                    g.setColor(MATCH);
+                    final int first = (int) Math.max(0, MatchOffset - offset);
+                    final int last = (int) Math.min(length, MatchOffset + MatchLength - offset);
+                    g.fillRect((offsetDigits + 2 + first * cell) * charWidth, y, ((last - first) * cell - 1) * charWidth, lineHeight);
+                    g.fillRect((asciiStart + first) * charWidth, y, (last - first) * charWidth, lineHeight);
+                }
+                g.setColor(text);
+                g.drawChars(Line, 0, pos, 0, y + metrics.getAscent());
+            }
+        }
+    }
+
+    /**
+     * shows the name of the documents.
+     */
+    private static class DocumentRenderer extends javax.swing.DefaultListCellRenderer {
+
+        @Override
+        public java.awt.Component getListCellRendererComponent(javax.swing.JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            return super.getListCellRendererComponent(list, value instanceof HexDocument doc ? doc.getName() : value, index, isSelected, cellHasFocus);
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JComboBox<HexDocument> Documents;
+    private javax.swing.JButton FindButton;
+    private javax.swing.JLabel FindLabel;
+    private javax.swing.JLabel GoToLabel;
+    private javax.swing.JComboBox<Layout> LayoutBox;
+    private javax.swing.JTextField OffsetField;
+    private javax.swing.JTextField PatternField;
+    private javax.swing.JScrollBar ScrollBar;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JPanel ToolbarPanel;
+    private javax.swing.JPanel View;
+    // End of variables declaration//GEN-END:variables
+}
@@ -16,6 +16,7 @@ import com.aeongames.edi.utils.text.LabelText;
 import com.aeongames.edi.utils.visual.ImageScaleComponents;
 import com.aeongames.edi.utils.visual.Panels.ImagePanel;
 import java.awt.CardLayout;
+import java.awt.Color;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
@@ -33,9 +34,11 @@ public class ImagePreviewPanel extends javax.swing.JPanel {
 
     public static final String ThumbClickEvent = "ThumbClicked";
     private static final String THUMBNAIL = "ImageView";
+    private static final Color HIGHLIGHT = new Color(255, 140, 0);
     private final String PreviewTitle;
     private BufferedImage ImageToPreview;
     private final CardLayout Layout;
+    private double Score = Double.NaN;
 
     public ImagePreviewPanel() {
         PreviewTitle = "Image";
@@ -166,6 +169,42 @@ public class ImagePreviewPanel extends javax.swing.JPanel {
         return ImageToPreview;
     }
 
+    public String getTitle() {
+        return PreviewTitle;
+    }
+
+    /**
+     * sets how interesting the image looks. shown as the tool tip of the
+     * title.
+     *
+     * @param Score the score (0 to 1)
+     * @param Description the description of the score
+     */
+    public void setScore(double Score, String Description) {
+        this.Score = Score;
+        txtTitle.setToolTipText(Description);
+    }
+
+    /**
+     * @return the score or {@code Double.NaN} if the image was not scored.
+     */
+    public double getScore() {
+        return Score;
+    }
+
+    /**
+     * marks the thumb as one of the most interesting. (the rank is shown on
+     * the title)
+     *
+     * @param Rank the rank from 1. 0 to clear the mark
+     */
+    public void setRank(int Rank) {
+        txtTitle.setText(Rank > 0 ? String.format("#%d %s", Rank, PreviewTitle) : PreviewTitle);
+        jPanel1.setBorder(Rank > 0
+                ? javax.swing.BorderFactory.createLineBorder(HIGHLIGHT, 2)
+                : javax.swing.BorderFactory.createBevelBorder(javax.swing.border.BevelBorder.RAISED));
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -14,23 +14,45 @@ package com.aeongames.stegsolveplus.ui;
 
 import com.aeongames.edi.utils.data.Pair;
 import com.aeongames.edi.utils.error.ErrorData;
+import com.aeongames.edi.utils.error.LoggingHelper;
 import com.aeongames.edi.utils.visual.ImageScaleComponents;
 import com.aeongames.edi.utils.visual.Panels.ErrorGlassPane;
 import com.aeongames.edi.utils.visual.Panels.ImagePanel;
 import com.aeongames.stegsolveplus.ui.tabcomponents.Tab;
+import com.aeongames.stegsolveplus.StegnoTools.CarvedHit;
+import com.aeongames.stegsolveplus.StegnoTools.FileStructure;
+import com.aeongames.stegsolveplus.StegnoTools.FoundString;
+import com.aeongames.stegsolveplus.StegnoTools.HexDocument;
+import com.aeongames.stegsolveplus.StegnoTools.ImageCombiner;
+import com.aeongames.stegsolveplus.StegnoTools.ResultExporter;
+import com.aeongames.stegsolveplus.StegnoTools.ScoredResult;
 import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
 import com.aeongames.stegsolveplus.ui.tabcomponents.TabClose;
+import java.awt.GridLayout;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import javax.imageio.ImageIO;
+import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 
 /**
  *
@@ -43,10 +65,29 @@ public class InvestigationTab extends Tab {
         public static final String BUSY = "BUSY";
         public static final String STATEINFO = "STATE_STRING";
     }
+    /**
+     * the amount of results marked as the most interesting. and the lowest
+     * score to be marked.
+     */
+    private static final int HIGHLIGHTED_RESULTS = 5;
+    private static final double MIN_HIGHLIGHT_SCORE = 0.2;
     private boolean isBusy = false;
     private final StegnoAnalyzer Analyst;
+    private final AnalysisSession Session;
     private HashMap<String, ImagePreviewPanel> ThumbsReferences;
     private final PropertyChangeListener ThumbClickListener;
+    private CarvingPanel CarvingResults;
+    private StringsPanel StringsResults;
+    private StructurePanel StructureResults;
+    private FramesPanel FramesResults;
+    private BitMaskPanel BitMaskResults;
+    private StereogramPanel StereogramResults;
+    private PixelInspectorPanel InspectorResults;
+    private HexViewPanel HexResults;
+    /**
+     * the results shown so far. (for the pixel inspector)
+     */
+    private final List<Pair<String, BufferedImage>> Results = new ArrayList<>();
 
     /**
      * Creates new form InvestigationTab
@@ -63,23 +104,76 @@ public class InvestigationTab extends Tab {
         SetTitleInternal(FilePath);
         ThumbClickListener = generateThumbReader();
         Analyst = new StegnoAnalyzer(FilePath);
+        Session = new AnalysisSession(Analyst);
         prepareAnalysis();
 
     }
 
+    /**
+     * creates a tab for a area of a image file. the area is analyzed at full
+     * resolution. (see {@link PixelInspectorPanel#ANALYZE_REGION})
+     *
+     * @param FilePath the file
+     * @param Region the area of the image
+     */
+    public InvestigationTab(Path FilePath, Rectangle Region) {
+        FilePath = Objects.requireNonNull(FilePath, "provided path is null");
+        Region = Objects.requireNonNull(Region, "provided region is null");
+        initComponents();
+        SetTitleInternal(FilePath);
+        ThumbClickListener = generateThumbReader();
+        Analyst = new StegnoAnalyzer(FilePath, Region);
+        Session = new AnalysisSession(Analyst);
+        pFooter.setFooterText(String.format("Ready: %s", Analyst.getSourceName()));
+        prepareAnalysis();
+    }
+
     public InvestigationTab(URL Link) {
         Link = Objects.requireNonNull(Link, "provided Link is null");
         initComponents();
         SetTitleInternal(Link);
         ThumbClickListener = generateThumbReader();
         Analyst = new StegnoAnalyzer(Link);
+        Session = new AnalysisSession(Analyst);
+        prepareAnalysis();
+    }
+
+    /**
+     * creates a tab for a image already on memory. (a frame of a multi frame
+     * file)
+     *
+     * @param Image the image to investigate
+     * @param Name the name to show for the image
+     */
+    public InvestigationTab(BufferedImage Image, String Name) {
+        this(Image, Name, false);
+    }
+
+    /**
+     * creates a tab for a image already on memory.
+     *
+     * @param Image the image to investigate
+     * @param Name the name to show for the image
+     * @param Adopt true if the image is given up. (a image pasted from the
+     * clipboard) so it is not copied when its type allows it. (see
+     * {@link StegnoAnalyzer#StegnoAnalyzer(BufferedImage, String, boolean)})
+     */
+    public InvestigationTab(BufferedImage Image, String Name, boolean Adopt) {
+        Image = Objects.requireNonNull(Image, "provided image is null");
+        Name = Objects.requireNonNull(Name, "provided name is null");
+        initComponents();
+        pFooter.setFooterText(String.format("Ready: %s", Name));
+        _InternalSetTitle(Name.length() > 20 ? Name.substring(0, 17) + "..." : Name);
+        ThumbClickListener = generateThumbReader();
+        Analyst = new StegnoAnalyzer(Image, Name, Adopt);
+        Session = new AnalysisSession(Analyst);
         prepareAnalysis();
     }
 
     private PropertyChangeListener generateThumbReader() {
         return (evt) -> {
             if (evt.getPropertyName().equals(ImagePreviewPanel.ThumbClickEvent)) {
-                if (evt.getSource() instanceof ImagePreviewPanel) {
+                if (evt.getSource() instanceof ImagePreviewPanel || evt.getSource() instanceof BitMaskPanel) {
                     var closeComponent = new TabClose(AnalysisTabs);
                     var imagep = new ImagePanel((Image) evt.getNewValue());
                     imagep.SetBackgroundPolicy(ImageScaleComponents.SCALE_ALWAYS);
@@ -96,15 +190,15 @@ public class InvestigationTab extends Tab {
 
     private Consumer<List<Pair<String, BufferedImage>>> getCallback() {
         return (List) -> {
-            if (Analyst.isCancelled()) {
+            if (Session.isCancelled()) {
                 //if the task was cancelled that means *This* UI. is no longer valid. bail
                 return;
             }
-            if (List == null && Analyst.isDone()) {
+            if (List == null && Session.isDone()) {
                 //fail. TODO: add the means to read error from the process.
                 ThumbGridPanel.setLayout(null);
                 ThumbGridPanel.removeAll();
-                var err = new ErrorGlassPane(new ErrorData("Error Loading file.", Analyst.exceptionNow().getMessage(), Analyst.exceptionNow()),
+                var err = new ErrorGlassPane(new ErrorData("Error Loading file.", Session.exceptionNow().getMessage(), Session.exceptionNow()),
                         (t) -> {
                             this.Close(true);
                         });
@@ -117,7 +211,7 @@ public class InvestigationTab extends Tab {
                 //Notify the Parent our work is done. 
                 setAvailable();
                 return;
-            } else if (List == null || (List.isEmpty() && !Analyst.isDone())) {
+            } else if (List == null || (List.isEmpty() && !Session.isDone())) {
                 return;//null or empty is notified. nothing to do. 
             }
             for (var pair : List) {
@@ -133,6 +227,10 @@ public class InvestigationTab extends Tab {
                 //note after this point avoid using ThumbsReferences use the mapvalue
                 if (mapvalue.getImage() == null) {
                     mapvalue.SetImage(pair.getRight());
+                    Results.add(pair);
+                }
+                if (pair instanceof ScoredResult scored) {
+                    mapvalue.setScore(scored.getScore(), scored.describe());
                 }
                 //redundant
                 //mapvalue.repaint();
@@ -141,17 +239,42 @@ public class InvestigationTab extends Tab {
             ThumbGridPanel.invalidate();
             ThumbGridPanel.repaint();
             InvestigationTab.this.repaint();
-            if (Analyst.isDone()) {
-                pFooter.setFooterText(String.format("analysis Finish for: %s", Analyst.getSourceName()));
+            if (Session.isDone()) {
+                var top = highlightTopResults();
+                pFooter.setFooterText(top.isEmpty()
+                        ? String.format("analysis Finish for: %s", Analyst.getSourceName())
+                        : String.format("analysis Finish for: %s. most interesting: %s", Analyst.getSourceName(), String.join(", ", top)));
                 //Notify the Parent our work is done. 
                 setAvailable();
             }
         };
     }
 
+    /**
+     * marks the thumbs with the highest scores.
+     *
+     * @return the names of the marked thumbs. best first.
+     */
+    private List<String> highlightTopResults() {
+        var ranked = new ArrayList<ImagePreviewPanel>();
+        for (var thumb : ThumbsReferences.values()) {
+            thumb.setRank(0);
+            if (thumb.getScore() >= MIN_HIGHLIGHT_SCORE) {
+                ranked.add(thumb);
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(ImagePreviewPanel::getScore).reversed());
+        var names = new ArrayList<String>(HIGHLIGHTED_RESULTS);
+        for (int i = 0; i < Math.min(HIGHLIGHTED_RESULTS, ranked.size()); i++) {
+            ranked.get(i).setRank(i + 1);
+            names.add(ranked.get(i).getTitle());
+        }
+        return names;
+    }
+
     private Consumer<BufferedImage> getImageLoadCallback() {
         return (image) -> {
-          if (Analyst.isCancelled()) {
+          if (Session.isCancelled()) {
                 //if the task was cancelled that means *This* UI. is no longer valid. bail
                 return;
             }
@@ -161,7 +284,7 @@ public class InvestigationTab extends Tab {
                 //fail. TODO: add the means to read error from the process.
                 ThumbGridPanel.setLayout(null);
                 ThumbGridPanel.removeAll();
-                var err = new ErrorGlassPane(new ErrorData("Error Loading file.", Analyst.exceptionNow().getMessage(), Analyst.exceptionNow()),
+                var err = new ErrorGlassPane(new ErrorData("Error Loading file.", Session.exceptionNow().getMessage(), Session.exceptionNow()),
                         (t) -> {
                             this.Close(true);
                         });
@@ -176,11 +299,105 @@ public class InvestigationTab extends Tab {
                 return;
             }
             Originalimg.SetImage(image,true);
+            if (BitMaskResults == null) {
+                BitMaskResults = new BitMaskPanel(Analyst);
+                BitMaskResults.addPropertyChangeListener(ImagePreviewPanel.ThumbClickEvent, ThumbClickListener);
+                AnalysisTabs.addTab("Bit Mask", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/color.png")), BitMaskResults);
+            }
+            if (InspectorResults == null) {
+                InspectorResults = new PixelInspectorPanel(Analyst, image, Results);
+                InspectorResults.addPropertyChangeListener(PixelInspectorPanel.ANALYZE_REGION,
+                        evt -> firePropertyChange(PixelInspectorPanel.ANALYZE_REGION, evt.getOldValue(), evt.getNewValue()));
+                AnalysisTabs.addTab("Pixel Inspector", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/image.png")), InspectorResults);
+            }
+            if (StereogramResults == null) {
+                StereogramResults = new StereogramPanel(Analyst);
+                AnalysisTabs.addTab("Stereogram", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/color.png")), StereogramResults);
+            }
+            if (Analyst.getFrameCount() > 1 && FramesResults == null) {
+                FramesResults = new FramesPanel(Analyst.getLocalFile(), Analyst.getFrameCount());
+                FramesResults.addPropertyChangeListener(FramesPanel.ANALYZE_FRAME,
+                        evt -> firePropertyChange(FramesPanel.ANALYZE_FRAME, evt.getOldValue(), evt.getNewValue()));
+                AnalysisTabs.addTab(String.format("Frames (%d)", Analyst.getFrameCount()),
+                        new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/image.png")), FramesResults);
+            }
+            if (Analyst.getLocalFile() != null && HexResults == null) {
+                try {
+                    var document = Analyst.getFileDocument();
+                    HexResults = new HexViewPanel();
+                    HexResults.addDocument(document);
+                    AnalysisTabs.addTab("Hex", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/menu_24dp_E8EAED_FILL0_wght400_GRAD0_opsz24.png")), HexResults);
+                } catch (IOException ex) {
+                    LoggingHelper.getLogger(InvestigationTab.class.getName())
+                            .log(Level.WARNING, "unable to map the file for the hex view", ex);
+                }
+            }
+        };
+    }
+
+    /**
+     * shows a carved hit on the hex view. (the tab is created if the file
+     * could not be shown)
+     */
+    private void viewHex(HexDocument Document) {
+        if (HexResults == null) {
+            HexResults = new HexViewPanel();
+            AnalysisTabs.addTab("Hex", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/menu_24dp_E8EAED_FILL0_wght400_GRAD0_opsz24.png")), HexResults);
+        }
+        HexResults.addDocument(Document);
+        AnalysisTabs.setSelectedComponent(HexResults);
+    }
+
+    private Consumer<FileStructure> getStructureCallback() {
+        return (structure) -> {
+            if (Session.isCancelled() || structure == null) {
+                return;
+            }
+            StructureResults.setStructure(structure);
+            AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(StructureResults), true);
+            if (structure.hasThumbnail() && Originalimg.getImage() == null) {
+                //the embedded thumbnail is tiny. show it while the image decodes
+                try {
+                    var thumbnail = ImageIO.read(new ByteArrayInputStream(structure.getThumbnail()));
+                    if (thumbnail != null) {
+                        Originalimg.SetImage(thumbnail, true);
+                    }
+                } catch (IOException ex) {
+                    //not a big deal. the image will show once decoded.
+                }
+            }
+        };
+    }
+
+    private Consumer<List<CarvedHit>> getCarvingCallback() {
+        return (hits) -> {
+            if (Session.isCancelled()) {
+                return;
+            }
+            if (Session.isCarvingDone()) {
+                CarvingResults.setHits(hits);
+            } else if (hits != null) {
+                CarvingResults.addHits(hits);
+            }
+        };
+    }
+
+    private Consumer<List<FoundString>> getStringsCallback() {
+        return (strings) -> {
+            if (Session.isCancelled()) {
+                return;
+            }
+            if (Session.isStringsDone()) {
+                StringsResults.setStrings(strings);
+            } else if (strings != null) {
+                StringsResults.addStrings(strings);
+            }
         };
     }
 
     public boolean IsAnalizing(Path OtherFile) {
-        if (OtherFile == null) {
+        if (OtherFile == null || Analyst.getRegion() != null) {
+            //a region is not the file.
             return false;
         }
         var path = Analyst.getFilePath();
@@ -202,6 +419,92 @@ public class InvestigationTab extends Tab {
         return OtherFile.toString().equals(Analyst.getAnalysisSource());
     }
 
+    /**
+     * @return the name of the image on analysis.
+     */
+    public String getSourceName() {
+        return Analyst.getSourceName();
+    }
+
+    /**
+     * @return true once the image is loaded. (and can be combined)
+     */
+    public boolean isImageLoaded() {
+        return Analyst.isImageLoaded();
+    }
+
+    /**
+     * creates a combiner of the image of this tab (first) and the image of the
+     * other tab. (second)
+     *
+     * @param Other the tab of the second image
+     * @param Align how to align the images
+     * @return the combiner.
+     */
+    ImageCombiner combineWith(InvestigationTab Other, ImageCombiner.Alignment Align) {
+        return ImageCombiner.of(Analyst, Other.Analyst, Align);
+    }
+
+    /**
+     * writes the transformations (so far) and the bit streams of the image
+     * into a folder the user picks. the deflate level is picked on the same
+     * dialog. (see {@link ResultExporter})
+     */
+    public void exportAll() {
+        if (!Analyst.isImageLoaded()) {
+            JOptionPane.showMessageDialog(this, "The image is not loaded yet.", "Export All", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        var levels = new String[]{"Fast (larger files)", "Default", "Smallest (slower)"};
+        var levelValues = new int[]{ResultExporter.FAST_LEVEL, ResultExporter.DEFAULT_LEVEL, ResultExporter.BEST_LEVEL};
+        var level = new JComboBox<>(levels);
+        var accessory = new JPanel(new GridLayout(0, 1));
+        accessory.add(new JLabel("PNG compression"));
+        accessory.add(level);
+        var fileChooser = new JFileChooser(System.getProperty("user.dir"));
+        fileChooser.setDialogTitle("Export all the results into");
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        fileChooser.setAccessory(accessory);
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        var directory = fileChooser.getSelectedFile().toPath();
+        var exporter = new ResultExporter(directory, levelValues[level.getSelectedIndex()]);
+        exporter.addImages(List.copyOf(Results));
+        exporter.addStreams(Analyst);
+        setBusy();
+        pFooter.SetProgress(0);
+        pFooter.setFooterText(String.format("Exporting the results to %s", directory));
+        new SwingWorker<ResultExporter.Summary, Integer>() {
+            @Override
+            protected ResultExporter.Summary doInBackground() throws Exception {
+                return exporter.export((done, total, name) -> publish(done * 100 / total), this::isCancelled);
+            }
+
+            @Override
+            protected void process(List<Integer> chunks) {
+                pFooter.SetProgress(chunks.get(chunks.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                setAvailable();
+                try {
+                    var summary = get();
+                    pFooter.setFooterText(String.format("Exported %d files (%,d bytes) to %s", summary.Written(), summary.Bytes(), directory));
+                    if (!summary.Failed().isEmpty()) {
+                        JOptionPane.showMessageDialog(InvestigationTab.this, String.format("Unable to export: %s. see the logs", String.join(", ", summary.Failed())),
+                                "Export All", JOptionPane.WARNING_MESSAGE);
+                    }
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(InvestigationTab.class.getName()).log(Level.SEVERE, "unable to export the results", ex);
+                    pFooter.setFooterText("the export failed. see the logs");
+                    JOptionPane.showMessageDialog(InvestigationTab.this, ex.getMessage(), "Unable to export", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
     public Object getImageResource() {
         var path = Analyst.getFilePath();
         if (path != null) {
@@ -220,14 +523,28 @@ public class InvestigationTab extends Tab {
             ThumbGridPanel.add(preview);
         }
         AnalysisTabs.setEnabledAt(1, false);
+        StructureResults = new StructurePanel();
+        AnalysisTabs.addTab("Structure", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/menu_24dp_E8EAED_FILL0_wght400_GRAD0_opsz24.png")), StructureResults);
+        AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(StructureResults), false);
+        CarvingResults = new CarvingPanel(Analyst);
+        CarvingResults.addPropertyChangeListener(CarvingPanel.VIEW_HEX, evt -> viewHex((HexDocument) evt.getNewValue()));
+        AnalysisTabs.addTab("Embedded Files", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/openf.png")), CarvingResults);
+        AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(CarvingResults), false);
+        StringsResults = new StringsPanel();
+        AnalysisTabs.addTab("Strings", new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/link.png")), StringsResults);
+        AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(StringsResults), false);
     }
 
     public void startAnalysis() {
-        if (!Analyst.isDone()) {
+        if (!Session.isDone()) {
             pFooter.setFooterText(String.format("Analysing File: %s", Analyst.getSourceName()));
             setBusy();
-            Analyst.RunTransformations(getCallback());
+            Session.RunTransformations(getCallback());
+            Session.RunCarving(getCarvingCallback());
+            Session.RunStrings(getStringsCallback());
             AnalysisTabs.setEnabledAt(1, true);
+            AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(CarvingResults), true);
+            AnalysisTabs.setEnabledAt(AnalysisTabs.indexOfComponent(StringsResults), true);
         }
     }
 
@@ -239,6 +556,18 @@ public class InvestigationTab extends Tab {
         removePropertyChangeListener(ChangePropertys.BUSY, listener);
     }
 
+    /**
+     * registers a listener for the requests to analyze a frame or a region of
+     * the file. see {@link FramesPanel#ANALYZE_FRAME} and
+     * {@link PixelInspectorPanel#ANALYZE_REGION}
+     *
+     * @param listener the listener
+     */
+    public void addFrameAnalysisListener(PropertyChangeListener listener) {
+        addPropertyChangeListener(FramesPanel.ANALYZE_FRAME, listener);
+        addPropertyChangeListener(PixelInspectorPanel.ANALYZE_REGION, listener);
+    }
+
     private void SetTitleInternal(Path FilePath) {
         //assume the file is alredy non null. we are too deep if it is not a verification was missing before
         var Filename = FilePath.getFileName().toString().strip();
@@ -298,8 +627,10 @@ public class InvestigationTab extends Tab {
     //TODO::do the actual cleanup. pop if wants to keep work open?
     @Override
     public boolean Close(boolean force) {
-        if (!Analyst.isDone() && !Analyst.isCancelled()) {
-            Analyst.stopAnalysis();
+        //stops what is still running and unmaps the file.
+        Session.close();
+        if (FramesResults != null) {
+            FramesResults.close();
         }
         /*
         try {
@@ -411,7 +742,7 @@ public class InvestigationTab extends Tab {
     }// </editor-fold>//GEN-END:initComponents
 
     private void formComponentShown(java.awt.event.ComponentEvent evt) {//GEN-FIRST:event_formComponentShown
-        Analyst.LoadImageData(getImageLoadCallback());
+        Session.LoadImageData(getImageLoadCallback(), getStructureCallback());
     }//GEN-LAST:event_formComponentShown
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -16,15 +16,21 @@ import com.aeongames.edi.utils.data.Pair;
 import com.aeongames.edi.utils.error.LoggingHelper;
 import com.aeongames.edi.utils.visual.ImageScaleComponents;
 import com.aeongames.edi.utils.visual.Panels.JAeonTabPane;
+import com.aeongames.stegsolveplus.StegnoTools.ImageCombiner;
 import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
 import com.aeongames.stegsolveplus.ui.tabcomponents.JStegnoTabbedPane;
+import com.aeongames.stegsolveplus.ui.tabcomponents.Tab;
 import java.awt.Color;
 import java.awt.Desktop;
+import java.awt.GridLayout;
 import java.awt.IllegalComponentStateException;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.datatransfer.Transferable;
 import java.awt.dnd.DropTargetDragEvent;
 import java.awt.dnd.DropTargetDropEvent;
 import java.awt.dnd.DropTargetEvent;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
@@ -41,8 +47,11 @@ import java.util.concurrent.RecursiveTask;
 import java.util.logging.Level;
 import javax.swing.ImageIcon;
 import javax.swing.JFileChooser;
+import javax.swing.JComboBox;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JPanel;
 import javax.swing.JRootPane;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
@@ -77,14 +86,20 @@ public class MainFrame extends javax.swing.JFrame {
      * Drag and Drop Helper to handle File Loading from System Dragging images
      */
     private DragAndDrop DragAndDrophelper;
+    /**
+     * the images pasted so far. (to name their tabs)
+     */
+    private int PastedImages;
 
     private final PropertyChangeListener BusyStateCallback;
+    private final PropertyChangeListener FrameAnalysisCallback;
 
     /**
      * Creates new form MainFrame
      */
     public MainFrame() {
         BusyStateCallback = getBusyStateCallback();
+        FrameAnalysisCallback = getFrameAnalysisCallback();
         initComponents();
         if (APP_ICON != null) {
             this.setIconImage(APP_ICON.getImage());
@@ -102,6 +117,26 @@ public class MainFrame extends javax.swing.JFrame {
         };
     }
 
+    /**
+     * opens a new tab to analyze the frame (or the region of the file) a tab
+     * requested.
+     */
+    private PropertyChangeListener getFrameAnalysisCallback() {
+        return (evt) -> {
+            InvestigationTab tab;
+            if (evt.getNewValue() instanceof BufferedImage frame) {
+                tab = new InvestigationTab(frame, evt.getOldValue().toString());
+            } else if (evt.getNewValue() instanceof Rectangle region && evt.getOldValue() instanceof Path file) {
+                tab = new InvestigationTab(file, region);
+            } else {
+                return;
+            }
+            tab.addBusyListener(BusyStateCallback);
+            tab.addFrameAnalysisListener(FrameAnalysisCallback);
+            addTab(tab);
+        };
+    }
+
     /**
      * This method is called from within the constructor to initialize the form.
      * WARNING: Do NOT modify this code. The content of this method is always
@@ -120,6 +155,8 @@ public class MainFrame extends javax.swing.JFrame {
         MbExit = new javax.swing.JMenuItem();
         jMenu1 = new javax.swing.JMenu();
         jMenuItem5 = new javax.swing.JMenuItem();
+        MCombineImages = new javax.swing.JMenuItem();
+        MExportAll = new javax.swing.JMenuItem();
         jMenu2 = new javax.swing.JMenu();
         jMenuItem2 = new javax.swing.JMenuItem();
         jMenuItem3 = new javax.swing.JMenuItem();
@@ -170,7 +207,6 @@ public class MainFrame extends javax.swing.JFrame {
         MOpenClipboard.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_P, java.awt.event.InputEvent.CTRL_DOWN_MASK));
         MOpenClipboard.setIcon(new javax.swing.ImageIcon(getClass().getResource("/com/aeongames/stegsolveplus/ui/paste.png"))); // NOI18N
         MOpenClipboard.setText("Open Clipboard");
-        MOpenClipboard.setEnabled(false);
         MOpenClipboard.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
                 MOpenClipboardActionPerformed(evt);
@@ -203,6 +239,22 @@ public class MainFrame extends javax.swing.JFrame {
         });
         jMenu1.add(jMenuItem5);
 
+        MCombineImages.setText("Combine Images...");
+        MCombineImages.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                MCombineImagesActionPerformed(evt);
+            }
+        });
+        jMenu1.add(MCombineImages);
+
+        MExportAll.setText("Export All Results...");
+        MExportAll.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                MExportAllActionPerformed(evt);
+            }
+        });
+        jMenu1.add(MExportAll);
+
         MainMenu.add(jMenu1);
 
         jMenu2.setText("External Actions");
@@ -344,8 +396,27 @@ public class MainFrame extends javax.swing.JFrame {
         }
     }//GEN-LAST:event_MainTabPanePropertyChange
 
+    /**
+     * opens what the clipboard holds. the files, a link, the bytes of a PNG (as
+     * they are) or a image. (a screenshot) the same way a drop does. (see
+     * {@link DragAndDrop#ProcessTransferable})
+     *
+     * @param evt not used
+     */
     private void MOpenClipboardActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_MOpenClipboardActionPerformed
-        // TODO add your handling code here:
+        SetMenuStatus(false);
+        Transferable contents = null;
+        try {
+            contents = getToolkit().getSystemClipboard().getContents(this);
+        } catch (IllegalStateException ex) {
+            LoggingHelper.getLogger(MainFrame.class.getName()).log(Level.WARNING, "the clipboard is not available", ex);
+        }
+        if (contents != null && DragAndDrophelper.ProcessTransferable(contents)) {
+            return;
+        }
+        JOptionPane.showMessageDialog(this, "The Clipboard has no image, file or link to open",
+                "Open Clipboard", JOptionPane.INFORMATION_MESSAGE);
+        checkBusyAndEnableMenu();
     }//GEN-LAST:event_MOpenClipboardActionPerformed
 
     private void formWindowClosing(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowClosing
@@ -411,6 +482,44 @@ public class MainFrame extends javax.swing.JFrame {
         }
     }//GEN-LAST:event_jMenuItem5ActionPerformed
 
+    private void MCombineImagesActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_MCombineImagesActionPerformed
+        var tabs = new ArrayList<InvestigationTab>();
+        for (var index = 0; index < MainTabPane.getTabCount(); index++) {
+            if (MainTabPane.getComponentAt(index) instanceof InvestigationTab tab && tab.isImageLoaded()) {
+                tabs.add(tab);
+            }
+        }
+        if (tabs.size() < 2) {
+            JOptionPane.showMessageDialog(this, "Open (and load) at least two images to combine them.", "Combine Images", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        var names = tabs.stream().map(InvestigationTab::getSourceName).toArray(String[]::new);
+        var first = new JComboBox<>(names);
+        var second = new JComboBox<>(names);
+        second.setSelectedIndex(1);
+        var alignment = new JComboBox<>(ImageCombiner.Alignment.values());
+        var form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("First image"));
+        form.add(first);
+        form.add(new JLabel("Second image"));
+        form.add(second);
+        form.add(new JLabel("When the sizes differ"));
+        form.add(alignment);
+        if (JOptionPane.showConfirmDialog(this, form, "Combine Images", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return;
+        }
+        var firstTab = tabs.get(first.getSelectedIndex());
+        var secondTab = tabs.get(second.getSelectedIndex());
+        var combiner = firstTab.combineWith(secondTab, (ImageCombiner.Alignment) alignment.getSelectedItem());
+        addTab(new CombinerTab(combiner, firstTab.getSourceName(), secondTab.getSourceName()));
+    }//GEN-LAST:event_MCombineImagesActionPerformed
+
+    private void MExportAllActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_MExportAllActionPerformed
+        if (MainTabPane.getSelectedComponent() instanceof InvestigationTab tab) {
+            tab.exportAll();
+        }
+    }//GEN-LAST:event_MExportAllActionPerformed
+
     private String ValidFileTypes(String list2[]) {
         var descriptor = new StringBuilder("Images (");
         for (int index = 0; index < list2.length; index++) {
@@ -519,6 +628,7 @@ public class MainFrame extends javax.swing.JFrame {
     private boolean newFileTab(final Path file) {
         InvestigationTab tab = new InvestigationTab(file);
         tab.addBusyListener(BusyStateCallback);
+        tab.addFrameAnalysisListener(FrameAnalysisCallback);
         return addTab(tab);
     }
 
@@ -550,6 +660,31 @@ public class MainFrame extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * opens a tab for a image with no file behind it. (pasted or dropped) the
+     * image is given up to the tab. so it is not copied when its type allows
+     * it.
+     */
+    private void ProcessDropedImage(final BufferedImage image) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            SetMenuStatus(false);
+            var tab = new InvestigationTab(image, String.format("Pasted image %d", ++PastedImages), true);
+            tab.addBusyListener(BusyStateCallback);
+            tab.addFrameAnalysisListener(FrameAnalysisCallback);
+            if (!addTab(tab)) {
+                checkBusyAndEnableMenu();
+            }
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(() -> this.ProcessDropedImage(image));
+        } catch (InterruptedException ex) {
+            LoggingHelper.getLogger(MainFrame.class.getName()).log(Level.SEVERE, "A call to UI was Interrupted", ex);
+        } catch (InvocationTargetException ex) {
+            LoggingHelper.getLogger(MainFrame.class.getName()).log(Level.SEVERE, "Could not invoke the UI", ex);
+        }
+    }
+
     private void ProcessDropedLinks(final URL link) {
         if (SwingUtilities.isEventDispatchThread()) {
             SetMenuStatus(false);
@@ -567,7 +702,7 @@ public class MainFrame extends javax.swing.JFrame {
         }
     }
 
-    private boolean addTab(InvestigationTab tab) {
+    private boolean addTab(Tab tab) {
         boolean Tabcreated = false;
         if (tab != null) {
             MainTabPane.add(tab);
@@ -584,8 +719,7 @@ public class MainFrame extends javax.swing.JFrame {
     private void SetMenuStatus(boolean status) {
         MOpenFile.setEnabled(status);
         MOpenLink.setEnabled(status);
-        //this is not ready to be changed.
-        //MOpenClipboard.setEnabled(status);
+        MOpenClipboard.setEnabled(status);
     }
 
     private void checkBusyAndEnableMenu() {
@@ -635,7 +769,7 @@ public class MainFrame extends javax.swing.JFrame {
         if (Dialog.getSelectedOption() == CloseDialog.RET_EXIT) {
             try {
                 for (var index = 0; index < MainTabPane.getTabCount(); index++) {
-                    if (MainTabPane.getComponentAt(index) instanceof InvestigationTab tab) {
+                    if (MainTabPane.getComponentAt(index) instanceof Tab tab) {
                         tab.Close(true);
                     }
                 }
@@ -682,6 +816,11 @@ public class MainFrame extends javax.swing.JFrame {
                     ProcessDropedLinks(link);
                 }
 
+                @Override
+                public void NotifyFoundImage(BufferedImage image) {
+                    ProcessDropedImage(image);
+                }
+
                 @Override
                 public void DropComplete(DropTargetDropEvent dtde) {
                     var source = dtde.getDropTargetContext().getComponent();
@@ -821,6 +960,8 @@ public class MainFrame extends javax.swing.JFrame {
     // <editor-fold defaultstate="collapsed" desc="UI components">    
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JMenu FileMenu;
+    private javax.swing.JMenuItem MCombineImages;
+    private javax.swing.JMenuItem MExportAll;
     private javax.swing.JMenuItem MOpenClipboard;
     private javax.swing.JMenuItem MOpenFile;
     private javax.swing.JMenuItem MOpenLink;
@@ -0,0 +1,291 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.data.Pair;
+import com.aeongames.edi.utils.visual.ImageScaleComponents;
+import com.aeongames.edi.utils.visual.Panels.ImagePanel;
+import com.aeongames.stegsolveplus.StegnoTools.ImageLoader;
+import com.aeongames.stegsolveplus.StegnoTools.PixelInspector;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * the pixel inspector. hovering the image shows the values of the pixel under
+ * the mouse (see {@link PixelInspector}) and a click pins the pixel so the
+ * bits around it can be copied to the clipboard. dragging selects a area of
+ * the file to analyze at full resolution on its own tab. (see
+ * {@link #ANALYZE_REGION}) meant for the overview of a large image.
+ *
+ * @author Eduardo Vindas
+ */
+public class PixelInspectorPanel extends javax.swing.JPanel {
+
+    /**
+     * the event fired to analyze a area of the file. the old value is the
+     * {@link java.nio.file.Path} of the file and the new value the
+     * {@link Rectangle} on the file.
+     */
+    public static final String ANALYZE_REGION = "ANALYZE_REGION";
+    /**
+     * the size of the block copied to the clipboard.
+     */
+    private static final int DUMP_SIZE = 8;
+    private static final Color SELECTION = new Color(255, 140, 0);
+    private final StegnoAnalyzer Analyst;
+    private final PixelInspector Inspector;
+    private final List<? extends Pair<String, BufferedImage>> Transforms;
+    private final BufferedImage Image;
+    /**
+     * the text of the readout. reused on each move.
+     */
+    private final StringBuilder Text = new StringBuilder(512);
+    private int ShownX = -1, ShownY = -1;
+    private boolean Pinned;
+    /**
+     * the selected area. (on the image shown) and where the drag started.
+     */
+    private Rectangle Selection;
+    private int AnchorX = -1, AnchorY = -1;
+
+    /**
+     * @param Analyst the analyzer of the image. (the image must be loaded)
+     * @param Image the image to show
+     * @param Transforms the results of the transformations. read on each
+     * readout so it can grow while the analysis runs.
+     */
+    public PixelInspectorPanel(StegnoAnalyzer Analyst, BufferedImage Image, List<? extends Pair<String, BufferedImage>> Transforms) {
+        this.Analyst = Analyst;
+        Inspector = PixelInspector.of(Analyst);
+        this.Transforms = Transforms;
+        this.Image = Image;
+        initComponents();
+        var plan = Analyst.getLoadPlan();
+        StatusLabel.setText(plan != null && plan.Strategy() == ImageLoader.Strategy.Overview
+                ? String.format("%s. drag over the image to analyze a area at full resolution", plan.describe())
+                : "click to pin the pixel. drag to select a area");
+        if (Analyst.getFilePath() == null) {
+            //only a file can be read again. (a frame or a URL cannot)
+            ToolbarPanel.remove(RegionButton);
+        }
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ToolbarPanel = new javax.swing.JPanel();
+        BitLabel = new javax.swing.JLabel();
+        BitSpinner = new javax.swing.JSpinner();
+        CopyButton = new javax.swing.JButton();
+        RegionButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        ImageView = new SelectionView(Image);
+        ReadoutScroll = new javax.swing.JScrollPane();
+        Readout = new javax.swing.JTextArea();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        BitLabel.setText("Bit");
+        ToolbarPanel.add(BitLabel);
+
+        BitSpinner.setModel(new javax.swing.SpinnerNumberModel(0, 0, 7, 1));
+        ToolbarPanel.add(BitSpinner);
+
+        CopyButton.setText(String.format("Copy %dx%d bits", DUMP_SIZE, DUMP_SIZE));
+        CopyButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                CopyButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(CopyButton);
+
+        RegionButton.setText("Analyze Region");
+        RegionButton.setEnabled(false);
+        RegionButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                RegionButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(RegionButton);
+        ToolbarPanel.add(StatusLabel);
+
+        add(ToolbarPanel, java.awt.BorderLayout.PAGE_START);
+
+        ImageView.setCursor(new java.awt.Cursor(java.awt.Cursor.CROSSHAIR_CURSOR));
+        ImageView.SetBackgroundPolicy(ImageScaleComponents.SCALE_SMALL_ONLY);
+        ImageView.SmoothWhenScale(false);
+        ImageView.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mouseClicked(java.awt.event.MouseEvent evt) {
+                ImageViewMouseClicked(evt);
+            }
+            public void mousePressed(java.awt.event.MouseEvent evt) {
+                ImageViewMousePressed(evt);
+            }
+        });
+        ImageView.addMouseMotionListener(new java.awt.event.MouseMotionAdapter() {
+            public void mouseDragged(java.awt.event.MouseEvent evt) {
+                ImageViewMouseDragged(evt);
+            }
+            public void mouseMoved(java.awt.event.MouseEvent evt) {
+                ImageViewMouseMoved(evt);
+            }
+        });
+
+        javax.swing.GroupLayout ImageViewLayout = new javax.swing.GroupLayout(ImageView);
+        ImageView.setLayout(ImageViewLayout);
+        ImageViewLayout.setHorizontalGroup(
+            ImageViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+        ImageViewLayout.setVerticalGroup(
+            ImageViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+
+        add(ImageView, java.awt.BorderLayout.CENTER);
+
+        ReadoutScroll.setPreferredSize(new java.awt.Dimension(360, 0));
+
+        Readout.setEditable(false);
+        Readout.setFont(new java.awt.Font(java.awt.Font.MONOSPACED, java.awt.Font.PLAIN, Readout.getFont().getSize()));
+        ReadoutScroll.setViewportView(Readout);
+
+        add(ReadoutScroll, java.awt.BorderLayout.LINE_END);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void CopyButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CopyButtonActionPerformed
+        copyBits();
+    }//GEN-LAST:event_CopyButtonActionPerformed
+
+    private void RegionButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_RegionButtonActionPerformed
+        analyzeRegion();
+    }//GEN-LAST:event_RegionButtonActionPerformed
+
+    private void ImageViewMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_ImageViewMouseClicked
+        final int x = ImageView.toImageX(evt.getX()), y = ImageView.toImageY(evt.getY());
+        Pinned = !Pinned && Inspector.contains(x, y);
+        inspect(x, y);
+        StatusLabel.setText(Pinned ? "pinned. click again to follow the mouse" : "click to pin the pixel");
+    }//GEN-LAST:event_ImageViewMouseClicked
+
+    private void ImageViewMousePressed(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_ImageViewMousePressed
+        AnchorX = ImageView.toImageX(evt.getX());
+        AnchorY = ImageView.toImageY(evt.getY());
+    }//GEN-LAST:event_ImageViewMousePressed
+
+    private void ImageViewMouseDragged(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_ImageViewMouseDragged
+        select(AnchorX, AnchorY, ImageView.toImageX(evt.getX()), ImageView.toImageY(evt.getY()));
+    }//GEN-LAST:event_ImageViewMouseDragged
+
+    private void ImageViewMouseMoved(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_ImageViewMouseMoved
+        if (!Pinned) {
+            inspect(ImageView.toImageX(evt.getX()), ImageView.toImageY(evt.getY()));
+        }
+    }//GEN-LAST:event_ImageViewMouseMoved
+
+    private void inspect(int x, int y) {
+        if (x == ShownX && y == ShownY) {
+            return;//same pixel. (several mouse positions map to the same pixel)
+        }
+        ShownX = x;
+        ShownY = y;
+        Inspector.describe(x, y, Transforms, Text);
+        Readout.setText(Text.toString());
+        Readout.setCaretPosition(0);
+    }
+
+    /**
+     * selects the area between the 2 corners. a corner outside of the image
+     * keeps the selection as it is.
+     */
+    private void select(int x1, int y1, int x2, int y2) {
+        if (!Inspector.contains(x1, y1) || !Inspector.contains(x2, y2)) {
+            return;
+        }
+        Selection = new Rectangle(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1) + 1, Math.abs(y2 - y1) + 1);
+        var plan = Analyst.getLoadPlan();
+        var source = plan == null ? Selection : plan.toSource(Selection);
+        RegionButton.setEnabled(Selection.width > 1 && Selection.height > 1);
+        StatusLabel.setText(String.format("selected %dx%d at (%d,%d) of the file", source.width, source.height, source.x, source.y));
+        ImageView.repaint();
+    }
+
+    /**
+     * asks to analyze the selected area. (on the file)
+     */
+    private void analyzeRegion() {
+        var plan = Analyst.getLoadPlan();
+        if (Selection == null || plan == null) {
+            return;
+        }
+        firePropertyChange(ANALYZE_REGION, Analyst.getFilePath(), plan.toSource(Selection));
+    }
+
+    private void copyBits() {
+        if (!Inspector.contains(ShownX, ShownY)) {
+            StatusLabel.setText("hover (or pin) a pixel first");
+            return;
+        }
+        var dump = Inspector.dumpBits(ShownX, ShownY, DUMP_SIZE, (int) BitSpinner.getValue());
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(dump), null);
+        StatusLabel.setText(String.format("copied the bits around (%d,%d)", ShownX, ShownY));
+    }
+
+    /**
+     * the image with the selected area drawn over it.
+     */
+    private class SelectionView extends ImagePanel {
+
+        private SelectionView(BufferedImage Image) {
+            super(Image);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (Selection != null) {
+                var area = toPanel(Selection);
+                g.setColor(SELECTION);
+                g.drawRect(area.x, area.y, Math.max(1, area.width - 1), Math.max(1, area.height - 1));
+            }
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JLabel BitLabel;
+    private javax.swing.JSpinner BitSpinner;
+    private javax.swing.JButton CopyButton;
+    private com.aeongames.edi.utils.visual.Panels.ImagePanel ImageView;
+    private javax.swing.JTextArea Readout;
+    private javax.swing.JScrollPane ReadoutScroll;
+    private javax.swing.JButton RegionButton;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JPanel ToolbarPanel;
+    // End of variables declaration//GEN-END:variables
+}
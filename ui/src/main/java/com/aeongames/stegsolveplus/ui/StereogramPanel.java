@@ -0,0 +1,236 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.edi.utils.visual.ImageScaleComponents;
+import com.aeongames.stegsolveplus.StegnoTools.StegnoAnalyzer;
+import com.aeongames.stegsolveplus.StegnoTools.StereogramSolver;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingWorker;
+
+/**
+ * the stereogram solver. (see {@link StereogramSolver}) the offset is picked
+ * with a slider (or spinner) and the image is redrawn on the background. while
+ * a render runs the changes are coalesced into a single render after it. the
+ * sweep proposes the offset.
+ *
+ * @author Eduardo Vindas
+ */
+public class StereogramPanel extends javax.swing.JPanel {
+
+    private final StereogramSolver Solver;
+    private final BufferedImage Target;
+    private boolean Rendering, Pending;
+    /**
+     * the offset proposed by the last sweep. shown next to the offset.
+     */
+    private String Proposal = "";
+
+    /**
+     * Creates new form StereogramPanel
+     */
+    public StereogramPanel(StegnoAnalyzer Analyst) {
+        Solver = StereogramSolver.of(Analyst);
+        Target = Solver.createTarget();
+        initComponents();
+        SolvedView.changeImage(Target);
+        render();
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ControlsPanel = new javax.swing.JPanel();
+        OffsetSlider = new javax.swing.JSlider();
+        ToolbarPanel = new javax.swing.JPanel();
+        OffsetLabel = new javax.swing.JLabel();
+        OffsetSpinner = new javax.swing.JSpinner();
+        ModeBox = new javax.swing.JComboBox<>();
+        SweepButton = new javax.swing.JButton();
+        StatusLabel = new javax.swing.JLabel();
+        SolvedView = new com.aeongames.edi.utils.visual.Panels.ImagePanel();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ControlsPanel.setOpaque(false);
+        ControlsPanel.setLayout(new java.awt.BorderLayout());
+
+        OffsetSlider.setMaximum(Math.max(2, Solver.getWidth() - 1));
+        OffsetSlider.setMinimum(1);
+        OffsetSlider.setValue(1);
+        OffsetSlider.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                OffsetSliderStateChanged(evt);
+            }
+        });
+        ControlsPanel.add(OffsetSlider, java.awt.BorderLayout.CENTER);
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        OffsetLabel.setText("Offset");
+        ToolbarPanel.add(OffsetLabel);
+
+        OffsetSpinner.setModel(new javax.swing.SpinnerNumberModel(1, 1, Math.max(2, Solver.getWidth() - 1), 1));
+        OffsetSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
+            public void stateChanged(javax.swing.event.ChangeEvent evt) {
+                OffsetSpinnerStateChanged(evt);
+            }
+        });
+        ToolbarPanel.add(OffsetSpinner);
+
+        ModeBox.setModel(new javax.swing.DefaultComboBoxModel<>(StereogramSolver.Mode.values()));
+        ModeBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ModeBoxActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(ModeBox);
+
+        SweepButton.setText("Find Offset");
+        SweepButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                SweepButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(SweepButton);
+        ToolbarPanel.add(StatusLabel);
+
+        ControlsPanel.add(ToolbarPanel, java.awt.BorderLayout.PAGE_END);
+
+        add(ControlsPanel, java.awt.BorderLayout.PAGE_START);
+
+        SolvedView.SetBackgroundPolicy(ImageScaleComponents.SCALE_SMALL_ONLY);
+        SolvedView.SmoothWhenScale(false);
+
+        javax.swing.GroupLayout SolvedViewLayout = new javax.swing.GroupLayout(SolvedView);
+        SolvedView.setLayout(SolvedViewLayout);
+        SolvedViewLayout.setHorizontalGroup(
+            SolvedViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+        SolvedViewLayout.setVerticalGroup(
+            SolvedViewLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
+            .addGap(0, 0, Short.MAX_VALUE)
+        );
+
+        add(SolvedView, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void OffsetSliderStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_OffsetSliderStateChanged
+        if ((int) OffsetSpinner.getValue() != OffsetSlider.getValue()) {
+            OffsetSpinner.setValue(OffsetSlider.getValue());
+        }
+    }//GEN-LAST:event_OffsetSliderStateChanged
+
+    private void OffsetSpinnerStateChanged(javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_OffsetSpinnerStateChanged
+        if ((int) OffsetSpinner.getValue() != OffsetSlider.getValue()) {
+            OffsetSlider.setValue((int) OffsetSpinner.getValue());
+        }
+        render();
+    }//GEN-LAST:event_OffsetSpinnerStateChanged
+
+    private void ModeBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ModeBoxActionPerformed
+        render();
+    }//GEN-LAST:event_ModeBoxActionPerformed
+
+    private void SweepButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_SweepButtonActionPerformed
+        sweep();
+    }//GEN-LAST:event_SweepButtonActionPerformed
+
+    /**
+     * draws the current offset on the background. if a render is running the
+     * request waits for it. (only the last one is drawn)
+     */
+    private void render() {
+        if (Rendering) {
+            Pending = true;
+            return;
+        }
+        Rendering = true;
+        final int offset = (int) OffsetSpinner.getValue();
+        final var mode = (StereogramSolver.Mode) ModeBox.getSelectedItem();
+        new SwingWorker<Double, Void>() {
+            @Override
+            protected Double doInBackground() throws Exception {
+                final long start = System.nanoTime();
+                Solver.render(offset, mode, Target);
+                return (System.nanoTime() - start) / 1e6;
+            }
+
+            @Override
+            protected void done() {
+                Rendering = false;
+                try {
+                    var elapsed = get();
+                    SolvedView.changeImage(Target);
+                    StatusLabel.setText(String.format("offset %d, %.1f ms%s", offset, elapsed, Proposal));
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(StereogramPanel.class.getName()).log(Level.SEVERE, "unable to render the offset", ex);
+                    StatusLabel.setText(String.format("unable to render the offset: %s", ex.getMessage()));
+                }
+                if (Pending) {
+                    Pending = false;
+                    render();
+                }
+            }
+        }.execute();
+    }
+
+    private void sweep() {
+        SweepButton.setEnabled(false);
+        StatusLabel.setText(String.format("Trying the offsets 1 to %d...", Solver.getMaxOffset()));
+        new SwingWorker<StereogramSolver.Sweep, Void>() {
+            @Override
+            protected StereogramSolver.Sweep doInBackground() throws Exception {
+                return Solver.sweep();
+            }
+
+            @Override
+            protected void done() {
+                SweepButton.setEnabled(true);
+                try {
+                    var result = get();
+                    Proposal = String.format(", proposed offset %d (difference %.1f)", result.Best(), result.Energy()[result.Best()]);
+                    StatusLabel.setText(Proposal.substring(2));
+                    OffsetSpinner.setValue(result.Best());
+                } catch (InterruptedException | ExecutionException ex) {
+                    LoggingHelper.getLogger(StereogramPanel.class.getName()).log(Level.SEVERE, "unable to sweep the offsets", ex);
+                    StatusLabel.setText(String.format("unable to sweep the offsets: %s", ex.getMessage()));
+                }
+            }
+        }.execute();
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JPanel ControlsPanel;
+    private javax.swing.JComboBox<StereogramSolver.Mode> ModeBox;
+    private javax.swing.JLabel OffsetLabel;
+    private javax.swing.JSlider OffsetSlider;
+    private javax.swing.JSpinner OffsetSpinner;
+    private com.aeongames.edi.utils.visual.Panels.ImagePanel SolvedView;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JButton SweepButton;
+    private javax.swing.JPanel ToolbarPanel;
+    // End of variables declaration//GEN-END:variables
+}
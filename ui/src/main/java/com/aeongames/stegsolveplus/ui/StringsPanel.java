@@ -0,0 +1,249 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.edi.utils.error.LoggingHelper;
+import com.aeongames.stegsolveplus.StegnoTools.FoundString;
+import com.aeongames.stegsolveplus.StegnoTools.StringScanner;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import javax.swing.JFileChooser;
+import javax.swing.JOptionPane;
+import javax.swing.RowFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * lists the printable strings and the flag pattern matches found on the file
+ * and on the candidate bit streams. can be filtered to the flags only and
+ * exported as CSV.
+ *
+ * @author Eduardo Vindas
+ */
+public class StringsPanel extends javax.swing.JPanel {
+
+    private static final String[] COLUMNS = {"Source", "Offset", "Encoding", "Flag", "Text"};
+    private final StringsModel Model = new StringsModel();
+    private final TableRowSorter<StringsModel> Sorter = new TableRowSorter<>(Model);
+
+    /**
+     * Creates new form StringsPanel
+     */
+    public StringsPanel() {
+        initComponents();
+    }
+
+    /**
+     * adds the strings found so far.
+     *
+     * @param strings the new strings.
+     */
+    public void addStrings(List<FoundString> strings) {
+        Model.add(strings);
+        StatusLabel.setText(String.format("Searching for strings... %d found so far (%d flags)", Model.Strings.size(), Model.FlagCount));
+        ExportButton.setEnabled(!Model.Strings.isEmpty());
+    }
+
+    /**
+     * replaces the strings with the final results. if the list is null the
+     * search failed.
+     *
+     * @param strings the whole list of strings.
+     */
+    public void setStrings(List<FoundString> strings) {
+        if (strings == null) {
+            StatusLabel.setText("the search for strings failed. see the logs");
+            return;
+        }
+        Model.clear();
+        Model.add(strings);
+        StatusLabel.setText(String.format("Search done: %d strings found (%d flags)", Model.Strings.size(), Model.FlagCount));
+        ExportButton.setEnabled(!Model.Strings.isEmpty());
+        if (Model.FlagCount > 0 && !FlagsOnly.isSelected()) {
+            //the flags are what the user is looking for. show them first
+            FlagsOnly.setSelected(true);
+            updateFilter();
+        }
+    }
+
+    private void updateFilter() {
+        if (FlagsOnly.isSelected()) {
+            Sorter.setRowFilter(new RowFilter<StringsModel, Integer>() {
+                @Override
+                public boolean include(Entry<? extends StringsModel, ? extends Integer> entry) {
+                    return Model.Strings.get(entry.getIdentifier()).isFlag();
+                }
+            });
+        } else {
+            Sorter.setRowFilter(null);
+        }
+    }
+
+    private void exportCSV() {
+        JFileChooser fileChooser = new JFileChooser(System.getProperty("user.dir"));
+        fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+        fileChooser.setSelectedFile(new File("strings.csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        var destination = fileChooser.getSelectedFile().toPath();
+        var rows = new ArrayList<FoundString>(StringsTable.getRowCount());
+        for (int row = 0; row < StringsTable.getRowCount(); row++) {
+            rows.add(Model.Strings.get(StringsTable.convertRowIndexToModel(row)));
+        }
+        try (var writer = Files.newBufferedWriter(destination, StandardCharsets.UTF_8)) {
+            StringScanner.writeCSV(rows, writer);
+        } catch (IOException ex) {
+            LoggingHelper.getLogger(StringsPanel.class.getName()).log(Level.SEVERE, "unable to export the strings", ex);
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Unable to export", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        ToolbarPanel = new javax.swing.JPanel();
+        ExportButton = new javax.swing.JButton();
+        FlagsOnly = new javax.swing.JCheckBox();
+        StatusLabel = new javax.swing.JLabel();
+        StringsScroll = new javax.swing.JScrollPane();
+        StringsTable = new javax.swing.JTable();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        ToolbarPanel.setOpaque(false);
+        ToolbarPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        ExportButton.setText("Export CSV...");
+        ExportButton.setEnabled(false);
+        ExportButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                ExportButtonActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(ExportButton);
+
+        FlagsOnly.setText("Flags only");
+        FlagsOnly.setOpaque(false);
+        FlagsOnly.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                FlagsOnlyActionPerformed(evt);
+            }
+        });
+        ToolbarPanel.add(FlagsOnly);
+
+        StatusLabel.setText("Searching for strings...");
+        ToolbarPanel.add(StatusLabel);
+
+        add(ToolbarPanel, java.awt.BorderLayout.PAGE_START);
+
+        StringsTable.setModel(Model);
+        StringsTable.setRowSorter(Sorter);
+        StringsScroll.setViewportView(StringsTable);
+
+        add(StringsScroll, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private void ExportButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_ExportButtonActionPerformed
+        exportCSV();
+    }//GEN-LAST:event_ExportButtonActionPerformed
+
+    private void FlagsOnlyActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_FlagsOnlyActionPerformed
+        updateFilter();
+    }//GEN-LAST:event_FlagsOnlyActionPerformed
+
+    private static class StringsModel extends AbstractTableModel {
+
+        private final List<FoundString> Strings = new ArrayList<>();
+        private int FlagCount = 0;
+
+        private void add(List<FoundString> strings) {
+            if (strings.isEmpty()) {
+                return;
+            }
+            var first = Strings.size();
+            Strings.addAll(strings);
+            for (var found : strings) {
+                if (found.isFlag()) {
+                    FlagCount++;
+                }
+            }
+            fireTableRowsInserted(first, Strings.size() - 1);
+        }
+
+        private void clear() {
+            Strings.clear();
+            FlagCount = 0;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return Strings.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 1 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            var found = Strings.get(row);
+            return switch (column) {
+                case 0 ->
+                    found.Source();
+                case 1 ->
+                    found.Offset();
+                case 2 ->
+                    found.Encoding();
+                case 3 ->
+                    found.isFlag() ? found.Flag() : "";
+                default ->
+                    found.Text();
+            };
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton ExportButton;
+    private javax.swing.JCheckBox FlagsOnly;
+    private javax.swing.JLabel StatusLabel;
+    private javax.swing.JScrollPane StringsScroll;
+    private javax.swing.JTable StringsTable;
+    private javax.swing.JPanel ToolbarPanel;
+    // End of variables declaration//GEN-END:variables
+}
@@ -0,0 +1,193 @@
+/*
+ *
+ * Copyright © 2024 Eduardo Vindas. All rights reserved.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package com.aeongames.stegsolveplus.ui;
+
+import com.aeongames.stegsolveplus.StegnoTools.FileStructure;
+import com.aeongames.stegsolveplus.StegnoTools.StructureEntry;
+import java.awt.Color;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+
+/**
+ * shows the structure of the file (chunks, segments) as read by the format
+ * inspectors. the suspicious entries are highlighted and the metadata and
+ * warnings are listed below the table.
+ *
+ * @author Eduardo Vindas
+ */
+public class StructurePanel extends javax.swing.JPanel {
+
+    private static final String[] COLUMNS = {"Name", "Offset", "Offset (hex)", "Length", "Details"};
+    private static final Color SUSPICIOUS_COLOR = new Color(200, 40, 40);
+    private final EntriesModel Model = new EntriesModel();
+
+    /**
+     * Creates new form StructurePanel
+     */
+    public StructurePanel() {
+        initComponents();
+        EntriesTable.setDefaultRenderer(Object.class, new SuspiciousRenderer());
+        EntriesTable.setDefaultRenderer(Long.class, new SuspiciousRenderer());
+    }
+
+    /**
+     * shows the structure.
+     *
+     * @param structure the structure to show.
+     */
+    public void setStructure(FileStructure structure) {
+        Model.setEntries(structure.getEntries());
+        var summary = String.format("%s, %d bytes, %d entries, %d suspicious", structure.getFormat(),
+                structure.getFileSize(), structure.getEntries().size(), structure.getSuspiciousCount());
+        if (structure.hasTrailingData()) {
+            summary += String.format(". %d bytes after the end of the image", structure.getTrailingLength());
+        }
+        SummaryLabel.setText(summary);
+        SummaryLabel.setForeground(structure.getSuspiciousCount() > 0 ? SUSPICIOUS_COLOR : null);
+        var text = new StringBuilder();
+        if (!structure.getWarnings().isEmpty()) {
+            text.append("Warnings:\n");
+            for (var warning : structure.getWarnings()) {
+                text.append("  ").append(warning).append('\n');
+            }
+            text.append('\n');
+        }
+        text.append("Metadata:\n");
+        for (var pair : structure.getMetadata()) {
+            text.append("  ").append(pair.getLeft()).append(": ").append(pair.getRight()).append('\n');
+        }
+        MetadataText.setText(text.toString());
+        MetadataText.setCaretPosition(0);
+    }
+
+    /**
+     * This method is called from within the constructor to initialize the form.
+     * WARNING: Do NOT modify this code. The content of this method is always
+     * regenerated by the Form Editor.
+     */
+    @SuppressWarnings("unchecked")
+    // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
+    private void initComponents() {
+
+        HeaderPanel = new javax.swing.JPanel();
+        SummaryLabel = new javax.swing.JLabel();
+        StructureSplit = new javax.swing.JSplitPane();
+        EntriesScroll = new javax.swing.JScrollPane();
+        EntriesTable = new javax.swing.JTable();
+        MetadataScroll = new javax.swing.JScrollPane();
+        MetadataText = new javax.swing.JTextArea();
+
+        setOpaque(false);
+        setLayout(new java.awt.BorderLayout());
+
+        HeaderPanel.setOpaque(false);
+        HeaderPanel.setLayout(new java.awt.FlowLayout(java.awt.FlowLayout.LEADING));
+
+        SummaryLabel.setText("the structure of this file is not available");
+        HeaderPanel.add(SummaryLabel);
+
+        add(HeaderPanel, java.awt.BorderLayout.PAGE_START);
+
+        StructureSplit.setOrientation(javax.swing.JSplitPane.VERTICAL_SPLIT);
+        StructureSplit.setResizeWeight(0.7);
+        StructureSplit.setOpaque(false);
+
+        EntriesTable.setModel(Model);
+        EntriesScroll.setViewportView(EntriesTable);
+
+        StructureSplit.setTopComponent(EntriesScroll);
+
+        MetadataText.setEditable(false);
+        MetadataText.setLineWrap(true);
+        MetadataScroll.setViewportView(MetadataText);
+
+        StructureSplit.setBottomComponent(MetadataScroll);
+
+        add(StructureSplit, java.awt.BorderLayout.CENTER);
+    }// </editor-fold>//GEN-END:initComponents
+
+    private class SuspiciousRenderer extends DefaultTableCellRenderer {
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            var component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            var entry = Model.Entries.get(table.convertRowIndexToModel(row));
+            if (!isSelected) {
+                component.setForeground(entry.Suspicious() ? SUSPICIOUS_COLOR : table.getForeground());
+            }
+            return component;
+        }
+    }
+
+    private static class EntriesModel extends AbstractTableModel {
+
+        private final List<StructureEntry> Entries = new ArrayList<>();
+
+        private void setEntries(List<StructureEntry> entries) {
+            Entries.clear();
+            Entries.addAll(entries);
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return Entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 1 || column == 3 ? Long.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            var entry = Entries.get(row);
+            return switch (column) {
+                case 0 ->
+                    entry.Name();
+                case 1 ->
+                    entry.Offset();
+                case 2 ->
+                    entry.getHexOffset();
+                case 3 ->
+                    entry.Length();
+                default ->
+                    entry.Details();
+            };
+        }
+    }
+
+    // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JScrollPane EntriesScroll;
+    private javax.swing.JTable EntriesTable;
+    private javax.swing.JPanel HeaderPanel;
+    private javax.swing.JScrollPane MetadataScroll;
+    private javax.swing.JTextArea MetadataText;
+    private javax.swing.JSplitPane StructureSplit;
+    private javax.swing.JLabel SummaryLabel;
+    // End of variables declaration//GEN-END:variables
+}